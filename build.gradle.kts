@@ -7,6 +7,7 @@ plugins {
     id("org.flywaydb.flyway") version "10.0.0"
     id("nu.studer.jooq") version "9.0"
     id("com.google.protobuf") version "0.9.4"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "qodo.ru"
@@ -97,6 +98,9 @@ dependencies {
     testImplementation("io.grpc:grpc-testing:1.58.0")
     testImplementation("org.mockito:mockito-inline:5.2.0")
     testImplementation("org.awaitility:awaitility:4.2.0")
+
+    // Микробенчмарки (src/jmh): размер объектов в отчетах
+    jmh("org.openjdk.jol:jol-core:0.17")
 }
 
 // Настройка jOOQ
@@ -173,6 +177,42 @@ tasks.withType<Test> {
     useJUnitPlatform()
     // Включаем виртуальные потоки для тестов
     jvmArgs("-Djdk.virtualThreadScheduler.parallelism=10")
+    // FFM API (java.lang.foreign) в Java 21 - preview
+    jvmArgs("--enable-preview")
+}
+
+// Замеры на Testcontainers (@Tag("benchmark")) долгие и не входят в обычный test
+tasks.named<Test>("test") {
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+// ./gradlew benchmarkTest - замеры с реальными Postgres/Redis, результаты в stdout
+val benchmarkTest by tasks.registering(Test::class) {
+    description = "Runs @Tag(\"benchmark\") measurements against Testcontainers"
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    testLogging {
+        showStandardStreams = true
+    }
+}
+
+// Микробенчмарки в src/jmh: ./gradlew jmh, один класс - ./gradlew jmh -PjmhIncludes=AvailabilityBenchmark,
+// аллокации на операцию - -PjmhProfilers=gc
+jmh {
+    jmhVersion.set("1.37")
+    jvmArgs.addAll(listOf("--enable-preview"))
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    (findProperty("jmhIncludes") as String?)?.let { includes.set(listOf(it)) }
+    (findProperty("jmhProfilers") as String?)?.let { profilers.set(it.split(",")) }
 }
 
 tasks.withType<JavaCompile> {
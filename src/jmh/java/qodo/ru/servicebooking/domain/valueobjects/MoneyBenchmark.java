@@ -0,0 +1,114 @@
+package qodo.ru.servicebooking.domain.valueobjects;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Суммирование выручки: {@link Money} (новый BigDecimal на каждом шаге)
+ * против {@link FastMoney} и массового {@link FastMoney#sumMinor} по массиву копеек.
+ *
+ * Запуск: ./gradlew jmh -PjmhIncludes=MoneyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoneyBenchmark {
+
+    private static final BigDecimal DISCOUNT = new BigDecimal("0.85");
+
+    @Param({"1000", "100000"})
+    public int prices;
+
+    private Money[] money;
+    private BigDecimal[] amounts;
+    private FastMoney[] fastMoney;
+    private long[] minorUnits;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        money = new Money[prices];
+        amounts = new BigDecimal[prices];
+        fastMoney = new FastMoney[prices];
+        minorUnits = new long[prices];
+
+        Random random = new Random(42);
+        for (int i = 0; i < prices; i++) {
+            // 1000.00 - 10000.00 руб.
+            BigDecimal amount = BigDecimal.valueOf(100_000 + random.nextInt(900_000), 2);
+            money[i] = Money.rubles(amount);
+            amounts[i] = amount;
+            fastMoney[i] = money[i].toFastMoney();
+            minorUnits[i] = fastMoney[i].getMinorUnits();
+        }
+    }
+
+    @Benchmark
+    public Money sumMoney() {
+        Money sum = Money.rubles(BigDecimal.ZERO);
+        for (Money price : money) {
+            sum = sum.add(price);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public BigDecimal sumBigDecimal() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            sum = sum.add(amount);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public FastMoney sumFastMoney() {
+        FastMoney sum = FastMoney.ofMinor(0, "RUB");
+        for (FastMoney price : fastMoney) {
+            sum = sum.add(price);
+        }
+        return sum;
+    }
+
+    /**
+     * Скалярный цикл с проверкой на каждом шаге - не векторизуется.
+     */
+    @Benchmark
+    public long sumMinorAddExact() {
+        long sum = 0;
+        for (long value : minorUnits) {
+            sum = Math.addExact(sum, value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sumMinorBulk() {
+        return FastMoney.sumMinor(minorUnits, 0, minorUnits.length);
+    }
+
+    @Benchmark
+    public void discountMoney(Blackhole blackhole) {
+        for (Money price : money) {
+            blackhole.consume(price.multiply(DISCOUNT));
+        }
+    }
+
+    @Benchmark
+    public void discountFastMoney(Blackhole blackhole) {
+        for (FastMoney price : fastMoney) {
+            blackhole.consume(price.multiply(DISCOUNT));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package qodo.ru.servicebooking.domain.valueobjects;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Нормализация номеров при импорте: прежний путь на регулярных выражениях
+ * (replaceAll, конкатенация, matches, String.format) против однопроходного {@link PhoneDigits}.
+ *
+ * Запуск: ./gradlew jmh -PjmhIncludes=PhoneNumberBenchmark -PjmhProfilers=gc (аллокации на операцию)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PhoneNumberBenchmark {
+
+    private static final int INPUTS = 4_096;
+
+    // Прежняя реализация PhoneNumber - база для сравнения
+    private static final Pattern RUSSIAN_PHONE = Pattern.compile("^\\+7\\d{10}$");
+    private static final Pattern DIGITS_ONLY = Pattern.compile("\\D");
+
+    private String[] inputs;
+    private PhoneNumber[] numbers;
+    private final char[] buffer = new char[PhoneDigits.E164_LENGTH];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        inputs = new String[INPUTS];
+        numbers = new PhoneNumber[INPUTS];
+        Random random = new Random(42);
+        for (int i = 0; i < INPUTS; i++) {
+            long subscriber = 9_000_000_000L + random.nextInt(1_000_000_000);
+            String digits = Long.toString(subscriber);
+            inputs[i] = switch (i % 4) {
+                case 0 -> "+7" + digits;
+                case 1 -> "8" + digits;
+                case 2 -> "+7 (" + digits.substring(0, 3) + ") " + digits.substring(3, 6) + "-"
+                        + digits.substring(6, 8) + "-" + digits.substring(8);
+                default -> digits;
+            };
+            numbers[i] = PhoneNumber.of(inputs[i]);
+        }
+    }
+
+    @Benchmark
+    public String normalizeRegex() {
+        String phone = nextInput();
+        String normalized = legacyNormalize(phone);
+        if (!RUSSIAN_PHONE.matcher(normalized).matches()) {
+            throw new IllegalArgumentException(phone);
+        }
+        return normalized;
+    }
+
+    @Benchmark
+    public PhoneNumber normalizeScanning() {
+        return PhoneNumber.of(nextInput());
+    }
+
+    /**
+     * Массовый путь без объектов: упаковка в long и запись в переиспользуемый буфер.
+     */
+    @Benchmark
+    public void normalizeIntoBuffer(Blackhole blackhole) {
+        blackhole.consume(PhoneDigits.normalize(nextInput(), buffer, 0));
+        blackhole.consume(buffer);
+    }
+
+    @Benchmark
+    public long packOnly() {
+        return PhoneDigits.pack(nextInput());
+    }
+
+    @Benchmark
+    public String formatStringFormat() {
+        String value = numbers[nextIndex()].getValue();
+        return String.format("%s (%s) %s-%s-%s",
+                value.substring(0, 2), value.substring(2, 5), value.substring(5, 8),
+                value.substring(8, 10), value.substring(10, 12));
+    }
+
+    @Benchmark
+    public String formatScanning() {
+        return numbers[nextIndex()].format();
+    }
+
+    private String nextInput() {
+        return inputs[nextIndex()];
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (INPUTS - 1);
+        return next;
+    }
+
+    private static String legacyNormalize(String phone) {
+        String digits = DIGITS_ONLY.matcher(phone).replaceAll("");
+        if (digits.startsWith("8") && digits.length() == 11) {
+            digits = "7" + digits.substring(1);
+        }
+        if (digits.startsWith("7") && digits.length() == 11) {
+            return "+" + digits;
+        }
+        if (digits.length() == 10) {
+            return "+7" + digits;
+        }
+        return "+" + digits;
+    }
+}
@@ -0,0 +1,129 @@
+package qodo.ru.servicebooking.infrastructure.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import qodo.ru.servicebooking.domain.entity.Booking;
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * old_values/new_values одной записи аудита: прежний путь (Booking целиком -> Map -> JSON
+ * с каждой стороны, как AuditLogWriter.toJson) против {@link BookingDiff}.
+ * Размер строки аудита (байт JSON на обе стороны) печатается при setup.
+ *
+ * Запуск: ./gradlew jmh -PjmhIncludes=BookingDiffBenchmark -PjmhProfilers=gc (аллокации на изменение)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookingDiffBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    /**
+     * confirm - статус, confirmedAt и version; reschedule - слот, время и version.
+     */
+    @Param({"confirm", "reschedule"})
+    public String change;
+
+    private ObjectMapper objectMapper;
+    private BookingDiff bookingDiff;
+    private Booking before;
+    private Booking after;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        // Как у Spring Boot: JavaTimeModule, даты строками
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        bookingDiff = new BookingDiff(objectMapper);
+
+        before = newBooking();
+        after = BookingDiff.snapshot(before);
+        switch (change) {
+            case "confirm" -> {
+                after.setStatus(BookingStatus.CONFIRMED);
+                after.setConfirmedAt(before.getCreatedAt().plusMinutes(3));
+            }
+            case "reschedule" -> {
+                after.setSlotId(UUID.randomUUID());
+                after.setScheduledAt(before.getScheduledAt().plusDays(1));
+            }
+            default -> throw new IllegalArgumentException("Unknown change: " + change);
+        }
+        after.setUpdatedAt(before.getUpdatedAt().plusMinutes(3));
+        after.setVersion(before.getVersion() + 1);
+
+        String[] full = fullEntity(before, after);
+        BookingDiff.Changes diff = bookingDiff.diff(before, after);
+        System.out.printf("%naudit row (%s): full entity %d bytes, diff %d bytes (%d fields)%n",
+                change, utf8(full[0]) + utf8(full[1]), utf8(diff.oldValues()) + utf8(diff.newValues()),
+                diff.changedFields());
+    }
+
+    @Benchmark
+    public void fullEntityJson(Blackhole blackhole) throws JsonProcessingException {
+        blackhole.consume(fullEntity(before, after));
+    }
+
+    @Benchmark
+    public BookingDiff.Changes fieldDiff() {
+        return bookingDiff.diff(before, after);
+    }
+
+    private String[] fullEntity(Booking oldState, Booking newState) throws JsonProcessingException {
+        Map<String, Object> oldValues = objectMapper.convertValue(oldState, MAP_TYPE);
+        Map<String, Object> newValues = objectMapper.convertValue(newState, MAP_TYPE);
+        return new String[]{objectMapper.writeValueAsString(oldValues), objectMapper.writeValueAsString(newValues)};
+    }
+
+    private static int utf8(String json) {
+        return json.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static Booking newBooking() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 6, 1, 12, 0);
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("utm_source", "telegram");
+        metadata.put("promo", "SUMMER");
+
+        return Booking.builder()
+                .id(UUID.randomUUID())
+                .accountId(UUID.randomUUID())
+                .slotId(UUID.randomUUID())
+                .clientUserId(UUID.randomUUID())
+                .serviceId(UUID.randomUUID())
+                .price(new BigDecimal("2500.00"))
+                .durationMinutes(90)
+                .scheduledAt(LocalDateTime.of(2024, 6, 3, 10, 0))
+                .idempotencyKey(UUID.randomUUID().toString())
+                .clientName("Анна Смирнова")
+                .clientPhone("+79161234567")
+                .serviceName("Окрашивание")
+                .notes("Аллергия на аммиак")
+                .metadata(metadata)
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .version(1)
+                .build();
+    }
+}
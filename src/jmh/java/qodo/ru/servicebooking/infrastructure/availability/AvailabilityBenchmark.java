@@ -0,0 +1,147 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+import qodo.ru.servicebooking.domain.valueobjects.TimeSlot;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.BookingInterval;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.IntervalsChanged;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск свободных окон для 10k мастеров: битовая карта {@link AvailabilityIndex}
+ * против прежнего пути - перебор бронирований дня и попарный {@link TimeSlot#overlaps}
+ * (без похода в БД, то есть нижняя граница его стоимости).
+ *
+ * Запуск: ./gradlew jmh -PjmhIncludes=AvailabilityBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AvailabilityBenchmark {
+
+    private static final int DURATION_MINUTES = 60;
+    private static final int LIMIT = 5;
+
+    @Param("10000")
+    public int masters;
+
+    @Param("30")
+    public int bookedDays;
+
+    @Param("6")
+    public int bookingsPerDay;
+
+    private AvailabilityIndex index;
+    private UUID[] accountIds;
+    private List<TimeSlot>[][] bookingsByDay;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        BookingProperties properties = new BookingProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        index = new AvailabilityIndex(properties, new BookingOverlapIndex(meterRegistry), meterRegistry);
+        today = LocalDate.now();
+        accountIds = new UUID[masters];
+        bookingsByDay = new List[masters][bookedDays];
+
+        Random random = new Random(42);
+        for (int m = 0; m < masters; m++) {
+            UUID accountId = UUID.randomUUID();
+            accountIds[m] = accountId;
+            List<BookingInterval> intervals = new ArrayList<>();
+            for (int d = 0; d < bookedDays; d++) {
+                List<TimeSlot> day = new ArrayList<>();
+                // Рабочий день 09:00-21:00, записи по 30-90 минут с перерывами
+                LocalDateTime cursor = today.plusDays(d).atTime(9, 0);
+                for (int b = 0; b < bookingsPerDay; b++) {
+                    cursor = cursor.plusMinutes(5L * random.nextInt(12));
+                    int duration = 30 + 15 * random.nextInt(5);
+                    intervals.add(new BookingInterval(UUID.randomUUID(), accountId, UUID.randomUUID(),
+                            cursor, duration, BookingStatus.CONFIRMED, 1));
+                    day.add(TimeSlot.of(cursor, duration));
+                    cursor = cursor.plusMinutes(duration);
+                }
+                bookingsByDay[m][d] = day;
+            }
+            index.onIntervalsChanged(IntervalsChanged.activated(intervals));
+        }
+    }
+
+    @Benchmark
+    public List<TimeSlot> bitmapDay() {
+        int master = ThreadLocalRandom.current().nextInt(masters);
+        LocalDate day = today.plusDays(ThreadLocalRandom.current().nextInt(bookedDays));
+        return index.findFreeWindows(accountIds[master], day.atTime(9, 0), day.atTime(21, 0),
+                DURATION_MINUTES, LIMIT);
+    }
+
+    @Benchmark
+    public List<TimeSlot> bitmapWeek() {
+        int master = ThreadLocalRandom.current().nextInt(masters);
+        LocalDate from = today.plusDays(ThreadLocalRandom.current().nextInt(bookedDays - 7));
+        return index.findFreeWindows(accountIds[master], from.atStartOfDay(), from.plusDays(7).atStartOfDay(),
+                DURATION_MINUTES, LIMIT * 4);
+    }
+
+    @Benchmark
+    public List<TimeSlot> pairwiseScanDay() {
+        int master = ThreadLocalRandom.current().nextInt(masters);
+        int dayIndex = ThreadLocalRandom.current().nextInt(bookedDays);
+        LocalDate day = today.plusDays(dayIndex);
+        List<TimeSlot> bookings = bookingsByDay[master][dayIndex];
+
+        List<TimeSlot> windows = new ArrayList<>();
+        LocalDateTime to = day.atTime(21, 0);
+        LocalDateTime start = day.atTime(9, 0);
+        while (windows.size() < LIMIT && !start.plusMinutes(DURATION_MINUTES).isAfter(to)) {
+            TimeSlot candidate = TimeSlot.of(start, DURATION_MINUTES);
+            boolean free = true;
+            for (TimeSlot booking : bookings) {
+                if (booking.overlaps(candidate)) {
+                    free = false;
+                    break;
+                }
+            }
+            if (free) {
+                windows.add(candidate);
+                start = start.plusMinutes(DURATION_MINUTES);
+            } else {
+                start = start.plusMinutes(AvailabilityCalendar.SLOT_MINUTES);
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * Инкрементальное обновление: активация и освобождение одной записи.
+     */
+    @Benchmark
+    public void markAndRelease() {
+        int master = ThreadLocalRandom.current().nextInt(masters);
+        LocalDateTime start = today.plusDays(1 + ThreadLocalRandom.current().nextInt(bookedDays)).atTime(22, 0);
+        BookingInterval interval = new BookingInterval(UUID.randomUUID(), accountIds[master], UUID.randomUUID(),
+                start, DURATION_MINUTES, BookingStatus.CONFIRMED, 1);
+        index.onIntervalsChanged(IntervalsChanged.activated(List.of(interval)));
+        index.onIntervalsChanged(IntervalsChanged.released(List.of(interval)));
+    }
+}
@@ -0,0 +1,79 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OffHeapUuidTable} против {@code ConcurrentHashMap<UUID, long[]>}: чтение под
+ * параллельной нагрузкой и вставка. Память - см. offHeapBytes в метриках индекса,
+ * на куче у карты ~150 байт на запись против 32-40 байт вне кучи.
+ *
+ * Запуск: ./gradlew jmh -PjmhIncludes=OffHeapUuidTableBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OffHeapUuidTableBenchmark {
+
+    @Param("1000000")
+    public int entries;
+
+    private UUID[] keys;
+    private OffHeapUuidTable offHeap;
+    private Map<UUID, long[]> onHeap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = new UUID[entries];
+        offHeap = new OffHeapUuidTable(16, 2);
+        onHeap = new ConcurrentHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            UUID key = UUID.randomUUID();
+            keys[i] = key;
+            offHeap.put(key.getMostSignificantBits(), key.getLeastSignificantBits(), i, i);
+            onHeap.put(key, new long[]{i, i});
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long offHeapGet() {
+        UUID key = keys[ThreadLocalRandom.current().nextInt(entries)];
+        long[] values = new long[2];
+        offHeap.get(key.getMostSignificantBits(), key.getLeastSignificantBits(), values);
+        return values[1];
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long concurrentHashMapGet() {
+        UUID key = keys[ThreadLocalRandom.current().nextInt(entries)];
+        return onHeap.get(key)[1];
+    }
+
+    @Benchmark
+    public void offHeapPut() {
+        UUID key = keys[ThreadLocalRandom.current().nextInt(entries)];
+        offHeap.put(key.getMostSignificantBits(), key.getLeastSignificantBits(), 1, 2);
+    }
+
+    @Benchmark
+    public void concurrentHashMapPut() {
+        UUID key = keys[ThreadLocalRandom.current().nextInt(entries)];
+        onHeap.put(key, new long[]{1, 2});
+    }
+}
@@ -0,0 +1,124 @@
+package qodo.ru.servicebooking.infrastructure.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jol.info.GraphLayout;
+import qodo.ru.servicebooking.domain.entity.Booking;
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CompactBooking} против Booking: байты на запись в кэше (JOL, печатается при setup)
+ * и стоимость encode/decode и чтения цены.
+ *
+ * Строки в Booking создаются заново для каждой записи, как после чтения из JDBC,
+ * поэтому отчет JOL показывает и эффект дедупликации валюты и названия услуги.
+ *
+ * Запуск: ./gradlew jmh -PjmhIncludes=CompactBookingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CompactBookingBenchmark {
+
+    private static final String[] SERVICES = {"Стрижка", "Окрашивание", "Маникюр", "Педикюр", "Массаж"};
+
+    @Param("100000")
+    public int entries;
+
+    private CompactBookingCodec codec;
+    private Booking[] bookings;
+    private CompactBooking[] compacts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        codec = new CompactBookingCodec(new ObjectMapper().findAndRegisterModules());
+        bookings = new Booking[entries];
+        compacts = new CompactBooking[entries];
+
+        Random random = new Random(42);
+        for (int i = 0; i < entries; i++) {
+            bookings[i] = newBooking(random);
+            compacts[i] = codec.encode(bookings[i]);
+        }
+
+        long bookingBytes = GraphLayout.parseInstance((Object[]) bookings).totalSize();
+        long compactBytes = GraphLayout.parseInstance((Object[]) compacts).totalSize();
+        System.out.printf("%nJOL: Booking %.1f bytes/entry, CompactBooking %.1f bytes/entry (%d entries)%n",
+                bookingBytes / (double) entries, compactBytes / (double) entries, entries);
+        System.out.println(GraphLayout.parseInstance(compacts[0]).toFootprint());
+    }
+
+    @Benchmark
+    public CompactBooking encode() {
+        return codec.encode(bookings[ThreadLocalRandom.current().nextInt(entries)]);
+    }
+
+    @Benchmark
+    public Booking decode() {
+        return codec.decode(compacts[ThreadLocalRandom.current().nextInt(entries)]);
+    }
+
+    @Benchmark
+    public BigDecimal sumPriceBooking() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Booking booking : bookings) {
+            sum = sum.add(booking.getPrice());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sumPriceCompact() {
+        long sum = 0;
+        for (CompactBooking compact : compacts) {
+            sum += compact.getPriceMinor();
+        }
+        return sum;
+    }
+
+    private static Booking newBooking(Random random) {
+        LocalDateTime scheduledAt = LocalDateTime.of(2024, 6, 3, 10, 0).plusMinutes(15L * random.nextInt(10_000));
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("utm_source", "telegram");
+        metadata.put("promo", random.nextBoolean());
+
+        return Booking.builder()
+                .id(UUID.randomUUID())
+                .accountId(UUID.randomUUID())
+                .slotId(UUID.randomUUID())
+                .clientUserId(UUID.randomUUID())
+                .serviceId(UUID.randomUUID())
+                .price(BigDecimal.valueOf(100_000 + random.nextInt(900_000), 2))
+                .currency(new String("RUB"))
+                .durationMinutes(30 + 15 * random.nextInt(6))
+                .scheduledAt(scheduledAt)
+                .status(BookingStatus.CONFIRMED)
+                .idempotencyKey(UUID.randomUUID().toString())
+                .clientName("Клиент " + random.nextInt(100_000))
+                .clientPhone("+7916" + (1_000_000 + random.nextInt(9_000_000)))
+                .serviceName(new String(SERVICES[random.nextInt(SERVICES.length)]))
+                .metadata(metadata)
+                .createdAt(scheduledAt.minusDays(3))
+                .updatedAt(scheduledAt.minusDays(2))
+                .confirmedAt(scheduledAt.minusDays(2))
+                .version(2)
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package qodo.ru.servicebooking.infrastructure.lock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена телеметрии на неконкурентном пути {@link SlotLockManager#lock}: lock + close
+ * одного слота с распределенной блокировкой, которая ничего не делает. Остаются
+ * только локальная полоса, аренда в watchdog и метрики.
+ *
+ * off - {@link LockTelemetry} с пустыми методами, prometheus - реестр как в приложении
+ * (таймеры с гистограммами). Разница двух режимов - накладные расходы телеметрии
+ * на захват и освобождение; цель - меньше 1 мкс.
+ *
+ * Запуск: ./gradlew jmh -PjmhIncludes=SlotLockTelemetryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SlotLockTelemetryBenchmark {
+
+    private static final String OWNER = "benchmark";
+
+    @Param({"off", "prometheus"})
+    public String telemetry;
+
+    private SlotLockManager slotLocks;
+    private UUID slotId;
+    private UUID accountId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BookingProperties properties = new BookingProperties();
+        DistributedLockRepository lockRepository = new NoopLockRepository();
+        MeterRegistry meterRegistry = switch (telemetry) {
+            case "off" -> new SimpleMeterRegistry();
+            case "prometheus" -> new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+            default -> throw new IllegalArgumentException("Unknown telemetry: " + telemetry);
+        };
+        LockTelemetry lockTelemetry = telemetry.equals("off")
+                ? new NoopLockTelemetry(properties, meterRegistry)
+                : new LockTelemetry(properties, meterRegistry);
+
+        slotLocks = new SlotLockManager(lockRepository,
+                new LockLeaseWatchdog(lockRepository, properties, meterRegistry),
+                lockTelemetry,
+                properties);
+        slotId = UUID.randomUUID();
+        accountId = UUID.randomUUID();
+    }
+
+    @Benchmark
+    public FencingToken lockAndRelease() {
+        try (SlotLockManager.Handle handle = slotLocks.lock(slotId, accountId, OWNER)) {
+            return handle.getToken();
+        }
+    }
+
+    /**
+     * Телеметрия без записи: все точки вызова на месте, метры не трогаются.
+     */
+    private static final class NoopLockTelemetry extends LockTelemetry {
+
+        private NoopLockTelemetry(BookingProperties properties, MeterRegistry meterRegistry) {
+            super(properties, meterRegistry);
+        }
+
+        @Override
+        void onLocalAcquired(long waitNanos) {
+        }
+
+        @Override
+        void onDistributedAttempt() {
+        }
+
+        @Override
+        void onContention(String lockKey, Collection<UUID> accountIds, boolean local, long waitNanos) {
+        }
+
+        @Override
+        void onAcquired(long elapsedNanos) {
+        }
+
+        @Override
+        void onTimeout(long elapsedNanos) {
+        }
+
+        @Override
+        void onFailure(long elapsedNanos) {
+        }
+
+        @Override
+        void onReleased(long heldNanos) {
+        }
+    }
+
+    /**
+     * Распределенная блокировка, которая всегда свободна: один и тот же токен, без I/O.
+     */
+    private static final class NoopLockRepository implements DistributedLockRepository {
+
+        private final FencingToken token = FencingToken.of("booking:slot:benchmark", 1);
+
+        @Override
+        public Optional<FencingToken> tryAcquireFenced(String lockKey, String ownerId, int ttlSeconds) {
+            return Optional.of(token);
+        }
+
+        @Override
+        public boolean isHeld(FencingToken token) {
+            return true;
+        }
+
+        @Override
+        public boolean release(String lockKey, String ownerId) {
+            return true;
+        }
+
+        @Override
+        public boolean extend(String lockKey, String ownerId, int ttlSeconds) {
+            return true;
+        }
+
+        @Override
+        public Optional<DistributedLock> findActiveLock(String lockKey) {
+            return Optional.empty();
+        }
+
+        @Override
+        public int cleanupExpired() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package qodo.ru.servicebooking.api.admin;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import qodo.ru.servicebooking.domain.entity.OutboxEvent;
+import qodo.ru.servicebooking.infrastructure.outbox.OutboxDeadLetterService;
+import qodo.ru.servicebooking.infrastructure.outbox.OutboxDeadLetterService.ReplayResult;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxDeadLetterRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxDeadLetterRepository.DeadLetterFilter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Admin API для dead-letter событий outbox.
+ */
+@RestController
+@RequestMapping("/admin/outbox/dead-letter")
+@RequiredArgsConstructor
+public class OutboxAdminController {
+
+    private final OutboxDeadLetterRepository deadLetterRepository;
+    private final OutboxDeadLetterService deadLetterService;
+
+    /**
+     * Список событий в dead-letter.
+     */
+    @GetMapping
+    public List<OutboxEvent> find(
+            @RequestParam(required = false) String eventType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String errorPattern,
+            @RequestParam(defaultValue = "100") int limit) {
+        return deadLetterRepository.find(new DeadLetterFilter(eventType, from, to, errorPattern), limit);
+    }
+
+    /**
+     * Количество событий в dead-letter.
+     */
+    @GetMapping("/count")
+    public long count(
+            @RequestParam(required = false) String eventType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String errorPattern) {
+        return deadLetterRepository.count(new DeadLetterFilter(eventType, from, to, errorPattern));
+    }
+
+    /**
+     * Вернуть отфильтрованные события в outbox (пачками, с троттлингом).
+     */
+    @PostMapping("/replay")
+    public ReplayResult replay(
+            @RequestParam(required = false) String eventType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String errorPattern,
+            @RequestParam(required = false) Integer maxEvents) {
+        return deadLetterService.replay(new DeadLetterFilter(eventType, from, to, errorPattern), maxEvents);
+    }
+}
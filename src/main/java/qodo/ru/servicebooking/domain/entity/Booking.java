@@ -7,8 +7,11 @@ import qodo.ru.servicebooking.domain.enums.PaymentStatus;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -146,6 +149,8 @@ public class Booking {
     /**
      * Метаданные в формате JSON.
      * Содержит UTM-метки, источники трафика, A/B тесты и т.д.
+     * Снаружи только для чтения: изменения через {@link #addMetadata} или {@link #setMetadata},
+     * иначе они не попадут в отметки измененных полей и update() их не запишет.
      */
     @Builder.Default
     private Map<String, Object> metadata = new HashMap<>();
@@ -183,11 +188,144 @@ public class Booking {
 
     /**
      * Версия для оптимистичной блокировки.
-     * Инкрементируется при каждом обновлении.
+     * Инкрементируется репозиторием при каждом обновлении: бизнес-методы ее не меняют,
+     * update() сверяет ее с версией строки в БД.
      */
     @Builder.Default
     private int version = 0;
 
+    // ========== Отслеживание изменений ==========
+
+    /**
+     * Битовая маска измененных полей ({@link DirtyField}) с момента загрузки или сохранения.
+     * Примитив, а не Set: toBuilder() и копии не делят состояние.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private int dirtyFields;
+
+    /**
+     * Состояние до первого изменения с момента загрузки или сохранения - "до" для аудита.
+     * Снимается поверхностной копией при первой отметке: metadata на месте не меняется
+     * (addMetadata копирует карту), поэтому общая ссылка безопасна.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Booking persistedState;
+
+    /**
+     * Изменяемые после создания поля, которые update() пишет выборочно.
+     */
+    public enum DirtyField {
+        STATUS,
+        PAYMENT_STATUS,
+        NOTES,
+        INTERNAL_NOTES,
+        METADATA,
+        CONFIRMED_AT,
+        CANCELLED_AT,
+        COMPLETED_AT
+    }
+
+    // ========== Сеттеры отслеживаемых полей ==========
+
+    public void setStatus(@NonNull BookingStatus status) {
+        markDirty(DirtyField.STATUS);
+        this.status = status;
+    }
+
+    public void setPaymentStatus(@NonNull PaymentStatus paymentStatus) {
+        markDirty(DirtyField.PAYMENT_STATUS);
+        this.paymentStatus = paymentStatus;
+    }
+
+    public void setNotes(String notes) {
+        markDirty(DirtyField.NOTES);
+        this.notes = notes;
+    }
+
+    public void setInternalNotes(String internalNotes) {
+        markDirty(DirtyField.INTERNAL_NOTES);
+        this.internalNotes = internalNotes;
+    }
+
+    public Map<String, Object> getMetadata() {
+        return metadata != null ? Collections.unmodifiableMap(metadata) : null;
+    }
+
+    public void setMetadata(Map<String, Object> metadata) {
+        markDirty(DirtyField.METADATA);
+        this.metadata = metadata;
+    }
+
+    public void setConfirmedAt(LocalDateTime confirmedAt) {
+        markDirty(DirtyField.CONFIRMED_AT);
+        this.confirmedAt = confirmedAt;
+    }
+
+    public void setCancelledAt(LocalDateTime cancelledAt) {
+        markDirty(DirtyField.CANCELLED_AT);
+        this.cancelledAt = cancelledAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        markDirty(DirtyField.COMPLETED_AT);
+        this.completedAt = completedAt;
+    }
+
+    // ========== Измененные поля ==========
+
+    /**
+     * Поля, измененные с момента загрузки или последнего сохранения.
+     */
+    public Set<DirtyField> getDirtyFields() {
+        EnumSet<DirtyField> result = EnumSet.noneOf(DirtyField.class);
+        for (DirtyField field : DirtyField.values()) {
+            if (isDirty(field)) {
+                result.add(field);
+            }
+        }
+        return result;
+    }
+
+    public boolean isDirty(DirtyField field) {
+        return (dirtyFields & (1 << field.ordinal())) != 0;
+    }
+
+    public boolean hasDirtyFields() {
+        return dirtyFields != 0;
+    }
+
+    /**
+     * Состояние до первого изменения с момента загрузки или сохранения;
+     * null, если отслеживаемые поля не менялись.
+     */
+    public Booking getPersistedState() {
+        return persistedState;
+    }
+
+    /**
+     * Сбросить отметки после записи в БД.
+     */
+    public void clearDirtyFields() {
+        this.dirtyFields = 0;
+        this.persistedState = null;
+    }
+
+    /**
+     * Вызывается до присваивания: первая отметка снимает прежнее состояние.
+     */
+    private void markDirty(DirtyField field) {
+        if (persistedState == null) {
+            persistedState = toBuilder().build();
+        }
+        this.dirtyFields |= 1 << field.ordinal();
+    }
+
     // ========== Бизнес-методы ==========
 
     /**
@@ -207,10 +345,9 @@ public class Booking {
                     String.format("Cannot confirm booking in status %s", status)
             );
         }
-        this.status = BookingStatus.CONFIRMED;
-        this.confirmedAt = LocalDateTime.now();
+        setStatus(BookingStatus.CONFIRMED);
+        setConfirmedAt(LocalDateTime.now());
         this.updatedAt = LocalDateTime.now();
-        this.version++;
     }
 
     /**
@@ -231,14 +368,13 @@ public class Booking {
                     String.format("Cannot cancel booking in status %s", status)
             );
         }
-        this.status = BookingStatus.CANCELLED;
-        this.cancelledAt = LocalDateTime.now();
+        setStatus(BookingStatus.CANCELLED);
+        setCancelledAt(LocalDateTime.now());
         this.updatedAt = LocalDateTime.now();
         if (reason != null) {
-            this.internalNotes = (this.internalNotes != null ? this.internalNotes + "\n" : "")
-                    + "Cancelled: " + reason;
+            setInternalNotes((this.internalNotes != null ? this.internalNotes + "\n" : "")
+                    + "Cancelled: " + reason);
         }
-        this.version++;
     }
 
     /**
@@ -250,10 +386,9 @@ public class Booking {
                     String.format("Cannot complete booking in status %s", status)
             );
         }
-        this.status = BookingStatus.COMPLETED;
-        this.completedAt = LocalDateTime.now();
+        setStatus(BookingStatus.COMPLETED);
+        setCompletedAt(LocalDateTime.now());
         this.updatedAt = LocalDateTime.now();
-        this.version++;
     }
 
     /**
@@ -265,9 +400,8 @@ public class Booking {
                     String.format("Cannot mark as no-show booking in status %s", status)
             );
         }
-        this.status = BookingStatus.NO_SHOW;
+        setStatus(BookingStatus.NO_SHOW);
         this.updatedAt = LocalDateTime.now();
-        this.version++;
     }
 
     /**
@@ -302,10 +436,11 @@ public class Booking {
      * Добавляет метаданные.
      */
     public void addMetadata(String key, Object value) {
-        if (metadata == null) {
-            metadata = new HashMap<>();
-        }
-        metadata.put(key, value);
+        // Копия: переданная в builder/setMetadata карта может быть неизменяемой или общей
+        Map<String, Object> updated = metadata != null ? new HashMap<>(metadata) : new HashMap<>();
+        updated.put(key, value);
+        markDirty(DirtyField.METADATA);
+        metadata = updated;
         this.updatedAt = LocalDateTime.now();
     }
 
@@ -313,8 +448,7 @@ public class Booking {
      * Обновляет статус оплаты.
      */
     public void updatePaymentStatus(PaymentStatus newStatus) {
-        this.paymentStatus = newStatus;
+        setPaymentStatus(newStatus);
         this.updatedAt = LocalDateTime.now();
-        this.version++;
     }
 }
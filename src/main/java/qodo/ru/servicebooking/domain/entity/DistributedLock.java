@@ -37,6 +37,11 @@ public class DistributedLock {
      */
     private LocalDateTime expiresAt;
 
+    /**
+     * Fencing token текущего захвата.
+     */
+    private long fencingToken;
+
     /**
      * Метаданные блокировки.
      */
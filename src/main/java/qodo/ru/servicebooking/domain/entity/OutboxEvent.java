@@ -88,6 +88,12 @@ public class OutboxEvent {
      */
     private LocalDateTime publishedAt;
 
+    /**
+     * До какого момента событие захвачено relay-инстансом.
+     * NULL означает, что событие не захвачено.
+     */
+    private LocalDateTime claimedUntil;
+
     // ========== Обработка ошибок ==========
 
     /**
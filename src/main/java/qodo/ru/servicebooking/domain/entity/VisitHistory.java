@@ -29,6 +29,13 @@ public class VisitHistory {
     @NonNull
     private UUID bookingId;
 
+    /**
+     * ID аккаунта мастера.
+     * Денормализовано из bookings для портфолио и топа отзывов мастера,
+     * проставляется репозиторием при сохранении.
+     */
+    private UUID accountId;
+
     // ========== Фактические данные визита ==========
 
     /**
@@ -10,6 +10,13 @@ public interface DomainEvent {
      */
     UUID getAggregateId();
 
+    /**
+     * Получить тип агрегата (aggregate_type в outbox).
+     */
+    default String getAggregateType() {
+        return "booking";
+    }
+
     /**
      * Получить тип события.
      */
@@ -1,9 +1,11 @@
 package qodo.ru.servicebooking.domain.exception;
 
+import java.util.List;
 import java.util.UUID;
 
 public class SlotAlreadyBookedException extends BookingDomainException {
     private final UUID slotId;
+    private final List<UUID> slotIds;
     private final UUID existingBookingId;
 
     public SlotAlreadyBookedException(UUID slotId, UUID existingBookingId) {
@@ -12,13 +14,52 @@ public class SlotAlreadyBookedException extends BookingDomainException {
                 "SLOT_ALREADY_BOOKED"
         );
         this.slotId = slotId;
+        this.slotIds = List.of(slotId);
         this.existingBookingId = existingBookingId;
     }
 
+    /**
+     * Нарушение ограничения в БД: конкретная конфликтующая запись неизвестна.
+     */
+    public SlotAlreadyBookedException(UUID slotId, Throwable cause) {
+        super(
+                String.format("Slot %s overlaps an active booking of the same master", slotId),
+                "SLOT_ALREADY_BOOKED",
+                cause
+        );
+        this.slotId = slotId;
+        this.slotIds = List.of(slotId);
+        this.existingBookingId = null;
+    }
+
+    /**
+     * Нарушение ограничения при вставке пакета, конфликтующий слот не определен.
+     */
+    public SlotAlreadyBookedException(List<UUID> slotIds, Throwable cause) {
+        super(
+                String.format("One of slots %s is taken or overlaps an active booking of the same master", slotIds),
+                "SLOT_ALREADY_BOOKED",
+                cause
+        );
+        this.slotId = null;
+        this.slotIds = List.copyOf(slotIds);
+        this.existingBookingId = null;
+    }
+
+    /**
+     * Конфликтующий слот; null, если конфликт в пакете не удалось сопоставить с одним слотом.
+     */
     public UUID getSlotId() {
         return slotId;
     }
 
+    /**
+     * Слоты-кандидаты на конфликт: один слот или весь пакет.
+     */
+    public List<UUID> getSlotIds() {
+        return slotIds;
+    }
+
     public UUID getExistingBookingId() {
         return existingBookingId;
     }
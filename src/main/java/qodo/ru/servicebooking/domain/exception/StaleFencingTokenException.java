@@ -0,0 +1,19 @@
+package qodo.ru.servicebooking.domain.exception;
+
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+
+public class StaleFencingTokenException extends BookingDomainException {
+    private final FencingToken token;
+
+    public StaleFencingTokenException(FencingToken token) {
+        super(
+                String.format("Lock %s is no longer held with token %d", token.getLockKey(), token.getValue()),
+                "STALE_FENCING_TOKEN"
+        );
+        this.token = token;
+    }
+
+    public FencingToken getToken() {
+        return token;
+    }
+}
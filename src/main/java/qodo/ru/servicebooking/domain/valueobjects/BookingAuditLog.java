@@ -42,6 +42,18 @@ public class BookingAuditLog {
      */
     private Map<String, Object> newValues;
 
+    /**
+     * Старые значения готовым JSON (только изменившиеся поля).
+     * Если задано, пишется вместо oldValues без промежуточной Map.
+     */
+    private String oldValuesJson;
+
+    /**
+     * Новые значения готовым JSON (только изменившиеся поля).
+     * Если задано, пишется вместо newValues.
+     */
+    private String newValuesJson;
+
     /**
      * Кто внес изменения.
      */
@@ -0,0 +1,157 @@
+package qodo.ru.servicebooking.domain.valueobjects;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Денежная сумма в копейках (long) для горячих путей и агрегации.
+ *
+ * Тот же масштаб 2, что и у {@link Money}, но без BigDecimal: сложение и умножение -
+ * одна инструкция с проверкой переполнения. Валюта - числовой код ISO 4217 (643 для RUB).
+ * На границах (БД, API) - преобразование в/из {@link Money}.
+ */
+@Value
+public class FastMoney {
+
+    private static final int SCALE = 2;
+
+    private static final Map<Integer, Currency> BY_NUMERIC_CODE = Currency.getAvailableCurrencies().stream()
+            .filter(c -> c.getNumericCode() > 0)
+            .collect(Collectors.toMap(Currency::getNumericCode, Function.identity(), (a, b) -> a));
+
+    long minorUnits;
+    short currencyCode;
+
+    /**
+     * Создает сумму из копеек.
+     */
+    public static FastMoney ofMinor(long minorUnits, String currencyCode) {
+        return new FastMoney(minorUnits, (short) Currency.getInstance(currencyCode).getNumericCode());
+    }
+
+    /**
+     * Создает сумму из BigDecimal с округлением до копеек, как {@link Money#of}.
+     */
+    public static FastMoney of(BigDecimal amount, String currencyCode) {
+        return ofMinor(toMinor(amount), currencyCode);
+    }
+
+    public static FastMoney of(Money money) {
+        return new FastMoney(toMinor(money.getAmount()), (short) money.getCurrency().getNumericCode());
+    }
+
+    /**
+     * Сумма в копейках с округлением HALF_UP.
+     * @throws ArithmeticException если сумма не помещается в long
+     */
+    public static long toMinor(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public Money toMoney() {
+        return new Money(BigDecimal.valueOf(minorUnits, SCALE), getCurrency());
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public Currency getCurrency() {
+        return BY_NUMERIC_CODE.get((int) currencyCode);
+    }
+
+    /**
+     * Складывает две суммы.
+     * @throws IllegalArgumentException если валюты разные
+     * @throws ArithmeticException при переполнении
+     */
+    public FastMoney add(FastMoney other) {
+        requireSameCurrency(other);
+        return new FastMoney(Math.addExact(minorUnits, other.minorUnits), currencyCode);
+    }
+
+    /**
+     * Вычитает сумму.
+     * @throws IllegalArgumentException если валюты разные
+     * @throws ArithmeticException при переполнении
+     */
+    public FastMoney subtract(FastMoney other) {
+        requireSameCurrency(other);
+        return new FastMoney(Math.subtractExact(minorUnits, other.minorUnits), currencyCode);
+    }
+
+    /**
+     * Умножает на целое (количество).
+     * @throws ArithmeticException при переполнении
+     */
+    public FastMoney multiply(long factor) {
+        return new FastMoney(Math.multiplyExact(minorUnits, factor), currencyCode);
+    }
+
+    /**
+     * Умножает на дробный коэффициент с округлением HALF_UP, как {@link Money#multiply}.
+     */
+    public FastMoney multiply(BigDecimal factor) {
+        return new FastMoney(toMinor(toBigDecimal().multiply(factor)), currencyCode);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    /**
+     * Сумма массива копеек (одна валюта) для in-memory агрегации выручки.
+     *
+     * Основной цикл - простая редукция без ветвлений, C2 ее векторизует. Переполнение
+     * проверяется по верхней оценке: OR модулей >= максимального модуля, и если
+     * оценка, умноженная на число слагаемых, влезает в long, переполнения быть не могло.
+     * Иначе - повторный проход с Math.addExact.
+     *
+     * @throws ArithmeticException при переполнении
+     */
+    public static long sumMinor(long[] minorUnits, int from, int to) {
+        long sum = 0;
+        long magnitude = 0;
+        for (int i = from; i < to; i++) {
+            long value = minorUnits[i];
+            sum += value;
+            magnitude |= Math.abs(value);
+        }
+
+        int count = to - from;
+        if (magnitude >= 0 && (count == 0 || Long.highestOneBit(magnitude) <= Long.MAX_VALUE / 2 / count)) {
+            return sum;
+        }
+
+        long exact = 0;
+        for (int i = from; i < to; i++) {
+            exact = Math.addExact(exact, minorUnits[i]);
+        }
+        return exact;
+    }
+
+    private void requireSameCurrency(FastMoney other) {
+        if (currencyCode != other.currencyCode) {
+            throw new IllegalArgumentException("Cannot combine money with different currencies");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal() + " " + getCurrency().getCurrencyCode();
+    }
+}
@@ -0,0 +1,32 @@
+package qodo.ru.servicebooking.domain.valueobjects;
+
+import lombok.Value;
+
+/**
+ * Value Object для fencing token распределенной блокировки.
+ *
+ * Токен монотонно растет при каждом захвате блокировки. Запись под блокировкой
+ * передает токен в репозиторий, и тот отклоняет запись, если блокировку
+ * уже перехватил другой владелец.
+ */
+@Value
+public class FencingToken {
+    String lockKey;
+    long value;
+
+    public static FencingToken of(String lockKey, long value) {
+        return new FencingToken(lockKey, value);
+    }
+
+    /**
+     * Проверяет, выдан ли токен позже другого токена той же блокировки.
+     */
+    public boolean isNewerThan(FencingToken other) {
+        return lockKey.equals(other.lockKey) && value > other.value;
+    }
+
+    @Override
+    public String toString() {
+        return lockKey + "#" + value;
+    }
+}
@@ -73,6 +73,13 @@ public class Money {
         );
     }
 
+    /**
+     * Переводит в копейки для агрегации без BigDecimal.
+     */
+    public FastMoney toFastMoney() {
+        return FastMoney.of(this);
+    }
+
     /**
      * Проверяет, положительная ли сумма.
      */
@@ -0,0 +1,128 @@
+package qodo.ru.servicebooking.domain.valueobjects;
+
+/**
+ * Нормализация российских номеров без регулярных выражений и аллокаций.
+ *
+ * Один проход по символам: берем только цифры ASCII (как \D в {@link PhoneNumber}),
+ * 8XXXXXXXXXX и 7XXXXXXXXXX приводим к 7XXXXXXXXXX, 10 цифр дополняем семеркой.
+ * Результат - 11 цифр, упакованные в один long как десятичное число (7XXXXXXXXXX):
+ * такой ключ дешево хэшировать и сравнивать при импорте и поиске клиентов.
+ * Строка +7XXXXXXXXXX создается только по запросу, можно в переиспользуемый буфер.
+ */
+public final class PhoneDigits {
+
+    /**
+     * Номер не российский или не номер вовсе.
+     */
+    public static final long INVALID = -1L;
+
+    /**
+     * Длина +7XXXXXXXXXX.
+     */
+    public static final int E164_LENGTH = 12;
+
+    private static final long COUNTRY_PREFIX = 70_000_000_000L;
+    private static final long TEN_DIGITS = 10_000_000_000L;
+
+    private PhoneDigits() {
+    }
+
+    /**
+     * Нормализовать и упаковать номер.
+     *
+     * @param phone номер в любом формате (+7 (999) 123-45-67, 89991234567, ...)
+     * @return 7XXXXXXXXXX как long или {@link #INVALID}
+     */
+    public static long pack(CharSequence phone) {
+        if (phone == null) {
+            return INVALID;
+        }
+
+        long digits = 0;
+        int count = 0;
+        int first = -1;
+        for (int i = 0, n = phone.length(); i < n; i++) {
+            char c = phone.charAt(i);
+            if (c < '0' || c > '9') {
+                continue;
+            }
+            if (++count > 11) {
+                return INVALID;
+            }
+            if (first < 0) {
+                first = c - '0';
+            }
+            digits = digits * 10 + (c - '0');
+        }
+
+        if (count == 11 && (first == 7 || first == 8)) {
+            return COUNTRY_PREFIX + digits % TEN_DIGITS;
+        }
+        if (count == 10) {
+            return COUNTRY_PREFIX + digits;
+        }
+        return INVALID;
+    }
+
+    /**
+     * Записать +7XXXXXXXXXX в буфер.
+     *
+     * @param packed результат {@link #pack}
+     * @param out буфер длиной не меньше {@link #E164_LENGTH}
+     * @param offset позиция в буфере
+     */
+    public static void writeE164(long packed, char[] out, int offset) {
+        out[offset] = '+';
+        long rest = packed;
+        for (int i = offset + E164_LENGTH - 1; i > offset; i--) {
+            out[i] = (char) ('0' + rest % 10);
+            rest /= 10;
+        }
+    }
+
+    /**
+     * Нормализовать номер сразу в буфер.
+     *
+     * @return {@link #E164_LENGTH} или -1, если номер невалиден
+     */
+    public static int normalize(CharSequence phone, char[] out, int offset) {
+        long packed = pack(phone);
+        if (packed == INVALID) {
+            return -1;
+        }
+        writeE164(packed, out, offset);
+        return E164_LENGTH;
+    }
+
+    public static String toE164(long packed) {
+        char[] chars = new char[E164_LENGTH];
+        writeE164(packed, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * +7 (XXX) XXX-XX-XX
+     */
+    public static String format(long packed) {
+        char[] e164 = new char[E164_LENGTH];
+        writeE164(packed, e164, 0);
+        char[] out = {
+                '+', '7', ' ', '(', e164[2], e164[3], e164[4], ')', ' ',
+                e164[5], e164[6], e164[7], '-', e164[8], e164[9], '-', e164[10], e164[11]
+        };
+        return new String(out);
+    }
+
+    /**
+     * +7XXX****XXX для логов.
+     */
+    public static String mask(long packed) {
+        char[] out = new char[E164_LENGTH];
+        writeE164(packed, out, 0);
+        out[5] = '*';
+        out[6] = '*';
+        out[7] = '*';
+        out[8] = '*';
+        return new String(out);
+    }
+}
@@ -2,17 +2,14 @@ package qodo.ru.servicebooking.domain.valueobjects;
 
 import lombok.Value;
 
-import java.util.regex.Pattern;
-
 /**
  * Value Object для телефонного номера.
  *
  * Валидирует и нормализует телефонные номера.
+ * Разбор - однопроходный, без регулярных выражений (см. {@link PhoneDigits}).
  */
 @Value
 public class PhoneNumber {
-    private static final Pattern RUSSIAN_PHONE = Pattern.compile("^\\+7\\d{10}$");
-    private static final Pattern DIGITS_ONLY = Pattern.compile("\\D");
 
     String value;
 
@@ -24,42 +21,26 @@ public class PhoneNumber {
             throw new IllegalArgumentException("Phone number cannot be empty");
         }
 
-        String normalized = normalize(phone);
-        if (!isValid(normalized)) {
+        long packed = PhoneDigits.pack(phone);
+        if (packed == PhoneDigits.INVALID) {
             throw new IllegalArgumentException("Invalid phone number: " + phone);
         }
 
-        return new PhoneNumber(normalized);
+        return new PhoneNumber(PhoneDigits.toE164(packed));
     }
 
     /**
-     * Нормализует телефонный номер к формату +7XXXXXXXXXX.
+     * Проверяет номер без создания объекта.
      */
-    private static String normalize(String phone) {
-        // Удаляем все нецифровые символы
-        String digits = DIGITS_ONLY.matcher(phone).replaceAll("");
-
-        // Обрабатываем различные форматы российских номеров
-        if (digits.startsWith("8") && digits.length() == 11) {
-            digits = "7" + digits.substring(1);
-        }
-
-        if (digits.startsWith("7") && digits.length() == 11) {
-            return "+" + digits;
-        }
-
-        if (digits.length() == 10) {
-            return "+7" + digits;
-        }
-
-        return "+" + digits;
+    public static boolean isValid(CharSequence phone) {
+        return PhoneDigits.pack(phone) != PhoneDigits.INVALID;
     }
 
     /**
-     * Проверяет валидность номера.
+     * Номер как long 7XXXXXXXXXX - ключ для хэширования и сравнения.
      */
-    private static boolean isValid(String phone) {
-        return RUSSIAN_PHONE.matcher(phone).matches();
+    public long toLong() {
+        return PhoneDigits.pack(value);
     }
 
     /**
@@ -67,19 +48,13 @@ public class PhoneNumber {
      */
     public String format() {
         // +7 (XXX) XXX-XX-XX
-        return String.format("%s (%s) %s-%s-%s",
-                value.substring(0, 2),
-                value.substring(2, 5),
-                value.substring(5, 8),
-                value.substring(8, 10),
-                value.substring(10, 12)
-        );
+        return PhoneDigits.format(toLong());
     }
 
     /**
      * Маскирует номер для логов.
      */
     public String mask() {
-        return value.substring(0, 5) + "****" + value.substring(9);
+        return PhoneDigits.mask(toLong());
     }
 }
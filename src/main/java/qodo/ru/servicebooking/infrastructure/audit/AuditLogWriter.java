@@ -0,0 +1,452 @@
+package qodo.ru.servicebooking.infrastructure.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import qodo.ru.servicebooking.domain.valueobjects.BookingAuditLog;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Write-behind запись аудита в booking_audit_log.
+ *
+ * Бизнес-транзакции не пишут аудит сами: {@link #append} кладет запись в ограниченную
+ * очередь, отдельный поток собирает пачку (до batch-size записей или flush-interval-ms)
+ * и отправляет ее одним COPY FROM STDIN на собственном соединении в autocommit.
+ * Четыре индекса таблицы обновляются один раз на пачку, а не в каждой транзакции.
+ *
+ * Надежность (booking.audit.durability):
+ * - async - append() возвращается сразу после постановки в очередь. Записи в очереди
+ *   теряются при падении процесса; при полной очереди дольше offer-timeout-ms запись
+ *   отбрасывается (booking.audit.dropped).
+ * - sync - append() ждет коммита COPY с этой записью, но не дольше sync-timeout-ms.
+ *   Пачка общая для всех ждущих, поэтому один коммит подтверждает сразу много вызовов.
+ *
+ * Ошибка соединения - пачка повторяется после retry-backoff-ms на новом соединении.
+ * Ошибка данных (например, невалидный ip_address) - пачка пишется по одной записи,
+ * плохие отбрасываются с логом, чтобы одна запись не блокировала очередь.
+ * Ошибка схемы или прав (SQLSTATE 42, 0A, например нет таблицы) повтором не лечится:
+ * пачка отбрасывается с логом, иначе writer бесконечно повторял бы ее на месте.
+ * Остановка дописывает очередь (не дольше shutdown-timeout-ms).
+ *
+ * old_values/new_values - готовый JSON из {@link BookingDiff}, если он задан, иначе Map через Jackson.
+ *
+ * Задержка записи - gauge booking.audit.lag: возраст самой старой недописанной записи.
+ * Поле reason в таблице не хранится (колонки нет).
+ */
+@Slf4j
+@Component
+public class AuditLogWriter implements SmartLifecycle {
+
+    private static final String COPY_SQL = "COPY booking_audit_log "
+            + "(booking_id, action, old_values, new_values, changed_by, changed_at, ip_address, user_agent, correlation_id) "
+            + "FROM STDIN";
+
+    private final JdbcConnectionDetails connectionDetails;
+    private final ObjectMapper objectMapper;
+    private final BookingProperties.Audit settings;
+    private final boolean syncDurability;
+    private final BlockingQueue<Pending> queue;
+
+    private final Timer copyTimer;
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter rejectedCounter;
+
+    private final StringBuilder copyBuffer = new StringBuilder(64 * 1024);
+
+    private volatile boolean running;
+    private volatile long inFlightSince;
+    private Thread writerThread;
+    private Connection connection;
+
+    public AuditLogWriter(JdbcConnectionDetails connectionDetails,
+                          ObjectMapper objectMapper,
+                          BookingProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.connectionDetails = connectionDetails;
+        this.objectMapper = objectMapper;
+        this.settings = properties.getAudit();
+        this.syncDurability = "sync".equalsIgnoreCase(settings.getDurability());
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+
+        this.copyTimer = Timer.builder("booking.audit.copy")
+                .description("COPY пачки записей аудита")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("booking.audit.written")
+                .description("Записи аудита, записанные в БД")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("booking.audit.dropped")
+                .description("Записи аудита, отброшенные из-за полной очереди")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("booking.audit.rejected")
+                .description("Записи аудита, отклоненные БД (ошибка данных или схемы)")
+                .register(meterRegistry);
+        Gauge.builder("booking.audit.queue.size", queue, BlockingQueue::size)
+                .description("Записи аудита в очереди")
+                .register(meterRegistry);
+        Gauge.builder("booking.audit.lag", this, AuditLogWriter::lagSeconds)
+                .description("Возраст самой старой недописанной записи аудита, секунды")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!settings.isEnabled() || running) {
+            return;
+        }
+        running = true;
+        writerThread = Thread.ofVirtual().name("audit-writer").start(this::writeLoop);
+        log.info("Audit writer started, durability: {}", syncDurability ? "sync" : "async");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            try {
+                writerThread.join(settings.getShutdownTimeoutMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (writerThread.isAlive()) {
+                log.warn("Audit writer did not drain in {} ms, {} records left in queue",
+                        settings.getShutdownTimeoutMs(), queue.size());
+                writerThread.interrupt();
+            }
+        }
+        // Записи, попавшие в очередь одновременно с остановкой
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        failAll(rest, new IllegalStateException("Audit writer stopped"));
+        log.info("Audit writer stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Записать событие аудита.
+     *
+     * В sync-режиме блокируется до коммита записи, но не дольше sync-timeout-ms.
+     *
+     * @throws IllegalStateException если writer остановлен, или (sync) запись не удалась
+     *         или не подтверждена за sync-timeout-ms
+     */
+    public void append(BookingAuditLog entry) {
+        if (!running) {
+            throw new IllegalStateException("Audit writer is not running");
+        }
+
+        Pending pending = new Pending(entry, System.nanoTime(), syncDurability ? new CompletableFuture<>() : null);
+        if (!syncDurability) {
+            if (!offer(pending)) {
+                droppedCounter.increment();
+                log.warn("Audit queue is full, record dropped: booking={}, action={}",
+                        entry.getBookingId(), entry.getAction());
+            }
+            return;
+        }
+
+        // Один бюджет на ожидание места в очереди и коммита: append, попавший в очередь
+        // одновременно с остановкой writer'а, не ждет вечно
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getSyncTimeoutMs());
+        try {
+            if (!queue.offer(pending, settings.getSyncTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Audit queue is full for " + settings.getSyncTimeoutMs() + " ms");
+            }
+            pending.done().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing audit record", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to write audit record", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Audit record not committed in " + settings.getSyncTimeoutMs() + " ms", e);
+        }
+    }
+
+    private boolean offer(Pending pending) {
+        try {
+            return queue.offer(pending, settings.getOfferTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(settings.getBatchSize());
+        try {
+            while (running || !queue.isEmpty()) {
+                Pending first = queue.poll(settings.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                inFlightSince = first.enqueuedAt();
+
+                writeWithRetry(batch);
+
+                inFlightSince = 0;
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            failAll(batch, new IllegalStateException("Audit writer stopped"));
+            List<Pending> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            failAll(rest, new IllegalStateException("Audit writer stopped"));
+            inFlightSince = 0;
+            closeConnection();
+        }
+    }
+
+    /**
+     * Добирает пачку до batch-size, ожидая не дольше flush-interval-ms.
+     */
+    private void collect(List<Pending> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getFlushIntervalMs());
+        while (batch.size() < settings.getBatchSize()) {
+            queue.drainTo(batch, settings.getBatchSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= settings.getBatchSize() || remaining <= 0 || !running) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void writeWithRetry(List<Pending> batch) throws InterruptedException {
+        while (true) {
+            try {
+                copy(batch);
+                batch.forEach(Pending::complete);
+                writtenCounter.increment(batch.size());
+                return;
+            } catch (SQLException e) {
+                if (isDataError(e)) {
+                    log.warn("Audit batch of {} records rejected ({}), writing one by one", batch.size(), e.getMessage());
+                    writeOneByOne(batch);
+                    return;
+                }
+                if (isFatal(e)) {
+                    rejectedCounter.increment(batch.size());
+                    log.error("Audit batch of {} records dropped, error is not retryable: {}",
+                            batch.size(), e.getSQLState(), e);
+                    failAll(batch, e);
+                    return;
+                }
+                log.error("Failed to write audit batch of {} records, retrying in {} ms",
+                        batch.size(), settings.getRetryBackoffMs(), e);
+                closeConnection();
+                Thread.sleep(settings.getRetryBackoffMs());
+            }
+        }
+    }
+
+    private void writeOneByOne(List<Pending> batch) throws InterruptedException {
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            try {
+                copy(List.of(pending));
+                pending.complete();
+                writtenCounter.increment();
+            } catch (SQLException e) {
+                if (!isDataError(e)) {
+                    // Соединение упало посреди разбора - остаток пачки повторяется целиком
+                    writeWithRetry(batch.subList(i, batch.size()));
+                    return;
+                }
+                rejectedCounter.increment();
+                log.error("Audit record rejected: booking={}, action={}",
+                        pending.entry().getBookingId(), pending.entry().getAction(), e);
+                pending.fail(e);
+            }
+        }
+    }
+
+    private void copy(List<Pending> batch) throws SQLException {
+        copyBuffer.setLength(0);
+        for (Pending pending : batch) {
+            appendRow(pending.entry());
+        }
+        byte[] data = copyBuffer.toString().getBytes(StandardCharsets.UTF_8);
+
+        long startedAt = System.nanoTime();
+        CopyManager copyManager = connection().unwrap(PGConnection.class).getCopyAPI();
+        CopyIn copyIn = copyManager.copyIn(COPY_SQL);
+        try {
+            copyIn.writeToCopy(data, 0, data.length);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        copyTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Строка в текстовом формате COPY: поля через TAB, NULL как \N.
+     */
+    private void appendRow(BookingAuditLog entry) {
+        LocalDateTime changedAt = entry.getChangedAt() != null ? entry.getChangedAt() : LocalDateTime.now();
+
+        appendValue(entry.getBookingId());
+        copyBuffer.append('\t');
+        appendValue(entry.getAction() != null ? entry.getAction().name() : null);
+        copyBuffer.append('\t');
+        appendValue(entry.getOldValuesJson() != null ? entry.getOldValuesJson() : toJson(entry.getOldValues()));
+        copyBuffer.append('\t');
+        appendValue(entry.getNewValuesJson() != null ? entry.getNewValuesJson() : toJson(entry.getNewValues()));
+        copyBuffer.append('\t');
+        appendValue(entry.getChangedBy());
+        copyBuffer.append('\t');
+        appendValue(changedAt);
+        copyBuffer.append('\t');
+        appendValue(entry.getIpAddress());
+        copyBuffer.append('\t');
+        appendValue(entry.getUserAgent());
+        copyBuffer.append('\t');
+        appendValue(entry.getCorrelationId());
+        copyBuffer.append('\n');
+    }
+
+    private void appendValue(Object value) {
+        if (value == null) {
+            copyBuffer.append("\\N");
+            return;
+        }
+        String text = value.toString();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> copyBuffer.append("\\\\");
+                case '\t' -> copyBuffer.append("\\t");
+                case '\n' -> copyBuffer.append("\\n");
+                case '\r' -> copyBuffer.append("\\r");
+                default -> copyBuffer.append(c);
+            }
+        }
+    }
+
+    private String toJson(Map<String, Object> values) {
+        if (values == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize audit values, storing null", e);
+            return null;
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DriverManager.getConnection(
+                    connectionDetails.getJdbcUrl(), connectionDetails.getUsername(), connectionDetails.getPassword());
+            connection.setAutoCommit(true);
+        }
+        return connection;
+    }
+
+    private void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close audit connection", e);
+        }
+        connection = null;
+    }
+
+    /**
+     * SQLSTATE класса 22 (data exception) и 23 (integrity constraint violation).
+     */
+    private static boolean isDataError(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    /**
+     * SQLSTATE класса 42 (нет таблицы/колонки, нет прав) и 0A (не поддерживается):
+     * ошибка схемы, повтор той же пачки ее не исправит.
+     */
+    private static boolean isFatal(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("42") || state.startsWith("0A"));
+    }
+
+    private static void failAll(List<Pending> pending, Exception cause) {
+        for (Pending p : pending) {
+            p.fail(cause);
+        }
+    }
+
+    private double lagSeconds() {
+        long oldest = inFlightSince;
+        if (oldest == 0) {
+            Pending head = queue.peek();
+            if (head == null) {
+                return 0;
+            }
+            oldest = head.enqueuedAt();
+        }
+        return (System.nanoTime() - oldest) / 1e9;
+    }
+
+    /**
+     * Запись в очереди; done - только в sync-режиме.
+     */
+    private record Pending(BookingAuditLog entry, long enqueuedAt, CompletableFuture<Void> done) {
+
+        void complete() {
+            if (done != null) {
+                done.complete(null);
+            }
+        }
+
+        void fail(Exception cause) {
+            if (done != null) {
+                done.completeExceptionally(cause);
+            }
+        }
+    }
+}
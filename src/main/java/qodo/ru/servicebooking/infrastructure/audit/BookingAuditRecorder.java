@@ -0,0 +1,99 @@
+package qodo.ru.servicebooking.infrastructure.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import qodo.ru.servicebooking.domain.entity.Booking;
+import qodo.ru.servicebooking.domain.valueobjects.BookingAuditLog;
+import qodo.ru.servicebooking.domain.valueobjects.BookingAuditLog.AuditAction;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Аудит изменений бронирований из пути записи.
+ *
+ * Репозиторий вызывает {@link #record} в транзакции записи: diff ({@link BookingDiff})
+ * считается сразу, пока оба состояния под рукой, а в {@link AuditLogWriter} записи
+ * уходят после коммита - откаченные изменения в аудит не попадают. Вне транзакции
+ * запись уходит сразу. В sync-режиме аудита после коммита ждет поток, закоммитивший
+ * транзакцию. Ошибка аудита логируется и закоммиченную операцию не отменяет.
+ */
+@Slf4j
+@Component
+public class BookingAuditRecorder {
+
+    private final AuditLogWriter writer;
+    private final BookingDiff bookingDiff;
+    private final boolean enabled;
+
+    public BookingAuditRecorder(AuditLogWriter writer, BookingDiff bookingDiff, BookingProperties properties) {
+        this.writer = writer;
+        this.bookingDiff = bookingDiff;
+        this.enabled = properties.getAudit().isEnabled();
+    }
+
+    /**
+     * Записать изменение бронирования.
+     *
+     * @param before состояние до изменения; null - создание или прежнее состояние неизвестно
+     * @param after состояние после изменения
+     */
+    public void record(AuditAction action, Booking before, Booking after) {
+        if (!enabled) {
+            return;
+        }
+        BookingDiff.Changes changes = bookingDiff.diff(before, after);
+        if (changes.isEmpty()) {
+            return;
+        }
+        BookingAuditLog entry = BookingAuditLog.builder()
+                .bookingId(after.getId())
+                .action(action)
+                .oldValuesJson(changes.oldValues())
+                .newValuesJson(changes.newValues())
+                .build();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(List.of(entry));
+            return;
+        }
+        PendingEntries pending = (PendingEntries) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEntries();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.entries.add(entry);
+    }
+
+    private void append(List<BookingAuditLog> entries) {
+        for (BookingAuditLog entry : entries) {
+            try {
+                writer.append(entry);
+            } catch (RuntimeException e) {
+                log.error("Failed to write audit record: booking={}, action={}",
+                        entry.getBookingId(), entry.getAction(), e);
+            }
+        }
+    }
+
+    /**
+     * Записи аудита одной транзакции.
+     */
+    private final class PendingEntries implements TransactionSynchronization {
+        private final List<BookingAuditLog> entries = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            append(entries);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(BookingAuditRecorder.this);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package qodo.ru.servicebooking.infrastructure.audit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import qodo.ru.servicebooking.domain.entity.Booking;
+import qodo.ru.servicebooking.domain.enums.BookingSource;
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+import qodo.ru.servicebooking.domain.enums.PaymentStatus;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Структурный diff двух состояний {@link Booking} для old_values/new_values аудита.
+ *
+ * Поля перечислены заранее таблицей method reference'ов - без рефлексии и без
+ * сериализации Booking целиком. Изменившиеся поля пишутся сразу в JsonGenerator,
+ * промежуточных Map нет. Типичное изменение (status + две временные метки + version)
+ * дает четыре поля вместо двадцати пяти с каждой стороны.
+ *
+ * Состояние "до" нужно снять до изменения через {@link #snapshot}: Booking изменяемый,
+ * а toBuilder() копирует ссылку на metadata.
+ */
+@Component
+public class BookingDiff {
+
+    private static final Field[] FIELDS = {
+            new Field("accountId", Booking::getAccountId),
+            new Field("slotId", Booking::getSlotId),
+            new Field("clientUserId", Booking::getClientUserId),
+            new Field("serviceId", Booking::getServiceId),
+            new Field("price", Booking::getPrice),
+            new Field("currency", Booking::getCurrency),
+            new Field("durationMinutes", Booking::getDurationMinutes),
+            new Field("scheduledAt", Booking::getScheduledAt),
+            new Field("status", Booking::getStatus),
+            new Field("paymentStatus", Booking::getPaymentStatus),
+            new Field("source", Booking::getSource),
+            new Field("idempotencyKey", Booking::getIdempotencyKey),
+            new Field("clientName", Booking::getClientName),
+            new Field("clientPhone", Booking::getClientPhone),
+            new Field("serviceName", Booking::getServiceName),
+            new Field("notes", Booking::getNotes),
+            new Field("internalNotes", Booking::getInternalNotes),
+            new Field("metadata", Booking::getMetadata),
+            new Field("confirmedAt", Booking::getConfirmedAt),
+            new Field("cancelledAt", Booking::getCancelledAt),
+            new Field("completedAt", Booking::getCompletedAt),
+            new Field("version", Booking::getVersion)
+    };
+
+    private final JsonFactory jsonFactory;
+
+    public BookingDiff(ObjectMapper objectMapper) {
+        // Фабрика маппера - writeObject для metadata пишет так же, как весь остальной JSON
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Копия для состояния "до" (с собственной копией metadata).
+     */
+    public static Booking snapshot(Booking booking) {
+        return booking.toBuilder()
+                .metadata(booking.getMetadata() != null ? new HashMap<>(booking.getMetadata()) : null)
+                .build();
+    }
+
+    /**
+     * Сравнить два состояния.
+     *
+     * @param before состояние до изменения, null для создания
+     * @param after состояние после изменения, null для удаления
+     * @return JSON изменившихся полей с каждой стороны (null, если сторона отсутствует)
+     */
+    public Changes diff(Booking before, Booking after) {
+        StringWriter oldValues = before != null ? new StringWriter(128) : null;
+        StringWriter newValues = after != null ? new StringWriter(128) : null;
+        int changed = 0;
+
+        try (JsonGenerator oldJson = open(oldValues);
+             JsonGenerator newJson = open(newValues)) {
+            for (Field field : FIELDS) {
+                Object oldValue = before != null ? field.getter().apply(before) : null;
+                Object newValue = after != null ? field.getter().apply(after) : null;
+                if (same(oldValue, newValue)) {
+                    continue;
+                }
+                changed++;
+                write(oldJson, field.name(), oldValue);
+                write(newJson, field.name(), newValue);
+            }
+            end(oldJson);
+            end(newJson);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write booking diff", e);
+        }
+
+        return new Changes(
+                oldValues != null ? oldValues.toString() : null,
+                newValues != null ? newValues.toString() : null,
+                changed);
+    }
+
+    private JsonGenerator open(StringWriter target) throws IOException {
+        if (target == null) {
+            return null;
+        }
+        JsonGenerator generator = jsonFactory.createGenerator(target);
+        generator.writeStartObject();
+        return generator;
+    }
+
+    private static void end(JsonGenerator generator) throws IOException {
+        if (generator != null) {
+            generator.writeEndObject();
+        }
+    }
+
+    private static boolean same(Object oldValue, Object newValue) {
+        if (oldValue instanceof BigDecimal a && newValue instanceof BigDecimal b) {
+            // 1500.0 и 1500.00 - одна цена
+            return a.compareTo(b) == 0;
+        }
+        return Objects.equals(oldValue, newValue);
+    }
+
+    private static void write(JsonGenerator generator, String name, Object value) throws IOException {
+        if (generator == null) {
+            return;
+        }
+        generator.writeFieldName(name);
+        switch (value) {
+            case null -> generator.writeNull();
+            case String s -> generator.writeString(s);
+            case Integer i -> generator.writeNumber(i);
+            case BigDecimal d -> generator.writeNumber(d);
+            // Значения из БД (status = 'confirmed'), а не имена констант
+            case BookingStatus b -> generator.writeString(b.getValue());
+            case PaymentStatus b -> generator.writeString(b.getValue());
+            case BookingSource b -> generator.writeString(b.getValue());
+            case UUID u -> generator.writeString(u.toString());
+            case LocalDateTime t -> generator.writeString(t.toString());
+            case Map<?, ?> m -> generator.writeObject(m);
+            default -> generator.writeString(value.toString());
+        }
+    }
+
+    /**
+     * Поле Booking, участвующее в diff.
+     */
+    private record Field(String name, Function<Booking, Object> getter) {}
+
+    /**
+     * Результат сравнения: готовый JSON для old_values/new_values.
+     */
+    public record Changes(String oldValues, String newValues, int changedFields) {
+
+        public boolean isEmpty() {
+            return changedFields == 0;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiPredicate;
+
+/**
+ * Битовая карта занятости одного мастера.
+ *
+ * Один бит - 5 минут, сутки - 288 бит (36 байт) в пяти long'ах. Оставшиеся 32 бита
+ * пятого слова - паддинг, всегда "занят": так каждые сутки выровнены по словам
+ * (сдвиг горизонта - это arraycopy), а поиск окон не перескакивает через полночь.
+ * Бит 1 - занято, 0 - свободно. Горизонт - horizonDays суток начиная с baseDay.
+ *
+ * Бит не хранит владельца, поэтому освобождение снимает биты, целиком покрытые интервалом,
+ * а крайние биты невыровненной записи, которые могут делить 5 минут с соседней записью,
+ * снимает только если вызывающий подтвердил, что их не занимает никто другой
+ * ({@link #release}). Без такой проверки ({@code mark(..., false)}) крайние биты остаются
+ * занятыми (консервативно).
+ */
+final class AvailabilityCalendar {
+
+    static final int SLOT_MINUTES = 5;
+    static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    static final int WORDS_PER_DAY = 5;
+    static final int BITS_PER_DAY = WORDS_PER_DAY * Long.SIZE;
+
+    private static final long DAY_PADDING = -1L << (SLOTS_PER_DAY - (WORDS_PER_DAY - 1) * Long.SIZE);
+
+    private final int horizonDays;
+    private final long[] words;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long baseDay;
+
+    AvailabilityCalendar(LocalDate today, int horizonDays) {
+        this.horizonDays = horizonDays;
+        this.words = new long[horizonDays * WORDS_PER_DAY];
+        this.baseDay = today.toEpochDay();
+        for (int day = 0; day < horizonDays; day++) {
+            words[day * WORDS_PER_DAY + WORDS_PER_DAY - 1] = DAY_PADDING;
+        }
+    }
+
+    /**
+     * Отметить интервал занятым (busy) или свободным. Крайние биты при освобождении не снимаются.
+     */
+    void mark(LocalDate today, LocalDateTime start, LocalDateTime end, boolean busy) {
+        update(today, start, end, busy, (from, to) -> true);
+    }
+
+    /**
+     * Освободить интервал вместе с крайними битами, которые больше никем не заняты.
+     * occupied вызывается под блокировкой записи карты: занятость, отмеченная после проверки,
+     * ждет блокировку и применяется после освобождения.
+     *
+     * @param occupied занята ли пятиминутка [from, to) другой записью
+     */
+    void release(LocalDate today, LocalDateTime start, LocalDateTime end,
+                 BiPredicate<LocalDateTime, LocalDateTime> occupied) {
+        update(today, start, end, false, occupied);
+    }
+
+    private void update(LocalDate today, LocalDateTime start, LocalDateTime end, boolean busy,
+                        BiPredicate<LocalDateTime, LocalDateTime> edgeOccupied) {
+        lock.writeLock().lock();
+        try {
+            roll(today);
+            LocalDateTime cursor = start;
+            while (cursor.isBefore(end)) {
+                LocalDateTime dayEnd = cursor.toLocalDate().plusDays(1).atStartOfDay();
+                LocalDateTime partEnd = end.isBefore(dayEnd) ? end : dayEnd;
+
+                long dayIndex = cursor.toLocalDate().toEpochDay() - baseDay;
+                if (dayIndex >= 0 && dayIndex < horizonDays) {
+                    int dayBit = (int) dayIndex * BITS_PER_DAY;
+                    int fromMinute = minuteOfDay(cursor);
+                    int toMinute = partEnd.equals(dayEnd) ? 24 * 60 : minuteOfDay(partEnd);
+                    if (busy) {
+                        setRange(dayBit + fromMinute / SLOT_MINUTES, dayBit + ceilDiv(toMinute, SLOT_MINUTES));
+                    } else {
+                        clearRange(dayBit + ceilDiv(fromMinute, SLOT_MINUTES), dayBit + toMinute / SLOT_MINUTES);
+                        LocalDateTime dayStart = dayEnd.minusDays(1);
+                        int firstSlot = fromMinute / SLOT_MINUTES;
+                        if (fromMinute % SLOT_MINUTES != 0) {
+                            clearEdge(dayStart, dayBit, firstSlot, edgeOccupied);
+                        }
+                        int lastSlot = toMinute / SLOT_MINUTES;
+                        if (toMinute % SLOT_MINUTES != 0 && (lastSlot != firstSlot || fromMinute % SLOT_MINUTES == 0)) {
+                            clearEdge(dayStart, dayBit, lastSlot, edgeOccupied);
+                        }
+                    }
+                }
+                cursor = partEnd;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Первые limit свободных окон длиной durationMinutes внутри [from, to).
+     * Окна внутри одного свободного отрезка идут встык.
+     */
+    List<LocalDateTime> findFreeWindows(LocalDate today, LocalDateTime from, LocalDateTime to,
+                                        int durationMinutes, int limit) {
+        rollIfNeeded(today);
+
+        lock.readLock().lock();
+        try {
+            int fromBit = Math.max(0, toBit(from, true));
+            int toBit = Math.min(words.length * Long.SIZE, toBit(to, false));
+            int length = Math.max(1, ceilDiv(durationMinutes, SLOT_MINUTES));
+
+            List<LocalDateTime> windows = new ArrayList<>(Math.min(limit, 64));
+            int position = fromBit;
+            while (windows.size() < limit && position + length <= toBit) {
+                int runStart = nextClearBit(position);
+                if (runStart < 0 || runStart + length > toBit) {
+                    break;
+                }
+                int runEnd = nextSetBit(runStart);
+                if (runEnd < 0 || runEnd > toBit) {
+                    runEnd = toBit;
+                }
+                for (int start = runStart; start + length <= runEnd && windows.size() < limit; start += length) {
+                    windows.add(toTime(start));
+                }
+                position = runEnd;
+            }
+            return windows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void rollIfNeeded(LocalDate today) {
+        lock.readLock().lock();
+        try {
+            if (today.toEpochDay() <= baseDay) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            roll(today);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Сдвинуть горизонт: прошедшие сутки выбрасываются, в конце появляются свободные.
+     */
+    private void roll(LocalDate today) {
+        long shift = today.toEpochDay() - baseDay;
+        if (shift <= 0) {
+            return;
+        }
+        int keepDays = (int) Math.max(0, horizonDays - shift);
+        int dropDays = horizonDays - keepDays;
+        System.arraycopy(words, dropDays * WORDS_PER_DAY, words, 0, keepDays * WORDS_PER_DAY);
+        for (int day = keepDays; day < horizonDays; day++) {
+            int offset = day * WORDS_PER_DAY;
+            for (int i = 0; i < WORDS_PER_DAY - 1; i++) {
+                words[offset + i] = 0L;
+            }
+            words[offset + WORDS_PER_DAY - 1] = DAY_PADDING;
+        }
+        baseDay = today.toEpochDay();
+    }
+
+    private int toBit(LocalDateTime time, boolean roundUp) {
+        long dayIndex = time.toLocalDate().toEpochDay() - baseDay;
+        if (dayIndex < 0) {
+            return 0;
+        }
+        if (dayIndex >= horizonDays) {
+            return horizonDays * BITS_PER_DAY;
+        }
+        int minute = minuteOfDay(time);
+        int slot = roundUp ? ceilDiv(minute, SLOT_MINUTES) : minute / SLOT_MINUTES;
+        return (int) dayIndex * BITS_PER_DAY + slot;
+    }
+
+    private LocalDateTime toTime(int bit) {
+        int dayIndex = bit / BITS_PER_DAY;
+        int slot = bit % BITS_PER_DAY;
+        return LocalDate.ofEpochDay(baseDay + dayIndex).atStartOfDay().plusMinutes((long) slot * SLOT_MINUTES);
+    }
+
+    private void setRange(int fromBit, int toBit) {
+        if (fromBit >= toBit) {
+            return;
+        }
+        int startWord = fromBit >>> 6;
+        int endWord = (toBit - 1) >>> 6;
+        long firstMask = -1L << fromBit;
+        long lastMask = -1L >>> -toBit;
+        if (startWord == endWord) {
+            words[startWord] |= firstMask & lastMask;
+            return;
+        }
+        words[startWord] |= firstMask;
+        for (int i = startWord + 1; i < endWord; i++) {
+            words[i] = -1L;
+        }
+        words[endWord] |= lastMask;
+    }
+
+    private void clearRange(int fromBit, int toBit) {
+        if (fromBit >= toBit) {
+            return;
+        }
+        int startWord = fromBit >>> 6;
+        int endWord = (toBit - 1) >>> 6;
+        long firstMask = -1L << fromBit;
+        long lastMask = -1L >>> -toBit;
+        if (startWord == endWord) {
+            words[startWord] &= ~(firstMask & lastMask);
+            return;
+        }
+        words[startWord] &= ~firstMask;
+        for (int i = startWord + 1; i < endWord; i++) {
+            words[i] = 0L;
+        }
+        words[endWord] &= ~lastMask;
+    }
+
+    private void clearEdge(LocalDateTime dayStart, int dayBit, int slot,
+                           BiPredicate<LocalDateTime, LocalDateTime> occupied) {
+        LocalDateTime slotStart = dayStart.plusMinutes((long) slot * SLOT_MINUTES);
+        if (!occupied.test(slotStart, slotStart.plusMinutes(SLOT_MINUTES))) {
+            clearRange(dayBit + slot, dayBit + slot + 1);
+        }
+    }
+
+    private int nextSetBit(int fromBit) {
+        int index = fromBit >>> 6;
+        if (index >= words.length) {
+            return -1;
+        }
+        long word = words[index] & (-1L << fromBit);
+        while (true) {
+            if (word != 0) {
+                return index * Long.SIZE + Long.numberOfTrailingZeros(word);
+            }
+            if (++index == words.length) {
+                return -1;
+            }
+            word = words[index];
+        }
+    }
+
+    private int nextClearBit(int fromBit) {
+        int index = fromBit >>> 6;
+        if (index >= words.length) {
+            return -1;
+        }
+        long word = ~words[index] & (-1L << fromBit);
+        while (true) {
+            if (word != 0) {
+                return index * Long.SIZE + Long.numberOfTrailingZeros(word);
+            }
+            if (++index == words.length) {
+                return -1;
+            }
+            word = ~words[index];
+        }
+    }
+
+    private static int minuteOfDay(LocalDateTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
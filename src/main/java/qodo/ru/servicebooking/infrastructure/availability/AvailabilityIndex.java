@@ -0,0 +1,112 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import qodo.ru.servicebooking.domain.valueobjects.TimeSlot;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.BookingInterval;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.IntervalsChanged;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс свободного времени мастеров в памяти.
+ *
+ * На каждого мастера - {@link AvailabilityCalendar} на booking.availability.horizon-days
+ * суток вперед (40 байт на сутки), для 10k мастеров и 90 дней это ~36 МБ.
+ * Загружается {@link IndexSnapshotService} и дальше обновляется по {@link IntervalsChanged}
+ * после коммита транзакции.
+ *
+ * Рабочие часы мастеров в схеме не хранятся, поэтому свободным считается все время,
+ * не занятое бронированиями. Сутки считаются по локальному времени сервера.
+ *
+ * Крайние пятиминутки освобожденной невыровненной записи снимаются, только если
+ * {@link BookingOverlapIndex} не видит в них другой активной записи. Он получает
+ * изменения раньше этого индекса (@Order), поэтому уже отражает то же событие.
+ */
+@Component
+public class AvailabilityIndex implements IntervalIndex {
+
+    private final int horizonDays;
+    private final BookingOverlapIndex overlapIndex;
+    private final Map<UUID, AvailabilityCalendar> calendars = new ConcurrentHashMap<>();
+    private final Timer searchTimer;
+
+    public AvailabilityIndex(BookingProperties properties, BookingOverlapIndex overlapIndex, MeterRegistry meterRegistry) {
+        this.horizonDays = properties.getAvailability().getHorizonDays();
+        this.overlapIndex = overlapIndex;
+
+        this.searchTimer = Timer.builder("booking.availability.search")
+                .description("Поиск свободных окон мастера")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("booking.availability.masters", calendars, Map::size)
+                .description("Мастера в индексе свободного времени")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Первые limit свободных окон длиной durationMinutes между from и to.
+     * Окна выровнены по 5 минутам; внутри одного свободного отрезка идут встык.
+     *
+     * @param accountId мастер
+     * @param from начало поиска
+     * @param to конец поиска (окно должно закончиться не позже)
+     * @param durationMinutes длительность окна
+     * @param limit максимум окон
+     * @return окна по возрастанию времени
+     */
+    public List<TimeSlot> findFreeWindows(UUID accountId, LocalDateTime from, LocalDateTime to,
+                                          int durationMinutes, int limit) {
+        if (limit <= 0 || durationMinutes <= 0 || !from.isBefore(to)) {
+            return List.of();
+        }
+
+        return searchTimer.record(() -> {
+            LocalDate today = LocalDate.now();
+            AvailabilityCalendar calendar = calendars.get(accountId);
+            if (calendar == null) {
+                // Мастер без бронирований: в индекс не кладем, чтобы чтения не раздували память
+                calendar = new AvailabilityCalendar(today, horizonDays);
+            }
+            return calendar.findFreeWindows(today, from, to, durationMinutes, limit).stream()
+                    .map(start -> TimeSlot.of(start, durationMinutes))
+                    .toList();
+        });
+    }
+
+    /**
+     * Изменения активных интервалов после коммита.
+     * fallbackExecution - для изменений вне транзакции.
+     */
+    @Override
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIntervalsChanged(IntervalsChanged event) {
+        LocalDate today = LocalDate.now();
+        event.activated().forEach(interval -> occupy(today, interval));
+        event.released().forEach(interval -> release(today, interval));
+    }
+
+    private void occupy(LocalDate today, BookingInterval interval) {
+        if (interval.end().isAfter(today.atStartOfDay())) {
+            calendars.computeIfAbsent(interval.accountId(), id -> new AvailabilityCalendar(today, horizonDays))
+                    .mark(today, interval.scheduledAt(), interval.end(), true);
+        }
+    }
+
+    private void release(LocalDate today, BookingInterval interval) {
+        AvailabilityCalendar calendar = calendars.get(interval.accountId());
+        if (calendar != null && interval.end().isAfter(today.atStartOfDay())) {
+            calendar.release(today, interval.scheduledAt(), interval.end(), (from, to) ->
+                    overlapIndex.isOccupied(interval.accountId(), from, to, interval.bookingId()));
+        }
+    }
+}
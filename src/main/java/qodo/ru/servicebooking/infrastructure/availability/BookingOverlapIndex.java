@@ -0,0 +1,138 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.BookingInterval;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.IntervalsChanged;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Индекс пересечений активных бронирований для админки и переноса записей.
+ *
+ * Дерево интервалов ({@link IntervalTree}) на каждого мастера, запрос
+ * "активные записи этих мастеров, пересекающие [from, to)" - O(log n + k) на мастера
+ * без обращения к БД. Загружается {@link IndexSnapshotService} и обновляется
+ * по {@link IntervalsChanged} после коммита.
+ *
+ * Индекс хранит полные интервалы активных записей, поэтому он же - источник снимка
+ * и источник правды для крайних битов {@link AvailabilityIndex}: изменения применяются
+ * к нему раньше остальных индексов.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class BookingOverlapIndex implements IntervalIndex {
+
+    private final Map<UUID, IntervalTree> trees = new ConcurrentHashMap<>();
+    private final Timer queryTimer;
+
+    public BookingOverlapIndex(MeterRegistry meterRegistry) {
+        this.queryTimer = Timer.builder("booking.overlap.query")
+                .description("Поиск пересекающихся бронирований")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("booking.overlap.intervals", trees,
+                        map -> map.values().stream().mapToInt(IntervalTree::size).sum())
+                .description("Активные интервалы в индексе пересечений")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Активные бронирования мастера, пересекающие [from, to).
+     *
+     * @param accountId мастер
+     * @param from начало периода
+     * @param to конец периода (не включительно)
+     * @return интервалы по возрастанию начала
+     */
+    public List<BookingInterval> findOverlapping(UUID accountId, LocalDateTime from, LocalDateTime to) {
+        return findOverlapping(List.of(accountId), from, to);
+    }
+
+    /**
+     * Активные бронирования нескольких мастеров, пересекающие [from, to).
+     *
+     * @param accountIds мастера
+     * @param from начало периода
+     * @param to конец периода (не включительно)
+     * @return интервалы, сгруппированные по мастеру в порядке accountIds
+     */
+    public List<BookingInterval> findOverlapping(Collection<UUID> accountIds, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+        return queryTimer.record(() -> {
+            List<BookingInterval> result = new ArrayList<>();
+            for (UUID accountId : accountIds) {
+                IntervalTree tree = trees.get(accountId);
+                if (tree != null) {
+                    tree.collectOverlapping(from, to, result);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Занят ли [from, to) активной записью мастера, кроме exceptBookingId.
+     */
+    boolean isOccupied(UUID accountId, LocalDateTime from, LocalDateTime to, UUID exceptBookingId) {
+        IntervalTree tree = trees.get(accountId);
+        if (tree == null) {
+            return false;
+        }
+        List<BookingInterval> overlapping = new ArrayList<>();
+        tree.collectOverlapping(from, to, overlapping);
+        for (BookingInterval interval : overlapping) {
+            if (!interval.bookingId().equals(exceptBookingId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Изменения активных интервалов после коммита.
+     * fallbackExecution - для изменений вне транзакции.
+     */
+    @Override
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIntervalsChanged(IntervalsChanged event) {
+        event.activated().forEach(this::add);
+        event.released().forEach(this::remove);
+    }
+
+    private void add(BookingInterval interval) {
+        trees.compute(interval.accountId(), (accountId, tree) -> {
+            IntervalTree target = tree != null ? tree : new IntervalTree();
+            target.insert(interval);
+            return target;
+        });
+    }
+
+    private void remove(BookingInterval interval) {
+        // Пустое дерево удаляется под той же блокировкой бакета, что и вставка
+        trees.computeIfPresent(interval.accountId(),
+                (accountId, tree) -> tree.remove(interval.bookingId()) ? null : tree);
+    }
+
+    /**
+     * Обойти все интервалы индекса (для снимка). Каждый мастер читается под своей блокировкой.
+     */
+    void forEachInterval(Consumer<BookingInterval> consumer) {
+        trees.values().forEach(tree -> tree.forEach(consumer));
+    }
+}
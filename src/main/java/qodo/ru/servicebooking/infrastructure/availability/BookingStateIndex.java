@@ -0,0 +1,122 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.BookingInterval;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.IntervalsChanged;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Индекс активных бронирований вне кучи: слот -> бронирование и
+ * бронирование -> (статус, версия, время начала).
+ *
+ * Обе таблицы - {@link OffHeapUuidTable}: 40 и 32 байта на запись вместо сотен байт
+ * у {@code HashMap<UUID, ...>}, и десятки миллионов записей не нагружают GC.
+ * Состояние упаковано в один long: минуты эпохи начала (32 бита), версия (24 бита), статус (8 бит).
+ *
+ * Индекс - кэш: события после коммита разных транзакций могут прийти не по порядку,
+ * поэтому отсутствие записи не доказывает, что слот свободен. Источник истины -
+ * ограничения в БД (ux_bookings_slot_active, ex_bookings_account_time_overlap).
+ */
+@Component
+public class BookingStateIndex implements IntervalIndex {
+
+    private final OffHeapUuidTable slots;
+    private final OffHeapUuidTable bookings;
+
+    public BookingStateIndex(BookingProperties properties, MeterRegistry meterRegistry) {
+        long capacity = properties.getAvailability().getOffHeapInitialCapacity();
+        this.slots = new OffHeapUuidTable(capacity, 2);
+        this.bookings = new OffHeapUuidTable(capacity, 1);
+
+        Gauge.builder("booking.offheap.entries", bookings, OffHeapUuidTable::size)
+                .description("Активные бронирования в off-heap индексе")
+                .register(meterRegistry);
+        Gauge.builder("booking.offheap.bytes", this, index -> index.slots.offHeapBytes() + index.bookings.offHeapBytes())
+                .description("Память вне кучи под индекс бронирований")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Активное бронирование слота.
+     */
+    public Optional<UUID> findActiveBookingBySlot(UUID slotId) {
+        long[] value = new long[2];
+        if (!slots.get(slotId.getMostSignificantBits(), slotId.getLeastSignificantBits(), value)) {
+            return Optional.empty();
+        }
+        return Optional.of(new UUID(value[0], value[1]));
+    }
+
+    /**
+     * Статус, версия и время начала активного бронирования.
+     */
+    public Optional<BookingState> findActiveState(UUID bookingId) {
+        long[] value = new long[1];
+        if (!bookings.get(bookingId.getMostSignificantBits(), bookingId.getLeastSignificantBits(), value)) {
+            return Optional.empty();
+        }
+        return Optional.of(BookingState.unpack(value[0]));
+    }
+
+    /**
+     * Изменения активных бронирований после коммита.
+     * fallbackExecution - для изменений вне транзакции.
+     */
+    @Override
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIntervalsChanged(IntervalsChanged event) {
+        event.activated().forEach(this::add);
+        event.released().forEach(this::remove);
+    }
+
+    private void add(BookingInterval interval) {
+        UUID bookingId = interval.bookingId();
+        long hi = bookingId.getMostSignificantBits();
+        long lo = bookingId.getLeastSignificantBits();
+
+        bookings.put(hi, lo, BookingState.pack(interval.status(), interval.version(), interval.scheduledAt()));
+        slots.put(interval.slotId().getMostSignificantBits(), interval.slotId().getLeastSignificantBits(), hi, lo);
+    }
+
+    private void remove(BookingInterval interval) {
+        UUID bookingId = interval.bookingId();
+        long hi = bookingId.getMostSignificantBits();
+        long lo = bookingId.getLeastSignificantBits();
+
+        bookings.remove(hi, lo, null);
+        // Слот мог уже занять другой заказ - снимаем, только если он наш
+        slots.remove(interval.slotId().getMostSignificantBits(), interval.slotId().getLeastSignificantBits(),
+                new long[]{hi, lo});
+    }
+
+    /**
+     * Состояние активного бронирования. Версия хранится по модулю 2^24.
+     */
+    public record BookingState(BookingStatus status, int version, LocalDateTime scheduledAt) {
+
+        private static final BookingStatus[] STATUSES = BookingStatus.values();
+
+        static long pack(BookingStatus status, int version, LocalDateTime scheduledAt) {
+            long epochMinutes = scheduledAt.toEpochSecond(ZoneOffset.UTC) / 60;
+            return epochMinutes << 32 | (long) (version & 0xFFFFFF) << 8 | status.ordinal();
+        }
+
+        static BookingState unpack(long packed) {
+            return new BookingState(
+                    STATUSES[(int) (packed & 0xFF)],
+                    (int) (packed >>> 8) & 0xFFFFFF,
+                    LocalDateTime.ofEpochSecond((packed >>> 32) * 60, 0, ZoneOffset.UTC)
+            );
+        }
+    }
+}
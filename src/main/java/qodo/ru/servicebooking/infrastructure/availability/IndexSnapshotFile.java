@@ -0,0 +1,154 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.BookingInterval;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Формат файла снимка активных интервалов.
+ *
+ * Заголовок (48 байт): magic, версия формата, размер записи, число записей,
+ * high-water mark (created_at событий outbox, с которого догонять из БД), время создания, CRC32C
+ * заголовка (без самого поля CRC) и тела - испорченный high-water mark так же опасен, как запись.
+ * Дальше записи фиксированного размера (72 байта): bookingId, accountId, slotId,
+ * scheduledAt (секунды эпохи), длительность, версия, статус.
+ *
+ * Файл пишется во временный и атомарно переименовывается, читается через mmap
+ * без промежуточного буфера. Один mmap-регион ограничен 2 ГБ - это ~29 млн активных записей.
+ * Любое несоответствие (magic, версия, CRC) - снимок игнорируется и индексы строятся из БД. При изменении формата или порядка
+ * {@link BookingStatus} нужно поднять FORMAT_VERSION.
+ */
+final class IndexSnapshotFile {
+
+    private static final long MAGIC = 0x424B_4944_5853_4E50L; // "BKIDXSNP"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 48;
+    private static final int RECORD_SIZE = 72;
+    private static final int CHECKSUM_OFFSET = 40;
+
+    private static final BookingStatus[] STATUSES = BookingStatus.values();
+
+    private IndexSnapshotFile() {
+    }
+
+    /**
+     * Записать снимок.
+     *
+     * @param path файл снимка
+     * @param highWaterMark момент, изменения после которого нужно догнать из БД
+     * @param intervals активные интервалы
+     */
+    static void write(Path path, LocalDateTime highWaterMark, List<BookingInterval> intervals) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        long size = HEADER_SIZE + (long) RECORD_SIZE * intervals.size();
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.position(HEADER_SIZE);
+            for (BookingInterval interval : intervals) {
+                putUuid(buffer, interval.bookingId());
+                putUuid(buffer, interval.accountId());
+                putUuid(buffer, interval.slotId());
+                buffer.putLong(interval.scheduledAt().toEpochSecond(ZoneOffset.UTC));
+                buffer.putInt(interval.durationMinutes());
+                buffer.putInt(interval.version());
+                buffer.putLong(interval.status().ordinal());
+            }
+
+            buffer.putLong(0, MAGIC);
+            buffer.putInt(8, FORMAT_VERSION);
+            buffer.putInt(12, RECORD_SIZE);
+            buffer.putLong(16, intervals.size());
+            buffer.putLong(24, highWaterMark.toEpochSecond(ZoneOffset.UTC));
+            buffer.putLong(32, LocalDateTime.now().toEpochSecond(ZoneOffset.UTC));
+            buffer.putLong(CHECKSUM_OFFSET, checksum(buffer, size));
+            buffer.force();
+        }
+
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Прочитать снимок.
+     *
+     * @param path файл снимка
+     * @param replayableSince самый ранний high-water mark, с которого еще можно догнать изменения
+     * @param consumer получает интервалы в порядке записи
+     * @return high-water mark снимка; empty, если файла нет, он не прошел проверку
+     *         или догнать его уже нельзя (тогда consumer не вызывается)
+     */
+    static Optional<LocalDateTime> read(Path path, LocalDateTime replayableSince,
+                                        Consumer<BookingInterval> consumer) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_SIZE) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            long count = buffer.getLong(16);
+            if (buffer.getLong(0) != MAGIC
+                    || buffer.getInt(8) != FORMAT_VERSION
+                    || buffer.getInt(12) != RECORD_SIZE
+                    || size != HEADER_SIZE + RECORD_SIZE * count
+                    || buffer.getLong(CHECKSUM_OFFSET) != checksum(buffer, size)) {
+                return Optional.empty();
+            }
+            LocalDateTime highWaterMark = LocalDateTime.ofEpochSecond(buffer.getLong(24), 0, ZoneOffset.UTC);
+            if (highWaterMark.isBefore(replayableSince)) {
+                return Optional.empty();
+            }
+
+            buffer.position(HEADER_SIZE);
+            for (long i = 0; i < count; i++) {
+                UUID bookingId = getUuid(buffer);
+                UUID accountId = getUuid(buffer);
+                UUID slotId = getUuid(buffer);
+                LocalDateTime scheduledAt = LocalDateTime.ofEpochSecond(buffer.getLong(), 0, ZoneOffset.UTC);
+                int durationMinutes = buffer.getInt();
+                int version = buffer.getInt();
+                BookingStatus status = STATUSES[(int) buffer.getLong()];
+                consumer.accept(new BookingInterval(
+                        bookingId, accountId, slotId, scheduledAt, durationMinutes, status, version));
+            }
+            return Optional.of(highWaterMark);
+        }
+    }
+
+    private static long checksum(MappedByteBuffer buffer, long size) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(0, CHECKSUM_OFFSET));
+        crc.update(buffer.slice(HEADER_SIZE, (int) (size - HEADER_SIZE)));
+        return crc.getValue();
+    }
+
+    private static void putUuid(MappedByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(MappedByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
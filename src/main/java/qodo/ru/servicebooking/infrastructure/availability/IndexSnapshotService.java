@@ -0,0 +1,313 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.BookingInterval;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.IntervalsChanged;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка in-memory индексов при старте, их периодические снимки на диск
+ * и догон изменений, сделанных другими узлами.
+ *
+ * Старт: если есть валидный снимок ({@link IndexSnapshotFile}), индексы заполняются
+ * из него, а из БД дочитываются только записи, по которым с high-water mark снимка
+ * было доменное событие в outbox (индекс idx_outbox_aggregate_created_at). Иначе - полный
+ * потоковый проход по активным записям. Позиция берется из outbox, а не из bookings.updated_at:
+ * индекс по updated_at делал бы каждое обновление bookings не-HOT.
+ * В CDC-режиме строки outbox удаляются через cdc.retention-hours - снимок старше этого
+ * срока догнать нельзя, и индексы строятся из БД полностью.
+ * Старт блокируется до конца загрузки: пустой индекс показывал бы занятое время свободным.
+ * Поэтому фаза ниже фазы веб-сервера - он начинает принимать запросы только после загрузки.
+ *
+ * Снимок берется из {@link BookingOverlapIndex} раз в interval-minutes и при остановке.
+ * High-water mark сдвинут назад на replay-overlap-minutes: created_at события - момент
+ * его создания в транзакции, а видно событие становится только после ее коммита.
+ *
+ * Слушатели {@link IntervalsChanged} получают только транзакции своего узла. Изменения
+ * остальных узлов приходят тем же догоном: раз в feed.poll-interval-ms перечитываются
+ * записи с событиями в outbox начиная с прошлого опроса минус feed.overlap-seconds.
+ * Свои изменения при этом применяются повторно, это безопасно. Состояние, прочитанное
+ * до коммита более позднего изменения, может лечь поверх него - его исправит следующий
+ * опрос, пока событие в окне перекрытия. Индексы отстают от БД на интервал опроса,
+ * источник истины для записи - ограничения в БД.
+ * Догон идемпотентен, поэтому повторно прочитанные изменения безопасны. Каждая запись
+ * приходит один раз в текущем состоянии; освобождения применяются раньше активаций:
+ * битовая карта не хранит владельца бита, и освобождение отмененной записи, примененное
+ * после активации новой записи на то же время, стерло бы ее занятость.
+ */
+@Slf4j
+@Component
+public class IndexSnapshotService implements SmartLifecycle {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    /**
+     * Раньше веб-сервера (WebServerStartStopLifecycle, DEFAULT_PHASE - 2048):
+     * запросы не обслуживаются из недогруженных индексов.
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final BookingRepository bookingRepository;
+    private final BookingOverlapIndex overlapIndex;
+    private final List<IntervalIndex> indexes;
+    private final BookingProperties.Snapshot settings;
+    private final BookingProperties.Outbox outboxSettings;
+    private final Path path;
+    private final Timer snapshotWarmup;
+    private final Timer fullWarmup;
+    private final Timer snapshotWrite;
+    private final Timer feedPoll;
+    private final BookingProperties.Feed feedSettings;
+
+    private volatile boolean running;
+    private volatile LocalDateTime feedPosition;
+    private ScheduledExecutorService scheduler;
+
+    public IndexSnapshotService(BookingRepository bookingRepository,
+                                BookingOverlapIndex overlapIndex,
+                                List<IntervalIndex> indexes,
+                                BookingProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.overlapIndex = overlapIndex;
+        this.indexes = indexes;
+        this.settings = properties.getAvailability().getSnapshot();
+        this.outboxSettings = properties.getOutbox();
+        this.feedSettings = properties.getAvailability().getFeed();
+        this.path = Path.of(settings.getPath());
+
+        this.snapshotWarmup = createWarmupTimer(meterRegistry, "snapshot");
+        this.fullWarmup = createWarmupTimer(meterRegistry, "full");
+        this.snapshotWrite = Timer.builder("booking.index.snapshot.write")
+                .description("Запись снимка индексов")
+                .register(meterRegistry);
+        this.feedPoll = Timer.builder("booking.index.feed.poll")
+                .description("Опрос outbox для догона индексов изменениями других узлов")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        long startedAt = System.nanoTime();
+        // Все, что закоммитят другие узлы во время загрузки, догонит первый опрос
+        feedPosition = LocalDateTime.now();
+        LocalDateTime notBefore = LocalDate.now().atStartOfDay();
+
+        Optional<LocalDateTime> highWaterMark = settings.isEnabled() ? loadSnapshot(notBefore) : Optional.empty();
+        if (highWaterMark.isPresent()) {
+            int replayed = replaySince(highWaterMark.get());
+            snapshotWarmup.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            log.info("Indexes restored from snapshot {} (high-water mark {}), {} changes replayed in {} ms",
+                    path, highWaterMark.get(), replayed, (System.nanoTime() - startedAt) / 1_000_000);
+        } else {
+            int loaded = loadAll(notBefore);
+            fullWarmup.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            log.info("Indexes built from database: {} active bookings in {} ms",
+                    loaded, (System.nanoTime() - startedAt) / 1_000_000);
+        }
+
+        if (settings.isEnabled() || feedSettings.isEnabled()) {
+            // Один поток: снимок и опрос не применяют изменения к индексам одновременно
+            scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("index-snapshot").factory());
+        }
+        if (settings.isEnabled()) {
+            long periodMinutes = settings.getIntervalMinutes();
+            scheduler.scheduleWithFixedDelay(this::writeSnapshot, periodMinutes, periodMinutes, TimeUnit.MINUTES);
+        }
+        if (feedSettings.isEnabled()) {
+            long periodMs = feedSettings.getPollIntervalMs();
+            scheduler.scheduleWithFixedDelay(this::pollChanges, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            // Свежий снимок при штатной остановке - минимальный догон на следующем старте
+            if (settings.isEnabled()) {
+                writeSnapshot();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Записать снимок сейчас.
+     */
+    public void writeSnapshot() {
+        long startedAt = System.nanoTime();
+        // High-water mark фиксируется до обхода индекса: все, что изменится во время обхода, догонится
+        LocalDateTime highWaterMark = LocalDateTime.now().minusMinutes(settings.getReplayOverlapMinutes());
+        LocalDateTime notBefore = LocalDate.now().atStartOfDay();
+
+        List<BookingInterval> intervals = new ArrayList<>();
+        overlapIndex.forEachInterval(interval -> {
+            if (interval.end().isAfter(notBefore)) {
+                intervals.add(interval);
+            }
+        });
+
+        try {
+            IndexSnapshotFile.write(path, highWaterMark, intervals);
+            snapshotWrite.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            log.debug("Index snapshot written: {} intervals to {}", intervals.size(), path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write index snapshot to {}", path, e);
+        }
+    }
+
+    /**
+     * Применить изменения, попавшие в outbox с прошлого опроса (в том числе с других узлов).
+     */
+    private void pollChanges() {
+        long startedAt = System.nanoTime();
+        LocalDateTime polledAt = LocalDateTime.now();
+        try {
+            int replayed = replaySince(feedPosition.minusSeconds(feedSettings.getOverlapSeconds()));
+            feedPosition = polledAt;
+            feedPoll.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            log.debug("Index feed applied {} changes", replayed);
+        } catch (RuntimeException e) {
+            // Позиция не сдвигается: следующий опрос перечитает то же окно
+            log.warn("Index feed poll failed", e);
+        }
+    }
+
+    private Optional<LocalDateTime> loadSnapshot(LocalDateTime notBefore) {
+        try (Batcher batcher = new Batcher()) {
+            Optional<LocalDateTime> highWaterMark = IndexSnapshotFile.read(path, replayableSince(), interval -> {
+                if (interval.end().isAfter(notBefore)) {
+                    batcher.activated(interval);
+                }
+            });
+            if (highWaterMark.isEmpty()) {
+                log.info("No valid index snapshot at {}, building from database", path);
+            }
+            return highWaterMark;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read index snapshot {}, building from database", path, e);
+            return Optional.empty();
+        }
+    }
+
+    private int replaySince(LocalDateTime highWaterMark) {
+        // Изменений с high-water mark немного: активации ждут в памяти, пока не пройдут все освобождения
+        List<BookingInterval> activated = new ArrayList<>();
+        int[] replayed = new int[1];
+        try (Batcher batcher = new Batcher()) {
+            bookingRepository.streamIntervalsChangedSince(highWaterMark, interval -> {
+                if (interval.status().isActive()) {
+                    activated.add(interval);
+                } else {
+                    batcher.released(interval);
+                }
+                replayed[0]++;
+            });
+            activated.forEach(batcher::activated);
+        }
+        return replayed[0];
+    }
+
+    /**
+     * Самый ранний high-water mark, для которого события еще лежат в outbox.
+     * В polling-режиме опубликованные события не удаляются.
+     */
+    private LocalDateTime replayableSince() {
+        if (!"cdc".equals(outboxSettings.getMode())) {
+            return LocalDateTime.MIN;
+        }
+        return LocalDateTime.now().minusHours(outboxSettings.getCdc().getRetentionHours());
+    }
+
+    private int loadAll(LocalDateTime notBefore) {
+        int[] loaded = new int[1];
+        try (Batcher batcher = new Batcher()) {
+            bookingRepository.streamActiveIntervals(notBefore, interval -> {
+                batcher.activated(interval);
+                loaded[0]++;
+            });
+        }
+        return loaded[0];
+    }
+
+    private static Timer createWarmupTimer(MeterRegistry meterRegistry, String source) {
+        return Timer.builder("booking.index.warmup")
+                .description("Загрузка in-memory индексов при старте")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Отдает изменения индексам пачками по BATCH_SIZE, сохраняя порядок.
+     */
+    private final class Batcher implements AutoCloseable {
+        private List<BookingInterval> activated = new ArrayList<>(BATCH_SIZE);
+        private List<BookingInterval> released = new ArrayList<>();
+
+        void activated(BookingInterval interval) {
+            if (!released.isEmpty()) {
+                flush();
+            }
+            add(activated, interval);
+        }
+
+        void released(BookingInterval interval) {
+            if (!activated.isEmpty()) {
+                flush();
+            }
+            add(released, interval);
+        }
+
+        private void add(List<BookingInterval> target, BookingInterval interval) {
+            target.add(interval);
+            if (target.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (activated.isEmpty() && released.isEmpty()) {
+                return;
+            }
+            IntervalsChanged event = new IntervalsChanged(activated, released);
+            for (IntervalIndex index : indexes) {
+                index.onIntervalsChanged(event);
+            }
+            activated = new ArrayList<>(BATCH_SIZE);
+            released = new ArrayList<>();
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+}
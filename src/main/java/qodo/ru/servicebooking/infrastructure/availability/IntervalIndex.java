@@ -0,0 +1,15 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.IntervalsChanged;
+
+/**
+ * In-memory индекс, построенный из активных интервалов бронирований.
+ *
+ * Начальную загрузку (из снимка или из БД) делает {@link IndexSnapshotService},
+ * дальше индекс получает {@link IntervalsChanged} после коммита. Обработка идемпотентна:
+ * при догоне после снимка одни и те же изменения могут прийти повторно.
+ */
+interface IntervalIndex {
+
+    void onIntervalsChanged(IntervalsChanged event);
+}
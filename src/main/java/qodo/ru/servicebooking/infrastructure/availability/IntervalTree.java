@@ -0,0 +1,212 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.BookingInterval;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Дерево интервалов бронирований одного мастера.
+ *
+ * Декартово дерево (treap) по (начало, bookingId), каждый узел хранит максимальный
+ * конец интервала в своем поддереве. Поиск пересечений с [from, to) отсекает
+ * поддеревья, где maxEnd <= from, и правые поддеревья узлов с началом >= to:
+ * O(log n + k) в ожидании. Время хранится в минутах, чтобы не сравнивать LocalDateTime.
+ *
+ * Вставка идемпотентна: повторная активация той же записи заменяет ее интервал.
+ */
+final class IntervalTree {
+
+    private final Map<UUID, Node> byBookingId = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+
+    void insert(BookingInterval interval) {
+        lock.writeLock().lock();
+        try {
+            Node previous = byBookingId.remove(interval.bookingId());
+            if (previous != null) {
+                root = remove(root, previous.start, previous.interval.bookingId());
+            }
+            Node node = new Node(interval);
+            byBookingId.put(interval.bookingId(), node);
+            root = insert(root, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true, если в дереве не осталось интервалов
+     */
+    boolean remove(UUID bookingId) {
+        lock.writeLock().lock();
+        try {
+            Node node = byBookingId.remove(bookingId);
+            if (node != null) {
+                root = remove(root, node.start, bookingId);
+            }
+            return root == null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Интервалы, пересекающиеся с [from, to), по возрастанию начала.
+     */
+    void collectOverlapping(LocalDateTime from, LocalDateTime to, List<BookingInterval> result) {
+        long fromMinute = toMinutes(from);
+        long toMinute = toMinutes(to);
+        lock.readLock().lock();
+        try {
+            collect(root, fromMinute, toMinute, result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void forEach(Consumer<BookingInterval> consumer) {
+        lock.readLock().lock();
+        try {
+            byBookingId.values().forEach(node -> consumer.accept(node.interval));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return byBookingId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void collect(Node node, long from, long to, List<BookingInterval> result) {
+        while (node != null && node.maxEnd > from) {
+            collect(node.left, from, to, result);
+            if (node.start >= to) {
+                return;
+            }
+            if (node.end > from) {
+                result.add(node.interval);
+            }
+            node = node.right;
+        }
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (inserted.priority > node.priority) {
+            Node[] parts = split(node, inserted.start, inserted.interval.bookingId());
+            inserted.left = parts[0];
+            inserted.right = parts[1];
+            return inserted.update();
+        }
+        if (compare(inserted.start, inserted.interval.bookingId(), node) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        return node.update();
+    }
+
+    private static Node remove(Node node, long start, UUID bookingId) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, bookingId, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, start, bookingId);
+        } else {
+            node.right = remove(node.right, start, bookingId);
+        }
+        return node.update();
+    }
+
+    /**
+     * Разрезать поддерево на ключи меньше (start, bookingId) и остальные.
+     */
+    private static Node[] split(Node node, long start, UUID bookingId) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (compare(start, bookingId, node) > 0) {
+            Node[] parts = split(node.right, start, bookingId);
+            node.right = parts[0];
+            parts[0] = node.update();
+            return parts;
+        }
+        Node[] parts = split(node.left, start, bookingId);
+        node.left = parts[1];
+        parts[1] = node.update();
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    private static int compare(long start, UUID bookingId, Node node) {
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : bookingId.compareTo(node.interval.bookingId());
+    }
+
+    static long toMinutes(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static final class Node {
+        private final BookingInterval interval;
+        private final long start;
+        private final long end;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(BookingInterval interval) {
+            this.interval = interval;
+            this.start = toMinutes(interval.scheduledAt());
+            this.end = start + interval.durationMinutes();
+            this.maxEnd = end;
+        }
+
+        private Node update() {
+            long max = end;
+            if (left != null && left.maxEnd > max) {
+                max = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > max) {
+                max = right.maxEnd;
+            }
+            maxEnd = max;
+            return this;
+        }
+    }
+}
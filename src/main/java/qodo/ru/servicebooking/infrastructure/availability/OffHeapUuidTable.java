@@ -0,0 +1,309 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Хэш-таблица UUID -> long[valueWords] вне кучи (FFM {@link MemorySegment}).
+ *
+ * Открытая адресация с линейным пробированием. Запись - (valueWords + 3) long'а:
+ * управляющее слово, две половины UUID, значения. Для UUID -> long это 32 байта
+ * против ~150 байт у {@code HashMap<UUID, Long>}, и GC таблицу не сканирует.
+ *
+ * Управляющее слово - seqlock: младшие два бита - состояние ячейки
+ * (пусто, занято, удалено, пишется), старшие - счетчик изменений. Чтение без блокировок:
+ * читаем слово, ключ и значения, затем слово еще раз; если оно поменялось - повтор.
+ * Запись под полосой блокировки по хэшу ключа (один ключ пишет один поток),
+ * свободная ячейка захватывается CAS-ом, потому что разные полосы пробируют одни ячейки.
+ *
+ * Когда занятые и удаленные ячейки превышают 3/4 емкости, таблица перестраивается в новый
+ * сегмент (удвоенный, если живых больше половины) под всеми полосами. Читатели дочитывают
+ * старый сегмент: он в {@link Arena#ofAuto()} и освобождается GC, когда на него нет ссылок.
+ */
+final class OffHeapUuidTable {
+
+    private static final VarHandle WORDS = ValueLayout.JAVA_LONG.arrayElementVarHandle();
+
+    private static final long EMPTY = 0;
+    private static final long OCCUPIED = 1;
+    private static final long TOMBSTONE = 2;
+    private static final long WRITING = 3;
+    private static final long STATE_MASK = 3;
+
+    private static final int STRIPES = 64;
+
+    private final int valueWords;
+    private final int entryWords;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong tombstones = new AtomicLong();
+
+    private volatile Table table;
+
+    OffHeapUuidTable(long initialCapacity, int valueWords) {
+        this.valueWords = valueWords;
+        this.entryWords = valueWords + 3;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.table = allocate(Long.highestOneBit(Math.max(16, initialCapacity - 1)) << 1);
+    }
+
+    /**
+     * Прочитать значения ключа без блокировок.
+     *
+     * @param values буфер на valueWords значений
+     * @return false, если ключа нет
+     */
+    boolean get(long hi, long lo, long[] values) {
+        Table t = table;
+        long slot = hash(hi, lo) & t.mask;
+        for (long probes = 0; probes < t.capacity; ) {
+            long base = slot * entryWords;
+            long before = (long) WORDS.getAcquire(t.segment, base);
+            long state = before & STATE_MASK;
+
+            if (state == EMPTY) {
+                return false;
+            }
+            if (state == WRITING) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (state == OCCUPIED) {
+                long keyHi = t.segment.getAtIndex(ValueLayout.JAVA_LONG, base + 1);
+                long keyLo = t.segment.getAtIndex(ValueLayout.JAVA_LONG, base + 2);
+                for (int i = 0; i < valueWords; i++) {
+                    values[i] = t.segment.getAtIndex(ValueLayout.JAVA_LONG, base + 3 + i);
+                }
+                VarHandle.loadLoadFence();
+                if ((long) WORDS.getAcquire(t.segment, base) != before) {
+                    continue;
+                }
+                if (keyHi == hi && keyLo == lo) {
+                    return true;
+                }
+            }
+            slot = (slot + 1) & t.mask;
+            probes++;
+        }
+        return false;
+    }
+
+    /**
+     * Вставить или заменить значения ключа.
+     */
+    void put(long hi, long lo, long... values) {
+        if (needsRebuild()) {
+            rebuild();
+        }
+
+        ReentrantLock stripe = stripeFor(hi, lo);
+        stripe.lock();
+        try {
+            // Пока держим полосу, rebuild не начнется и table не сменится
+            Table t = table;
+            while (true) {
+                long free = -1;
+                long slot = hash(hi, lo) & t.mask;
+                long probes = 0;
+
+                for (; probes < t.capacity; probes++) {
+                    long base = slot * entryWords;
+                    long control = (long) WORDS.getAcquire(t.segment, base);
+                    long state = control & STATE_MASK;
+
+                    if (state == EMPTY) {
+                        if (free < 0) {
+                            free = slot;
+                        }
+                        break;
+                    }
+                    if (state == TOMBSTONE && free < 0) {
+                        free = slot;
+                    } else if (state == WRITING) {
+                        // Другой ключ захватывает ячейку; ждем, чтобы не пропустить свой ключ за ней
+                        Thread.onSpinWait();
+                        probes--;
+                        continue;
+                    } else if (state == OCCUPIED && keyEquals(t, base, hi, lo)) {
+                        WORDS.setVolatile(t.segment, base, (control & ~STATE_MASK) | WRITING);
+                        VarHandle.storeStoreFence();
+                        writeValues(t, base, values);
+                        WORDS.setRelease(t.segment, base, nextControl(control, OCCUPIED));
+                        return;
+                    }
+                    slot = (slot + 1) & t.mask;
+                }
+
+                if (free < 0) {
+                    throw new IllegalStateException("Off-heap index is full: " + t.capacity + " slots");
+                }
+
+                long base = free * entryWords;
+                long control = (long) WORDS.getAcquire(t.segment, base);
+                long state = control & STATE_MASK;
+                if ((state != EMPTY && state != TOMBSTONE)
+                        || !WORDS.compareAndSet(t.segment, base, control, (control & ~STATE_MASK) | WRITING)) {
+                    continue; // ячейку занял другой ключ - пробируем заново
+                }
+                t.segment.setAtIndex(ValueLayout.JAVA_LONG, base + 1, hi);
+                t.segment.setAtIndex(ValueLayout.JAVA_LONG, base + 2, lo);
+                writeValues(t, base, values);
+                WORDS.setRelease(t.segment, base, nextControl(control, OCCUPIED));
+
+                size.incrementAndGet();
+                if (state == TOMBSTONE) {
+                    tombstones.decrementAndGet();
+                }
+                return;
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Удалить ключ.
+     *
+     * @param expected если не null - удалить, только если первые expected.length значений совпадают
+     * @return true, если ключ удален
+     */
+    boolean remove(long hi, long lo, long[] expected) {
+        ReentrantLock stripe = stripeFor(hi, lo);
+        stripe.lock();
+        try {
+            Table t = table;
+            long slot = hash(hi, lo) & t.mask;
+            for (long probes = 0; probes < t.capacity; probes++) {
+                long base = slot * entryWords;
+                long control = (long) WORDS.getAcquire(t.segment, base);
+                long state = control & STATE_MASK;
+
+                if (state == EMPTY) {
+                    return false;
+                }
+                if (state == WRITING) {
+                    Thread.onSpinWait();
+                    probes--;
+                    continue;
+                }
+                if (state == OCCUPIED && keyEquals(t, base, hi, lo)) {
+                    if (expected != null) {
+                        for (int i = 0; i < expected.length; i++) {
+                            if (t.segment.getAtIndex(ValueLayout.JAVA_LONG, base + 3 + i) != expected[i]) {
+                                return false;
+                            }
+                        }
+                    }
+                    WORDS.setRelease(t.segment, base, nextControl(control, TOMBSTONE));
+                    size.decrementAndGet();
+                    tombstones.incrementAndGet();
+                    return true;
+                }
+                slot = (slot + 1) & t.mask;
+            }
+            return false;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    long size() {
+        return size.get();
+    }
+
+    /**
+     * Байт вне кучи под текущую таблицу.
+     */
+    long offHeapBytes() {
+        return table.segment.byteSize();
+    }
+
+    private boolean needsRebuild() {
+        return (size.get() + tombstones.get()) * 4 > table.capacity * 3;
+    }
+
+    private void rebuild() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            if (!needsRebuild()) {
+                return;
+            }
+            Table old = table;
+            long capacity = old.capacity;
+            while (size.get() * 2 > capacity) {
+                capacity <<= 1;
+            }
+
+            Table rebuilt = allocate(capacity);
+            for (long slot = 0; slot < old.capacity; slot++) {
+                long base = slot * entryWords;
+                if ((old.segment.getAtIndex(ValueLayout.JAVA_LONG, base) & STATE_MASK) != OCCUPIED) {
+                    continue;
+                }
+                long hi = old.segment.getAtIndex(ValueLayout.JAVA_LONG, base + 1);
+                long lo = old.segment.getAtIndex(ValueLayout.JAVA_LONG, base + 2);
+                long target = hash(hi, lo) & rebuilt.mask;
+                while (rebuilt.segment.getAtIndex(ValueLayout.JAVA_LONG, target * entryWords) != EMPTY) {
+                    target = (target + 1) & rebuilt.mask;
+                }
+                MemorySegment.copy(old.segment, ValueLayout.JAVA_LONG, base * Long.BYTES,
+                        rebuilt.segment, ValueLayout.JAVA_LONG, target * entryWords * Long.BYTES, entryWords);
+                rebuilt.segment.setAtIndex(ValueLayout.JAVA_LONG, target * entryWords, OCCUPIED);
+            }
+
+            tombstones.set(0);
+            table = rebuilt; // volatile-запись публикует заполненный сегмент читателям
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    private Table allocate(long capacity) {
+        MemorySegment segment = Arena.ofAuto().allocate(capacity * entryWords * Long.BYTES, Long.BYTES);
+        return new Table(segment, capacity, capacity - 1);
+    }
+
+    private boolean keyEquals(Table t, long base, long hi, long lo) {
+        return t.segment.getAtIndex(ValueLayout.JAVA_LONG, base + 1) == hi
+                && t.segment.getAtIndex(ValueLayout.JAVA_LONG, base + 2) == lo;
+    }
+
+    private void writeValues(Table t, long base, long[] values) {
+        for (int i = 0; i < valueWords; i++) {
+            t.segment.setAtIndex(ValueLayout.JAVA_LONG, base + 3 + i, values[i]);
+        }
+    }
+
+    private ReentrantLock stripeFor(long hi, long lo) {
+        return stripes[(int) (hash(hi, lo) >>> 58) & (STRIPES - 1)];
+    }
+
+    private static long nextControl(long control, long state) {
+        return ((control >>> 2) + 1) << 2 | state;
+    }
+
+    /**
+     * Финализатор MurmurHash3: младшие биты UUID v4 случайны не все (версия, вариант).
+     */
+    private static long hash(long hi, long lo) {
+        long h = hi ^ Long.rotateLeft(lo, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private record Table(MemorySegment segment, long capacity, long mask) {}
+}
@@ -0,0 +1,173 @@
+package qodo.ru.servicebooking.infrastructure.cache;
+
+import qodo.ru.servicebooking.domain.enums.BookingSource;
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+import qodo.ru.servicebooking.domain.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Компактный неизменяемый снимок {@link qodo.ru.servicebooking.domain.entity.Booking}
+ * для кэшей и индексов.
+ *
+ * UUID хранятся парами long, время - микросекундами эпохи (точность колонки TIMESTAMP),
+ * цена - копейками в long (масштаб 2, как у NUMERIC(10,2)), enum'ы - байтами.
+ * Повторяющиеся строки (валюта, название услуги) дедуплицируются {@link CompactBookingCodec},
+ * metadata хранится готовым JSON. Вместо ~1.5 КБ графа объектов Booking
+ * (7 LocalDateTime, 5 UUID, BigDecimal, HashMap) - около 250 байт плюс уникальные строки.
+ *
+ * Создается и разворачивается обратно только через {@link CompactBookingCodec}.
+ */
+public final class CompactBooking {
+
+    static final long NULL_TIME = Long.MIN_VALUE;
+
+    private static final BookingStatus[] STATUSES = BookingStatus.values();
+    private static final PaymentStatus[] PAYMENT_STATUSES = PaymentStatus.values();
+    private static final BookingSource[] SOURCES = BookingSource.values();
+
+    final long idHi;
+    final long idLo;
+    final long accountIdHi;
+    final long accountIdLo;
+    final long slotIdHi;
+    final long slotIdLo;
+    final long clientUserIdHi;
+    final long clientUserIdLo;
+    final long serviceIdHi;
+    final long serviceIdLo;
+
+    final long priceMinor;
+    final long scheduledAt;
+    final long createdAt;
+    final long updatedAt;
+    final long confirmedAt;
+    final long cancelledAt;
+    final long completedAt;
+
+    final int durationMinutes;
+    final int version;
+    final byte status;
+    final byte paymentStatus;
+    final byte source;
+
+    final String currency;
+    final String serviceName;
+    final String idempotencyKey;
+    final String clientName;
+    final String clientPhone;
+    final String notes;
+    final String internalNotes;
+    final byte[] metadata;
+
+    CompactBooking(UUID id, UUID accountId, UUID slotId, UUID clientUserId, UUID serviceId,
+                   long priceMinor, long scheduledAt, long createdAt, long updatedAt,
+                   long confirmedAt, long cancelledAt, long completedAt,
+                   int durationMinutes, int version,
+                   BookingStatus status, PaymentStatus paymentStatus, BookingSource source,
+                   String currency, String serviceName, String idempotencyKey,
+                   String clientName, String clientPhone, String notes, String internalNotes,
+                   byte[] metadata) {
+        this.idHi = id.getMostSignificantBits();
+        this.idLo = id.getLeastSignificantBits();
+        this.accountIdHi = accountId.getMostSignificantBits();
+        this.accountIdLo = accountId.getLeastSignificantBits();
+        this.slotIdHi = slotId.getMostSignificantBits();
+        this.slotIdLo = slotId.getLeastSignificantBits();
+        this.clientUserIdHi = clientUserId.getMostSignificantBits();
+        this.clientUserIdLo = clientUserId.getLeastSignificantBits();
+        this.serviceIdHi = serviceId.getMostSignificantBits();
+        this.serviceIdLo = serviceId.getLeastSignificantBits();
+        this.priceMinor = priceMinor;
+        this.scheduledAt = scheduledAt;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.confirmedAt = confirmedAt;
+        this.cancelledAt = cancelledAt;
+        this.completedAt = completedAt;
+        this.durationMinutes = durationMinutes;
+        this.version = version;
+        this.status = (byte) status.ordinal();
+        this.paymentStatus = (byte) paymentStatus.ordinal();
+        this.source = (byte) source.ordinal();
+        this.currency = currency;
+        this.serviceName = serviceName;
+        this.idempotencyKey = idempotencyKey;
+        this.clientName = clientName;
+        this.clientPhone = clientPhone;
+        this.notes = notes;
+        this.internalNotes = internalNotes;
+        this.metadata = metadata;
+    }
+
+    // Часто читаемые поля доступны без разворачивания в Booking
+
+    public UUID getId() {
+        return new UUID(idHi, idLo);
+    }
+
+    public UUID getAccountId() {
+        return new UUID(accountIdHi, accountIdLo);
+    }
+
+    public UUID getSlotId() {
+        return new UUID(slotIdHi, slotIdLo);
+    }
+
+    public BookingStatus getStatus() {
+        return STATUSES[status];
+    }
+
+    public PaymentStatus getPaymentStatus() {
+        return PAYMENT_STATUSES[paymentStatus];
+    }
+
+    public BookingSource getSource() {
+        return SOURCES[source];
+    }
+
+    public LocalDateTime getScheduledAt() {
+        return toTime(scheduledAt);
+    }
+
+    public BigDecimal getPrice() {
+        return BigDecimal.valueOf(priceMinor, 2);
+    }
+
+    /**
+     * Цена в копейках - для агрегации через {@link qodo.ru.servicebooking.domain.valueobjects.FastMoney#sumMinor}.
+     */
+    public long getPriceMinor() {
+        return priceMinor;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public boolean isActive() {
+        return getStatus().isActive();
+    }
+
+    static long toMicros(LocalDateTime time) {
+        if (time == null) {
+            return NULL_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime toTime(long micros) {
+        if (micros == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
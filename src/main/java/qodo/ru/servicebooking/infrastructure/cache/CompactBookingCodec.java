@@ -0,0 +1,140 @@
+package qodo.ru.servicebooking.infrastructure.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import qodo.ru.servicebooking.domain.entity.Booking;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Преобразование Booking <-> {@link CompactBooking} без потерь.
+ *
+ * Точность: время - до микросекунд (как в БД), цена - до копеек. Цену с большим
+ * числом знаков codec не примет (ArithmeticException), а не округлит молча.
+ * metadata переживает круг через JSON, как и при сохранении в БД.
+ *
+ * Валюта и название услуги дедуплицируются: у тысяч записей одна и та же строка.
+ * Пул ограничен MAX_POOLED_STRINGS, после этого строки хранятся как есть.
+ */
+@Component
+@RequiredArgsConstructor
+public class CompactBookingCodec {
+
+    private static final int MAX_POOLED_STRINGS = 10_000;
+    private static final byte[] EMPTY_METADATA = new byte[0];
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, String> pool = new ConcurrentHashMap<>();
+
+    /**
+     * Сжать сохраненное бронирование (id обязателен).
+     */
+    public CompactBooking encode(Booking booking) {
+        return new CompactBooking(
+                booking.getId(),
+                booking.getAccountId(),
+                booking.getSlotId(),
+                booking.getClientUserId(),
+                booking.getServiceId(),
+                booking.getPrice().movePointRight(2).longValueExact(),
+                CompactBooking.toMicros(booking.getScheduledAt()),
+                CompactBooking.toMicros(booking.getCreatedAt()),
+                CompactBooking.toMicros(booking.getUpdatedAt()),
+                CompactBooking.toMicros(booking.getConfirmedAt()),
+                CompactBooking.toMicros(booking.getCancelledAt()),
+                CompactBooking.toMicros(booking.getCompletedAt()),
+                booking.getDurationMinutes(),
+                booking.getVersion(),
+                booking.getStatus(),
+                booking.getPaymentStatus(),
+                booking.getSource(),
+                dedup(booking.getCurrency()),
+                dedup(booking.getServiceName()),
+                booking.getIdempotencyKey(),
+                booking.getClientName(),
+                booking.getClientPhone(),
+                booking.getNotes(),
+                booking.getInternalNotes(),
+                writeMetadata(booking.getMetadata())
+        );
+    }
+
+    /**
+     * Развернуть в изменяемый Booking (новый объект на каждый вызов).
+     */
+    public Booking decode(CompactBooking compact) {
+        return Booking.builder()
+                .id(new UUID(compact.idHi, compact.idLo))
+                .accountId(new UUID(compact.accountIdHi, compact.accountIdLo))
+                .slotId(new UUID(compact.slotIdHi, compact.slotIdLo))
+                .clientUserId(new UUID(compact.clientUserIdHi, compact.clientUserIdLo))
+                .serviceId(new UUID(compact.serviceIdHi, compact.serviceIdLo))
+                .price(BigDecimal.valueOf(compact.priceMinor, 2))
+                .currency(compact.currency)
+                .durationMinutes(compact.durationMinutes)
+                .scheduledAt(CompactBooking.toTime(compact.scheduledAt))
+                .status(compact.getStatus())
+                .paymentStatus(compact.getPaymentStatus())
+                .source(compact.getSource())
+                .idempotencyKey(compact.idempotencyKey)
+                .clientName(compact.clientName)
+                .clientPhone(compact.clientPhone)
+                .serviceName(compact.serviceName)
+                .notes(compact.notes)
+                .internalNotes(compact.internalNotes)
+                .metadata(readMetadata(compact.metadata))
+                .createdAt(CompactBooking.toTime(compact.createdAt))
+                .updatedAt(CompactBooking.toTime(compact.updatedAt))
+                .confirmedAt(CompactBooking.toTime(compact.confirmedAt))
+                .cancelledAt(CompactBooking.toTime(compact.cancelledAt))
+                .completedAt(CompactBooking.toTime(compact.completedAt))
+                .version(compact.version)
+                .build();
+    }
+
+    private String dedup(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = pool.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (pool.size() >= MAX_POOLED_STRINGS) {
+            return value;
+        }
+        pooled = pool.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    private byte[] writeMetadata(Map<String, Object> metadata) {
+        if (metadata == null || metadata.isEmpty()) {
+            return EMPTY_METADATA;
+        }
+        try {
+            return objectMapper.writeValueAsBytes(metadata);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize booking metadata", e);
+        }
+    }
+
+    private Map<String, Object> readMetadata(byte[] metadata) {
+        if (metadata.length == 0) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(metadata, METADATA_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to parse booking metadata", e);
+        }
+    }
+}
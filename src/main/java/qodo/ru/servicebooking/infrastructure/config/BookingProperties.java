@@ -0,0 +1,264 @@
+package qodo.ru.servicebooking.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки приложения из секции {@code booking.*} application.yaml.
+ */
+@Data
+@ConfigurationProperties(prefix = "booking")
+public class BookingProperties {
+
+    private Lock lock = new Lock();
+    private Outbox outbox = new Outbox();
+    private Deadlines deadlines = new Deadlines();
+    private Availability availability = new Availability();
+    private Audit audit = new Audit();
+    private Reviews reviews = new Reviews();
+
+    /**
+     * Настройки распределенных блокировок.
+     */
+    @Data
+    public static class Lock {
+        /**
+         * Реализация блокировок: redis (Redisson с переключением на таблицу),
+         * table (distributed_locks) или advisory (pg advisory locks).
+         */
+        private String backend = "table";
+        private int ttlSeconds = 5;
+        private int waitTimeoutSeconds = 2;
+        private int retryAttempts = 3;
+
+        /**
+         * Число полос локальной блокировки слотов (округляется до степени двойки).
+         */
+        private int localStripes = 1024;
+
+        /**
+         * Сколько самых конкурентных ключей отслеживать (actuator lockcontention).
+         */
+        private int hotKeysCapacity = 64;
+
+        /**
+         * Сколько соединений пула могут одновременно удерживать session advisory-блокировки
+         * (backend advisory). Должно быть заметно меньше spring.datasource.hikari.maximum-pool-size.
+         */
+        private int advisorySessionConnections = 10;
+    }
+
+    /**
+     * Настройки публикации outbox событий.
+     */
+    @Data
+    public static class Outbox {
+        private boolean enabled = true;
+
+        /**
+         * Режим публикации: polling (OutboxRelay) или cdc (logical decoding).
+         */
+        private String mode = "polling";
+
+        /**
+         * Стартовый размер пачки, дальше подстраивается AdaptiveBatchSizer.
+         */
+        private int batchSize = 100;
+        private int minBatchSize = 10;
+        private int maxBatchSize = 1000;
+
+        private long publishIntervalMs = 1000;
+        private int maxRetryAttempts = 5;
+
+        /**
+         * Емкость очереди между захватом и публикацией.
+         * Когда брокер тормозит, очередь заполняется и relay перестает захватывать события.
+         */
+        private int queueCapacity = 2000;
+
+        /**
+         * Целевая задержка publisher confirm. При превышении пачка уменьшается.
+         */
+        private long targetConfirmLatencyMs = 200;
+        private long confirmTimeoutMs = 5000;
+
+        /**
+         * Аренда захваченных событий. Должна покрывать время ожидания в очереди:
+         * relay держит в очереди не больше, чем успевает опубликовать за аренду
+         * минус confirmTimeoutMs, и не публикует события с истекающей арендой.
+         */
+        private int claimLeaseSeconds = 60;
+
+        private DeadLetter deadLetter = new DeadLetter();
+        private Cdc cdc = new Cdc();
+    }
+
+    /**
+     * Настройки CDC-режима outbox.
+     */
+    @Data
+    public static class Cdc {
+        private String slotName = "booking_outbox_slot";
+        private String publicationName = "outbox_publication";
+        private int statusIntervalSeconds = 10;
+
+        /**
+         * Сколько хранить строки outbox_events после публикации.
+         * В CDC-режиме published_at не проставляется, очистка идет по created_at.
+         */
+        private int retentionHours = 24;
+    }
+
+    /**
+     * Настройки dead-letter таблицы и повторной отправки.
+     */
+    @Data
+    public static class DeadLetter {
+        /**
+         * Сколько событий возвращать в outbox за один запрос.
+         */
+        private int replayBatchSize = 200;
+
+        /**
+         * Пауза между пачками replay, чтобы не забить publisher.
+         */
+        private long replayPauseMs = 500;
+
+        /**
+         * Максимум событий за один вызов admin API.
+         */
+        private int replayMaxEvents = 10_000;
+    }
+
+    /**
+     * Deadlines для операций.
+     */
+    @Data
+    public static class Deadlines {
+        private long createMs = 500;
+        private long confirmMs = 300;
+        private long cancelMs = 300;
+        private long getMs = 150;
+    }
+
+    /**
+     * Настройки индекса свободного времени мастеров.
+     */
+    @Data
+    public static class Availability {
+        /**
+         * На сколько суток вперед от сегодня индекс хранит занятость.
+         */
+        private int horizonDays = 90;
+
+        /**
+         * Начальная емкость off-heap таблиц индекса бронирований (растет удвоением).
+         */
+        private long offHeapInitialCapacity = 262_144;
+
+        private Snapshot snapshot = new Snapshot();
+        private Feed feed = new Feed();
+    }
+
+    /**
+     * Догон индексов изменениями других узлов: слушатели после коммита видят только
+     * транзакции своего узла, остальное приходит опросом событий бронирований в outbox.
+     */
+    @Data
+    public static class Feed {
+        /**
+         * Выключать только при единственном узле: иначе индексы не видят чужих записей.
+         */
+        private boolean enabled = true;
+
+        private long pollIntervalMs = 2000;
+
+        /**
+         * На сколько секунд назад от прошлого опроса перечитывать outbox: created_at
+         * события ставится до коммита, транзакции дольше этого другие узлы пропустят.
+         */
+        private long overlapSeconds = 60;
+    }
+
+    /**
+     * Снимки in-memory индексов на диск для быстрого рестарта.
+     */
+    @Data
+    public static class Snapshot {
+        private boolean enabled = true;
+
+        /**
+         * Файл снимка на локальном диске узла.
+         */
+        private String path = "data/index-snapshot.bin";
+
+        private long intervalMinutes = 5;
+
+        /**
+         * На сколько сдвигать high-water mark назад: покрывает длинные транзакции
+         * (created_at события в outbox ставится до коммита) и расхождение часов узлов.
+         */
+        private long replayOverlapMinutes = 5;
+    }
+
+    /**
+     * Асинхронная запись аудита (booking_audit_log) через COPY.
+     */
+    @Data
+    public static class Audit {
+        private boolean enabled = true;
+
+        /**
+         * sync - append() ждет коммита пачки с записью, async - только постановки в очередь.
+         */
+        private String durability = "async";
+
+        private int queueCapacity = 10_000;
+        private int batchSize = 1_000;
+
+        /**
+         * Сколько ждать добора пачки после первой записи.
+         */
+        private long flushIntervalMs = 100;
+
+        /**
+         * Сколько async append() ждет места в полной очереди, прежде чем отбросить запись.
+         */
+        private long offerTimeoutMs = 100;
+
+        /**
+         * Сколько sync append() ждет коммита записи.
+         */
+        private long syncTimeoutMs = 5_000;
+
+        private long retryBackoffMs = 1_000;
+
+        /**
+         * Сколько остановка ждет дозаписи очереди.
+         */
+        private long shutdownTimeoutMs = 10_000;
+    }
+
+    /**
+     * In-memory топ отзывов.
+     */
+    @Data
+    public static class Reviews {
+        /**
+         * Размер общего топа. Запросы с limit больше идут в БД.
+         */
+        private int globalTopK = 100;
+
+        /**
+         * Размер топа каждого мастера.
+         */
+        private int masterTopK = 20;
+
+        /**
+         * Через сколько секунд после загрузки топ перечитывается из БД. Изменения после
+         * коммита приходят только от своего узла, отзывы с других узлов видны не позже
+         * этого срока. 0 - не перечитывать (единственный узел).
+         */
+        private long maxStalenessSeconds = 60;
+    }
+}
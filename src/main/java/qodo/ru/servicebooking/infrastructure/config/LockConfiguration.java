@@ -0,0 +1,35 @@
+package qodo.ru.servicebooking.infrastructure.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import qodo.ru.servicebooking.infrastructure.lock.FailoverDistributedLockRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.impl.AdvisoryDistributedLockRepositoryImpl;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.impl.DistributedLockRepositoryImpl;
+
+/**
+ * Выбор реализации распределенных блокировок по booking.lock.backend.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+public class LockConfiguration {
+
+    @Bean
+    @Primary
+    public DistributedLockRepository distributedLockRepository(BookingProperties properties,
+                                                               DistributedLockRepositoryImpl tableLocks,
+                                                               AdvisoryDistributedLockRepositoryImpl advisoryLocks,
+                                                               FailoverDistributedLockRepository redisWithFallback) {
+        String backend = properties.getLock().getBackend();
+        log.info("Using distributed lock backend: {}", backend);
+
+        return switch (backend) {
+            case "table" -> tableLocks;
+            case "advisory" -> advisoryLocks;
+            case "redis" -> redisWithFallback;
+            default -> throw new IllegalStateException("Unknown booking.lock.backend: " + backend);
+        };
+    }
+}
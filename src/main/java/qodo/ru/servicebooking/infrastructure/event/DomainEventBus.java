@@ -0,0 +1,124 @@
+package qodo.ru.servicebooking.infrastructure.event;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import qodo.ru.servicebooking.domain.entity.OutboxEvent;
+import qodo.ru.servicebooking.domain.event.DomainEvent;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Шина доменных событий в пределах транзакции.
+ *
+ * Агрегаты регистрируют события по ходу бизнес-операции, шина копит их в ресурсе
+ * транзакции. Перед коммитом все события транзакции пишутся в outbox_events одним
+ * INSERT ({@link OutboxRepository#saveAll}) - в той же транзакции, поэтому откат
+ * операции откатывает и события. После коммита события синхронно получают
+ * локальные {@link DomainEventSubscriber}. При откате не происходит ни того, ни другого.
+ *
+ * Регистрация вне транзакции - ошибка: событие без транзакции нельзя записать
+ * атомарно с изменением агрегата.
+ */
+@Slf4j
+@Component
+public class DomainEventBus {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    private final OutboxRepository outboxRepository;
+    private final List<DomainEventSubscriber> subscribers;
+    private final ObjectMapper objectMapper;
+    private final DistributionSummary eventsPerTransaction;
+
+    public DomainEventBus(OutboxRepository outboxRepository,
+                          List<DomainEventSubscriber> subscribers,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.subscribers = subscribers;
+        this.objectMapper = objectMapper;
+        this.eventsPerTransaction = DistributionSummary.builder("booking.events.per_transaction")
+                .description("Доменных событий на транзакцию (строк в одном INSERT в outbox)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Зарегистрировать событие в текущей транзакции.
+     *
+     * @throws IllegalStateException если транзакции нет
+     */
+    public void register(DomainEvent event) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Domain event " + event.getEventType()
+                    + " registered outside of a transaction");
+        }
+
+        UnitOfWork unitOfWork = (UnitOfWork) TransactionSynchronizationManager.getResource(this);
+        if (unitOfWork == null) {
+            unitOfWork = new UnitOfWork();
+            TransactionSynchronizationManager.bindResource(this, unitOfWork);
+            TransactionSynchronizationManager.registerSynchronization(unitOfWork);
+        }
+        unitOfWork.events.add(event);
+    }
+
+    public void registerAll(List<? extends DomainEvent> events) {
+        events.forEach(this::register);
+    }
+
+    private OutboxEvent toOutboxEvent(DomainEvent event) {
+        return OutboxEvent.builder()
+                .aggregateId(event.getAggregateId())
+                .aggregateType(event.getAggregateType())
+                .eventType(event.getEventType())
+                .payload(objectMapper.convertValue(event, PAYLOAD_TYPE))
+                .correlationId(event.getCorrelationId())
+                .userId(event.getUserId())
+                .createdAt(event.getOccurredAt())
+                .build();
+    }
+
+    /**
+     * События одной транзакции.
+     */
+    private final class UnitOfWork implements TransactionSynchronization {
+        private final List<DomainEvent> events = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            List<OutboxEvent> outboxEvents = new ArrayList<>(events.size());
+            for (DomainEvent event : events) {
+                outboxEvents.add(toOutboxEvent(event));
+            }
+            outboxRepository.saveAll(outboxEvents);
+            eventsPerTransaction.record(events.size());
+        }
+
+        @Override
+        public void afterCommit() {
+            List<DomainEvent> committed = List.copyOf(events);
+            for (DomainEventSubscriber subscriber : subscribers) {
+                try {
+                    subscriber.onEvents(committed);
+                } catch (RuntimeException e) {
+                    log.error("Domain event subscriber {} failed on {} events",
+                            subscriber.getClass().getSimpleName(), committed.size(), e);
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DomainEventBus.this);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package qodo.ru.servicebooking.infrastructure.event;
+
+import qodo.ru.servicebooking.domain.event.DomainEvent;
+
+import java.util.List;
+
+/**
+ * Локальный подписчик на доменные события (кэши, индексы).
+ *
+ * Вызывается {@link DomainEventBus} синхронно после коммита, в потоке, закоммитившем
+ * транзакцию, один раз на транзакцию со всеми ее событиями в порядке регистрации.
+ * Исключение подписчика не откатывает уже закоммиченное и не мешает остальным подписчикам.
+ */
+public interface DomainEventSubscriber {
+
+    void onEvents(List<DomainEvent> events);
+}
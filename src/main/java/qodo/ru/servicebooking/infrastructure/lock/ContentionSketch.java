@@ -0,0 +1,100 @@
+package qodo.ru.servicebooking.infrastructure.lock;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Top-K самых конкурентных ключей блокировок (алгоритм Space-Saving).
+ *
+ * Хранит не больше capacity счетчиков. Новый ключ при заполненной таблице вытесняет
+ * ключ с минимальным счетчиком и наследует его значение как верхнюю оценку ошибки,
+ * поэтому действительно горячие ключи не теряются, а память ограничена.
+ *
+ * Вызывается только на пути с конкуренцией, быстрый путь его не трогает.
+ */
+public class ContentionSketch {
+
+    private final int capacity;
+    private final Map<String, Entry> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    ContentionSketch(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.entries = new HashMap<>(this.capacity * 2);
+    }
+
+    /**
+     * Учесть конкуренцию за ключ.
+     *
+     * @param lockKey ключ блокировки
+     * @param waitMs сколько ждал проигравший
+     */
+    void record(String lockKey, long waitMs) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(lockKey);
+            if (entry == null) {
+                entry = new Entry(lockKey);
+                if (entries.size() >= capacity) {
+                    Entry evicted = entries.values().stream()
+                            .min(Comparator.comparingLong(e -> e.count))
+                            .orElseThrow();
+                    entries.remove(evicted.key);
+                    entry.count = evicted.count;
+                    entry.error = evicted.count;
+                }
+                entries.put(lockKey, entry);
+            }
+            entry.count++;
+            entry.totalWaitMs += waitMs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ключи по убыванию счетчика.
+     */
+    List<HotKey> top(int limit) {
+        List<HotKey> result = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Entry e : entries.values()) {
+                result.add(new HotKey(e.key, e.count, e.error, e.totalWaitMs));
+            }
+        } finally {
+            lock.unlock();
+        }
+        result.sort(Comparator.comparingLong(HotKey::contentions).reversed());
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    void reset() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private long count;
+        private long error;
+        private long totalWaitMs;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Горячий ключ: счетчик конкуренции, его максимальная ошибка и суммарное ожидание.
+     */
+    public record HotKey(String lockKey, long contentions, long maxError, long totalWaitMs) {}
+}
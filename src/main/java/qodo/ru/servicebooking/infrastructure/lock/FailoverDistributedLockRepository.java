@@ -0,0 +1,368 @@
+package qodo.ru.servicebooking.infrastructure.lock;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.circuitbreaker.event.CircuitBreakerOnStateTransitionEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.impl.DistributedLockRepositoryImpl;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.impl.RedissonDistributedLockRepositoryImpl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Блокировки с основной реализацией на Redis и резервной на таблице distributed_locks.
+ *
+ * Вызовы Redis идут через circuit breaker {@value #CIRCUIT_BREAKER}: ошибки Redis
+ * открывают его, и пока он открыт, блокировки берутся в таблице. Возврат на Redis -
+ * через half-open состояние breaker'а, без участия вызывающего кода.
+ *
+ * Ожидание занятой блокировки - до booking.lock.wait-timeout-seconds или переданного
+ * остатка бюджета вызывающего: Redis ждет через pub/sub, таблица опрашивается
+ * booking.lock.retry-attempts раз в пределах того, что осталось после упавшего вызова Redis.
+ *
+ * Освобождение, продление и проверка токена идут в ту реализацию, которая выдала блокировку.
+ * У реализаций разные пространства fencing token (INCR в Redis, последовательность в БД),
+ * поэтому один ключ не должен одновременно удерживаться в обеих. Блокировки, взятые
+ * в таблице, пока breaker был открыт, живут и после возврата на Redis (watchdog их
+ * продлевает), и Redis о них не знает. Пока в таблице есть действующие блокировки
+ * (проверка раз в TTL/3 и сразу после собственного захвата в таблице), захват в Redis
+ * сверяется с таблицей по ключу: ключ, занятый в таблице, освобождается в Redis
+ * и считается занятым.
+ *
+ * Обратное направление не закрыть: пока Redis недоступен, его блокировки не проверить,
+ * и взятая в таблице блокировка может пересечься с ними. Поэтому запись под блокировкой
+ * дополнительно защищена ограничениями в БД, а по умолчанию (booking.lock.backend)
+ * используется только таблица.
+ *
+ * Метрики:
+ * - booking.lock.acquire.latency{backend=redis|table} - задержка захвата по реализации;
+ * - booking.lock.failover.time - от начала упавшего вызова Redis до ответа резервной реализации;
+ * - booking.lock.fallback.period - сколько breaker провел вне CLOSED (работа на резерве).
+ */
+@Slf4j
+@Component
+public class FailoverDistributedLockRepository implements DistributedLockRepository {
+
+    static final String CIRCUIT_BREAKER = "redisLock";
+
+    private final RedissonDistributedLockRepositoryImpl redisLocks;
+    private final DistributedLockRepositoryImpl tableLocks;
+    private final BookingProperties.Lock settings;
+    private final CircuitBreaker circuitBreaker;
+
+    private final Timer redisLatency;
+    private final Timer tableLatency;
+    private final Timer failoverTime;
+    private final Timer fallbackPeriod;
+
+    /**
+     * Какая реализация выдала удерживаемую блокировку.
+     */
+    private final Map<String, DistributedLockRepository> holders = new ConcurrentHashMap<>();
+
+    /**
+     * Момент выхода breaker'а из CLOSED, 0 - breaker закрыт.
+     */
+    private final AtomicLong fallbackStartedNanos = new AtomicLong();
+
+    /**
+     * Есть ли в таблице действующие блокировки (последняя проверка) и когда проверяли.
+     */
+    private volatile boolean tableInUse = true;
+    private final AtomicLong tableCheckedAtNanos;
+    private final long tableCheckIntervalNanos;
+
+    public FailoverDistributedLockRepository(RedissonDistributedLockRepositoryImpl redisLocks,
+                                             DistributedLockRepositoryImpl tableLocks,
+                                             BookingProperties properties,
+                                             CircuitBreakerRegistry circuitBreakerRegistry,
+                                             MeterRegistry meterRegistry) {
+        this.redisLocks = redisLocks;
+        this.tableLocks = tableLocks;
+        this.settings = properties.getLock();
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER);
+
+        this.redisLatency = acquireTimer(meterRegistry, "redis");
+        this.tableLatency = acquireTimer(meterRegistry, "table");
+        this.failoverTime = Timer.builder("booking.lock.failover.time")
+                .description("Время переключения захвата блокировки с Redis на таблицу")
+                .register(meterRegistry);
+        this.fallbackPeriod = Timer.builder("booking.lock.fallback.period")
+                .description("Длительность работы на резервных блокировках")
+                .register(meterRegistry);
+
+        this.tableCheckIntervalNanos = TimeUnit.SECONDS.toNanos(settings.getTtlSeconds()) / 3;
+        this.tableCheckedAtNanos = new AtomicLong(System.nanoTime() - tableCheckIntervalNanos);
+
+        circuitBreaker.getEventPublisher().onStateTransition(this::onStateTransition);
+    }
+
+    @Override
+    public Optional<FencingToken> tryAcquireFenced(String lockKey, String ownerId, int ttlSeconds) {
+        return tryAcquireFenced(lockKey, ownerId, ttlSeconds, Duration.ofSeconds(settings.getWaitTimeoutSeconds()));
+    }
+
+    @Override
+    public Optional<FencingToken> tryAcquireFenced(String lockKey, String ownerId, int ttlSeconds, Duration waitTime) {
+        int ttl = ttlSeconds > 0 ? ttlSeconds : settings.getTtlSeconds();
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + waitTime.toNanos();
+
+        try {
+            Optional<FencingToken> token = circuitBreaker.executeSupplier(
+                    () -> timed(redisLatency, () -> redisLocks.tryAcquireFenced(lockKey, ownerId, ttl, waitTime)));
+            if (token.isPresent() && heldInTable(List.of(lockKey))) {
+                redisLocks.release(lockKey, ownerId);
+                return Optional.empty();
+            }
+            token.ifPresent(t -> holders.put(lockKey, redisLocks));
+            return token;
+
+        } catch (CallNotPermittedException e) {
+            return acquireFromTable(lockKey, ownerId, ttl, deadline);
+
+        } catch (RuntimeException e) {
+            log.warn("Redis lock failed, falling back to table: {}", lockKey, e);
+            Optional<FencingToken> token = acquireFromTable(lockKey, ownerId, ttl, deadline);
+            failoverTime.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return token;
+        }
+    }
+
+    @Override
+    public List<FencingToken> tryAcquireAll(Collection<String> lockKeys, String ownerId, int ttlSeconds) {
+        return tryAcquireAll(lockKeys, ownerId, ttlSeconds, Duration.ofSeconds(settings.getWaitTimeoutSeconds()));
+    }
+
+    @Override
+    public List<FencingToken> tryAcquireAll(Collection<String> lockKeys, String ownerId, int ttlSeconds,
+                                            Duration waitTime) {
+        int ttl = ttlSeconds > 0 ? ttlSeconds : settings.getTtlSeconds();
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + waitTime.toNanos();
+
+        try {
+            List<FencingToken> tokens = circuitBreaker.executeSupplier(
+                    () -> timed(redisLatency, () -> redisLocks.tryAcquireAll(lockKeys, ownerId, ttl, waitTime)));
+            if (!tokens.isEmpty() && heldInTable(lockKeys)) {
+                tokens.forEach(t -> redisLocks.release(t.getLockKey(), ownerId));
+                return List.of();
+            }
+            tokens.forEach(t -> holders.put(t.getLockKey(), redisLocks));
+            return tokens;
+
+        } catch (CallNotPermittedException e) {
+            return acquireAllFromTable(lockKeys, ownerId, ttl, deadline);
+
+        } catch (RuntimeException e) {
+            log.warn("Redis multi-lock failed, falling back to table: {}", lockKeys, e);
+            List<FencingToken> tokens = acquireAllFromTable(lockKeys, ownerId, ttl, deadline);
+            failoverTime.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return tokens;
+        }
+    }
+
+    @Override
+    public boolean isHeld(FencingToken token) {
+        return call(backendFor(token.getLockKey()), () -> false, b -> b.isHeld(token));
+    }
+
+    @Override
+    public boolean release(String lockKey, String ownerId) {
+        DistributedLockRepository backend = backendFor(lockKey);
+        boolean released = call(backend, () -> false, b -> b.release(lockKey, ownerId));
+        if (released) {
+            holders.remove(lockKey, backend);
+        }
+        return released;
+    }
+
+    @Override
+    public boolean extend(String lockKey, String ownerId, int ttlSeconds) {
+        return call(backendFor(lockKey), () -> false, b -> b.extend(lockKey, ownerId, ttlSeconds));
+    }
+
+    @Override
+    public ExtendResult extendAll(Collection<HeldLock> locks, int ttlSeconds) {
+        Map<DistributedLockRepository, List<HeldLock>> byBackend = new IdentityHashMap<>();
+        for (HeldLock lock : locks) {
+            byBackend.computeIfAbsent(backendFor(lock.token().getLockKey()), b -> new ArrayList<>()).add(lock);
+        }
+
+        List<HeldLock> renewed = new ArrayList<>();
+        List<HeldLock> lost = new ArrayList<>();
+        byBackend.forEach((backend, group) -> {
+            // Ошибка одной реализации не мешает продлить блокировки другой
+            ExtendResult result = call(backend,
+                    () -> new ExtendResult(List.of(), List.of()),
+                    b -> b.extendAll(group, ttlSeconds));
+            renewed.addAll(result.renewed());
+            lost.addAll(result.lost());
+        });
+        return new ExtendResult(renewed, lost);
+    }
+
+    @Override
+    public Optional<DistributedLock> findActiveLock(String lockKey) {
+        return call(activeBackend(), () -> tableLocks.findActiveLock(lockKey), b -> b.findActiveLock(lockKey));
+    }
+
+    @Override
+    public int cleanupExpired() {
+        // Redis удаляет истекшие ключи сам, чистим только резервную таблицу
+        return tableLocks.cleanupExpired();
+    }
+
+    private Optional<FencingToken> acquireFromTable(String lockKey, String ownerId, int ttlSeconds, long deadline) {
+        Optional<FencingToken> token = pollTable(
+                () -> tableLocks.tryAcquireFenced(lockKey, ownerId, ttlSeconds), Optional::isPresent, Optional.empty(),
+                deadline);
+        token.ifPresent(t -> {
+            holders.put(lockKey, tableLocks);
+            tableInUse = true;
+        });
+        return token;
+    }
+
+    private List<FencingToken> acquireAllFromTable(Collection<String> lockKeys, String ownerId, int ttlSeconds,
+                                                   long deadline) {
+        List<FencingToken> tokens = pollTable(
+                () -> tableLocks.tryAcquireAll(lockKeys, ownerId, ttlSeconds), t -> !t.isEmpty(), List.of(), deadline);
+        tokens.forEach(t -> holders.put(t.getLockKey(), tableLocks));
+        if (!tokens.isEmpty()) {
+            tableInUse = true;
+        }
+        return tokens;
+    }
+
+    /**
+     * Занят ли хоть один из ключей в таблице. Пока таблица пуста, по ключам не ходим.
+     * Если таблицу проверить не удалось, ключ считаем занятым.
+     */
+    private boolean heldInTable(Collection<String> lockKeys) {
+        try {
+            if (!tableInUse()) {
+                return false;
+            }
+            for (String lockKey : lockKeys) {
+                if (tableLocks.findActiveLock(lockKey).isPresent()) {
+                    log.warn("Lock {} is still held in the fallback table, Redis lock released", lockKey);
+                    return true;
+                }
+            }
+            return false;
+        } catch (RuntimeException e) {
+            log.warn("Failed to check fallback table locks: {}", lockKeys, e);
+            return true;
+        }
+    }
+
+    private boolean tableInUse() {
+        long now = System.nanoTime();
+        long checkedAt = tableCheckedAtNanos.get();
+        if (now - checkedAt >= tableCheckIntervalNanos && tableCheckedAtNanos.compareAndSet(checkedAt, now)) {
+            tableInUse = tableLocks.hasActiveLocks();
+        }
+        return tableInUse;
+    }
+
+    /**
+     * Таблица не умеет ждать освобождения: опрашиваем до deadline (System.nanoTime()).
+     * Первая попытка делается всегда, даже если бюджет уже исчерпан ожиданием Redis.
+     */
+    private <T> T pollTable(Supplier<T> attempt, Predicate<T> acquired, T none, long deadline) {
+        int attempts = Math.max(1, settings.getRetryAttempts());
+        long pauseNanos = Math.max(0, deadline - System.nanoTime()) / attempts;
+
+        for (int i = 1; ; i++) {
+            T result = timed(tableLatency, attempt);
+            if (acquired.test(result) || i >= attempts || System.nanoTime() + pauseNanos > deadline) {
+                return result;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(pauseNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return none;
+            }
+        }
+    }
+
+    private DistributedLockRepository backendFor(String lockKey) {
+        DistributedLockRepository backend = holders.get(lockKey);
+        return backend != null ? backend : activeBackend();
+    }
+
+    private DistributedLockRepository activeBackend() {
+        return circuitBreaker.getState() == CircuitBreaker.State.OPEN ? tableLocks : redisLocks;
+    }
+
+    /**
+     * Вызов Redis через breaker, при ошибке - значение по умолчанию.
+     * Блокировку, выданную Redis, таблица не знает, поэтому туда не переключаемся.
+     */
+    private <T> T call(DistributedLockRepository backend,
+                       Supplier<T> onRedisFailure,
+                       Function<DistributedLockRepository, T> action) {
+        if (backend != redisLocks) {
+            return action.apply(backend);
+        }
+        try {
+            return circuitBreaker.executeSupplier(() -> action.apply(redisLocks));
+        } catch (RuntimeException e) {
+            log.warn("Redis lock call failed", e);
+            return onRedisFailure.get();
+        }
+    }
+
+    private void onStateTransition(CircuitBreakerOnStateTransitionEvent event) {
+        CircuitBreaker.StateTransition transition = event.getStateTransition();
+        log.warn("Redis lock circuit breaker: {}", transition);
+
+        if (transition.getFromState() == CircuitBreaker.State.CLOSED) {
+            fallbackStartedNanos.set(System.nanoTime());
+        } else if (transition.getToState() == CircuitBreaker.State.CLOSED) {
+            long startedAt = fallbackStartedNanos.getAndSet(0);
+            if (startedAt != 0) {
+                fallbackPeriod.record(Duration.ofNanos(System.nanoTime() - startedAt));
+            }
+        }
+    }
+
+    private static <T> T timed(Timer timer, Supplier<T> action) {
+        long startedAt = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer acquireTimer(MeterRegistry meterRegistry, String backend) {
+        return Timer.builder("booking.lock.acquire.latency")
+                .description("Задержка захвата блокировки")
+                .tag("backend", backend)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
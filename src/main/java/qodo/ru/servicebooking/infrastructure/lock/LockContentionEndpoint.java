@@ -0,0 +1,36 @@
+package qodo.ru.servicebooking.infrastructure.lock;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint /actuator/lockcontention: самые конкурентные ключи блокировок.
+ * ?by=master - те же данные, сгруппированные по мастеру (account_id).
+ */
+@Component
+@Endpoint(id = "lockcontention")
+@RequiredArgsConstructor
+public class LockContentionEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final String BY_MASTER = "master";
+
+    private final LockTelemetry telemetry;
+
+    @ReadOperation
+    public List<ContentionSketch.HotKey> hotKeys(@Nullable Integer limit, @Nullable String by) {
+        int top = limit != null ? limit : DEFAULT_LIMIT;
+        return BY_MASTER.equals(by) ? telemetry.hotMasters(top) : telemetry.hotKeys(top);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        telemetry.resetHotKeys();
+    }
+}
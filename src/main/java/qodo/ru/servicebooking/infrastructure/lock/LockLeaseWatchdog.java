@@ -0,0 +1,183 @@
+package qodo.ru.servicebooking.infrastructure.lock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository.ExtendResult;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository.HeldLock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Автоматическое продление удерживаемых блокировок.
+ *
+ * Один планировщик на виртуальном потоке раз в TTL/3 продлевает все
+ * зарегистрированные аренды одним {@link DistributedLockRepository#extendAll}
+ * (пачка на каждую реализацию блокировок).
+ *
+ * Аренда считается потерянной, если хранилище ответило, что блокировка больше
+ * не наша, или если продлить ее не удавалось дольше TTL. Владелец узнает об этом
+ * через {@link Lease#isLost()} и callback, переданный при регистрации.
+ * Callback выполняется в потоке планировщика и должен быть коротким.
+ */
+@Slf4j
+@Component
+public class LockLeaseWatchdog implements SmartLifecycle {
+
+    private final DistributedLockRepository lockRepository;
+    private final BookingProperties.Lock settings;
+    private final Map<FencingToken, Lease> leases = new ConcurrentHashMap<>();
+
+    private final Counter renewals;
+    private final Counter losses;
+
+    private volatile boolean running;
+    private ScheduledExecutorService scheduler;
+
+    public LockLeaseWatchdog(DistributedLockRepository lockRepository,
+                             BookingProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.lockRepository = lockRepository;
+        this.settings = properties.getLock();
+
+        this.renewals = Counter.builder("booking.lock.lease.renewed")
+                .description("Продленные аренды блокировок")
+                .register(meterRegistry);
+        this.losses = Counter.builder("booking.lock.lease.lost")
+                .description("Потерянные аренды блокировок")
+                .register(meterRegistry);
+        Gauge.builder("booking.lock.lease.active", leases, Map::size)
+                .description("Аренды под наблюдением watchdog")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Поставить блокировку на автоматическое продление.
+     *
+     * @param token fencing token захвата
+     * @param ownerId идентификатор владельца
+     * @param onLost вызывается один раз при потере аренды
+     * @return аренда; закрыть перед освобождением блокировки
+     */
+    public Lease watch(FencingToken token, String ownerId, Runnable onLost) {
+        Lease lease = new Lease(new HeldLock(token, ownerId), onLost, System.nanoTime());
+        leases.put(token, lease);
+        return lease;
+    }
+
+    void renewAll() {
+        if (leases.isEmpty()) {
+            return;
+        }
+
+        List<HeldLock> held = leases.values().stream().map(Lease::getLock).toList();
+        long now = System.nanoTime();
+
+        try {
+            ExtendResult result = lockRepository.extendAll(held, settings.getTtlSeconds());
+            for (HeldLock lock : result.renewed()) {
+                Lease lease = leases.get(lock.token());
+                if (lease != null) {
+                    lease.lastRenewedNanos = now;
+                }
+            }
+            renewals.increment(result.renewed().size());
+            result.lost().forEach(lock -> markLost(lock.token(), "not held anymore"));
+
+        } catch (RuntimeException e) {
+            log.warn("Lock lease renewal failed for {} locks", held.size(), e);
+        }
+
+        // Без подтвержденного продления дольше TTL аренда истекла
+        long ttlNanos = TimeUnit.SECONDS.toNanos(settings.getTtlSeconds());
+        leases.values().stream()
+                .filter(lease -> now - lease.lastRenewedNanos > ttlNanos)
+                .toList()
+                .forEach(lease -> markLost(lease.getLock().token(), "not renewed within ttl"));
+    }
+
+    private void markLost(FencingToken token, String reason) {
+        Lease lease = leases.remove(token);
+        if (lease == null) {
+            return;
+        }
+
+        lease.lost = true;
+        losses.increment();
+        log.warn("Lock lease lost: {} ({})", token, reason);
+
+        try {
+            lease.onLost.run();
+        } catch (RuntimeException e) {
+            log.error("Lease loss callback failed: {}", token, e);
+        }
+    }
+
+    @Override
+    public void start() {
+        long periodMs = Math.max(1, TimeUnit.SECONDS.toMillis(settings.getTtlSeconds()) / 3);
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("lock-lease-watchdog").factory());
+        scheduler.scheduleWithFixedDelay(this::renewAll, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("Lock lease watchdog started, renewal every {} ms", periodMs);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Аренда блокировки под наблюдением watchdog.
+     */
+    public final class Lease implements AutoCloseable {
+        private final HeldLock lock;
+        private final Runnable onLost;
+        private volatile long lastRenewedNanos;
+        private volatile boolean lost;
+
+        private Lease(HeldLock lock, Runnable onLost, long acquiredNanos) {
+            this.lock = lock;
+            this.onLost = onLost;
+            this.lastRenewedNanos = acquiredNanos;
+        }
+
+        public HeldLock getLock() {
+            return lock;
+        }
+
+        /**
+         * Блокировка потеряна: работу под ней нужно прервать.
+         */
+        public boolean isLost() {
+            return lost;
+        }
+
+        /**
+         * Снять с продления. Вызывается до освобождения блокировки.
+         */
+        @Override
+        public void close() {
+            leases.remove(lock.token(), this);
+        }
+    }
+}
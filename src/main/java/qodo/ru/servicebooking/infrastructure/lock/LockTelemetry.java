@@ -0,0 +1,133 @@
+package qodo.ru.servicebooking.infrastructure.lock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики слоя блокировок.
+ *
+ * Все метры создаются один раз при старте: на горячем пути нет построения тегов
+ * и поиска в реестре, только System.nanoTime и запись в готовый Timer/Counter.
+ * Скетчи горячих ключей обновляются только при конкуренции: по ключу слота
+ * и по мастеру (account_id), чтобы горячего мастера было видно, даже когда
+ * конкуренция размазана по многим его слотам.
+ *
+ * - booking.lock.slot.acquire{outcome=acquired|timeout|failure} - задержка захвата;
+ * - booking.lock.slot.held - сколько слот удерживался;
+ * - booking.lock.slot.contended{stage=local|distributed} - захваты, которым пришлось ждать;
+ * - booking.lock.local.wait - ожидание локальной очереди;
+ * - booking.lock.distributed.attempts - обращения к распределенной блокировке.
+ */
+@Component
+public class LockTelemetry {
+
+    private final Timer acquired;
+    private final Timer timedOut;
+    private final Timer failed;
+    private final Timer held;
+    private final Timer localWait;
+    private final Counter distributedAttempts;
+    private final Counter localContention;
+    private final Counter distributedContention;
+    private final ContentionSketch hotKeys;
+    private final ContentionSketch hotMasters;
+
+    public LockTelemetry(BookingProperties properties, MeterRegistry meterRegistry) {
+        this.acquired = acquireTimer(meterRegistry, "acquired");
+        this.timedOut = acquireTimer(meterRegistry, "timeout");
+        this.failed = acquireTimer(meterRegistry, "failure");
+        this.held = Timer.builder("booking.lock.slot.held")
+                .description("Время удержания блокировки слота")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.localWait = Timer.builder("booking.lock.local.wait")
+                .description("Ожидание локальной очереди на слот")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.distributedAttempts = Counter.builder("booking.lock.distributed.attempts")
+                .description("Обращения к распределенной блокировке после локальной очереди")
+                .register(meterRegistry);
+        this.localContention = contentionCounter(meterRegistry, "local");
+        this.distributedContention = contentionCounter(meterRegistry, "distributed");
+        this.hotKeys = new ContentionSketch(properties.getLock().getHotKeysCapacity());
+        this.hotMasters = new ContentionSketch(properties.getLock().getHotKeysCapacity());
+    }
+
+    void onLocalAcquired(long waitNanos) {
+        localWait.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void onDistributedAttempt() {
+        distributedAttempts.increment();
+    }
+
+    /**
+     * Захват пришлось ждать (или он не удался из-за другого владельца).
+     */
+    void onContention(String lockKey, Collection<UUID> accountIds, boolean local, long waitNanos) {
+        (local ? localContention : distributedContention).increment();
+        long waitMs = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        hotKeys.record(lockKey, waitMs);
+        for (UUID accountId : accountIds) {
+            hotMasters.record(accountId.toString(), waitMs);
+        }
+    }
+
+    void onAcquired(long elapsedNanos) {
+        acquired.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void onTimeout(long elapsedNanos) {
+        timedOut.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void onFailure(long elapsedNanos) {
+        failed.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void onReleased(long heldNanos) {
+        held.record(heldNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Самые конкурентные ключи блокировок.
+     */
+    public List<ContentionSketch.HotKey> hotKeys(int limit) {
+        return hotKeys.top(limit);
+    }
+
+    /**
+     * Мастера с самой частой конкуренцией за их слоты (ключ - account_id).
+     */
+    public List<ContentionSketch.HotKey> hotMasters(int limit) {
+        return hotMasters.top(limit);
+    }
+
+    public void resetHotKeys() {
+        hotKeys.reset();
+        hotMasters.reset();
+    }
+
+    private static Timer acquireTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("booking.lock.slot.acquire")
+                .description("Задержка захвата блокировки слота")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter contentionCounter(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("booking.lock.slot.contended")
+                .description("Захваты блокировки слота, которым пришлось ждать")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,316 @@
+package qodo.ru.servicebooking.infrastructure.lock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.domain.exception.LockAcquisitionException;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Блокировка слота: локальный striped lock, затем распределенная блокировка.
+ *
+ * Конкуренты за слот на одном узле встают в очередь на справедливом {@link ReentrantLock}
+ * (паркуются без опроса), и к распределенной блокировке идет только голова очереди.
+ * j.u.c. блокировки не пиннят виртуальные потоки, в отличие от synchronized.
+ *
+ * Полосы выбираются по хэшу slotId, поэтому разные слоты изредка делят полосу.
+ * ReentrantLock реентерабелен: поток может держать несколько слотов из одной полосы.
+ *
+ * Несколько слотов ({@link #lockAll}) захватываются в каноническом порядке:
+ * полосы по возрастанию номера, распределенные ключи - одним пакетным вызовом
+ * в отсортированном порядке. Поэтому пересекающиеся пакеты не дедлочат.
+ *
+ * Общий бюджет ожидания - booking.lock.wait-timeout-seconds на обе ступени:
+ * распределенная блокировка ждет только то, что осталось после локальной очереди.
+ * Распределенная ступень, как и локальная, сначала пробует без ожидания: если ключ занят,
+ * ожидание (pub/sub Redisson или опрос таблицы) учитывается как конкуренция.
+ * Конкуренция записывается по ключу слота и по мастеру (account_id).
+ * Пока handle открыт, аренду продлевает {@link LockLeaseWatchdog}.
+ * Handle нужно закрыть в том же потоке, что его получил.
+ */
+@Slf4j
+@Component
+public class SlotLockManager {
+
+    private final DistributedLockRepository lockRepository;
+    private final LockLeaseWatchdog leaseWatchdog;
+    private final LockTelemetry telemetry;
+    private final BookingProperties.Lock settings;
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public SlotLockManager(DistributedLockRepository lockRepository,
+                           LockLeaseWatchdog leaseWatchdog,
+                           LockTelemetry telemetry,
+                           BookingProperties properties) {
+        this.lockRepository = lockRepository;
+        this.leaseWatchdog = leaseWatchdog;
+        this.telemetry = telemetry;
+        this.settings = properties.getLock();
+
+        int stripeCount = Integer.highestOneBit(Math.max(1, settings.getLocalStripes() - 1)) << 1;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = stripeCount - 1;
+    }
+
+    /**
+     * Захватить слот.
+     *
+     * @param slotId идентификатор слота
+     * @param accountId мастер слота, для статистики конкуренции
+     * @param ownerId идентификатор владельца
+     * @return handle с fencing token, закрывается через try-with-resources
+     * @throws LockAcquisitionException если слот не удалось захватить за wait-timeout
+     */
+    public Handle lock(UUID slotId, UUID accountId, String ownerId) {
+        return lock(slotId, accountId, ownerId, () -> {});
+    }
+
+    /**
+     * Захватить слот с автоматическим продлением аренды.
+     *
+     * @param slotId идентификатор слота
+     * @param accountId мастер слота, для статистики конкуренции
+     * @param ownerId идентификатор владельца
+     * @param onLeaseLost вызывается, если аренду продлить не удалось и работу надо прервать
+     * @return handle с fencing token, закрывается через try-with-resources
+     * @throws LockAcquisitionException если слот не удалось захватить за wait-timeout
+     */
+    public Handle lock(UUID slotId, UUID accountId, String ownerId, Runnable onLeaseLost) {
+        String lockKey = DistributedLock.createSlotLockKey(slotId);
+        Set<UUID> accountIds = Set.of(accountId);
+        long startedAt = System.nanoTime();
+        long deadline = deadline(startedAt);
+
+        ReentrantLock stripe = stripes[stripeIndex(slotId)];
+        lockLocal(stripe, lockKey, accountIds, startedAt, deadline);
+
+        try {
+            telemetry.onDistributedAttempt();
+            int ttl = settings.getTtlSeconds();
+            Optional<FencingToken> token = lockRepository.tryAcquireFenced(lockKey, ownerId, ttl, Duration.ZERO);
+            if (token.isEmpty()) {
+                long waitStartedAt = System.nanoTime();
+                token = lockRepository.tryAcquireFenced(lockKey, ownerId, ttl, remaining(deadline));
+                telemetry.onContention(lockKey, accountIds, false, System.nanoTime() - waitStartedAt);
+            }
+            if (token.isEmpty()) {
+                throw distributedTimeout(lockKey, startedAt);
+            }
+            return acquired(List.of(token.get()), ownerId, List.of(stripe), onLeaseLost, startedAt);
+
+        } catch (LockAcquisitionException e) {
+            stripe.unlock();
+            throw e;
+        } catch (RuntimeException e) {
+            telemetry.onFailure(System.nanoTime() - startedAt);
+            stripe.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Захватить несколько слотов атомарно: либо все, либо ни одного.
+     *
+     * @param slotIds идентификаторы слотов
+     * @param accountIds мастера слотов, для статистики конкуренции
+     * @param ownerId идентификатор владельца
+     * @param onLeaseLost вызывается, если аренду любого из слотов продлить не удалось
+     * @return handle с fencing token на каждый слот
+     * @throws LockAcquisitionException если хоть один слот не удалось захватить за wait-timeout
+     */
+    public Handle lockAll(Collection<UUID> slotIds, Set<UUID> accountIds, String ownerId, Runnable onLeaseLost) {
+        TreeSet<UUID> slots = new TreeSet<>(slotIds);
+        List<String> lockKeys = slots.stream().map(DistributedLock::createSlotLockKey).toList();
+        String description = String.join(",", lockKeys);
+        long startedAt = System.nanoTime();
+        long deadline = deadline(startedAt);
+
+        TreeSet<Integer> stripeIndexes = new TreeSet<>();
+        slots.forEach(slotId -> stripeIndexes.add(stripeIndex(slotId)));
+
+        List<ReentrantLock> held = new ArrayList<>(stripeIndexes.size());
+        try {
+            for (int index : stripeIndexes) {
+                lockLocal(stripes[index], description, accountIds, startedAt, deadline);
+                held.add(stripes[index]);
+            }
+
+            telemetry.onDistributedAttempt();
+            int ttl = settings.getTtlSeconds();
+            List<FencingToken> tokens = lockRepository.tryAcquireAll(lockKeys, ownerId, ttl, Duration.ZERO);
+            if (tokens.isEmpty()) {
+                long waitStartedAt = System.nanoTime();
+                tokens = lockRepository.tryAcquireAll(lockKeys, ownerId, ttl, remaining(deadline));
+                telemetry.onContention(description, accountIds, false, System.nanoTime() - waitStartedAt);
+            }
+            if (tokens.isEmpty()) {
+                throw distributedTimeout(description, startedAt);
+            }
+            return acquired(tokens, ownerId, held, onLeaseLost, startedAt);
+
+        } catch (LockAcquisitionException e) {
+            unlockAll(held);
+            throw e;
+        } catch (RuntimeException e) {
+            telemetry.onFailure(System.nanoTime() - startedAt);
+            unlockAll(held);
+            throw e;
+        }
+    }
+
+    private Handle acquired(List<FencingToken> tokens, String ownerId, List<ReentrantLock> held,
+                            Runnable onLeaseLost, long startedAt) {
+        List<LockLeaseWatchdog.Lease> leases = tokens.stream()
+                .map(token -> leaseWatchdog.watch(token, ownerId, onLeaseLost))
+                .toList();
+        long acquiredAt = System.nanoTime();
+        telemetry.onAcquired(acquiredAt - startedAt);
+        return new Handle(tokens, ownerId, held, leases, acquiredAt);
+    }
+
+    /**
+     * Быстрый путь без ожидания (tryLock() берет только свободную полосу),
+     * скетч конкуренции трогаем только если пришлось встать в FIFO-очередь.
+     */
+    private void lockLocal(ReentrantLock stripe, String lockKey, Set<UUID> accountIds, long startedAt, long deadline) {
+        if (!stripe.tryLock()) {
+            boolean locked = tryLockLocal(stripe, deadline);
+            telemetry.onContention(lockKey, accountIds, true, System.nanoTime() - startedAt);
+            if (!locked) {
+                telemetry.onTimeout(System.nanoTime() - startedAt);
+                throw timeout(lockKey, startedAt);
+            }
+        }
+        telemetry.onLocalAcquired(System.nanoTime() - startedAt);
+    }
+
+    private LockAcquisitionException distributedTimeout(String lockKey, long startedAt) {
+        telemetry.onTimeout(System.nanoTime() - startedAt);
+        return timeout(lockKey, startedAt);
+    }
+
+    private long deadline(long startedAt) {
+        return startedAt + TimeUnit.SECONDS.toNanos(settings.getWaitTimeoutSeconds());
+    }
+
+    /**
+     * Остаток бюджета ожидания; ноль - только попытка без ожидания.
+     */
+    private static Duration remaining(long deadline) {
+        return Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+    }
+
+    private int stripeIndex(UUID slotId) {
+        long bits = slotId.getMostSignificantBits() ^ slotId.getLeastSignificantBits();
+        int hash = (int) (bits ^ (bits >>> 32));
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static boolean tryLockLocal(ReentrantLock stripe, long deadline) {
+        try {
+            return stripe.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void unlockAll(List<ReentrantLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+    }
+
+    private static LockAcquisitionException timeout(String lockKey, long startedAt) {
+        return new LockAcquisitionException(lockKey, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    /**
+     * Удерживаемые слоты. Закрытие снимает распределенные блокировки, затем локальные.
+     */
+    public final class Handle implements AutoCloseable {
+        private final List<FencingToken> tokens;
+        private final String ownerId;
+        private final List<ReentrantLock> held;
+        private final List<LockLeaseWatchdog.Lease> leases;
+        private final long acquiredAtNanos;
+        private boolean closed;
+
+        private Handle(List<FencingToken> tokens, String ownerId, List<ReentrantLock> held,
+                       List<LockLeaseWatchdog.Lease> leases, long acquiredAtNanos) {
+            this.tokens = tokens;
+            this.ownerId = ownerId;
+            this.held = held;
+            this.leases = leases;
+            this.acquiredAtNanos = acquiredAtNanos;
+        }
+
+        /**
+         * Токен единственного слота (для {@link #lock}).
+         */
+        public FencingToken getToken() {
+            return tokens.get(0);
+        }
+
+        /**
+         * Токены всех слотов в порядке отсортированных ключей.
+         */
+        public List<FencingToken> getTokens() {
+            return tokens;
+        }
+
+        /**
+         * Аренда потеряна: запись под этой блокировкой будет отклонена по fencing token.
+         */
+        public boolean isLeaseLost() {
+            return leases.stream().anyMatch(LockLeaseWatchdog.Lease::isLost);
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            telemetry.onReleased(System.nanoTime() - acquiredAtNanos);
+            leases.forEach(LockLeaseWatchdog.Lease::close);
+            RuntimeException failure = null;
+            try {
+                // Каждый ключ отдельно: ошибка на одном не оставляет остальные висеть до TTL
+                for (FencingToken token : tokens) {
+                    try {
+                        lockRepository.release(token.getLockKey(), ownerId);
+                    } catch (RuntimeException e) {
+                        if (failure == null) {
+                            failure = e;
+                        } else {
+                            failure.addSuppressed(e);
+                        }
+                    }
+                }
+            } finally {
+                unlockAll(held);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
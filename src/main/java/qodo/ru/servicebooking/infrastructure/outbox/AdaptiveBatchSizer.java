@@ -0,0 +1,112 @@
+package qodo.ru.servicebooking.infrastructure.outbox;
+
+/**
+ * Адаптивный размер пачки outbox.
+ *
+ * Размер подстраивается по измеренной пропускной способности publish
+ * и задержке confirm (EWMA), в границах [min, max]:
+ * - пачка захвачена целиком (есть backlog) - размер растет в 1.5 раза;
+ * - захвачено меньше запрошенного (мало нагрузки) - размер сжимается к фактическому;
+ * - confirm дольше целевого - размер уменьшается вдвое;
+ * - размер не превышает того, что publisher успевает отправить за один интервал.
+ *
+ * Потокобезопасен: claim и publish вызывают его из разных потоков.
+ */
+public class AdaptiveBatchSizer {
+
+    private static final double ALPHA = 0.3;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long targetConfirmLatencyNanos;
+    private final long cycleNanos;
+
+    private int currentSize;
+    private double throughputPerSecond = -1;
+    private double confirmLatencyNanos = -1;
+
+    public AdaptiveBatchSizer(int initialSize, int minSize, int maxSize,
+                              long targetConfirmLatencyMs, long cycleMs) {
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("Invalid batch bounds: [" + minSize + ", " + maxSize + "]");
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetConfirmLatencyNanos = targetConfirmLatencyMs * 1_000_000L;
+        this.cycleNanos = cycleMs * 1_000_000L;
+        this.currentSize = clamp(initialSize);
+    }
+
+    /**
+     * Текущий рекомендуемый размер пачки.
+     */
+    public synchronized int nextBatchSize() {
+        return currentSize;
+    }
+
+    /**
+     * Результат захвата: сколько запросили и сколько получили.
+     */
+    public synchronized void onClaimed(int requested, int claimed) {
+        if (requested <= 0) {
+            return;
+        }
+        if (claimed >= requested) {
+            currentSize = clamp(Math.max(currentSize + 1, (int) (currentSize * 1.5)));
+        } else {
+            // Под легкой нагрузкой не держим большие пачки: сжимаемся к фактическому объему
+            currentSize = clamp(Math.max(claimed * 2, (currentSize + claimed) / 2));
+        }
+        currentSize = clamp(Math.min(currentSize, throughputCap()));
+    }
+
+    /**
+     * Результат публикации пачки.
+     *
+     * @param count количество отправленных событий
+     * @param elapsedNanos полное время публикации пачки
+     * @param confirmLatencyNanos максимальная задержка confirm в пачке
+     */
+    public synchronized void onPublished(int count, long elapsedNanos, long confirmLatencyNanos) {
+        if (count <= 0 || elapsedNanos <= 0) {
+            return;
+        }
+        double throughput = count * 1_000_000_000.0 / elapsedNanos;
+        this.throughputPerSecond = ewma(this.throughputPerSecond, throughput);
+        this.confirmLatencyNanos = ewma(this.confirmLatencyNanos, confirmLatencyNanos);
+
+        if (this.confirmLatencyNanos > targetConfirmLatencyNanos) {
+            currentSize = clamp(currentSize / 2);
+        }
+    }
+
+    /**
+     * Сглаженная пропускная способность, событий в секунду (-1 до первого замера).
+     */
+    public synchronized double getThroughputPerSecond() {
+        return throughputPerSecond;
+    }
+
+    /**
+     * Сглаженная задержка confirm в миллисекундах (-1 до первого замера).
+     */
+    public synchronized double getConfirmLatencyMs() {
+        return confirmLatencyNanos < 0 ? -1 : confirmLatencyNanos / 1_000_000.0;
+    }
+
+    private int throughputCap() {
+        if (throughputPerSecond <= 0) {
+            return maxSize;
+        }
+        double perCycle = throughputPerSecond * cycleNanos / 1_000_000_000.0;
+        return (int) Math.min(maxSize, Math.max(minSize, perCycle));
+    }
+
+    private int clamp(int size) {
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    private static double ewma(double previous, double sample) {
+        return previous < 0 ? sample : previous + ALPHA * (sample - previous);
+    }
+}
@@ -0,0 +1,92 @@
+package qodo.ru.servicebooking.infrastructure.outbox;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxDeadLetterRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxDeadLetterRepository.DeadLetterFilter;
+
+/**
+ * Массовый replay событий из dead-letter обратно в outbox.
+ *
+ * События возвращаются пачками по {@code booking.outbox.dead-letter.replay-batch-size}
+ * с паузой {@code replay-pause-ms} между пачками, чтобы replay не вытеснял
+ * свежие события из publisher'а. Каждая пачка - отдельная транзакция.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxDeadLetterService {
+
+    private final OutboxDeadLetterRepository deadLetterRepository;
+    private final BookingProperties properties;
+
+    /**
+     * Вернуть события, подходящие под фильтр, в outbox.
+     *
+     * @param filter фильтр событий
+     * @param maxEvents максимум событий (null - значение из настроек)
+     * @return результат replay
+     */
+    public ReplayResult replay(DeadLetterFilter filter, Integer maxEvents) {
+        BookingProperties.DeadLetter settings = properties.getOutbox().getDeadLetter();
+        int limit = maxEvents != null
+                ? Math.min(maxEvents, settings.getReplayMaxEvents())
+                : settings.getReplayMaxEvents();
+
+        log.info("Starting dead-letter replay: filter={}, limit={}", filter, limit);
+
+        long startedAt = System.currentTimeMillis();
+        int replayed = 0;
+        int batches = 0;
+
+        while (replayed < limit) {
+            int batchSize = Math.min(settings.getReplayBatchSize(), limit - replayed);
+            int moved = deadLetterRepository.replay(filter, batchSize);
+            if (moved == 0) {
+                break;
+            }
+            replayed += moved;
+            batches++;
+
+            if (moved < batchSize || replayed >= limit) {
+                break;
+            }
+            if (!pause(settings.getReplayPauseMs())) {
+                break;
+            }
+        }
+
+        long remaining = deadLetterRepository.count(filter);
+        long elapsedMs = System.currentTimeMillis() - startedAt;
+        log.info("Dead-letter replay finished: replayed={}, batches={}, remaining={}, elapsed={}ms",
+                replayed, batches, remaining, elapsedMs);
+
+        return new ReplayResult(replayed, batches, remaining, elapsedMs);
+    }
+
+    private boolean pause(long millis) {
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Dead-letter replay interrupted");
+            return false;
+        }
+    }
+
+    /**
+     * Результат replay.
+     */
+    public record ReplayResult(
+            int replayed,
+            int batches,
+            long remaining,
+            long elapsedMs
+    ) {}
+}
@@ -0,0 +1,232 @@
+package qodo.ru.servicebooking.infrastructure.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import qodo.ru.servicebooking.domain.entity.OutboxEvent;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxRepository;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relay outbox -> RabbitMQ.
+ *
+ * Два виртуальных потока, связанных ограниченной очередью:
+ * - claimer захватывает события коротким UPDATE с арендой (claimForPublishing),
+ *   но не больше, чем свободно места в очереди. Медленный брокер заполняет очередь,
+ *   и claimer перестает захватывать строки в БД (backpressure);
+ * - publisher забирает события из очереди, публикует с confirm'ами
+ *   и помечает опубликованные одним markAsPublishedBatch.
+ *
+ * Аренда должна пережить ожидание в очереди, иначе событие захватит другой инстанс
+ * и оно уйдет в брокер дважды. Поэтому claimer держит в очереди не больше, чем publisher
+ * успевает разобрать за аренду, а publisher перед публикацией отбрасывает события,
+ * аренда которых истечет раньше, чем придет confirm.
+ *
+ * Размер пачки подбирает {@link AdaptiveBatchSizer}.
+ * Работает в режиме booking.outbox.mode=polling (по умолчанию).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "booking.outbox", name = "mode", havingValue = "polling", matchIfMissing = true)
+public class OutboxRelay implements SmartLifecycle {
+
+    private final OutboxRepository outboxRepository;
+    private final RabbitOutboxPublisher publisher;
+    private final BookingProperties.Outbox settings;
+    private final AdaptiveBatchSizer batchSizer;
+    private final BlockingQueue<OutboxEvent> queue;
+    private final Counter leaseExpired;
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+
+    private volatile boolean running;
+    private Thread claimerThread;
+    private Thread publisherThread;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       RabbitOutboxPublisher publisher,
+                       BookingProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.publisher = publisher;
+        this.settings = properties.getOutbox();
+        this.batchSizer = new AdaptiveBatchSizer(
+                settings.getBatchSize(),
+                settings.getMinBatchSize(),
+                settings.getMaxBatchSize(),
+                settings.getTargetConfirmLatencyMs(),
+                settings.getPublishIntervalMs()
+        );
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+
+        Gauge.builder("booking.outbox.batch.size", batchSizer, AdaptiveBatchSizer::nextBatchSize)
+                .description("Текущий адаптивный размер пачки outbox")
+                .register(meterRegistry);
+        Gauge.builder("booking.outbox.queue.size", queue, BlockingQueue::size)
+                .description("Захваченные, но еще не опубликованные события")
+                .register(meterRegistry);
+        Gauge.builder("booking.outbox.throughput", batchSizer, AdaptiveBatchSizer::getThroughputPerSecond)
+                .description("Сглаженная пропускная способность publish, событий/с")
+                .register(meterRegistry);
+        Gauge.builder("booking.outbox.confirm.latency", batchSizer, AdaptiveBatchSizer::getConfirmLatencyMs)
+                .description("Сглаженная задержка publisher confirm, мс")
+                .register(meterRegistry);
+        this.leaseExpired = Counter.builder("booking.outbox.lease.expired")
+                .description("События, отброшенные publisher'ом из-за истекающей аренды")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!settings.isEnabled() || running) {
+            return;
+        }
+        running = true;
+        claimerThread = Thread.ofVirtual().name("outbox-claimer").start(this::claimLoop);
+        publisherThread = Thread.ofVirtual().name("outbox-publisher").start(this::publishLoop);
+        log.info("Outbox relay started, instance: {}", instanceId);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            // Сначала перестаем захватывать, затем publisher дорабатывает очередь
+            claimerThread.join(TimeUnit.SECONDS.toMillis(5));
+            publisherThread.join(settings.getConfirmTimeoutMs() * 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Outbox relay stopped, {} claimed events left for lease expiry", queue.size());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void claimLoop() {
+        while (running) {
+            try {
+                int capacity = Math.min(queue.remainingCapacity(), backlogWithinLease() - queue.size());
+                if (capacity <= 0) {
+                    // Backpressure: брокер не успевает разобрать очередь до конца аренды,
+                    // новые строки не захватываем
+                    sleep(settings.getPublishIntervalMs());
+                    continue;
+                }
+
+                int requested = Math.min(batchSizer.nextBatchSize(), capacity);
+                List<OutboxEvent> claimed = outboxRepository.claimForPublishing(
+                        instanceId, requested, settings.getClaimLeaseSeconds());
+                batchSizer.onClaimed(requested, claimed.size());
+
+                // Единственный продюсер очереди: место зарезервировано проверкой выше
+                claimed.forEach(queue::add);
+
+                if (claimed.size() < requested) {
+                    sleep(settings.getPublishIntervalMs());
+                }
+            } catch (Exception e) {
+                log.error("Outbox claim failed", e);
+                sleep(settings.getPublishIntervalMs());
+            }
+        }
+    }
+
+    private void publishLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                OutboxEvent first = queue.poll(settings.getPublishIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<OutboxEvent> batch = new ArrayList<>(batchSizer.nextBatchSize());
+                batch.add(first);
+                queue.drainTo(batch, batchSizer.nextBatchSize() - 1);
+
+                batch = withLiveLease(batch);
+                if (batch.isEmpty()) {
+                    continue;
+                }
+
+                RabbitOutboxPublisher.PublishResult result = publisher.publish(batch);
+                batchSizer.onPublished(batch.size(), result.elapsedNanos(), result.confirmLatencyNanos());
+
+                outboxRepository.markAsPublishedBatch(result.published());
+                result.failures().forEach(outboxRepository::recordFailure);
+
+                if (!result.failures().isEmpty()) {
+                    log.warn("Outbox batch published with {} failures out of {}",
+                            result.failures().size(), batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Аренда истечет, и события будут захвачены заново
+                log.error("Outbox publish failed", e);
+            }
+        }
+    }
+
+    /**
+     * Сколько событий может ждать в очереди, чтобы publisher разобрал их до конца аренды.
+     * Запас на confirm берется из confirmTimeoutMs. Пока пропускная способность
+     * не измерена, ограничивает только емкость очереди.
+     */
+    int backlogWithinLease() {
+        double throughput = batchSizer.getThroughputPerSecond();
+        if (throughput <= 0) {
+            return settings.getQueueCapacity();
+        }
+        double drainSeconds = settings.getClaimLeaseSeconds() - settings.getConfirmTimeoutMs() / 1000.0;
+        return (int) Math.min(settings.getQueueCapacity(), Math.max(0, throughput * drainSeconds));
+    }
+
+    /**
+     * Отбрасывает события, аренда которых истечет до confirm'а: их мог уже захватить
+     * другой инстанс. Строки не трогаем - после истечения аренды событие захватят заново.
+     */
+    List<OutboxEvent> withLiveLease(List<OutboxEvent> batch) {
+        LocalDateTime confirmDeadline = LocalDateTime.now().plusNanos(
+                TimeUnit.MILLISECONDS.toNanos(settings.getConfirmTimeoutMs()));
+        List<OutboxEvent> live = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            if (event.getClaimedUntil() != null && event.getClaimedUntil().isAfter(confirmDeadline)) {
+                live.add(event);
+            }
+        }
+
+        int expired = batch.size() - live.size();
+        if (expired > 0) {
+            leaseExpired.increment(expired);
+            log.warn("Dropped {} outbox events with expiring lease, they will be claimed again", expired);
+        }
+        return live;
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package qodo.ru.servicebooking.infrastructure.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageBuilderSupport;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import qodo.ru.servicebooking.domain.entity.OutboxEvent;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Публикация outbox событий в RabbitMQ с publisher confirms.
+ *
+ * Пачка отправляется целиком, затем ожидаются confirm'ы по CorrelationData
+ * (publisher-confirm-type: correlated). Событие считается опубликованным
+ * только после ack от брокера.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RabbitOutboxPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final BookingProperties properties;
+
+    /**
+     * Опубликовать пачку событий и дождаться confirm'ов.
+     *
+     * @param events события
+     * @return результат публикации
+     */
+    public PublishResult publish(List<OutboxEvent> events) {
+        long startedAt = System.nanoTime();
+        Map<UUID, CorrelationData> pending = new LinkedHashMap<>();
+        Map<UUID, String> failures = new LinkedHashMap<>();
+
+        for (OutboxEvent event : events) {
+            try {
+                CorrelationData correlation = new CorrelationData(event.getId().toString());
+                rabbitTemplate.send(event.getExchangeName(), event.getRoutingKey(), toMessage(event), correlation);
+                pending.put(event.getId(), correlation);
+            } catch (Exception e) {
+                log.warn("Failed to send outbox event {}", event.getId(), e);
+                failures.put(event.getId(), e.getMessage());
+            }
+        }
+
+        List<UUID> published = new ArrayList<>(pending.size());
+        long sentAt = System.nanoTime();
+        long confirmDeadline = sentAt + TimeUnit.MILLISECONDS.toNanos(properties.getOutbox().getConfirmTimeoutMs());
+
+        for (Map.Entry<UUID, CorrelationData> entry : pending.entrySet()) {
+            try {
+                long remaining = Math.max(0, confirmDeadline - System.nanoTime());
+                CorrelationData.Confirm confirm = entry.getValue().getFuture().get(remaining, TimeUnit.NANOSECONDS);
+                if (confirm.isAck()) {
+                    published.add(entry.getKey());
+                } else {
+                    failures.put(entry.getKey(), "nack: " + confirm.getReason());
+                }
+            } catch (TimeoutException e) {
+                failures.put(entry.getKey(), "confirm timeout");
+            } catch (ExecutionException e) {
+                failures.put(entry.getKey(), String.valueOf(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.put(entry.getKey(), "interrupted");
+            }
+        }
+
+        // Ожидание confirm'ов после последней отправки - оценка задержки брокера
+        long finishedAt = System.nanoTime();
+        return new PublishResult(published, failures, finishedAt - startedAt, finishedAt - sentAt);
+    }
+
+    private Message toMessage(OutboxEvent event) throws JsonProcessingException {
+        MessageBuilderSupport<Message> builder = MessageBuilder.withBody(objectMapper.writeValueAsBytes(event.getPayload()))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .setMessageId(event.getId().toString())
+                .setType(event.getEventType())
+                .setHeader("aggregate_id", event.getAggregateId().toString())
+                .setHeader("aggregate_type", event.getAggregateType());
+
+        if (event.getCorrelationId() != null) {
+            builder.setCorrelationId(event.getCorrelationId().toString());
+        }
+        if (event.getHeaders() != null) {
+            event.getHeaders().forEach(builder::setHeader);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Результат публикации пачки.
+     *
+     * @param published ID событий, подтвержденных брокером
+     * @param failures ID событий с ошибкой и текст ошибки
+     * @param elapsedNanos время от первой отправки до последнего confirm
+     * @param confirmLatencyNanos время ожидания confirm'ов после последней отправки
+     */
+    public record PublishResult(
+            List<UUID> published,
+            Map<UUID, String> failures,
+            long elapsedNanos,
+            long confirmLatencyNanos
+    ) {}
+}
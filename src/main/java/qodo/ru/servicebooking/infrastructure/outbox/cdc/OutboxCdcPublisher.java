@@ -0,0 +1,324 @@
+package qodo.ru.servicebooking.infrastructure.outbox.cdc;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.postgresql.PGConnection;
+import org.postgresql.PGProperty;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import qodo.ru.servicebooking.domain.entity.OutboxEvent;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.outbox.RabbitOutboxPublisher;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxDeadLetterRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxRepository;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+
+/**
+ * CDC-режим outbox: чтение INSERT в outbox_events из logical replication slot.
+ *
+ * Вместо polling (claim + markAsPublished) события читаются из WAL через
+ * replication API pgjdbc (плагин pgoutput), публикуются пачкой на каждую
+ * транзакцию, и только после confirm'ов брокера slot сдвигается на LSN конца
+ * транзакции. UPDATE published_at не выполняется: прогресс хранится
+ * в confirmed_flush_lsn, старые строки удаляются по created_at.
+ *
+ * Строка, которую нельзя разобрать в OutboxEvent (например, payload - не JSON-объект),
+ * переносится в dead-letter и пропускается: иначе поток переподключался бы к тому же
+ * LSN и падал на ней снова, slot не сдвигался бы, а WAL на primary копился бы без предела.
+ *
+ * Включается через booking.outbox.mode=cdc. Требует wal_level=logical.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "booking.outbox", name = "mode", havingValue = "cdc")
+public class OutboxCdcPublisher implements SmartLifecycle {
+
+    private static final String OUTBOX_TABLE = "outbox_events";
+    private static final Duration CLEANUP_INTERVAL = Duration.ofHours(1);
+    private static final DateTimeFormatter PG_TIMESTAMP = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart()
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+            .optionalEnd()
+            .toFormatter();
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    private final JdbcConnectionDetails connectionDetails;
+    private final DSLContext dsl;
+    private final RabbitOutboxPublisher publisher;
+    private final OutboxRepository outboxRepository;
+    private final OutboxDeadLetterRepository deadLetterRepository;
+    private final ObjectMapper objectMapper;
+    private final BookingProperties.Outbox settings;
+    private final Counter publishedCounter;
+    private final Counter undecodableCounter;
+
+    private volatile boolean running;
+    private Thread streamThread;
+    private LocalDateTime lastCleanupAt = LocalDateTime.now();
+
+    public OutboxCdcPublisher(JdbcConnectionDetails connectionDetails,
+                              DSLContext dsl,
+                              RabbitOutboxPublisher publisher,
+                              OutboxRepository outboxRepository,
+                              OutboxDeadLetterRepository deadLetterRepository,
+                              ObjectMapper objectMapper,
+                              BookingProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.connectionDetails = connectionDetails;
+        this.dsl = dsl;
+        this.publisher = publisher;
+        this.outboxRepository = outboxRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.objectMapper = objectMapper;
+        this.settings = properties.getOutbox();
+        this.publishedCounter = Counter.builder("booking.outbox.cdc.published")
+                .description("События, опубликованные из replication slot")
+                .register(meterRegistry);
+        this.undecodableCounter = Counter.builder("booking.outbox.cdc.undecodable")
+                .description("Строки outbox из replication slot, которые не удалось разобрать")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!settings.isEnabled() || running) {
+            return;
+        }
+        running = true;
+        streamThread = Thread.ofVirtual().name("outbox-cdc").start(this::streamLoop);
+        log.info("Outbox CDC publisher started, slot: {}", settings.getCdc().getSlotName());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (streamThread != null) {
+            try {
+                streamThread.join(settings.getConfirmTimeoutMs() * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("Outbox CDC publisher stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void streamLoop() {
+        while (running) {
+            try (Connection connection = openReplicationConnection()) {
+                ensureSlot(connection.unwrap(PGConnection.class));
+                consume(connection.unwrap(PGConnection.class));
+            } catch (Exception e) {
+                log.error("Outbox CDC stream failed, reconnecting", e);
+                sleep(TimeUnit.SECONDS.toMillis(settings.getCdc().getStatusIntervalSeconds()));
+            }
+        }
+    }
+
+    private void consume(PGConnection connection) throws SQLException {
+        BookingProperties.Cdc cdc = settings.getCdc();
+        PgOutputDecoder decoder = new PgOutputDecoder();
+        List<OutboxEvent> transaction = new ArrayList<>();
+
+        try (PGReplicationStream stream = connection.getReplicationAPI()
+                .replicationStream()
+                .logical()
+                .withSlotName(cdc.getSlotName())
+                .withSlotOption("proto_version", 1)
+                .withSlotOption("publication_names", cdc.getPublicationName())
+                .withStatusInterval(cdc.getStatusIntervalSeconds(), TimeUnit.SECONDS)
+                .start()) {
+
+            while (running) {
+                ByteBuffer message = stream.readPending();
+                if (message == null) {
+                    cleanupIfDue();
+                    sleep(10);
+                    continue;
+                }
+
+                switch (decoder.decode(message)) {
+                    case PgOutputDecoder.Insert insert when OUTBOX_TABLE.equals(insert.table()) ->
+                            decodeOrPark(insert.values()).ifPresent(transaction::add);
+                    case PgOutputDecoder.Commit commit -> {
+                        if (!transaction.isEmpty()) {
+                            publishUntilConfirmed(transaction);
+                            transaction.clear();
+                        }
+                        // Slot двигается только после confirm'ов всей транзакции
+                        LogSequenceNumber lsn = LogSequenceNumber.valueOf(commit.endLsn());
+                        stream.setAppliedLSN(lsn);
+                        stream.setFlushedLSN(lsn);
+                    }
+                    case null, default -> { }
+                }
+            }
+        }
+    }
+
+    /**
+     * Публикует события транзакции. Неподтвержденные повторяются с exponential backoff;
+     * после max-retry-attempts событие уходит в dead-letter, чтобы не блокировать slot.
+     */
+    private void publishUntilConfirmed(List<OutboxEvent> events) {
+        List<OutboxEvent> remaining = events;
+        int attempt = 0;
+
+        while (!remaining.isEmpty()) {
+            RabbitOutboxPublisher.PublishResult result = publisher.publish(remaining);
+            publishedCounter.increment(result.published().size());
+
+            Map<UUID, String> failures = result.failures();
+            if (failures.isEmpty()) {
+                return;
+            }
+
+            attempt++;
+            if (attempt >= settings.getMaxRetryAttempts() || !running) {
+                log.error("CDC publish failed for {} events after {} attempts, parking to dead-letter",
+                        failures.size(), attempt);
+                failures.keySet().forEach(deadLetterRepository::park);
+                return;
+            }
+
+            log.warn("CDC publish failed for {} events, attempt {}", failures.size(), attempt);
+            remaining = remaining.stream()
+                    .filter(e -> failures.containsKey(e.getId()))
+                    .toList();
+            sleep(Math.min(TimeUnit.SECONDS.toMillis(1L << attempt), TimeUnit.MINUTES.toMillis(5)));
+        }
+    }
+
+    private void cleanupIfDue() {
+        LocalDateTime now = LocalDateTime.now();
+        if (lastCleanupAt.plus(CLEANUP_INTERVAL).isAfter(now)) {
+            return;
+        }
+        lastCleanupAt = now;
+        try {
+            outboxRepository.deleteCreatedBefore(now.minusHours(settings.getCdc().getRetentionHours()));
+        } catch (Exception e) {
+            log.warn("Outbox CDC cleanup failed", e);
+        }
+    }
+
+    private Connection openReplicationConnection() throws SQLException {
+        Properties props = new Properties();
+        PGProperty.USER.set(props, connectionDetails.getUsername());
+        PGProperty.PASSWORD.set(props, connectionDetails.getPassword());
+        PGProperty.ASSUME_MIN_SERVER_VERSION.set(props, "10");
+        PGProperty.REPLICATION.set(props, "database");
+        PGProperty.PREFER_QUERY_MODE.set(props, "simple");
+        return DriverManager.getConnection(connectionDetails.getJdbcUrl(), props);
+    }
+
+    private void ensureSlot(PGConnection connection) throws SQLException {
+        String slotName = settings.getCdc().getSlotName();
+        boolean exists = dsl.fetchExists(
+                table("pg_replication_slots"),
+                field("slot_name", String.class).eq(slotName)
+        );
+        if (!exists) {
+            connection.getReplicationAPI()
+                    .createReplicationSlot()
+                    .logical()
+                    .withSlotName(slotName)
+                    .withOutputPlugin("pgoutput")
+                    .make();
+            log.info("Created logical replication slot: {}", slotName);
+        }
+    }
+
+    /**
+     * Разобрать строку; неразбираемую - в dead-letter (или только в лог, если нет даже id).
+     */
+    private Optional<OutboxEvent> decodeOrPark(Map<String, String> values) {
+        try {
+            return Optional.of(toOutboxEvent(values));
+        } catch (Exception e) {
+            undecodableCounter.increment();
+            UUID id = parseIdOrNull(values.get("id"));
+            boolean parked = false;
+            if (id != null) {
+                try {
+                    parked = deadLetterRepository.park(id);
+                } catch (Exception parkError) {
+                    e.addSuppressed(parkError);
+                }
+            }
+            log.error("Skipping undecodable outbox insert {}, parked to dead-letter: {}", values.get("id"), parked, e);
+            return Optional.empty();
+        }
+    }
+
+    private OutboxEvent toOutboxEvent(Map<String, String> values) {
+        try {
+            return OutboxEvent.builder()
+                    .id(UUID.fromString(values.get("id")))
+                    .aggregateId(UUID.fromString(values.get("aggregate_id")))
+                    .aggregateType(values.get("aggregate_type"))
+                    .eventType(values.get("event_type"))
+                    .payload(objectMapper.readValue(values.get("payload"), PAYLOAD_TYPE))
+                    .correlationId(toUuid(values.get("correlation_id")))
+                    .causationId(toUuid(values.get("causation_id")))
+                    .userId(toUuid(values.get("user_id")))
+                    .createdAt(LocalDateTime.parse(values.get("created_at"), PG_TIMESTAMP))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to decode outbox insert: " + values.get("id"), e);
+        }
+    }
+
+    private static UUID parseIdOrNull(String value) {
+        try {
+            return toUuid(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static UUID toUuid(String value) {
+        return value != null ? UUID.fromString(value) : null;
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package qodo.ru.servicebooking.infrastructure.outbox.cdc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Минимальный декодер протокола pgoutput (proto_version 1).
+ *
+ * Разбирает только то, что нужно outbox: Relation (имена колонок),
+ * Insert (значения в текстовом формате) и Commit (LSN конца транзакции).
+ * Остальные сообщения (Begin, Origin, Type, Update, Delete, Truncate) пропускаются.
+ */
+class PgOutputDecoder {
+
+    /**
+     * Колонки таблиц по relation id. Сервер присылает Relation перед первым
+     * изменением таблицы в сессии и после изменения ее схемы.
+     */
+    private final Map<Integer, Relation> relations = new HashMap<>();
+
+    /**
+     * Разобрать сообщение из replication stream.
+     *
+     * @param buffer сообщение
+     * @return Insert или Commit; null для остальных типов
+     */
+    Message decode(ByteBuffer buffer) {
+        byte type = buffer.get();
+        return switch (type) {
+            case 'R' -> {
+                Relation relation = readRelation(buffer);
+                relations.put(relation.id(), relation);
+                yield null;
+            }
+            case 'I' -> readInsert(buffer);
+            case 'C' -> readCommit(buffer);
+            default -> null;
+        };
+    }
+
+    private Relation readRelation(ByteBuffer buffer) {
+        int relationId = buffer.getInt();
+        String namespace = readString(buffer);
+        String name = readString(buffer);
+        buffer.get(); // replica identity
+
+        short columnCount = buffer.getShort();
+        String[] columns = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            buffer.get(); // flags
+            columns[i] = readString(buffer);
+            buffer.getInt(); // type oid
+            buffer.getInt(); // type modifier
+        }
+        return new Relation(relationId, namespace, name, columns);
+    }
+
+    private Insert readInsert(ByteBuffer buffer) {
+        int relationId = buffer.getInt();
+        buffer.get(); // 'N' - новый кортеж
+
+        Relation relation = relations.get(relationId);
+        if (relation == null) {
+            throw new IllegalStateException("Insert for unknown relation " + relationId);
+        }
+
+        short columnCount = buffer.getShort();
+        Map<String, String> values = new LinkedHashMap<>(columnCount * 2);
+        for (int i = 0; i < columnCount; i++) {
+            byte kind = buffer.get();
+            switch (kind) {
+                case 'n' -> values.put(relation.columns()[i], null);
+                case 'u' -> { } // unchanged TOAST - для INSERT не встречается
+                case 't' -> {
+                    byte[] bytes = new byte[buffer.getInt()];
+                    buffer.get(bytes);
+                    values.put(relation.columns()[i], new String(bytes, StandardCharsets.UTF_8));
+                }
+                default -> throw new IllegalStateException("Unexpected tuple data kind: " + (char) kind);
+            }
+        }
+        return new Insert(relation.name(), values);
+    }
+
+    private Commit readCommit(ByteBuffer buffer) {
+        buffer.get(); // flags
+        long commitLsn = buffer.getLong();
+        long endLsn = buffer.getLong();
+        return new Commit(commitLsn, endLsn);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int start = buffer.position();
+        while (buffer.get() != 0) {
+            // ищем завершающий ноль
+        }
+        int length = buffer.position() - start - 1;
+        return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+    }
+
+    sealed interface Message permits Insert, Commit {}
+
+    record Insert(String table, Map<String, String> values) implements Message {}
+
+    record Commit(long commitLsn, long endLsn) implements Message {}
+
+    private record Relation(int id, String namespace, String name, String[] columns) {}
+}
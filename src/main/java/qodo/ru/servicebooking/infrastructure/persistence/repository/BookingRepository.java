@@ -2,6 +2,7 @@ package qodo.ru.servicebooking.infrastructure.persistence.repository;
 
 import qodo.ru.servicebooking.domain.entity.Booking;
 import qodo.ru.servicebooking.domain.enums.BookingStatus;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -9,6 +10,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface BookingRepository {
 
@@ -20,12 +22,15 @@ public interface BookingRepository {
      *
      * @param booking бронирование для сохранения
      * @return сохраненное бронирование с заполненным ID
+     * @throws qodo.ru.servicebooking.domain.exception.SlotAlreadyBookedException если слот занят
+     *         или время пересекается с другой активной записью мастера
      */
     Booking save(Booking booking);
 
     /**
      * Обновить существующее бронирование.
      * Использует оптимистичную блокировку через version.
+     * Пишет только поля, отмеченные в {@link Booking#getDirtyFields()}, плюс version и updated_at.
      *
      * @param booking бронирование для обновления
      * @return обновленное бронирование
@@ -33,6 +38,39 @@ public interface BookingRepository {
      */
     Booking update(Booking booking);
 
+    /**
+     * Сохранить бронирование под распределенной блокировкой.
+     * Запись выполняется только если токен все еще текущий для блокировки.
+     *
+     * @param booking бронирование для сохранения
+     * @param token fencing token, полученный при захвате блокировки
+     * @return сохраненное бронирование
+     * @throws qodo.ru.servicebooking.domain.exception.StaleFencingTokenException если блокировку перехватили
+     */
+    Booking save(Booking booking, FencingToken token);
+
+    /**
+     * Сохранить пакет бронирований одним многострочным INSERT под блокировками слотов.
+     * Либо сохраняются все, либо ни одного.
+     *
+     * @param bookings бронирования пакета
+     * @param tokens fencing token каждой блокировки слота
+     * @return сохраненные бронирования; при повторе того же пакета - ранее сохраненные
+     * @throws qodo.ru.servicebooking.domain.exception.StaleFencingTokenException если блокировку перехватили
+     * @throws qodo.ru.servicebooking.domain.exception.DuplicateRequestException если часть пакета уже сохранена
+     */
+    List<Booking> saveAll(List<Booking> bookings, List<FencingToken> tokens);
+
+    /**
+     * Обновить бронирование под распределенной блокировкой.
+     *
+     * @param booking бронирование для обновления
+     * @param token fencing token, полученный при захвате блокировки
+     * @return обновленное бронирование
+     * @throws qodo.ru.servicebooking.domain.exception.StaleFencingTokenException если блокировку перехватили
+     */
+    Booking update(Booking booking, FencingToken token);
+
     /**
      * Найти бронирование по ID.
      *
@@ -115,6 +153,27 @@ public interface BookingRepository {
      */
     List<Booking> findByAccountIdBetween(UUID accountId, LocalDateTime from, LocalDateTime to);
 
+    /**
+     * Пройти по всем активным бронированиям, заканчивающимся позже указанного времени.
+     * Читает курсором, не загружая весь результат в память.
+     * Используется для построения индексов занятости при старте.
+     *
+     * @param endingAfter момент, после которого заканчивается бронирование
+     * @param consumer обработчик интервалов
+     */
+    void streamActiveIntervals(LocalDateTime endingAfter, Consumer<BookingInterval> consumer);
+
+    /**
+     * Пройти по бронированиям (в любом статусе, в текущем состоянии), по которым начиная
+     * с указанного времени в outbox попало доменное событие. Интервал меняется только
+     * при создании и смене статуса, и на каждую такую запись регистрируется событие.
+     * Используется для догона индексов после загрузки снимка. Порядок не определен.
+     *
+     * @param since нижняя граница created_at события (включительно)
+     * @param consumer обработчик интервалов
+     */
+    void streamIntervalsChangedSince(LocalDateTime since, Consumer<BookingInterval> consumer);
+
     // ============= Поиск по статусам =============
 
     /**
@@ -211,6 +270,43 @@ public interface BookingRepository {
             BigDecimal averagePrice
     ) {}
 
+    /**
+     * Интервал времени, занятый бронированием, со статусом и версией строки.
+     */
+    record BookingInterval(
+            UUID bookingId,
+            UUID accountId,
+            UUID slotId,
+            LocalDateTime scheduledAt,
+            int durationMinutes,
+            BookingStatus status,
+            int version
+    ) {
+        public LocalDateTime end() {
+            return scheduledAt.plusMinutes(durationMinutes);
+        }
+    }
+
+    /**
+     * Событие записи: бронирования начали или перестали занимать время мастера.
+     * activated приходит и для уже активной записи, если она изменилась (например, подтверждена),
+     * поэтому обработка должна быть идемпотентной.
+     * Публикуется репозиторием внутри транзакции записи; слушатели индексов
+     * подписываются через {@code @TransactionalEventListener}, чтобы видеть только закоммиченное.
+     */
+    record IntervalsChanged(
+            List<BookingInterval> activated,
+            List<BookingInterval> released
+    ) {
+        public static IntervalsChanged activated(List<BookingInterval> intervals) {
+            return new IntervalsChanged(intervals, List.of());
+        }
+
+        public static IntervalsChanged released(List<BookingInterval> intervals) {
+            return new IntervalsChanged(List.of(), intervals);
+        }
+    }
+
     /**
      * Исключение оптимистичной блокировки.
      */
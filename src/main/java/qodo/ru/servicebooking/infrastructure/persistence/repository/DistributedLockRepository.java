@@ -1,8 +1,14 @@
 package qodo.ru.servicebooking.infrastructure.persistence.repository;
 
 import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.TreeSet;
 
 public interface DistributedLockRepository {
 
@@ -14,7 +20,83 @@ public interface DistributedLockRepository {
      * @param ttlSeconds время жизни в секундах
      * @return true если блокировка получена
      */
-    boolean tryAcquire(String lockKey, String ownerId, int ttlSeconds);
+    default boolean tryAcquire(String lockKey, String ownerId, int ttlSeconds) {
+        return tryAcquireFenced(lockKey, ownerId, ttlSeconds).isPresent();
+    }
+
+    /**
+     * Попытаться получить блокировку и fencing token.
+     * Истекшая блокировка перехватывается атомарно.
+     *
+     * @param lockKey ключ блокировки
+     * @param ownerId идентификатор владельца
+     * @param ttlSeconds время жизни в секундах
+     * @return Optional с монотонно растущим токеном, если блокировка получена
+     */
+    Optional<FencingToken> tryAcquireFenced(String lockKey, String ownerId, int ttlSeconds);
+
+    /**
+     * Попытаться получить блокировку, ожидая занятую не дольше waitTime.
+     * Вызывающий передает остаток своего бюджета ожидания, чтобы ступени не ждали каждая по полному таймауту.
+     * Реализация по умолчанию не ждет.
+     *
+     * @param lockKey ключ блокировки
+     * @param ownerId идентификатор владельца
+     * @param ttlSeconds время жизни в секундах
+     * @param waitTime сколько можно ждать освобождения
+     * @return Optional с монотонно растущим токеном, если блокировка получена
+     */
+    default Optional<FencingToken> tryAcquireFenced(String lockKey, String ownerId, int ttlSeconds, Duration waitTime) {
+        return tryAcquireFenced(lockKey, ownerId, ttlSeconds);
+    }
+
+    /**
+     * Захватить несколько блокировок целиком: либо все, либо ни одной.
+     * Ключи захватываются в каноническом (отсортированном) порядке, поэтому два
+     * конкурирующих пакета с пересекающимися ключами не могут взаимно заблокироваться.
+     * Реализация по умолчанию захватывает по одной и откатывает при неудаче.
+     *
+     * @param lockKeys ключи блокировок
+     * @param ownerId идентификатор владельца
+     * @param ttlSeconds время жизни в секундах
+     * @return токены в порядке отсортированных ключей; пустой список, если хоть одну не удалось захватить
+     */
+    default List<FencingToken> tryAcquireAll(Collection<String> lockKeys, String ownerId, int ttlSeconds) {
+        List<FencingToken> acquired = new ArrayList<>();
+        for (String lockKey : new TreeSet<>(lockKeys)) {
+            Optional<FencingToken> token = tryAcquireFenced(lockKey, ownerId, ttlSeconds);
+            if (token.isEmpty()) {
+                acquired.forEach(t -> release(t.getLockKey(), ownerId));
+                return List.of();
+            }
+            acquired.add(token.get());
+        }
+        return acquired;
+    }
+
+    /**
+     * Захватить несколько блокировок целиком, ожидая не дольше waitTime.
+     * Реализация по умолчанию не ждет.
+     *
+     * @param lockKeys ключи блокировок
+     * @param ownerId идентификатор владельца
+     * @param ttlSeconds время жизни в секундах
+     * @param waitTime сколько можно ждать освобождения
+     * @return токены в порядке отсортированных ключей; пустой список, если хоть одну не удалось захватить
+     */
+    default List<FencingToken> tryAcquireAll(Collection<String> lockKeys, String ownerId, int ttlSeconds,
+                                             Duration waitTime) {
+        return tryAcquireAll(lockKeys, ownerId, ttlSeconds);
+    }
+
+    /**
+     * Проверить, что токен все еще текущий для блокировки.
+     * Вызывается в транзакции записи, защищенной блокировкой.
+     *
+     * @param token fencing token
+     * @return true если блокировка удерживается с этим токеном
+     */
+    boolean isHeld(FencingToken token);
 
     /**
      * Освободить блокировку.
@@ -35,6 +117,31 @@ public interface DistributedLockRepository {
      */
     boolean extend(String lockKey, String ownerId, int ttlSeconds);
 
+    /**
+     * Продлить пачку блокировок одним обращением к хранилищу.
+     * Реализация по умолчанию продлевает по одной.
+     *
+     * @param locks удерживаемые блокировки
+     * @param ttlSeconds новое время жизни
+     * @return продленные и точно потерянные блокировки; остальные - результат неизвестен
+     */
+    default ExtendResult extendAll(Collection<HeldLock> locks, int ttlSeconds) {
+        List<HeldLock> renewed = new ArrayList<>();
+        List<HeldLock> lost = new ArrayList<>();
+        for (HeldLock lock : locks) {
+            try {
+                if (extend(lock.token().getLockKey(), lock.ownerId(), ttlSeconds)) {
+                    renewed.add(lock);
+                } else {
+                    lost.add(lock);
+                }
+            } catch (RuntimeException e) {
+                // результат неизвестен, повторим на следующем продлении
+            }
+        }
+        return new ExtendResult(renewed, lost);
+    }
+
     /**
      * Найти активную блокировку.
      *
@@ -49,4 +156,14 @@ public interface DistributedLockRepository {
      * @return количество удаленных блокировок
      */
     int cleanupExpired();
+
+    /**
+     * Удерживаемая блокировка.
+     */
+    record HeldLock(FencingToken token, String ownerId) {}
+
+    /**
+     * Результат пакетного продления.
+     */
+    record ExtendResult(List<HeldLock> renewed, List<HeldLock> lost) {}
 }
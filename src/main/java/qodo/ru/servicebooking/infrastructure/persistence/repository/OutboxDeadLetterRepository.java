@@ -0,0 +1,63 @@
+package qodo.ru.servicebooking.infrastructure.persistence.repository;
+
+import qodo.ru.servicebooking.domain.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxDeadLetterRepository {
+
+    /**
+     * Атомарно перенести событие из outbox_events в dead-letter.
+     * DELETE ... RETURNING и INSERT выполняются одним statement.
+     *
+     * @param eventId ID события
+     * @return true если событие перенесено
+     */
+    boolean park(UUID eventId);
+
+    /**
+     * Найти события в dead-letter по фильтру.
+     *
+     * @param filter фильтр
+     * @param limit максимальное количество
+     * @return список событий
+     */
+    List<OutboxEvent> find(DeadLetterFilter filter, int limit);
+
+    /**
+     * Подсчитать события в dead-letter по фильтру.
+     *
+     * @param filter фильтр
+     * @return количество событий
+     */
+    long count(DeadLetterFilter filter);
+
+    /**
+     * Вернуть пачку событий из dead-letter обратно в outbox.
+     * Счетчик попыток сбрасывается, события снова попадают
+     * в findUnpublishedForProcessing.
+     * Событие, чей id уже есть в outbox, не возвращается и остается в dead-letter.
+     *
+     * @param filter фильтр
+     * @param limit размер пачки
+     * @return количество возвращенных событий
+     */
+    int replay(DeadLetterFilter filter, int limit);
+
+    /**
+     * Фильтр событий dead-letter. Null-поля не участвуют в фильтрации.
+     *
+     * @param eventType тип события (точное совпадение)
+     * @param createdFrom создано не раньше
+     * @param createdTo создано раньше
+     * @param errorPattern шаблон ILIKE по last_error (например, "%timeout%")
+     */
+    record DeadLetterFilter(
+            String eventType,
+            LocalDateTime createdFrom,
+            LocalDateTime createdTo,
+            String errorPattern
+    ) {}
+}
@@ -17,6 +17,15 @@ public interface OutboxRepository {
      */
     OutboxEvent save(OutboxEvent event);
 
+    /**
+     * Сохранить несколько событий одним multi-row INSERT.
+     * Должно вызываться в той же транзакции, что и бизнес-операция.
+     *
+     * @param events события для сохранения (ID проставляются, если не заданы)
+     * @return те же события с ID
+     */
+    List<OutboxEvent> saveAll(List<OutboxEvent> events);
+
     /**
      * Найти неопубликованные события для публикации.
      * Использует FOR UPDATE SKIP LOCKED для конкурентной обработки.
@@ -26,6 +35,18 @@ public interface OutboxRepository {
      */
     List<OutboxEvent> findUnpublishedForProcessing(int limit);
 
+    /**
+     * Захватить пачку событий для публикации (новые и готовые к retry).
+     * Row-lock (FOR UPDATE SKIP LOCKED) держится только на время UPDATE,
+     * дальше событие защищено арендой claimed_until.
+     *
+     * @param ownerId идентификатор relay-инстанса
+     * @param limit максимальное количество событий
+     * @param leaseSeconds длительность аренды в секундах
+     * @return захваченные события в порядке создания
+     */
+    List<OutboxEvent> claimForPublishing(String ownerId, int limit, int leaseSeconds);
+
     /**
      * Найти события, готовые для повторной попытки.
      * Учитывает exponential backoff.
@@ -78,6 +99,16 @@ public interface OutboxRepository {
      */
     int deleteOldPublished(LocalDateTime publishedBefore);
 
+    /**
+     * Удалить события, созданные раньше указанного времени.
+     * Используется в CDC-режиме, где published_at не проставляется,
+     * а прогресс публикации хранится в replication slot.
+     *
+     * @param createdBefore созданные до этой даты
+     * @return количество удаленных событий
+     */
+    int deleteCreatedBefore(LocalDateTime createdBefore);
+
     /**
      * Получить статистику по outbox.
      *
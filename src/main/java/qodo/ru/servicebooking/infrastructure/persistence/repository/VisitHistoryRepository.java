@@ -2,6 +2,7 @@ package qodo.ru.servicebooking.infrastructure.persistence.repository;
 
 import qodo.ru.servicebooking.domain.entity.VisitHistory;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -20,16 +21,50 @@ public interface VisitHistoryRepository {
 
     /**
      * Найти истории с высокими оценками для отзывов.
+     * Порядок: rating DESC, review_at DESC, booking_id - однозначный при равных оценках.
+     * Холодный путь: горячие запросы обслуживает in-memory топ
+     * ({@link qodo.ru.servicebooking.infrastructure.reviews.TopRatedReviews}).
      */
     List<VisitHistory> findTopRated(int minRating, int limit);
 
+    /**
+     * Найти истории мастера с высокими оценками, в том же порядке, что и findTopRated.
+     */
+    List<VisitHistory> findTopRatedByAccount(UUID accountId, int minRating, int limit);
+
     /**
      * Обновить отзыв клиента.
      */
     boolean updateReview(UUID bookingId, int rating, String review);
 
     /**
-     * Найти истории для портфолио мастера.
+     * Найти истории для портфолио мастера (первая страница, новые сверху).
      */
     List<VisitHistory> findForPortfolio(UUID accountId, int limit);
+
+    /**
+     * Следующая страница портфолио после курсора (keyset-пагинация).
+     * Стоимость страницы не зависит от ее номера и размера истории мастера.
+     *
+     * @param after последняя запись предыдущей страницы, null - первая страница
+     */
+    List<VisitHistory> findForPortfolio(UUID accountId, PortfolioCursor after, int limit);
+
+    /**
+     * Событие записи: оценка или отзыв визита могли измениться.
+     * visit - строка в том виде, в каком она закоммичена (а не переданный в save объект).
+     * Публикуется внутри транзакции, слушатели подписываются через
+     * {@code @TransactionalEventListener}.
+     */
+    record ReviewChanged(UUID accountId, VisitHistory visit) {}
+
+    /**
+     * Позиция в портфолио: (created_at, id) последней показанной записи.
+     */
+    record PortfolioCursor(LocalDateTime createdAt, UUID id) {
+
+        public static PortfolioCursor after(VisitHistory last) {
+            return new PortfolioCursor(last.getCreatedAt(), last.getId());
+        }
+    }
 }
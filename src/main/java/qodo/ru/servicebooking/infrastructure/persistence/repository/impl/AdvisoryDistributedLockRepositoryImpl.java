@@ -0,0 +1,306 @@
+package qodo.ru.servicebooking.infrastructure.persistence.repository.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.val;
+
+/**
+ * Реализация блокировок на advisory locks PostgreSQL.
+ *
+ * В отличие от таблицы distributed_locks, не пишет ни строк, ни индексов, ни WAL:
+ * блокировка живет только в памяти сервера (pg_locks).
+ * Ключ - 64-битный хэш строки lockKey (FNV-1a).
+ *
+ * Два режима:
+ * - внутри активной транзакции используется pg_try_advisory_xact_lock:
+ *   блокировка снимается автоматически при commit/rollback, release ничего не делает;
+ * - вне транзакции берется session-блокировка на выделенном соединении,
+ *   которое удерживается до release (advisory lock привязан к сессии).
+ *
+ * TTL не нужен: при падении инстанса соединение закрывается и блокировка исчезает.
+ * Fencing token берется из той же последовательности, что и у табличной реализации.
+ *
+ * Session-блокировка проверяется по pg_locks для backend pid удерживающего соединения,
+ * а не только по памяти: если соединение потеряно (backend убит, сеть), сервер уже снял
+ * блокировку, и isHeld/extendAll должны это увидеть.
+ *
+ * Каждая session-блокировка занимает соединение Hikari до release. Чтобы горячая
+ * конкуренция за блокировки не выбрала весь пул, нужный обычным записям, одновременно
+ * удерживается не больше booking.lock.advisory-session-connections соединений;
+ * сверх лимита захват сразу возвращает empty, как для занятой блокировки.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class AdvisoryDistributedLockRepositoryImpl implements DistributedLockRepository {
+
+    private static final String TRY_XACT_LOCK_SQL =
+            "CASE WHEN pg_try_advisory_xact_lock({0}) THEN nextval('distributed_lock_fencing_seq') END";
+    private static final String TRY_SESSION_LOCK_SQL =
+            "SELECT CASE WHEN pg_try_advisory_lock(?) THEN nextval('distributed_lock_fencing_seq') END, pg_backend_pid()";
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(?)";
+    private static final String HELD_BY_CURRENT_BACKEND_SQL = """
+            EXISTS (
+                SELECT 1 FROM pg_locks
+                WHERE locktype = 'advisory' AND granted
+                  AND pid = pg_backend_pid()
+                  AND classid = (({0} >> 32) & 4294967295)::oid AND objid = ({0} & 4294967295)::oid AND objsubid = 1
+            )""";
+    private static final String HELD_BY_BACKEND_SQL = """
+            EXISTS (
+                SELECT 1 FROM pg_locks
+                WHERE locktype = 'advisory' AND granted
+                  AND pid = {1}
+                  AND classid = (({0} >> 32) & 4294967295)::oid AND objid = ({0} & 4294967295)::oid AND objsubid = 1
+            )""";
+    private static final String FIND_HOLDER_SQL = """
+            SELECT pid FROM pg_locks
+            WHERE locktype = 'advisory' AND granted
+              AND classid = (({0} >> 32) & 4294967295)::oid AND objid = ({0} & 4294967295)::oid AND objsubid = 1
+            LIMIT 1""";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final DSLContext dsl;
+    private final DataSource dataSource;
+
+    /**
+     * Session-блокировки этого инстанса: ключ -> удерживающее соединение.
+     */
+    private final Map<String, SessionLock> sessionLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Разрешения на удерживаемые соединения пула.
+     */
+    private final Semaphore sessionConnections;
+
+    public AdvisoryDistributedLockRepositoryImpl(DSLContext dsl, DataSource dataSource, BookingProperties properties) {
+        this.dsl = dsl;
+        this.dataSource = dataSource;
+        this.sessionConnections = new Semaphore(properties.getLock().getAdvisorySessionConnections());
+    }
+
+    @Override
+    public Optional<FencingToken> tryAcquireFenced(String lockKey, String ownerId, int ttlSeconds) {
+        long lockId = lockId(lockKey);
+        log.debug("Trying to acquire advisory lock: {} ({}) for owner: {}", lockKey, lockId, ownerId);
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            Long token = dsl.fetchValue(field(TRY_XACT_LOCK_SQL, Long.class, val(lockId)));
+            return toToken(lockKey, ownerId, token);
+        }
+
+        if (!sessionConnections.tryAcquire()) {
+            log.warn("Advisory lock {} not acquired: session connection limit reached ({} held)",
+                    lockKey, sessionLocks.size());
+            return Optional.empty();
+        }
+
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+            Long token;
+            int backendPid;
+            try (PreparedStatement statement = connection.prepareStatement(TRY_SESSION_LOCK_SQL)) {
+                statement.setLong(1, lockId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    long value = rs.getLong(1);
+                    token = rs.wasNull() ? null : value;
+                    backendPid = rs.getInt(2);
+                }
+            }
+            if (token == null) {
+                closeSession(connection);
+                return toToken(lockKey, ownerId, null);
+            }
+
+            FencingToken fencingToken = FencingToken.of(lockKey, token);
+            sessionLocks.put(lockKey, new SessionLock(ownerId, lockId, fencingToken, connection, backendPid));
+            return toToken(lockKey, ownerId, token);
+
+        } catch (SQLException e) {
+            log.warn("Failed to acquire advisory lock: {}", lockKey, e);
+            closeSession(connection);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean isHeld(FencingToken token) {
+        SessionLock sessionLock = sessionLocks.get(token.getLockKey());
+        if (sessionLock != null) {
+            return sessionLock.token().equals(token) && stillHeld(sessionLock);
+        }
+        // xact-блокировка держится текущей транзакцией
+        Boolean held = dsl.fetchValue(field(HELD_BY_CURRENT_BACKEND_SQL, Boolean.class, val(lockId(token.getLockKey()))));
+        return Boolean.TRUE.equals(held);
+    }
+
+    @Override
+    public boolean release(String lockKey, String ownerId) {
+        log.debug("Releasing advisory lock: {} by owner: {}", lockKey, ownerId);
+
+        SessionLock sessionLock = sessionLocks.get(lockKey);
+        if (sessionLock == null) {
+            // xact-блокировка снимется при завершении транзакции
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        }
+        if (!sessionLock.ownerId().equals(ownerId) || !sessionLocks.remove(lockKey, sessionLock)) {
+            log.warn("Advisory lock not owned: {} by {}", lockKey, ownerId);
+            return false;
+        }
+
+        try {
+            Boolean unlocked = queryBoolean(sessionLock.connection(), UNLOCK_SQL, sessionLock.lockId());
+            log.info("Advisory lock released: {} by {}", lockKey, ownerId);
+            return Boolean.TRUE.equals(unlocked);
+        } catch (SQLException e) {
+            // Соединение закрыто - сервер все равно снял блокировку
+            log.warn("Failed to release advisory lock cleanly: {}", lockKey, e);
+            return true;
+        } finally {
+            closeSession(sessionLock.connection());
+        }
+    }
+
+    @Override
+    public boolean extend(String lockKey, String ownerId, int ttlSeconds) {
+        // Advisory lock не истекает, пока жива сессия
+        SessionLock sessionLock = sessionLocks.get(lockKey);
+        return sessionLock != null && sessionLock.ownerId().equals(ownerId) && stillHeld(sessionLock);
+    }
+
+    @Override
+    public ExtendResult extendAll(Collection<HeldLock> locks, int ttlSeconds) {
+        // Продлевать нечего: проверяем только, что session-блокировка все еще наша
+        // и ее сессия жива. xact-блокировка живет до конца своей транзакции.
+        List<HeldLock> renewed = new ArrayList<>();
+        List<HeldLock> lost = new ArrayList<>();
+        for (HeldLock lock : locks) {
+            SessionLock sessionLock = sessionLocks.get(lock.token().getLockKey());
+            boolean held = sessionLock == null
+                    || (sessionLock.token().equals(lock.token()) && stillHeld(sessionLock));
+            (held ? renewed : lost).add(lock);
+        }
+        return new ExtendResult(renewed, lost);
+    }
+
+    @Override
+    public Optional<DistributedLock> findActiveLock(String lockKey) {
+        Object pid = dsl.fetchValue(FIND_HOLDER_SQL, val(lockId(lockKey)));
+        if (pid == null) {
+            return Optional.empty();
+        }
+
+        SessionLock sessionLock = sessionLocks.get(lockKey);
+        return Optional.of(DistributedLock.builder()
+                .lockKey(lockKey)
+                .lockedBy(sessionLock != null ? sessionLock.ownerId() : "pid:" + pid)
+                .expiresAt(LocalDateTime.MAX)
+                .fencingToken(sessionLock != null ? sessionLock.token().getValue() : 0L)
+                .build());
+    }
+
+    @Override
+    public int cleanupExpired() {
+        // Нечего чистить: блокировки закрытых сессий снимает сервер
+        return 0;
+    }
+
+    /**
+     * 64-битный ключ advisory lock из строкового ключа (FNV-1a).
+     */
+    static long lockId(String lockKey) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : lockKey.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Блокировка все еще в pg_locks у backend удерживающего соединения.
+     * Проверка идет через пул: потерянное соединение само ответить не может.
+     * Потерянная блокировка забывается, ее соединение возвращается в пул.
+     */
+    private boolean stillHeld(SessionLock sessionLock) {
+        Boolean held = dsl.fetchValue(field(HELD_BY_BACKEND_SQL, Boolean.class,
+                val(sessionLock.lockId()), val(sessionLock.backendPid())));
+        if (Boolean.TRUE.equals(held)) {
+            return true;
+        }
+        String lockKey = sessionLock.token().getLockKey();
+        if (sessionLocks.remove(lockKey, sessionLock)) {
+            log.warn("Advisory session lock lost with its connection (backend pid {}): {}",
+                    sessionLock.backendPid(), lockKey);
+            closeSession(sessionLock.connection());
+        }
+        return false;
+    }
+
+    /**
+     * Вернуть соединение в пул и освободить разрешение.
+     */
+    private void closeSession(Connection connection) {
+        closeQuietly(connection);
+        sessionConnections.release();
+    }
+
+    private Optional<FencingToken> toToken(String lockKey, String ownerId, Long token) {
+        if (token == null) {
+            log.debug("Advisory lock already held: {}", lockKey);
+            return Optional.empty();
+        }
+        log.info("Advisory lock acquired: {} by {}, token: {}", lockKey, ownerId, token);
+        return Optional.of(FencingToken.of(lockKey, token));
+    }
+
+    private static Boolean queryBoolean(Connection connection, String sql, long lockId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, lockId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // соединение уже недоступно
+        }
+    }
+
+    private record SessionLock(String ownerId, long lockId, FencingToken token, Connection connection, int backendPid) {}
+}
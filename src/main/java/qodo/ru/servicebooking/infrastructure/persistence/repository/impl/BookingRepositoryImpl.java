@@ -1,33 +1,69 @@
 package qodo.ru.servicebooking.infrastructure.persistence.repository.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jooq.DSLContext;
 import org.jooq.Field;
+import org.jooq.InsertSetMoreStep;
+import org.jooq.InsertSetStep;
 import org.jooq.JSON;
+import org.jooq.Record;
 import org.jooq.Table;
 import org.jooq.UpdateSetMoreStep;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import qodo.ru.servicebooking.domain.entity.Booking;
 import qodo.ru.servicebooking.domain.enums.BookingSource;
 import qodo.ru.servicebooking.domain.enums.BookingStatus;
 import qodo.ru.servicebooking.domain.enums.PaymentStatus;
+import qodo.ru.servicebooking.domain.event.DomainEvent;
+import qodo.ru.servicebooking.domain.event.impl.BookingCancelledEvent;
+import qodo.ru.servicebooking.domain.event.impl.BookingCompletedEvent;
+import qodo.ru.servicebooking.domain.event.impl.BookingConfirmedEvent;
+import qodo.ru.servicebooking.domain.event.impl.BookingCreatedEvent;
+import qodo.ru.servicebooking.domain.event.impl.BookingNoShowEvent;
+import qodo.ru.servicebooking.domain.exception.DuplicateRequestException;
+import qodo.ru.servicebooking.domain.exception.SlotAlreadyBookedException;
+import qodo.ru.servicebooking.domain.exception.StaleFencingTokenException;
+import qodo.ru.servicebooking.domain.valueobjects.BookingAuditLog.AuditAction;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+import qodo.ru.servicebooking.infrastructure.audit.BookingAuditRecorder;
+import qodo.ru.servicebooking.infrastructure.event.DomainEventBus;
 import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
 
-import java.lang.Record;
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static org.jooq.impl.DSL.avg;
 import static org.jooq.impl.DSL.count;
+import static org.jooq.impl.DSL.exists;
 import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.inline;
+import static org.jooq.impl.DSL.param;
+import static org.jooq.impl.DSL.select;
+import static org.jooq.impl.DSL.selectOne;
 import static org.jooq.impl.DSL.sum;
 import static org.jooq.impl.DSL.table;
 
@@ -36,6 +72,10 @@ import static org.jooq.impl.DSL.table;
  *
  * Использует типобезопасный DSL для построения SQL запросов.
  * Все операции оптимизированы для высокой производительности.
+ *
+ * Доменные события (создание, смена статуса) регистрируются в {@link DomainEventBus}
+ * в транзакции записи: все события транзакции уходят в outbox одним INSERT перед коммитом.
+ * Каждое изменение записывается в аудит ({@link BookingAuditRecorder}) после коммита.
  */
 @Slf4j
 @Repository
@@ -43,6 +83,25 @@ import static org.jooq.impl.DSL.table;
 public class BookingRepositoryImpl implements BookingRepository {
 
     private final DSLContext dsl;
+    private final DistributedLockRepository lockRepository;
+    private final ApplicationEventPublisher events;
+    private final DomainEventBus domainEvents;
+    private final BookingAuditRecorder audit;
+    private final ObjectMapper objectMapper;
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {};
+
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String EXCLUSION_VIOLATION = "23P01";
+    private static final String SLOT_ACTIVE_INDEX = "ux_bookings_slot_active";
+    /**
+     * DETAIL нарушений: "Key (slot_id)=(...) already exists." и
+     * "Key (account_id, tsrange(...))=(..., ["начало","конец")) conflicts with existing key ...".
+     * Первый кортеж - вставляемая строка.
+     */
+    private static final Pattern SLOT_TAKEN_DETAIL = Pattern.compile("\\(slot_id\\)=\\(([0-9a-f-]{36})\\)");
+    private static final Pattern OVERLAP_DETAIL = Pattern.compile("\\)=\\(([0-9a-f-]{36}), \\[\"([^\"]+)\"");
+    private static final int STREAM_FETCH_SIZE = 5_000;
 
     // Для примера, пока jOOQ не сгенерировал классы, определим таблицу вручную
     private static final Table<Record> BOOKINGS = table("bookings");
@@ -74,6 +133,40 @@ public class BookingRepositoryImpl implements BookingRepository {
     private static final Field<Integer> VERSION = field("version", Integer.class);
     private static final Field<JSON> METADATA = field("metadata", JSON.class);
 
+    // Позиция догона индексов: события бронирований в outbox и в dead-letter
+    private static final Table<Record> OUTBOX_EVENTS = table("outbox_events");
+    private static final Table<Record> OUTBOX_DEAD_LETTER = table("outbox_dead_letter");
+    private static final Field<UUID> EVENT_AGGREGATE_ID = field("aggregate_id", UUID.class);
+    private static final Field<String> EVENT_AGGREGATE_TYPE = field("aggregate_type", String.class);
+    private static final Field<LocalDateTime> EVENT_CREATED_AT = field("created_at", LocalDateTime.class);
+    private static final String BOOKING_AGGREGATE = "booking";
+
+    // Поля, достаточные для индексов занятости
+    private static final List<Field<?>> INTERVAL_FIELDS =
+            List.of(ID, ACCOUNT_ID, SLOT_ID, SCHEDULED_AT, DURATION_MINUTES, STATUS, VERSION);
+
+    // Все поля, читаемые mapToBooking
+    private static final List<Field<?>> BOOKING_FIELDS = List.of(
+            ID, ACCOUNT_ID, SLOT_ID, CLIENT_USER_ID, SERVICE_ID, PRICE, CURRENCY, DURATION_MINUTES,
+            STATUS, PAYMENT_STATUS, SOURCE, IDEMPOTENCY_KEY, CLIENT_NAME, CLIENT_PHONE, SERVICE_NAME,
+            NOTES, INTERNAL_NOTES, SCHEDULED_AT, CREATED_AT, UPDATED_AT, CONFIRMED_AT, CANCELLED_AT,
+            COMPLETED_AT, VERSION, METADATA);
+
+    // Горячие запросы: SQL рендерится один раз, на вызов - только bind-значения.
+    // Видны в пакете: QueryTemplateBenchmarkTests меряет именно их
+    static final QueryTemplate FIND_BY_ID = QueryTemplate.of(
+            select(BOOKING_FIELDS).from(BOOKINGS).where(ID.eq(param("id", UUID.class))));
+    static final QueryTemplate FIND_BY_IDEMPOTENCY_KEY = QueryTemplate.of(
+            select(BOOKING_FIELDS).from(BOOKINGS).where(IDEMPOTENCY_KEY.eq(param("idempotencyKey", String.class))));
+    static final QueryTemplate EXISTS_ACTIVE_FOR_SLOT = QueryTemplate.of(
+            select(field(exists(selectOne()
+                    .from(BOOKINGS)
+                    .where(SLOT_ID.eq(param("slotId", UUID.class)))
+                    .and(STATUS.in(
+                            inline(BookingStatus.CREATED.getValue()),
+                            inline(BookingStatus.CONFIRMED.getValue())
+                    ))))));
+
     @Override
     @Transactional
     public Booking save(Booking booking) {
@@ -81,32 +174,15 @@ public class BookingRepositoryImpl implements BookingRepository {
 
         UUID generatedId = booking.getId() != null ? booking.getId() : UUID.randomUUID();
 
-        int inserted = dsl.insertInto(BOOKINGS)
-                .set(ID, generatedId)
-                .set(ACCOUNT_ID, booking.getAccountId())
-                .set(SLOT_ID, booking.getSlotId())
-                .set(CLIENT_USER_ID, booking.getClientUserId())
-                .set(SERVICE_ID, booking.getServiceId())
-                .set(PRICE, booking.getPrice())
-                .set(CURRENCY, booking.getCurrency())
-                .set(DURATION_MINUTES, booking.getDurationMinutes())
-                .set(STATUS, booking.getStatus().getValue())
-                .set(PAYMENT_STATUS, booking.getPaymentStatus().getValue())
-                .set(SOURCE, booking.getSource().getValue())
-                .set(IDEMPOTENCY_KEY, booking.getIdempotencyKey())
-                .set(CLIENT_NAME, booking.getClientName())
-                .set(CLIENT_PHONE, booking.getClientPhone())
-                .set(SERVICE_NAME, booking.getServiceName())
-                .set(NOTES, booking.getNotes())
-                .set(INTERNAL_NOTES, booking.getInternalNotes())
-                .set(SCHEDULED_AT, booking.getScheduledAt())
-                .set(CREATED_AT, booking.getCreatedAt())
-                .set(UPDATED_AT, booking.getUpdatedAt())
-                .set(VERSION, 0)
-                .set(METADATA, booking.getMetadata() != null ? JSON.json(toJson(booking.getMetadata())) : JSON.json("{}"))
-                .onConflict(IDEMPOTENCY_KEY)
-                .doNothing() // Если ключ уже существует, ничего не делаем (идемпотентность)
-                .execute();
+        int inserted;
+        try {
+            inserted = setColumns(dsl.insertInto(BOOKINGS), booking, generatedId)
+                    .onConflict(IDEMPOTENCY_KEY)
+                    .doNothing() // Если ключ уже существует, ничего не делаем (идемпотентность)
+                    .execute();
+        } catch (DataIntegrityViolationException e) {
+            throw translateSlotConflict(List.of(booking), e);
+        }
 
         if (inserted == 0) {
             // Запись с таким idempotency key уже существует
@@ -116,6 +192,12 @@ public class BookingRepositoryImpl implements BookingRepository {
         }
 
         booking.setId(generatedId);
+        booking.clearDirtyFields();
+        domainEvents.register(createdEvent(booking));
+        audit.record(AuditAction.CREATE, null, booking);
+        if (booking.isActive()) {
+            events.publishEvent(IntervalsChanged.activated(List.of(toInterval(booking))));
+        }
         log.info("Successfully saved booking with ID: {}", generatedId);
         return booking;
     }
@@ -125,17 +207,11 @@ public class BookingRepositoryImpl implements BookingRepository {
     public Booking update(Booking booking) {
         log.debug("Updating booking ID: {}, version: {}", booking.getId(), booking.getVersion());
 
+        // Только измененные колонки: неизмененный metadata не сериализуется и не переписывается в TOAST
         int updated = dsl.update(BOOKINGS)
-                .set(STATUS, booking.getStatus().getValue())
-                .set(PAYMENT_STATUS, booking.getPaymentStatus().getValue())
-                .set(NOTES, booking.getNotes())
-                .set(INTERNAL_NOTES, booking.getInternalNotes())
+                .set(changedColumns(booking))
                 .set(UPDATED_AT, LocalDateTime.now())
-                .set(CONFIRMED_AT, booking.getConfirmedAt())
-                .set(CANCELLED_AT, booking.getCancelledAt())
-                .set(COMPLETED_AT, booking.getCompletedAt())
                 .set(VERSION, booking.getVersion() + 1)
-                .set(METADATA, JSON.json(toJson(booking.getMetadata())))
                 .where(ID.eq(booking.getId()))
                 .and(VERSION.eq(booking.getVersion())) // Оптимистичная блокировка
                 .execute();
@@ -146,23 +222,240 @@ public class BookingRepositoryImpl implements BookingRepository {
             );
         }
 
+        if (booking.isDirty(Booking.DirtyField.STATUS)) {
+            DomainEvent statusEvent = statusChangedEvent(booking);
+            if (statusEvent != null) {
+                domainEvents.register(statusEvent);
+            }
+        }
+
+        // До сброса отметок: по ним определяется действие, а "до" - состояние до первой из них
+        Booking before = booking.getPersistedState();
+        AuditAction action = auditAction(booking);
         booking.setVersion(booking.getVersion() + 1);
         booking.setUpdatedAt(LocalDateTime.now());
+        audit.record(action, before, booking);
+        booking.clearDirtyFields();
+        events.publishEvent(booking.isActive()
+                ? IntervalsChanged.activated(List.of(toInterval(booking)))
+                : IntervalsChanged.released(List.of(toInterval(booking))));
 
         log.info("Successfully updated booking ID: {}", booking.getId());
         return booking;
     }
 
+    @Override
+    @Transactional
+    public List<Booking> saveAll(List<Booking> bookings, List<FencingToken> tokens) {
+        log.debug("Saving {} bookings in one statement", bookings.size());
+
+        tokens.forEach(this::assertFencingToken);
+
+        List<UUID> ids = bookings.stream()
+                .map(b -> b.getId() != null ? b.getId() : UUID.randomUUID())
+                .toList();
+
+        InsertSetMoreStep<Record> insert = setColumns(dsl.insertInto(BOOKINGS), bookings.get(0), ids.get(0));
+        for (int i = 1; i < bookings.size(); i++) {
+            insert = setColumns(insert.newRecord(), bookings.get(i), ids.get(i));
+        }
+
+        int inserted;
+        try {
+            inserted = insert
+                    .onConflict(IDEMPOTENCY_KEY)
+                    .doNothing()
+                    .execute();
+        } catch (DataIntegrityViolationException e) {
+            throw translateSlotConflict(bookings, e);
+        }
+
+        if (inserted == 0) {
+            // Повтор того же запроса: весь пакет уже сохранен
+            List<String> keys = bookings.stream().map(Booking::getIdempotencyKey).toList();
+            log.info("Bookings with idempotency keys {} already exist", keys);
+            return dsl.selectFrom(BOOKINGS)
+                    .where(IDEMPOTENCY_KEY.in(keys))
+                    .orderBy(SCHEDULED_AT)
+                    .fetch(this::mapToBooking);
+        }
+
+        if (inserted < bookings.size()) {
+            // Часть пакета уже существует - откатываем транзакцию целиком
+            throw new DuplicateRequestException(bookings.get(0).getIdempotencyKey());
+        }
+
+        for (int i = 0; i < bookings.size(); i++) {
+            bookings.get(i).setId(ids.get(i));
+            bookings.get(i).clearDirtyFields();
+            domainEvents.register(createdEvent(bookings.get(i)));
+            audit.record(AuditAction.CREATE, null, bookings.get(i));
+        }
+        events.publishEvent(IntervalsChanged.activated(bookings.stream()
+                .filter(Booking::isActive)
+                .map(BookingRepositoryImpl::toInterval)
+                .toList()));
+        log.info("Successfully saved {} bookings: {}", bookings.size(), ids);
+        return bookings;
+    }
+
+    /**
+     * Занятый слот (ux_bookings_slot_active) или пересечение по времени с другой
+     * активной записью мастера (ex_bookings_account_time_overlap) -> SlotAlreadyBookedException.
+     * Благодаря этим ограничениям создание записи корректно и без распределенной блокировки.
+     *
+     * В многострочной вставке конфликтующий слот берется из DETAIL нарушения;
+     * если его не удалось сопоставить с записью пакета, в исключении все слоты пакета.
+     */
+    private static RuntimeException translateSlotConflict(List<Booking> bookings, DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql) {
+                boolean overlap = EXCLUSION_VIOLATION.equals(sql.getSQLState());
+                boolean slotTaken = UNIQUE_VIOLATION.equals(sql.getSQLState())
+                        && String.valueOf(sql.getMessage()).contains(SLOT_ACTIVE_INDEX);
+                if (overlap || slotTaken) {
+                    List<UUID> slotIds = conflictingSlots(bookings, detail(sql), overlap);
+                    log.info("Slots {} conflict with an active booking: {}", slotIds, sql.getSQLState());
+                    return slotIds.size() == 1
+                            ? new SlotAlreadyBookedException(slotIds.get(0), e)
+                            : new SlotAlreadyBookedException(slotIds, e);
+                }
+            }
+        }
+        return e;
+    }
+
+    private static List<UUID> conflictingSlots(List<Booking> bookings, String detail, boolean overlap) {
+        List<UUID> all = bookings.stream().map(Booking::getSlotId).toList();
+        if (bookings.size() == 1 || detail == null) {
+            return all;
+        }
+        Matcher matcher = (overlap ? OVERLAP_DETAIL : SLOT_TAKEN_DETAIL).matcher(detail);
+        if (!matcher.find()) {
+            return all;
+        }
+        try {
+            UUID id = UUID.fromString(matcher.group(1));
+            if (!overlap) {
+                return all.contains(id) ? List.of(id) : all;
+            }
+            LocalDateTime start = LocalDateTime.parse(matcher.group(2).replace(' ', 'T'));
+            List<UUID> matched = bookings.stream()
+                    .filter(b -> id.equals(b.getAccountId())
+                            && start.equals(b.getScheduledAt().truncatedTo(ChronoUnit.MICROS)))
+                    .map(Booking::getSlotId)
+                    .toList();
+            return matched.isEmpty() ? all : matched;
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            return all;
+        }
+    }
+
+    private static String detail(SQLException sql) {
+        if (sql instanceof PSQLException psql) {
+            ServerErrorMessage message = psql.getServerErrorMessage();
+            if (message != null && message.getDetail() != null) {
+                return message.getDetail();
+            }
+        }
+        return sql.getMessage();
+    }
+
+    /**
+     * Колонки новой записи. Общие для одиночной и многострочной вставки.
+     */
+    private InsertSetMoreStep<Record> setColumns(InsertSetStep<Record> insert, Booking booking, UUID id) {
+        return insert
+                .set(ID, id)
+                .set(ACCOUNT_ID, booking.getAccountId())
+                .set(SLOT_ID, booking.getSlotId())
+                .set(CLIENT_USER_ID, booking.getClientUserId())
+                .set(SERVICE_ID, booking.getServiceId())
+                .set(PRICE, booking.getPrice())
+                .set(CURRENCY, booking.getCurrency())
+                .set(DURATION_MINUTES, booking.getDurationMinutes())
+                .set(STATUS, booking.getStatus().getValue())
+                .set(PAYMENT_STATUS, booking.getPaymentStatus().getValue())
+                .set(SOURCE, booking.getSource().getValue())
+                .set(IDEMPOTENCY_KEY, booking.getIdempotencyKey())
+                .set(CLIENT_NAME, booking.getClientName())
+                .set(CLIENT_PHONE, booking.getClientPhone())
+                .set(SERVICE_NAME, booking.getServiceName())
+                .set(NOTES, booking.getNotes())
+                .set(INTERNAL_NOTES, booking.getInternalNotes())
+                .set(SCHEDULED_AT, booking.getScheduledAt())
+                .set(CREATED_AT, booking.getCreatedAt())
+                .set(UPDATED_AT, booking.getUpdatedAt())
+                .set(VERSION, 0)
+                .set(METADATA, booking.getMetadata() != null ? JSON.json(toJson(booking.getMetadata())) : JSON.json("{}"));
+    }
+
+    @Override
+    @Transactional
+    public Booking save(Booking booking, FencingToken token) {
+        assertFencingToken(token);
+        return save(booking);
+    }
+
+    @Override
+    @Transactional
+    public Booking update(Booking booking, FencingToken token) {
+        assertFencingToken(token);
+        return update(booking);
+    }
+
+    /**
+     * Колонки для UPDATE по отметкам {@link Booking#getDirtyFields()}.
+     * Без отметок (объект собран builder'ом, а не изменен бизнес-методами) пишутся все
+     * изменяемые колонки, как раньше.
+     */
+    private Map<Field<?>, Object> changedColumns(Booking booking) {
+        boolean all = !booking.hasDirtyFields();
+        Map<Field<?>, Object> columns = new LinkedHashMap<>();
+        if (all || booking.isDirty(Booking.DirtyField.STATUS)) {
+            columns.put(STATUS, booking.getStatus().getValue());
+        }
+        if (all || booking.isDirty(Booking.DirtyField.PAYMENT_STATUS)) {
+            columns.put(PAYMENT_STATUS, booking.getPaymentStatus().getValue());
+        }
+        if (all || booking.isDirty(Booking.DirtyField.NOTES)) {
+            columns.put(NOTES, booking.getNotes());
+        }
+        if (all || booking.isDirty(Booking.DirtyField.INTERNAL_NOTES)) {
+            columns.put(INTERNAL_NOTES, booking.getInternalNotes());
+        }
+        if (all || booking.isDirty(Booking.DirtyField.CONFIRMED_AT)) {
+            columns.put(CONFIRMED_AT, booking.getConfirmedAt());
+        }
+        if (all || booking.isDirty(Booking.DirtyField.CANCELLED_AT)) {
+            columns.put(CANCELLED_AT, booking.getCancelledAt());
+        }
+        if (all || booking.isDirty(Booking.DirtyField.COMPLETED_AT)) {
+            columns.put(COMPLETED_AT, booking.getCompletedAt());
+        }
+        if (all || booking.isDirty(Booking.DirtyField.METADATA)) {
+            columns.put(METADATA, JSON.json(toJson(booking.getMetadata())));
+        }
+        return columns;
+    }
+
+    /**
+     * Проверка fencing token в транзакции записи.
+     * Способ проверки зависит от выбранного backend блокировок.
+     */
+    private void assertFencingToken(FencingToken token) {
+        if (!lockRepository.isHeld(token)) {
+            log.warn("Rejected write with stale fencing token: {}", token);
+            throw new StaleFencingTokenException(token);
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<Booking> findById(UUID id) {
         log.debug("Finding booking by ID: {}", id);
 
-        Record record = dsl.selectFrom(BOOKINGS)
-                .where(ID.eq(id))
-                .fetchOne();
-
-        return Optional.ofNullable(record).map(this::mapToBooking);
+        return Optional.ofNullable(FIND_BY_ID.fetchOne(dsl, id)).map(this::mapToBooking);
     }
 
     @Override
@@ -183,7 +476,7 @@ public class BookingRepositoryImpl implements BookingRepository {
     public boolean deleteById(UUID id) {
         log.debug("Soft deleting booking ID: {}", id);
 
-        int deleted = dsl.update(BOOKINGS)
+        List<Booking> deleted = dsl.update(BOOKINGS)
                 .set(STATUS, BookingStatus.CANCELLED.getValue())
                 .set(CANCELLED_AT, LocalDateTime.now())
                 .set(UPDATED_AT, LocalDateTime.now())
@@ -192,10 +485,14 @@ public class BookingRepositoryImpl implements BookingRepository {
                         BookingStatus.CANCELLED.getValue(),
                         BookingStatus.COMPLETED.getValue()
                 ))
-                .execute();
-
-        log.info("Soft deleted {} booking(s) with ID: {}", deleted, id);
-        return deleted > 0;
+                .returning(BOOKING_FIELDS)
+                .fetch(this::mapToBooking);
+
+        registerStatusEvents(deleted);
+        deleted.forEach(booking -> audit.record(AuditAction.DELETE, null, booking));
+        events.publishEvent(IntervalsChanged.released(toIntervals(deleted)));
+        log.info("Soft deleted {} booking(s) with ID: {}", deleted.size(), id);
+        return !deleted.isEmpty();
     }
 
     @Override
@@ -207,11 +504,7 @@ public class BookingRepositoryImpl implements BookingRepository {
 
         log.debug("Finding booking by idempotency key: {}", idempotencyKey);
 
-        Record record = dsl.selectFrom(BOOKINGS)
-                .where(IDEMPOTENCY_KEY.eq(idempotencyKey))
-                .fetchOne();
-
-        return Optional.ofNullable(record).map(this::mapToBooking);
+        return Optional.ofNullable(FIND_BY_IDEMPOTENCY_KEY.fetchOne(dsl, idempotencyKey)).map(this::mapToBooking);
     }
 
     @Override
@@ -219,16 +512,7 @@ public class BookingRepositoryImpl implements BookingRepository {
     public boolean existsActiveBookingForSlot(UUID slotId) {
         log.debug("Checking if slot {} has active booking", slotId);
 
-        Integer count = dsl.selectCount()
-                .from(BOOKINGS)
-                .where(SLOT_ID.eq(slotId))
-                .and(STATUS.in(
-                        BookingStatus.CREATED.getValue(),
-                        BookingStatus.CONFIRMED.getValue()
-                ))
-                .fetchOne(0, Integer.class);
-
-        boolean exists = count != null && count > 0;
+        boolean exists = Boolean.TRUE.equals(EXISTS_ACTIVE_FOR_SLOT.fetchOne(dsl, slotId).get(0, Boolean.class));
         log.debug("Slot {} active booking exists: {}", slotId, exists);
         return exists;
     }
@@ -369,12 +653,18 @@ public class BookingRepositoryImpl implements BookingRepository {
             case COMPLETED -> update.set(COMPLETED_AT, now);
         }
 
-        int updated = update
+        List<Booking> updated = update
                 .where(ID.in(bookingIds))
-                .execute();
-
-        log.info("Batch updated {} bookings to status: {}", updated, newStatus);
-        return updated;
+                .returning(BOOKING_FIELDS)
+                .fetch(this::mapToBooking);
+
+        registerStatusEvents(updated);
+        updated.forEach(booking -> audit.record(auditAction(newStatus), null, booking));
+        events.publishEvent(newStatus.isActive()
+                ? IntervalsChanged.activated(toIntervals(updated))
+                : IntervalsChanged.released(toIntervals(updated)));
+        log.info("Batch updated {} bookings to status: {}", updated.size(), newStatus);
+        return updated.size();
     }
 
     @Override
@@ -382,16 +672,67 @@ public class BookingRepositoryImpl implements BookingRepository {
     public int markAsCompleted(LocalDateTime scheduledBefore) {
         log.debug("Marking bookings as completed for visits before: {}", scheduledBefore);
 
-        int updated = dsl.update(BOOKINGS)
+        List<Booking> completed = dsl.update(BOOKINGS)
                 .set(STATUS, BookingStatus.COMPLETED.getValue())
                 .set(COMPLETED_AT, LocalDateTime.now())
                 .set(UPDATED_AT, LocalDateTime.now())
                 .where(STATUS.eq(BookingStatus.CONFIRMED.getValue()))
                 .and(SCHEDULED_AT.lt(scheduledBefore))
-                .execute();
+                .returning(BOOKING_FIELDS)
+                .fetch(this::mapToBooking);
+
+        registerStatusEvents(completed);
+        completed.forEach(booking -> audit.record(AuditAction.COMPLETE, null, booking));
+        events.publishEvent(IntervalsChanged.released(toIntervals(completed)));
+        log.info("Marked {} bookings as completed", completed.size());
+        return completed.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamActiveIntervals(LocalDateTime endingAfter, Consumer<BookingInterval> consumer) {
+        log.debug("Streaming active booking intervals ending after: {}", endingAfter);
 
-        log.info("Marked {} bookings as completed", updated);
-        return updated;
+        // Курсор с fetchSize: в памяти только одна пачка строк, а не весь результат
+        try (var cursor = dsl.select(INTERVAL_FIELDS)
+                .from(BOOKINGS)
+                .where(STATUS.in(BookingStatus.CREATED.getValue(), BookingStatus.CONFIRMED.getValue()))
+                .and(SCHEDULED_AT.ge(endingAfter.minusDays(1)))
+                .fetchSize(STREAM_FETCH_SIZE)
+                .fetchLazy()) {
+            for (Record record : cursor) {
+                BookingInterval interval = mapToInterval(record);
+                if (interval.end().isAfter(endingAfter)) {
+                    consumer.accept(interval);
+                }
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamIntervalsChangedSince(LocalDateTime since, Consumer<BookingInterval> consumer) {
+        log.debug("Streaming booking intervals changed since: {}", since);
+
+        // Событие, исчерпавшее попытки публикации, лежит в dead-letter, но изменение в bookings закоммичено
+        var changedIds = select(EVENT_AGGREGATE_ID)
+                .from(OUTBOX_EVENTS)
+                .where(EVENT_AGGREGATE_TYPE.eq(BOOKING_AGGREGATE))
+                .and(EVENT_CREATED_AT.ge(since))
+                .union(select(EVENT_AGGREGATE_ID)
+                        .from(OUTBOX_DEAD_LETTER)
+                        .where(EVENT_AGGREGATE_TYPE.eq(BOOKING_AGGREGATE))
+                        .and(EVENT_CREATED_AT.ge(since)));
+
+        try (var cursor = dsl.select(INTERVAL_FIELDS)
+                .from(BOOKINGS)
+                .where(ID.in(changedIds))
+                .fetchSize(STREAM_FETCH_SIZE)
+                .fetchLazy()) {
+            for (Record record : cursor) {
+                consumer.accept(mapToInterval(record));
+            }
+        }
     }
 
     @Override
@@ -449,6 +790,129 @@ public class BookingRepositoryImpl implements BookingRepository {
         );
     }
 
+    private static BookingCreatedEvent createdEvent(Booking booking) {
+        return BookingCreatedEvent.builder()
+                .bookingId(booking.getId())
+                .accountId(booking.getAccountId())
+                .slotId(booking.getSlotId())
+                .clientUserId(booking.getClientUserId())
+                .serviceId(booking.getServiceId())
+                .price(booking.getPrice())
+                .currency(booking.getCurrency())
+                .durationMinutes(booking.getDurationMinutes())
+                .scheduledAt(booking.getScheduledAt())
+                .clientName(booking.getClientName())
+                .clientPhone(booking.getClientPhone())
+                .serviceName(booking.getServiceName())
+                .source(booking.getSource().getValue())
+                .metadata(booking.getMetadata())
+                .build();
+    }
+
+    /**
+     * Событие перехода в новый статус или null, если для статуса события нет.
+     */
+    /**
+     * События смены статуса для записей, обновленных одним statement'ом.
+     * Нужны не только подписчикам: по ним индексы догоняют изменения после рестарта.
+     */
+    private void registerStatusEvents(List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            DomainEvent statusEvent = statusChangedEvent(booking);
+            if (statusEvent != null) {
+                domainEvents.register(statusEvent);
+            }
+        }
+    }
+
+    /**
+     * Действие аудита по отметкам: смена статуса важнее остальных полей.
+     */
+    private static AuditAction auditAction(Booking booking) {
+        if (booking.isDirty(Booking.DirtyField.STATUS)) {
+            return auditAction(booking.getStatus());
+        }
+        if (booking.getDirtyFields().equals(EnumSet.of(Booking.DirtyField.PAYMENT_STATUS))) {
+            return AuditAction.PAYMENT_UPDATE;
+        }
+        return AuditAction.UPDATE;
+    }
+
+    private static AuditAction auditAction(BookingStatus status) {
+        return switch (status) {
+            case CONFIRMED -> AuditAction.CONFIRM;
+            case CANCELLED -> AuditAction.CANCEL;
+            case COMPLETED -> AuditAction.COMPLETE;
+            case NO_SHOW -> AuditAction.NO_SHOW;
+            default -> AuditAction.UPDATE;
+        };
+    }
+
+    private static List<BookingInterval> toIntervals(List<Booking> bookings) {
+        return bookings.stream()
+                .map(BookingRepositoryImpl::toInterval)
+                .toList();
+    }
+
+    private static DomainEvent statusChangedEvent(Booking booking) {
+        return switch (booking.getStatus()) {
+            case CONFIRMED -> BookingConfirmedEvent.builder()
+                    .bookingId(booking.getId())
+                    .accountId(booking.getAccountId())
+                    .clientUserId(booking.getClientUserId())
+                    .scheduledAt(booking.getScheduledAt())
+                    .confirmedAt(booking.getConfirmedAt())
+                    .build();
+            case CANCELLED -> BookingCancelledEvent.builder()
+                    .bookingId(booking.getId())
+                    .accountId(booking.getAccountId())
+                    .clientUserId(booking.getClientUserId())
+                    .scheduledAt(booking.getScheduledAt())
+                    .cancelledAt(booking.getCancelledAt())
+                    .build();
+            case COMPLETED -> BookingCompletedEvent.builder()
+                    .bookingId(booking.getId())
+                    .accountId(booking.getAccountId())
+                    .clientUserId(booking.getClientUserId())
+                    .serviceId(booking.getServiceId())
+                    .completedAt(booking.getCompletedAt())
+                    .actualPrice(booking.getPrice())
+                    .actualDurationMinutes(booking.getDurationMinutes())
+                    .build();
+            case NO_SHOW -> BookingNoShowEvent.builder()
+                    .bookingId(booking.getId())
+                    .accountId(booking.getAccountId())
+                    .clientUserId(booking.getClientUserId())
+                    .scheduledAt(booking.getScheduledAt())
+                    .build();
+            default -> null;
+        };
+    }
+
+    private BookingInterval mapToInterval(Record record) {
+        return new BookingInterval(
+                record.get(ID),
+                record.get(ACCOUNT_ID),
+                record.get(SLOT_ID),
+                record.get(SCHEDULED_AT),
+                record.get(DURATION_MINUTES),
+                BookingStatus.fromValue(record.get(STATUS)),
+                record.get(VERSION)
+        );
+    }
+
+    private static BookingInterval toInterval(Booking booking) {
+        return new BookingInterval(
+                booking.getId(),
+                booking.getAccountId(),
+                booking.getSlotId(),
+                booking.getScheduledAt(),
+                booking.getDurationMinutes(),
+                booking.getStatus(),
+                booking.getVersion()
+        );
+    }
+
     /**
      * Маппинг Record в доменную сущность Booking.
      */
@@ -486,22 +950,26 @@ public class BookingRepositoryImpl implements BookingRepository {
      * Преобразование Map в JSON строку.
      */
     private String toJson(Map<String, Object> map) {
-        // В реальном проекте используйте Jackson ObjectMapper
-        return map != null ? map.toString() : "{}";
+        if (map == null) {
+            return "{}";
+        }
+        try {
+            return objectMapper.writeValueAsString(map);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Booking metadata is not serializable to JSON", e);
+        }
     }
 
     /**
      * Парсинг JSON в Map.
      */
-    @SuppressWarnings("unchecked")
     private Map<String, Object> parseJsonToMap(JSON json) {
         if (json == null || json.data() == null) {
             return new HashMap<>();
         }
-        // В реальном проекте используйте Jackson ObjectMapper
         try {
-            return (Map<String, Object>) json.data();
-        } catch (Exception e) {
+            return objectMapper.readValue(json.data(), METADATA_TYPE);
+        } catch (JsonProcessingException e) {
             log.warn("Failed to parse JSON metadata", e);
             return new HashMap<>();
         }
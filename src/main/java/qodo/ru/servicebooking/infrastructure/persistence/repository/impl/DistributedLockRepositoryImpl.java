@@ -4,18 +4,31 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jooq.DSLContext;
 import org.jooq.Field;
+import org.jooq.InsertValuesStep5;
 import org.jooq.JSON;
+import org.jooq.Record;
 import org.jooq.Table;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
 import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
-import static org.jooq.TableOptions.table;
+import static org.jooq.impl.DSL.any;
+import static org.jooq.impl.DSL.excluded;
 import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.table;
+import static org.jooq.impl.DSL.val;
 
 
 @Slf4j
@@ -31,47 +44,116 @@ public class DistributedLockRepositoryImpl implements DistributedLockRepository
     private static final Field<String> LOCKED_BY = field("locked_by", String.class);
     private static final Field<LocalDateTime> LOCKED_AT = field("locked_at", LocalDateTime.class);
     private static final Field<LocalDateTime> EXPIRES_AT = field("expires_at", LocalDateTime.class);
+    // В DO UPDATE видны и целевая таблица, и EXCLUDED: без квалификации Postgres
+    // отклоняет условие с "column reference is ambiguous"
+    private static final Field<LocalDateTime> HELD_EXPIRES_AT =
+            field(name("distributed_locks", "expires_at"), LocalDateTime.class);
     private static final Field<JSON> METADATA = field("metadata", JSON.class);
+    private static final Field<Long> FENCING_TOKEN = field("fencing_token", Long.class);
+    private static final Field<Long> NEXT_FENCING_TOKEN = field("nextval('distributed_lock_fencing_seq')", Long.class);
 
     @Override
     @Transactional
-    public boolean tryAcquire(String lockKey, String ownerId, int ttlSeconds) {
+    public Optional<FencingToken> tryAcquireFenced(String lockKey, String ownerId, int ttlSeconds) {
         log.debug("Trying to acquire lock: {} for owner: {}", lockKey, ownerId);
 
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime expiresAt = now.plusSeconds(ttlSeconds);
 
-        // Сначала пытаемся удалить истекшие блокировки
-        dsl.deleteFrom(DISTRIBUTED_LOCKS)
-                .where(LOCK_KEY.eq(lockKey))
-                .and(EXPIRES_AT.lt(now))
-                .execute();
-
-        // Пытаемся вставить новую блокировку
+        // Один upsert: свободный ключ вставляется, истекшая блокировка перехватывается
+        // в том же statement, активная чужая блокировка остается нетронутой.
+        // Каждый успешный захват получает новый токен из последовательности.
         try {
-            int inserted = dsl.insertInto(DISTRIBUTED_LOCKS)
+            Long token = dsl.insertInto(DISTRIBUTED_LOCKS)
                     .set(LOCK_KEY, lockKey)
                     .set(LOCKED_BY, ownerId)
                     .set(LOCKED_AT, now)
                     .set(EXPIRES_AT, expiresAt)
+                    .set(FENCING_TOKEN, NEXT_FENCING_TOKEN)
                     .onConflict(LOCK_KEY)
-                    .doNothing() // Если ключ существует, ничего не делаем
-                    .execute();
-
-            boolean acquired = inserted > 0;
-            if (acquired) {
-                log.info("Lock acquired: {} by {}", lockKey, ownerId);
-            } else {
-                log.debug("Lock already exists: {}", lockKey);
+                    .doUpdate()
+                    .set(LOCKED_BY, excluded(LOCKED_BY))
+                    .set(LOCKED_AT, excluded(LOCKED_AT))
+                    .set(EXPIRES_AT, excluded(EXPIRES_AT))
+                    .set(FENCING_TOKEN, excluded(FENCING_TOKEN))
+                    .where(HELD_EXPIRES_AT.lt(now))
+                    .returning(FENCING_TOKEN)
+                    .fetchOne(FENCING_TOKEN);
+
+            if (token != null) {
+                log.info("Lock acquired: {} by {}, token: {}", lockKey, ownerId, token);
+                return Optional.of(FencingToken.of(lockKey, token));
             }
-            return acquired;
+
+            log.debug("Lock already exists: {}", lockKey);
+            return Optional.empty();
 
         } catch (Exception e) {
             log.warn("Failed to acquire lock: {}", lockKey, e);
-            return false;
+            return Optional.empty();
         }
     }
 
+    @Override
+    @Transactional
+    public List<FencingToken> tryAcquireAll(Collection<String> lockKeys, String ownerId, int ttlSeconds) {
+        List<String> keys = new ArrayList<>(new TreeSet<>(lockKeys));
+        log.debug("Trying to acquire {} locks for owner: {}", keys.size(), ownerId);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusSeconds(ttlSeconds);
+
+        // Один многострочный upsert. Строки VALUES идут в отсортированном порядке,
+        // поэтому конкурирующие пакеты блокируют строки в одном порядке и не дедлочат.
+        InsertValuesStep5<Record, String, String, LocalDateTime, LocalDateTime, Long> insert =
+                dsl.insertInto(DISTRIBUTED_LOCKS, LOCK_KEY, LOCKED_BY, LOCKED_AT, EXPIRES_AT, FENCING_TOKEN);
+        for (String key : keys) {
+            insert = insert.values(val(key), val(ownerId), val(now), val(expiresAt), NEXT_FENCING_TOKEN);
+        }
+
+        List<FencingToken> acquired = new ArrayList<>(insert
+                .onConflict(LOCK_KEY)
+                .doUpdate()
+                .set(LOCKED_BY, excluded(LOCKED_BY))
+                .set(LOCKED_AT, excluded(LOCKED_AT))
+                .set(EXPIRES_AT, excluded(EXPIRES_AT))
+                .set(FENCING_TOKEN, excluded(FENCING_TOKEN))
+                .where(HELD_EXPIRES_AT.lt(now))
+                .returning(LOCK_KEY, FENCING_TOKEN)
+                .fetch(r -> FencingToken.of(r.get(LOCK_KEY), r.get(FENCING_TOKEN))));
+
+        if (acquired.size() < keys.size()) {
+            // Часть ключей занята: отпускаем захваченные в этом же statement
+            if (!acquired.isEmpty()) {
+                dsl.deleteFrom(DISTRIBUTED_LOCKS)
+                        .where(LOCK_KEY.eq(any(acquired.stream().map(FencingToken::getLockKey).toArray(String[]::new))))
+                        .and(FENCING_TOKEN.eq(any(acquired.stream().map(FencingToken::getValue).toArray(Long[]::new))))
+                        .execute();
+            }
+            log.debug("Only {} of {} locks were free for owner: {}", acquired.size(), keys.size(), ownerId);
+            return List.of();
+        }
+
+        acquired.sort((a, b) -> a.getLockKey().compareTo(b.getLockKey()));
+        log.info("Acquired {} locks by {}", acquired.size(), ownerId);
+        return acquired;
+    }
+
+    @Override
+    @Transactional
+    public boolean isHeld(FencingToken token) {
+        // FOR SHARE не дает перехватить блокировку до коммита транзакции записи,
+        // поэтому проверка токена и сама запись атомарны
+        return dsl.selectOne()
+                .from(DISTRIBUTED_LOCKS)
+                .where(LOCK_KEY.eq(token.getLockKey()))
+                .and(FENCING_TOKEN.eq(token.getValue()))
+                .and(EXPIRES_AT.gt(LocalDateTime.now()))
+                .forShare()
+                .fetchOptional()
+                .isPresent();
+    }
+
     @Override
     @Transactional
     public boolean release(String lockKey, String ownerId) {
@@ -114,6 +196,36 @@ public class DistributedLockRepositoryImpl implements DistributedLockRepository
         return extended;
     }
 
+    @Override
+    @Transactional
+    public ExtendResult extendAll(Collection<HeldLock> locks, int ttlSeconds) {
+        if (locks.isEmpty()) {
+            return new ExtendResult(List.of(), List.of());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        String[] keys = locks.stream().map(l -> l.token().getLockKey()).toArray(String[]::new);
+        Long[] tokens = locks.stream().map(l -> l.token().getValue()).toArray(Long[]::new);
+
+        // Токены уникальны (последовательность), поэтому пара ключ+токен
+        // однозначно задает захват, и одного UPDATE хватает на всю пачку
+        Set<FencingToken> renewedTokens = new HashSet<>(dsl.update(DISTRIBUTED_LOCKS)
+                .set(EXPIRES_AT, now.plusSeconds(ttlSeconds))
+                .where(LOCK_KEY.eq(any(keys)))
+                .and(FENCING_TOKEN.eq(any(tokens)))
+                .and(EXPIRES_AT.gt(now))
+                .returning(LOCK_KEY, FENCING_TOKEN)
+                .fetch(r -> FencingToken.of(r.get(LOCK_KEY), r.get(FENCING_TOKEN))));
+
+        log.debug("Extended {} of {} locks", renewedTokens.size(), locks.size());
+
+        // Сверка по паре: старый захват того же ключа (ключ перехвачен и взят снова)
+        // не должен считаться продленным из-за нового
+        List<HeldLock> renewed = locks.stream().filter(l -> renewedTokens.contains(l.token())).toList();
+        List<HeldLock> lost = locks.stream().filter(l -> !renewedTokens.contains(l.token())).toList();
+        return new ExtendResult(renewed, lost);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<DistributedLock> findActiveLock(String lockKey) {
@@ -130,10 +242,20 @@ public class DistributedLockRepositoryImpl implements DistributedLockRepository
                         .lockedBy(r.get(LOCKED_BY))
                         .lockedAt(r.get(LOCKED_AT))
                         .expiresAt(r.get(EXPIRES_AT))
+                        .fencingToken(r.get(FENCING_TOKEN))
                         .build()
         );
     }
 
+    /**
+     * Есть ли в таблице хоть одна действующая блокировка. При backend redis таблица
+     * занята только во время переключения, обычно ответ - false.
+     */
+    @Transactional(readOnly = true)
+    public boolean hasActiveLocks() {
+        return dsl.fetchExists(DISTRIBUTED_LOCKS, EXPIRES_AT.gt(LocalDateTime.now()));
+    }
+
     @Override
     @Transactional
     public int cleanupExpired() {
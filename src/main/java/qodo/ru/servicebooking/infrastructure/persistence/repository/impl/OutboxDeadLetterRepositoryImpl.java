@@ -0,0 +1,213 @@
+package qodo.ru.servicebooking.infrastructure.persistence.repository.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.JSON;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import qodo.ru.servicebooking.domain.entity.OutboxEvent;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxDeadLetterRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.noCondition;
+import static org.jooq.impl.DSL.table;
+import static org.jooq.impl.DSL.val;
+
+/**
+ * jOOQ реализация dead-letter хранилища outbox.
+ *
+ * Перенос в обе стороны выполняется одним statement, поэтому событие никогда
+ * не оказывается в двух таблицах или ни в одной:
+ * - park: WITH moved AS (DELETE ... RETURNING) INSERT ... SELECT FROM moved;
+ * - replay: WITH inserted AS (INSERT ... ON CONFLICT DO NOTHING RETURNING id)
+ *   DELETE ... WHERE id IN inserted. Удаляются только реально вставленные строки:
+ *   событие, чей id уже есть в outbox_events, остается в dead-letter.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class OutboxDeadLetterRepositoryImpl implements OutboxDeadLetterRepository {
+
+    private final DSLContext dsl;
+    private final ObjectMapper objectMapper;
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    private static final Table<Record> OUTBOX_DEAD_LETTER = table("outbox_dead_letter");
+
+    private static final Field<UUID> ID = field("id", UUID.class);
+    private static final Field<UUID> AGGREGATE_ID = field("aggregate_id", UUID.class);
+    private static final Field<String> AGGREGATE_TYPE = field("aggregate_type", String.class);
+    private static final Field<String> EVENT_TYPE = field("event_type", String.class);
+    private static final Field<JSON> PAYLOAD = field("payload", JSON.class);
+    private static final Field<UUID> CORRELATION_ID = field("correlation_id", UUID.class);
+    private static final Field<UUID> CAUSATION_ID = field("causation_id", UUID.class);
+    private static final Field<UUID> USER_ID = field("user_id", UUID.class);
+    private static final Field<LocalDateTime> CREATED_AT = field("created_at", LocalDateTime.class);
+    private static final Field<Integer> RETRY_COUNT = field("retry_count", Integer.class);
+    private static final Field<String> LAST_ERROR = field("last_error", String.class);
+    private static final Field<LocalDateTime> LAST_RETRY_AT = field("last_retry_at", LocalDateTime.class);
+    private static final Field<LocalDateTime> DEAD_LETTERED_AT = field("dead_lettered_at", LocalDateTime.class);
+
+    private static final String EVENT_COLUMNS = """
+            id, aggregate_id, aggregate_type, event_type, payload,
+            correlation_id, causation_id, user_id, created_at""";
+
+    private static final String PARK_SQL = """
+            WITH moved AS (
+                DELETE FROM outbox_events
+                WHERE id IN (
+                    SELECT id FROM outbox_events
+                    WHERE {0}
+                    ORDER BY last_retry_at
+                    LIMIT {1}
+                    FOR UPDATE SKIP LOCKED
+                )
+                RETURNING %1$s, retry_count, last_error, last_retry_at
+            )
+            INSERT INTO outbox_dead_letter (%1$s, retry_count, last_error, last_retry_at)
+            SELECT %1$s, retry_count, last_error, last_retry_at FROM moved
+            """.formatted(EVENT_COLUMNS);
+
+    // Строки с id, уже существующим в outbox_events, не выбираются, чтобы не занимать
+    // голову каждой пачки; ON CONFLICT страхует от гонки с параллельной вставкой
+    private static final String REPLAY_SQL = """
+            WITH candidates AS (
+                SELECT %1$s FROM outbox_dead_letter
+                WHERE {0}
+                  AND NOT EXISTS (SELECT 1 FROM outbox_events e WHERE e.id = outbox_dead_letter.id)
+                ORDER BY created_at
+                LIMIT {1}
+                FOR UPDATE SKIP LOCKED
+            ),
+            inserted AS (
+                INSERT INTO outbox_events (%1$s, retry_count)
+                SELECT %1$s, 0 FROM candidates
+                ON CONFLICT (id) DO NOTHING
+                RETURNING id
+            )
+            DELETE FROM outbox_dead_letter
+            WHERE id IN (SELECT id FROM inserted)
+            """.formatted(EVENT_COLUMNS);
+
+    @Override
+    @Transactional
+    public boolean park(UUID eventId) {
+        log.debug("Parking outbox event to dead-letter: {}", eventId);
+
+        int moved = dsl.execute(PARK_SQL,
+                ID.eq(eventId).and(field("published_at").isNull()),
+                val(1));
+
+        if (moved > 0) {
+            log.error("Event {} moved to dead-letter, manual replay required", eventId);
+        }
+        return moved > 0;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OutboxEvent> find(DeadLetterFilter filter, int limit) {
+        log.debug("Finding dead-letter events by filter: {}", filter);
+
+        return dsl.selectFrom(OUTBOX_DEAD_LETTER)
+                .where(toCondition(filter))
+                .orderBy(DEAD_LETTERED_AT.desc())
+                .limit(limit)
+                .fetch()
+                .map(this::mapToOutboxEvent);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long count(DeadLetterFilter filter) {
+        Integer count = dsl.selectCount()
+                .from(OUTBOX_DEAD_LETTER)
+                .where(toCondition(filter))
+                .fetchOne(0, Integer.class);
+
+        return count != null ? count : 0L;
+    }
+
+    @Override
+    @Transactional
+    public int replay(DeadLetterFilter filter, int limit) {
+        log.debug("Replaying dead-letter events by filter: {}, limit: {}", filter, limit);
+
+        int replayed = dsl.execute(REPLAY_SQL, toCondition(filter), val(limit));
+
+        log.info("Replayed {} dead-letter events back to outbox", replayed);
+        return replayed;
+    }
+
+    /**
+     * Построение условия WHERE из фильтра.
+     */
+    private Condition toCondition(DeadLetterFilter filter) {
+        Condition condition = noCondition();
+        if (filter == null) {
+            return condition;
+        }
+        if (filter.eventType() != null) {
+            condition = condition.and(EVENT_TYPE.eq(filter.eventType()));
+        }
+        if (filter.createdFrom() != null) {
+            condition = condition.and(CREATED_AT.ge(filter.createdFrom()));
+        }
+        if (filter.createdTo() != null) {
+            condition = condition.and(CREATED_AT.lt(filter.createdTo()));
+        }
+        if (filter.errorPattern() != null) {
+            condition = condition.and(LAST_ERROR.likeIgnoreCase(filter.errorPattern()));
+        }
+        return condition;
+    }
+
+    /**
+     * Маппинг Record в OutboxEvent.
+     */
+    private OutboxEvent mapToOutboxEvent(Record record) {
+        return OutboxEvent.builder()
+                .id(record.get(ID))
+                .aggregateId(record.get(AGGREGATE_ID))
+                .aggregateType(record.get(AGGREGATE_TYPE))
+                .eventType(record.get(EVENT_TYPE))
+                .payload(parseJsonToMap(record.get(PAYLOAD)))
+                .correlationId(record.get(CORRELATION_ID))
+                .causationId(record.get(CAUSATION_ID))
+                .userId(record.get(USER_ID))
+                .createdAt(record.get(CREATED_AT))
+                .retryCount(record.get(RETRY_COUNT))
+                .lastError(record.get(LAST_ERROR))
+                .lastRetryAt(record.get(LAST_RETRY_AT))
+                .build();
+    }
+
+    /**
+     * Парсинг JSON в Map.
+     */
+    private Map<String, Object> parseJsonToMap(JSON json) {
+        if (json == null || json.data() == null) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json.data(), PAYLOAD_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Dead-letter payload is not a JSON object", e);
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package qodo.ru.servicebooking.infrastructure.persistence.repository.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.JSON;
+import org.jooq.Record;
 import org.jooq.Table;
+import org.jooq.impl.DSL;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import qodo.ru.servicebooking.domain.entity.OutboxEvent;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxDeadLetterRepository;
 import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxRepository;
 
 import java.time.LocalDateTime;
@@ -27,6 +34,7 @@ import static org.jooq.impl.DSL.*;
  * - FOR UPDATE SKIP LOCKED для конкурентной обработки
  * - Exponential backoff для retry логики
  * - Batch операции для производительности
+ * - Исчерпавшие попытки события переносятся в outbox_dead_letter
  */
 @Slf4j
 @Repository
@@ -34,9 +42,15 @@ import static org.jooq.impl.DSL.*;
 public class OutboxRepositoryImpl implements OutboxRepository {
 
     private final DSLContext dsl;
+    private final OutboxDeadLetterRepository deadLetterRepository;
+    private final BookingProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
 
     // Таблица outbox_events
     private static final Table<Record> OUTBOX_EVENTS = table("outbox_events");
+    private static final Table<Record> OUTBOX_DEAD_LETTER = table("outbox_dead_letter");
 
     // Поля таблицы
     private static final Field<UUID> ID = field("id", UUID.class);
@@ -52,6 +66,17 @@ public class OutboxRepositoryImpl implements OutboxRepository {
     private static final Field<Integer> RETRY_COUNT = field("retry_count", Integer.class);
     private static final Field<String> LAST_ERROR = field("last_error", String.class);
     private static final Field<LocalDateTime> LAST_RETRY_AT = field("last_retry_at", LocalDateTime.class);
+    private static final Field<String> CLAIMED_BY = field("claimed_by", String.class);
+    private static final Field<LocalDateTime> CLAIMED_UNTIL = field("claimed_until", LocalDateTime.class);
+
+    // Горячий запрос relay: SQL рендерится один раз, на вызов - только bind-значения.
+    // Виден в пакете: QueryTemplateBenchmarkTests меряет именно его
+    static final QueryTemplate MARK_AS_PUBLISHED = QueryTemplate.of(
+            update(OUTBOX_EVENTS)
+                    .set(PUBLISHED_AT, param("publishedAt", LocalDateTime.class))
+                    .set(LAST_ERROR, inline((String) null))
+                    .where(ID.eq(param("id", UUID.class)))
+                    .and(PUBLISHED_AT.isNull()));
 
     @Override
     @Transactional
@@ -79,6 +104,39 @@ public class OutboxRepositoryImpl implements OutboxRepository {
         return event;
     }
 
+    @Override
+    @Transactional
+    public List<OutboxEvent> saveAll(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return events;
+        }
+
+        var insert = dsl.insertInto(OUTBOX_EVENTS,
+                ID, AGGREGATE_ID, AGGREGATE_TYPE, EVENT_TYPE, PAYLOAD,
+                CORRELATION_ID, CAUSATION_ID, USER_ID, CREATED_AT, RETRY_COUNT);
+
+        for (OutboxEvent event : events) {
+            if (event.getId() == null) {
+                event.setId(UUID.randomUUID());
+            }
+            insert = insert.values(
+                    event.getId(),
+                    event.getAggregateId(),
+                    event.getAggregateType(),
+                    event.getEventType(),
+                    JSON.json(toJson(event.getPayload())),
+                    event.getCorrelationId(),
+                    event.getCausationId(),
+                    event.getUserId(),
+                    event.getCreatedAt(),
+                    0);
+        }
+
+        insert.execute();
+        log.debug("Saved {} outbox events in one insert", events.size());
+        return events;
+    }
+
     @Override
     @Transactional
     public List<OutboxEvent> findUnpublishedForProcessing(int limit) {
@@ -89,6 +147,7 @@ public class OutboxRepositoryImpl implements OutboxRepository {
         List<OutboxEvent> events = dsl.selectFrom(OUTBOX_EVENTS)
                 .where(PUBLISHED_AT.isNull())
                 .and(RETRY_COUNT.eq(0)) // Только новые события, не retry
+                .and(CLAIMED_UNTIL.isNull().or(CLAIMED_UNTIL.lt(LocalDateTime.now()))) // Не захвачены relay
                 .orderBy(CREATED_AT.asc())
                 .limit(limit)
                 .forUpdate()
@@ -100,6 +159,43 @@ public class OutboxRepositoryImpl implements OutboxRepository {
         return events;
     }
 
+    @Override
+    @Transactional
+    public List<OutboxEvent> claimForPublishing(String ownerId, int limit, int leaseSeconds) {
+        log.debug("Claiming events for publishing, owner: {}, limit: {}", ownerId, limit);
+
+        LocalDateTime now = LocalDateTime.now();
+
+        // Новые события, либо retry после exponential backoff (2^retry_count секунд)
+        var readyCondition = RETRY_COUNT.eq(0).or(
+                LAST_RETRY_AT.isNull().or(condition(
+                        "{0} < {1} - power(2, {2}) * interval '1 second'",
+                        LAST_RETRY_AT, val(now), RETRY_COUNT))
+        );
+
+        List<OutboxEvent> events = dsl.update(OUTBOX_EVENTS)
+                .set(CLAIMED_BY, ownerId)
+                .set(CLAIMED_UNTIL, now.plusSeconds(leaseSeconds))
+                .where(ID.in(
+                        select(ID)
+                                .from(OUTBOX_EVENTS)
+                                .where(PUBLISHED_AT.isNull())
+                                .and(CLAIMED_UNTIL.isNull().or(CLAIMED_UNTIL.lt(now)))
+                                .and(readyCondition)
+                                .orderBy(CREATED_AT.asc())
+                                .limit(limit)
+                                .forUpdate()
+                                .skipLocked()
+                ))
+                .returning()
+                .fetch()
+                .sortAsc(CREATED_AT) // RETURNING не гарантирует порядок
+                .map(this::mapToOutboxEvent);
+
+        log.debug("Claimed {} events for publishing", events.size());
+        return events;
+    }
+
     @Override
     @Transactional
     public List<OutboxEvent> findForRetry(int limit) {
@@ -111,10 +207,10 @@ public class OutboxRepositoryImpl implements OutboxRepository {
         // 1. Не опубликованы
         // 2. Имеют retry_count > 0
         // 3. Прошло достаточно времени с последней попытки (exponential backoff)
+        // Исчерпавшие попытки события уже лежат в outbox_dead_letter
         List<OutboxEvent> events = dsl.selectFrom(OUTBOX_EVENTS)
                 .where(PUBLISHED_AT.isNull())
                 .and(RETRY_COUNT.gt(0))
-                .and(RETRY_COUNT.lt(5)) // Максимум 5 попыток
                 .and(
                         // Exponential backoff: 2^retry_count секунд
                         LAST_RETRY_AT.isNull().or(
@@ -141,12 +237,7 @@ public class OutboxRepositoryImpl implements OutboxRepository {
     public boolean markAsPublished(UUID eventId) {
         log.debug("Marking event as published: {}", eventId);
 
-        int updated = dsl.update(OUTBOX_EVENTS)
-                .set(PUBLISHED_AT, LocalDateTime.now())
-                .set(LAST_ERROR, (String) null)
-                .where(ID.eq(eventId))
-                .and(PUBLISHED_AT.isNull())
-                .execute();
+        int updated = MARK_AS_PUBLISHED.execute(dsl, LocalDateTime.now(), eventId);
 
         boolean success = updated > 0;
         if (success) {
@@ -202,12 +293,16 @@ public class OutboxRepositoryImpl implements OutboxRepository {
                         ? error.substring(0, 500)
                         : error)
                 .set(LAST_RETRY_AT, LocalDateTime.now())
+                .set(CLAIMED_UNTIL, (LocalDateTime) null) // Освобождаем аренду для retry
                 .where(ID.eq(eventId))
                 .execute();
 
         if (updated > 0) {
-            if (newRetryCount >= 5) {
-                log.error("Event {} exceeded max retry attempts (5), manual intervention required", eventId);
+            int maxRetryAttempts = properties.getOutbox().getMaxRetryAttempts();
+            if (newRetryCount >= maxRetryAttempts) {
+                // Переносим в dead-letter в той же транзакции
+                log.error("Event {} exceeded max retry attempts ({})", eventId, maxRetryAttempts);
+                deadLetterRepository.park(eventId);
             } else {
                 log.warn("Recorded failure for event {}, retry count: {}", eventId, newRetryCount);
             }
@@ -243,6 +338,19 @@ public class OutboxRepositoryImpl implements OutboxRepository {
         return deleted;
     }
 
+    @Override
+    @Transactional
+    public int deleteCreatedBefore(LocalDateTime createdBefore) {
+        log.debug("Deleting events created before: {}", createdBefore);
+
+        int deleted = dsl.deleteFrom(OUTBOX_EVENTS)
+                .where(CREATED_AT.lt(createdBefore))
+                .execute();
+
+        log.info("Deleted {} events created before {}", deleted, createdBefore);
+        return deleted;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public OutboxStatistics getStatistics() {
@@ -252,12 +360,9 @@ public class OutboxRepositoryImpl implements OutboxRepository {
                         count(),
                         count().filterWhere(PUBLISHED_AT.isNull()),
                         count().filterWhere(PUBLISHED_AT.isNotNull()),
-                        count().filterWhere(RETRY_COUNT.ge(5)), // Failed (exceeded max retries)
-                        count().filterWhere(
-                                PUBLISHED_AT.isNull()
-                                        .and(RETRY_COUNT.gt(0))
-                                        .and(RETRY_COUNT.lt(5))
-                        ),
+                        // Failed (exceeded max retries) - события в dead-letter
+                        selectCount().from(OUTBOX_DEAD_LETTER).<Integer>asField(),
+                        count().filterWhere(PUBLISHED_AT.isNull().and(RETRY_COUNT.gt(0))),
                         avg(RETRY_COUNT),
                         min(CREATED_AT).filterWhere(PUBLISHED_AT.isNull())
                 )
@@ -268,7 +373,7 @@ public class OutboxRepositoryImpl implements OutboxRepository {
                 stats.value1() != null ? stats.value1() : 0L,
                 stats.value2() != null ? stats.value2() : 0L,
                 stats.value3() != null ? stats.value3() : 0L,
-                stats.value4() != null ? stats.value4() : 0L,
+                stats.value4() != null ? stats.value4().longValue() : 0L,
                 stats.value5() != null ? stats.value5() : 0L,
                 stats.value6() != null ? stats.value6().doubleValue() : 0.0,
                 stats.value7()
@@ -293,6 +398,7 @@ public class OutboxRepositoryImpl implements OutboxRepository {
                 .retryCount(record.get(RETRY_COUNT))
                 .lastError(record.get(LAST_ERROR))
                 .lastRetryAt(record.get(LAST_RETRY_AT))
+                .claimedUntil(record.get(CLAIMED_UNTIL))
                 .build();
     }
 
@@ -300,24 +406,30 @@ public class OutboxRepositoryImpl implements OutboxRepository {
      * Преобразование Map в JSON строку.
      */
     private String toJson(Map<String, Object> map) {
-        // TODO: Использовать Jackson ObjectMapper
-        return map != null ? map.toString() : "{}";
+        if (map == null) {
+            return "{}";
+        }
+        try {
+            return objectMapper.writeValueAsString(map);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable to JSON", e);
+        }
     }
 
     /**
      * Парсинг JSON в Map.
+     *
+     * payload пишется только через {@link #toJson}, поэтому ошибка здесь - повреждение данных:
+     * событие не публикуется с пустым телом, а падает.
      */
-    @SuppressWarnings("unchecked")
     private Map<String, Object> parseJsonToMap(JSON json) {
         if (json == null || json.data() == null) {
             return new HashMap<>();
         }
-        // TODO: Использовать Jackson ObjectMapper
         try {
-            return (Map<String, Object>) json.data();
-        } catch (Exception e) {
-            log.warn("Failed to parse JSON payload", e);
-            return new HashMap<>();
+            return objectMapper.readValue(json.data(), PAYLOAD_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox payload is not a JSON object", e);
         }
     }
 }
@@ -0,0 +1,85 @@
+package qodo.ru.servicebooking.infrastructure.persistence.repository.impl;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Заранее отрендеренный SQL горячего запроса репозитория.
+ *
+ * jOOQ DSL на каждый вызов строит дерево запроса и заново рендерит SQL, хотя меняются
+ * только bind-значения. Шаблон рендерится один раз при загрузке класса (параметры -
+ * {@code DSL.param}, константы - {@code DSL.inline}), а на вызов остается
+ * PreparedStatement с тем же текстом SQL на соединении текущей транзакции.
+ * Одинаковый текст позволяет pgjdbc переиспользовать server-prepared statement
+ * из кэша соединения (после prepareThreshold выполнений).
+ *
+ * Результат читается через {@link DSLContext#fetch(ResultSet, Field[])} с полями
+ * из select-списка шаблона, поэтому маппинг Record остается прежним.
+ */
+final class QueryTemplate {
+
+    private static final DSLContext RENDERER = DSL.using(SQLDialect.POSTGRES);
+    private static final Field<?>[] NO_FIELDS = new Field<?>[0];
+
+    private final String sql;
+    private final Field<?>[] fields;
+
+    private QueryTemplate(String sql, Field<?>[] fields) {
+        this.sql = sql;
+        this.fields = fields;
+    }
+
+    static QueryTemplate of(Query query) {
+        Field<?>[] fields = query instanceof Select<?> select
+                ? select.getSelect().toArray(NO_FIELDS)
+                : NO_FIELDS;
+        return new QueryTemplate(RENDERER.render(query), fields);
+    }
+
+    String sql() {
+        return sql;
+    }
+
+    /**
+     * Выполнить запрос и вернуть первую строку или null.
+     */
+    Record fetchOne(DSLContext dsl, Object... binds) {
+        return dsl.connectionResult(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                bind(statement, binds);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    Result<Record> result = dsl.fetch(resultSet, fields);
+                    return result.isEmpty() ? null : result.get(0);
+                }
+            }
+        });
+    }
+
+    /**
+     * Выполнить DML и вернуть число затронутых строк.
+     */
+    int execute(DSLContext dsl, Object... binds) {
+        return dsl.connectionResult(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                bind(statement, binds);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement statement, Object[] binds) throws SQLException {
+        for (int i = 0; i < binds.length; i++) {
+            statement.setObject(i + 1, binds[i]);
+        }
+    }
+}
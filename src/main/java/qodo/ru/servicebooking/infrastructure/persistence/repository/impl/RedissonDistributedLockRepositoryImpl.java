@@ -0,0 +1,302 @@
+package qodo.ru.servicebooking.infrastructure.persistence.repository.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RLock;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Repository;
+import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Реализация блокировок на Redisson {@link RLock}.
+ *
+ * Владелец блокировки в Redisson - поток, поэтому ownerId отображается
+ * в 64-битный "threadId": блокировку может освободить или продлить любой поток
+ * с тем же ownerId (важно для виртуальных потоков и асинхронного кода).
+ *
+ * Ожидание занятой блокировки - до booking.lock.wait-timeout-seconds через pub/sub
+ * Redisson, без опроса. Fencing token - INCR счетчика рядом с ключом блокировки
+ * (hash tag держит ключи в одном слоте кластера). INCR выполняется скриптом только
+ * пока поле владельца есть в хэше RLock и вместе с ним запоминает владельца токена:
+ * isHeld проверяет и токен, и что блокировку держит именно его владелец. Иначе в окне
+ * между захватом B и его INCR токен A, чья блокировка истекла, еще выглядел бы последним.
+ *
+ * Ошибки Redis пробрасываются: решение о переключении на резервную
+ * реализацию принимает {@link qodo.ru.servicebooking.infrastructure.lock.FailoverDistributedLockRepository}.
+ */
+@Slf4j
+@Repository
+public class RedissonDistributedLockRepositoryImpl implements DistributedLockRepository {
+
+    private static final String KEY_PREFIX = "booking:lock:";
+
+    /**
+     * Продление только своей блокировки: поле хэша RLock - "{redissonId}:{threadId}".
+     */
+    private static final String EXTEND_SCRIPT = """
+            if redis.call('hexists', KEYS[1], ARGV[2]) == 1 then
+                redis.call('pexpire', KEYS[1], ARGV[1])
+                return 1
+            end
+            return 0""";
+
+    /**
+     * Выдать токен только владельцу блокировки: -1, если блокировка уже потеряна.
+     */
+    private static final String FENCE_SCRIPT = """
+            if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then
+                return -1
+            end
+            redis.call('set', KEYS[3], ARGV[1])
+            return redis.call('incr', KEYS[2])""";
+
+    /**
+     * Токен - последний выданный, и блокировку держит тот, кому он выдан.
+     */
+    private static final String IS_HELD_SCRIPT = """
+            if redis.call('get', KEYS[2]) ~= ARGV[1] then
+                return 0
+            end
+            local owner = redis.call('get', KEYS[3])
+            if owner and redis.call('hexists', KEYS[1], owner) == 1 then
+                return 1
+            end
+            return 0""";
+
+    private final RedissonClient redisson;
+    private final BookingProperties.Lock settings;
+
+    public RedissonDistributedLockRepositoryImpl(RedissonClient redisson, BookingProperties properties) {
+        this.redisson = redisson;
+        this.settings = properties.getLock();
+    }
+
+    @Override
+    public Optional<FencingToken> tryAcquireFenced(String lockKey, String ownerId, int ttlSeconds) {
+        return tryAcquireFenced(lockKey, ownerId, ttlSeconds, Duration.ofSeconds(settings.getWaitTimeoutSeconds()));
+    }
+
+    @Override
+    public Optional<FencingToken> tryAcquireFenced(String lockKey, String ownerId, int ttlSeconds, Duration waitTime) {
+        log.debug("Trying to acquire redis lock: {} for owner: {}", lockKey, ownerId);
+
+        RLock lock = redisson.getLock(lockName(lockKey));
+        boolean acquired = await(lock.tryLockAsync(
+                waitTime.toMillis(), TimeUnit.SECONDS.toMillis(ttlSeconds), TimeUnit.MILLISECONDS, ownerThreadId(ownerId)));
+
+        if (!acquired) {
+            log.debug("Redis lock already held: {}", lockKey);
+            return Optional.empty();
+        }
+
+        Long token = redisson.getScript(StringCodec.INSTANCE).eval(
+                lockName(lockKey),
+                RScript.Mode.READ_WRITE,
+                FENCE_SCRIPT,
+                RScript.ReturnType.INTEGER,
+                fenceKeys(lockKey),
+                lockEntry(ownerId));
+        if (token == null || token < 0) {
+            // TTL истек между захватом и выдачей токена
+            log.warn("Redis lock {} expired before fencing token was issued to {}", lockKey, ownerId);
+            return Optional.empty();
+        }
+        log.info("Redis lock acquired: {} by {}, token: {}", lockKey, ownerId, token);
+        return Optional.of(FencingToken.of(lockKey, token));
+    }
+
+    @Override
+    public List<FencingToken> tryAcquireAll(Collection<String> lockKeys, String ownerId, int ttlSeconds) {
+        return tryAcquireAll(lockKeys, ownerId, ttlSeconds, Duration.ofSeconds(settings.getWaitTimeoutSeconds()));
+    }
+
+    @Override
+    public List<FencingToken> tryAcquireAll(Collection<String> lockKeys, String ownerId, int ttlSeconds,
+                                            Duration waitTime) {
+        List<String> keys = new ArrayList<>(new TreeSet<>(lockKeys));
+        log.debug("Trying to acquire {} redis locks for owner: {}", keys.size(), ownerId);
+
+        // MultiLock берет ключи по порядку и отпускает все при неудаче
+        RLock[] locks = keys.stream().map(key -> redisson.getLock(lockName(key))).toArray(RLock[]::new);
+        boolean acquired = await(redisson.getMultiLock(locks).tryLockAsync(
+                waitTime.toMillis(), TimeUnit.SECONDS.toMillis(ttlSeconds), TimeUnit.MILLISECONDS, ownerThreadId(ownerId)));
+
+        if (!acquired) {
+            log.debug("Redis locks already held: {}", keys);
+            return List.of();
+        }
+
+        RBatch batch = redisson.createBatch();
+        String entry = lockEntry(ownerId);
+        List<RFuture<Long>> tokens = keys.stream()
+                .map(key -> batch.getScript(StringCodec.INSTANCE).<Long>evalAsync(
+                        lockName(key),
+                        RScript.Mode.READ_WRITE,
+                        FENCE_SCRIPT,
+                        RScript.ReturnType.INTEGER,
+                        fenceKeys(key),
+                        entry))
+                .toList();
+        batch.execute();
+
+        List<FencingToken> result = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Long token = await(tokens.get(i));
+            if (token == null || token < 0) {
+                log.warn("Redis lock {} expired before fencing token was issued to {}", keys.get(i), ownerId);
+                keys.forEach(key -> release(key, ownerId));
+                return List.of();
+            }
+            result.add(FencingToken.of(keys.get(i), token));
+        }
+        log.info("Acquired {} redis locks by {}", result.size(), ownerId);
+        return result;
+    }
+
+    @Override
+    public boolean isHeld(FencingToken token) {
+        String lockKey = token.getLockKey();
+        Long held = redisson.getScript(StringCodec.INSTANCE).eval(
+                lockName(lockKey),
+                RScript.Mode.READ_ONLY,
+                IS_HELD_SCRIPT,
+                RScript.ReturnType.INTEGER,
+                fenceKeys(lockKey),
+                String.valueOf(token.getValue()));
+        return held != null && held == 1L;
+    }
+
+    @Override
+    public boolean release(String lockKey, String ownerId) {
+        log.debug("Releasing redis lock: {} by owner: {}", lockKey, ownerId);
+
+        try {
+            await(redisson.getLock(lockName(lockKey)).unlockAsync(ownerThreadId(ownerId)));
+            log.info("Redis lock released: {} by {}", lockKey, ownerId);
+            return true;
+        } catch (IllegalMonitorStateException e) {
+            log.warn("Redis lock not found or not owned: {} by {}", lockKey, ownerId);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean extend(String lockKey, String ownerId, int ttlSeconds) {
+        log.debug("Extending redis lock: {} by owner: {} for {} seconds", lockKey, ownerId, ttlSeconds);
+
+        Long extended = redisson.getScript(StringCodec.INSTANCE).eval(
+                lockName(lockKey),
+                RScript.Mode.READ_WRITE,
+                EXTEND_SCRIPT,
+                RScript.ReturnType.INTEGER,
+                List.of(lockName(lockKey)),
+                String.valueOf(TimeUnit.SECONDS.toMillis(ttlSeconds)), lockEntry(ownerId));
+        return extended != null && extended == 1L;
+    }
+
+    @Override
+    public ExtendResult extendAll(Collection<HeldLock> locks, int ttlSeconds) {
+        // Все продления уходят одним pipeline
+        RBatch batch = redisson.createBatch();
+        String ttlMs = String.valueOf(TimeUnit.SECONDS.toMillis(ttlSeconds));
+        List<RFuture<Long>> results = new ArrayList<>(locks.size());
+        for (HeldLock lock : locks) {
+            String lockName = lockName(lock.token().getLockKey());
+            results.add(batch.getScript(StringCodec.INSTANCE).evalAsync(
+                    lockName,
+                    RScript.Mode.READ_WRITE,
+                    EXTEND_SCRIPT,
+                    RScript.ReturnType.INTEGER,
+                    List.of(lockName),
+                    ttlMs, lockEntry(lock.ownerId())));
+        }
+        batch.execute();
+
+        List<HeldLock> renewed = new ArrayList<>();
+        List<HeldLock> lost = new ArrayList<>();
+        int i = 0;
+        for (HeldLock lock : locks) {
+            Long extended = await(results.get(i++));
+            (extended != null && extended == 1L ? renewed : lost).add(lock);
+        }
+        return new ExtendResult(renewed, lost);
+    }
+
+    @Override
+    public Optional<DistributedLock> findActiveLock(String lockKey) {
+        RLock lock = redisson.getLock(lockName(lockKey));
+        long ttlMs = lock.remainTimeToLive();
+        if (ttlMs <= 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(DistributedLock.builder()
+                .lockKey(lockKey)
+                .lockedBy("redis")
+                .expiresAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(ttlMs)))
+                .fencingToken(redisson.getAtomicLong(tokenName(lockKey)).get())
+                .build());
+    }
+
+    @Override
+    public int cleanupExpired() {
+        // Истекшие ключи удаляет сам Redis по TTL
+        return 0;
+    }
+
+    private String lockEntry(String ownerId) {
+        return redisson.getId() + ":" + ownerThreadId(ownerId);
+    }
+
+    private static String lockName(String lockKey) {
+        return KEY_PREFIX + "{" + lockKey + "}";
+    }
+
+    private static String tokenName(String lockKey) {
+        return KEY_PREFIX + "{" + lockKey + "}:token";
+    }
+
+    private static String tokenOwnerName(String lockKey) {
+        return KEY_PREFIX + "{" + lockKey + "}:owner";
+    }
+
+    private static List<Object> fenceKeys(String lockKey) {
+        return List.of(lockName(lockKey), tokenName(lockKey), tokenOwnerName(lockKey));
+    }
+
+    /**
+     * Стабильный 64-битный идентификатор владельца вместо id потока.
+     */
+    static long ownerThreadId(String ownerId) {
+        return UUID.nameUUIDFromBytes(ownerId.getBytes(StandardCharsets.UTF_8)).getMostSignificantBits();
+    }
+
+    private static <T> T await(RFuture<T> future) {
+        try {
+            return future.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
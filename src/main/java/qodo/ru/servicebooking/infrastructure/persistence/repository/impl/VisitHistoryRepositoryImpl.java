@@ -6,16 +6,23 @@ import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.JSON;
 import org.jooq.Table;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import qodo.ru.servicebooking.domain.entity.VisitHistory;
 import qodo.ru.servicebooking.infrastructure.persistence.repository.VisitHistoryRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.VisitHistoryRepository.PortfolioCursor;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.VisitHistoryRepository.ReviewChanged;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.inline;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.row;
+import static org.jooq.impl.DSL.select;
 import static org.jooq.impl.DSL.table;
 
 @Slf4j
@@ -24,6 +31,7 @@ import static org.jooq.impl.DSL.table;
 public class VisitHistoryRepositoryImpl implements VisitHistoryRepository {
 
     private final DSLContext dsl;
+    private final ApplicationEventPublisher events;
 
     private static final Table<Record> VISIT_HISTORY = table("visit_history");
     private static final Table<Record> BOOKINGS = table("bookings");
@@ -31,6 +39,7 @@ public class VisitHistoryRepositoryImpl implements VisitHistoryRepository {
     // Поля visit_history
     private static final Field<UUID> ID = field("id", UUID.class);
     private static final Field<UUID> BOOKING_ID = field("booking_id", UUID.class);
+    private static final Field<UUID> ACCOUNT_ID = field("account_id", UUID.class);
     private static final Field<LocalDateTime> VISITED_AT = field("visited_at", LocalDateTime.class);
     private static final Field<Integer> ACTUAL_DURATION = field("actual_duration_minutes", Integer.class);
     private static final Field<BigDecimal> ACTUAL_PRICE = field("actual_price", BigDecimal.class);
@@ -42,6 +51,13 @@ public class VisitHistoryRepositoryImpl implements VisitHistoryRepository {
     private static final Field<LocalDateTime> CREATED_AT = field("created_at", LocalDateTime.class);
     private static final Field<LocalDateTime> UPDATED_AT = field("updated_at", LocalDateTime.class);
 
+    // Поля bookings (квалифицированы: id и account_id есть в обеих таблицах)
+    private static final Field<UUID> BOOKINGS_ID = field(name("bookings", "id"), UUID.class);
+    private static final Field<UUID> BOOKINGS_ACCOUNT_ID = field(name("bookings", "account_id"), UUID.class);
+
+    // Литерал, а не bind: только так generic plan использует частичный idx_visit_history_portfolio
+    private static final Field<Integer> PORTFOLIO_MIN_RATING = inline(4);
+
     @Override
     @Transactional
     public VisitHistory save(VisitHistory visitHistory) {
@@ -49,9 +65,13 @@ public class VisitHistoryRepositoryImpl implements VisitHistoryRepository {
 
         UUID historyId = visitHistory.getId() != null ? visitHistory.getId() : UUID.randomUUID();
 
-        dsl.insertInto(VISIT_HISTORY)
+        Record stored = dsl.insertInto(VISIT_HISTORY)
                 .set(ID, historyId)
                 .set(BOOKING_ID, visitHistory.getBookingId())
+                // account_id всегда из bookings - копия не может разойтись с бронированием
+                .set(ACCOUNT_ID, select(BOOKINGS_ACCOUNT_ID)
+                        .from(BOOKINGS)
+                        .where(BOOKINGS_ID.eq(visitHistory.getBookingId())))
                 .set(VISITED_AT, visitHistory.getVisitedAt())
                 .set(ACTUAL_DURATION, visitHistory.getActualDurationMinutes())
                 .set(ACTUAL_PRICE, visitHistory.getActualPrice())
@@ -67,9 +87,13 @@ public class VisitHistoryRepositoryImpl implements VisitHistoryRepository {
                 .set(ACTUAL_DURATION, visitHistory.getActualDurationMinutes())
                 .set(ACTUAL_PRICE, visitHistory.getActualPrice())
                 .set(UPDATED_AT, LocalDateTime.now())
-                .execute();
+                .returning()
+                .fetchOne();
 
         visitHistory.setId(historyId);
+        visitHistory.setAccountId(stored.get(ACCOUNT_ID));
+        // При конфликте оценка в БД могла остаться прежней - в событие идет сохраненная строка
+        publishReviewChanged(mapToVisitHistory(stored));
         log.info("Saved visit history: {}", historyId);
         return visitHistory;
     }
@@ -94,7 +118,7 @@ public class VisitHistoryRepositoryImpl implements VisitHistoryRepository {
         return dsl.selectFrom(VISIT_HISTORY)
                 .where(RATING.ge(minRating))
                 .and(REVIEW.isNotNull())
-                .orderBy(RATING.desc(), REVIEW_AT.desc())
+                .orderBy(RATING.desc(), REVIEW_AT.desc(), BOOKING_ID.asc())
                 .limit(limit)
                 .fetch()
                 .map(this::mapToVisitHistory);
@@ -105,39 +129,73 @@ public class VisitHistoryRepositoryImpl implements VisitHistoryRepository {
     public boolean updateReview(UUID bookingId, int rating, String review) {
         log.debug("Updating review for booking: {}", bookingId);
 
-        int updated = dsl.update(VISIT_HISTORY)
+        Record updated = dsl.update(VISIT_HISTORY)
                 .set(RATING, rating)
                 .set(REVIEW, review)
                 .set(REVIEW_AT, LocalDateTime.now())
                 .set(UPDATED_AT, LocalDateTime.now())
                 .where(BOOKING_ID.eq(bookingId))
-                .execute();
+                .returning()
+                .fetchOne();
+
+        if (updated == null) {
+            return false;
+        }
+        publishReviewChanged(mapToVisitHistory(updated));
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<VisitHistory> findTopRatedByAccount(UUID accountId, int minRating, int limit) {
+        log.debug("Finding top rated visits for account {} with rating >= {}", accountId, minRating);
+
+        return dsl.selectFrom(VISIT_HISTORY)
+                .where(ACCOUNT_ID.eq(accountId))
+                .and(RATING.ge(minRating))
+                .and(REVIEW.isNotNull())
+                .orderBy(RATING.desc(), REVIEW_AT.desc(), BOOKING_ID.asc())
+                .limit(limit)
+                .fetch()
+                .map(this::mapToVisitHistory);
+    }
 
-        return updated > 0;
+    private void publishReviewChanged(VisitHistory visit) {
+        events.publishEvent(new ReviewChanged(visit.getAccountId(), visit));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<VisitHistory> findForPortfolio(UUID accountId, int limit) {
-        log.debug("Finding portfolio items for account: {}", accountId);
-
-        // JOIN с bookings для получения account_id
-        return dsl.select(VISIT_HISTORY.fields())
-                .from(VISIT_HISTORY)
-                .join(BOOKINGS).on(VISIT_HISTORY.field(BOOKING_ID).eq(BOOKINGS.field("id", UUID.class)))
-                .where(BOOKINGS.field("account_id", UUID.class).eq(accountId))
-                .and(PHOTOS.isNotNull())
-                .and(RATING.ge(4))
-                .orderBy(VISIT_HISTORY.field(CREATED_AT).desc())
+        return findForPortfolio(accountId, null, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<VisitHistory> findForPortfolio(UUID accountId, PortfolioCursor after, int limit) {
+        log.debug("Finding portfolio items for account: {} after {}", accountId, after);
+
+        // Keyset по (created_at, id) над idx_visit_history_portfolio: без JOIN, OFFSET и сортировки
+        var query = dsl.selectFrom(VISIT_HISTORY)
+                .where(ACCOUNT_ID.eq(accountId))
+                .and(RATING.ge(PORTFOLIO_MIN_RATING))
+                .and(PHOTOS.isNotNull());
+        if (after != null) {
+            query = query.and(row(CREATED_AT, ID).lt(after.createdAt(), after.id()));
+        }
+
+        return query
+                .orderBy(CREATED_AT.desc(), ID.desc())
                 .limit(limit)
                 .fetch()
-                .map(r -> mapToVisitHistory(r.into(VISIT_HISTORY)));
+                .map(this::mapToVisitHistory);
     }
 
     private VisitHistory mapToVisitHistory(Record record) {
         return VisitHistory.builder()
                 .id(record.get(ID))
                 .bookingId(record.get(BOOKING_ID))
+                .accountId(record.get(ACCOUNT_ID))
                 .visitedAt(record.get(VISITED_AT))
                 .actualDurationMinutes(record.get(ACTUAL_DURATION))
                 .actualPrice(record.get(ACTUAL_PRICE))
@@ -0,0 +1,110 @@
+package qodo.ru.servicebooking.infrastructure.reservation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import qodo.ru.servicebooking.domain.entity.Booking;
+import qodo.ru.servicebooking.domain.exception.BusinessRuleViolationException;
+import qodo.ru.servicebooking.infrastructure.lock.SlotLockManager;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Создание бронирований.
+ *
+ * Два пути для одного слота:
+ * - {@link #reserve} без распределенной блокировки: двойную запись и пересечение
+ *   по времени отсекают ux_bookings_slot_active и ex_bookings_account_time_overlap,
+ *   проигравший получает SlotAlreadyBookedException;
+ * - {@link #reserveLocked} под блокировкой слота с fencing token.
+ * Пропускная способность путей сравнивается по booking.reservation.create{path}.
+ *
+ * Резервирование нескольких слотов одной операцией (длинные услуги, пакеты):
+ * все блокировки слотов берутся одним пакетным вызовом в каноническом порядке,
+ * бронирования вставляются одним INSERT. При любой ошибке откатывается
+ * транзакция и снимаются все блокировки: частичных резервов не бывает.
+ */
+@Slf4j
+@Service
+public class SlotReservationService {
+
+    private final SlotLockManager slotLocks;
+    private final BookingRepository bookingRepository;
+    private final Timer lockFreeCreate;
+    private final Timer lockedCreate;
+
+    public SlotReservationService(SlotLockManager slotLocks,
+                                  BookingRepository bookingRepository,
+                                  MeterRegistry meterRegistry) {
+        this.slotLocks = slotLocks;
+        this.bookingRepository = bookingRepository;
+        this.lockFreeCreate = createTimer(meterRegistry, "lock_free");
+        this.lockedCreate = createTimer(meterRegistry, "locked");
+    }
+
+    /**
+     * Создать бронирование без распределенной блокировки.
+     *
+     * @param booking новое бронирование
+     * @return сохраненное бронирование
+     * @throws qodo.ru.servicebooking.domain.exception.SlotAlreadyBookedException если слот или время заняты
+     */
+    public Booking reserve(Booking booking) {
+        return lockFreeCreate.record(() -> bookingRepository.save(booking));
+    }
+
+    /**
+     * Создать бронирование под распределенной блокировкой слота.
+     *
+     * @param booking новое бронирование
+     * @param ownerId идентификатор владельца блокировки (обычно id запроса)
+     * @return сохраненное бронирование
+     * @throws qodo.ru.servicebooking.domain.exception.LockAcquisitionException если слот занят другим запросом
+     */
+    public Booking reserveLocked(Booking booking, String ownerId) {
+        return lockedCreate.record(() -> {
+            try (SlotLockManager.Handle handle = slotLocks.lock(booking.getSlotId(), booking.getAccountId(), ownerId)) {
+                return bookingRepository.save(booking, handle.getToken());
+            }
+        });
+    }
+
+    /**
+     * Зарезервировать все слоты пакета.
+     *
+     * @param bookings бронирования, по одному на слот
+     * @param ownerId идентификатор владельца блокировок (обычно id запроса)
+     * @return сохраненные бронирования
+     * @throws qodo.ru.servicebooking.domain.exception.LockAcquisitionException если хоть один слот занят
+     */
+    public List<Booking> reserveAll(List<Booking> bookings, String ownerId) {
+        if (bookings.isEmpty()) {
+            return List.of();
+        }
+
+        Set<UUID> slotIds = bookings.stream().map(Booking::getSlotId).collect(Collectors.toSet());
+        if (slotIds.size() != bookings.size()) {
+            throw new BusinessRuleViolationException("UNIQUE_PACKAGE_SLOTS", "Package contains the same slot twice");
+        }
+
+        Set<UUID> accountIds = bookings.stream().map(Booking::getAccountId).collect(Collectors.toSet());
+        try (SlotLockManager.Handle handle = slotLocks.lockAll(slotIds, accountIds, ownerId, () -> {})) {
+            List<Booking> saved = bookingRepository.saveAll(bookings, handle.getTokens());
+            log.info("Reserved {} slots for owner {}", saved.size(), ownerId);
+            return saved;
+        }
+    }
+
+    private static Timer createTimer(MeterRegistry meterRegistry, String path) {
+        return Timer.builder("booking.reservation.create")
+                .description("Создание бронирования")
+                .tag("path", path)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,202 @@
+package qodo.ru.servicebooking.infrastructure.reviews;
+
+import qodo.ru.servicebooking.domain.entity.VisitHistory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Ограниченный топ-K визитов с отзывом в порядке rating DESC, review_at DESC, booking_id.
+ *
+ * Порядок совпадает с ORDER BY в БД, включая NULLS FIRST для review_at DESC
+ * и сравнение uuid как беззнаковых байтов (UUID.compareTo сравнивает знаковые long),
+ * поэтому ответ из памяти и из БД одинаков и при равных оценке и дате.
+ *
+ * Инвариант усеченного топа (в БД строк больше K): любая строка вне топа не выше
+ * последней в топе. Новая или улучшенная строка его сохраняет - вставка и вытеснение
+ * последней. Если строка из топа опустилась ниже всех оставшихся или потеряла отзыв,
+ * ее место может занять строка, которой в памяти нет: топ сбрасывается и будет
+ * загружен из БД заново при следующем запросе.
+ *
+ * Хранит копии: VisitHistory изменяемый, а порядок TreeSet зависит от полей.
+ *
+ * apply() получает только изменения своего узла. С maxStaleness > 0 топ старше этого
+ * срока загружается заново при следующем запросе - так видны изменения других узлов.
+ */
+final class TopKBoard {
+
+    private static final Comparator<VisitHistory> ORDER = Comparator
+            .comparing(VisitHistory::getRating, Comparator.reverseOrder())
+            .thenComparing(VisitHistory::getReviewAt, Comparator.nullsFirst(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(VisitHistory::getBookingId, TopKBoard::compareUuid);
+
+    private final int capacity;
+    private final long maxStalenessNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeSet<VisitHistory> entries = new TreeSet<>(ORDER);
+    private final Map<UUID, VisitHistory> byBookingId = new HashMap<>();
+
+    private boolean loaded;
+    private boolean truncated;
+    private long loadedAt;
+
+    TopKBoard(int capacity) {
+        this(capacity, Duration.ZERO);
+    }
+
+    /**
+     * @param maxStaleness через сколько после загрузки перечитать топ; ноль - не перечитывать
+     */
+    TopKBoard(int capacity, Duration maxStaleness) {
+        this.capacity = capacity;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Первые limit записей с rating >= minRating или null, если из памяти ответить нельзя
+     * (топ не загружен, либо нужны строки за пределами усеченного топа).
+     */
+    List<VisitHistory> top(int minRating, int limit) {
+        lock.lock();
+        try {
+            if (!loaded) {
+                return null;
+            }
+            List<VisitHistory> result = new ArrayList<>(Math.min(limit, entries.size()));
+            boolean belowMinRating = false;
+            for (VisitHistory visit : entries) {
+                if (result.size() == limit) {
+                    break;
+                }
+                if (visit.getRating() < minRating) {
+                    belowMinRating = true;
+                    break;
+                }
+                result.add(visit.toBuilder().build());
+            }
+            if (result.size() < limit && truncated && !belowMinRating) {
+                return null;
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Загрузить топ из БД, если он еще не загружен, сброшен или устарел.
+     * Изменения, пришедшие во время загрузки, ждут блокировку и применяются после.
+     *
+     * @param loader первые capacity строк в порядке топа
+     */
+    void loadIfNeeded(Supplier<List<VisitHistory>> loader) {
+        lock.lock();
+        try {
+            if (loaded && !stale()) {
+                return;
+            }
+            List<VisitHistory> rows = loader.get();
+            entries.clear();
+            byBookingId.clear();
+            for (VisitHistory row : rows) {
+                if (qualifies(row)) {
+                    add(row.toBuilder().build());
+                }
+            }
+            truncated = rows.size() >= capacity;
+            loaded = true;
+            loadedAt = System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Применить закоммиченное состояние визита. Идемпотентно.
+     */
+    void apply(VisitHistory visit) {
+        lock.lock();
+        try {
+            if (!loaded) {
+                // Загрузка из БД увидит это изменение сама
+                return;
+            }
+
+            VisitHistory old = byBookingId.remove(visit.getBookingId());
+            if (old != null) {
+                entries.remove(old);
+            }
+            boolean qualifies = qualifies(visit);
+
+            if (truncated && old != null && (!qualifies || sinks(visit, old))) {
+                reset();
+                return;
+            }
+            if (!qualifies) {
+                return;
+            }
+            if (truncated && old == null && entries.size() >= capacity && ORDER.compare(visit, entries.last()) > 0) {
+                // Ниже топа
+                return;
+            }
+
+            add(visit.toBuilder().build());
+            if (entries.size() > capacity) {
+                VisitHistory evicted = entries.pollLast();
+                byBookingId.remove(evicted.getBookingId());
+                truncated = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Строка опустилась ниже и прежнего места, и всех оставшихся в топе.
+     */
+    private boolean sinks(VisitHistory visit, VisitHistory old) {
+        return ORDER.compare(visit, old) > 0
+                && (entries.isEmpty() || ORDER.compare(visit, entries.last()) > 0);
+    }
+
+    private boolean stale() {
+        return maxStalenessNanos > 0 && System.nanoTime() - loadedAt > maxStalenessNanos;
+    }
+
+    private void add(VisitHistory visit) {
+        entries.add(visit);
+        byBookingId.put(visit.getBookingId(), visit);
+    }
+
+    private void reset() {
+        entries.clear();
+        byBookingId.clear();
+        loaded = false;
+        truncated = false;
+    }
+
+    private static boolean qualifies(VisitHistory visit) {
+        return visit.getRating() != null && visit.getReview() != null;
+    }
+
+    /**
+     * Порядок uuid в PostgreSQL: побайтовое сравнение без знака.
+     */
+    static int compareUuid(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,112 @@
+package qodo.ru.servicebooking.infrastructure.reviews;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import qodo.ru.servicebooking.domain.entity.VisitHistory;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.VisitHistoryRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.VisitHistoryRepository.ReviewChanged;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Лучшие отзывы (общий топ и топ каждого мастера) из памяти.
+ *
+ * Каждый топ загружается из БД один раз - при первом запросе - и дальше поддерживается
+ * по {@link ReviewChanged} после коммита save/updateReview. Запрос top-N отвечает
+ * за O(K) без обращения к БД. В БД (индекс idx_visit_history_top_rated) уходят только
+ * запросы, на которые топ ответить не может: limit больше K или строки за пределами
+ * усеченного топа, а также первый запрос после сброса топа (см. {@link TopKBoard}).
+ *
+ * Топы мастеров создаются по требованию и живут до рестарта: до master-top-k копий
+ * VisitHistory на мастера, к которому обращались.
+ *
+ * {@link ReviewChanged} приходит только от транзакций своего узла. Отзывы, сохраненные
+ * другими узлами, видны после перечитывания топа - не позже reviews.max-staleness-seconds.
+ */
+@Component
+public class TopRatedReviews {
+
+    private final VisitHistoryRepository visitHistoryRepository;
+    private final BookingProperties.Reviews settings;
+    private final Duration maxStaleness;
+    private final TopKBoard global;
+    private final Map<UUID, TopKBoard> byMaster = new ConcurrentHashMap<>();
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+
+    public TopRatedReviews(VisitHistoryRepository visitHistoryRepository,
+                           BookingProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.visitHistoryRepository = visitHistoryRepository;
+        this.settings = properties.getReviews();
+        this.maxStaleness = Duration.ofSeconds(settings.getMaxStalenessSeconds());
+        this.global = new TopKBoard(settings.getGlobalTopK(), maxStaleness);
+
+        this.memoryHits = createRequestCounter(meterRegistry, "memory");
+        this.databaseHits = createRequestCounter(meterRegistry, "database");
+        Gauge.builder("booking.reviews.top.masters", byMaster, Map::size)
+                .description("Мастера с загруженным топом отзывов")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Лучшие отзывы по всем мастерам: rating >= minRating, по убыванию оценки и даты отзыва, затем по booking_id.
+     */
+    public List<VisitHistory> findTopRated(int minRating, int limit) {
+        return find(global, minRating, limit,
+                () -> visitHistoryRepository.findTopRated(1, global.capacity()),
+                () -> visitHistoryRepository.findTopRated(minRating, limit));
+    }
+
+    /**
+     * Лучшие отзывы мастера.
+     */
+    public List<VisitHistory> findTopRated(UUID accountId, int minRating, int limit) {
+        TopKBoard board = byMaster.computeIfAbsent(accountId, id -> new TopKBoard(settings.getMasterTopK(), maxStaleness));
+        return find(board, minRating, limit,
+                () -> visitHistoryRepository.findTopRatedByAccount(accountId, 1, board.capacity()),
+                () -> visitHistoryRepository.findTopRatedByAccount(accountId, minRating, limit));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChanged event) {
+        global.apply(event.visit());
+        if (event.accountId() != null) {
+            TopKBoard board = byMaster.get(event.accountId());
+            if (board != null) {
+                board.apply(event.visit());
+            }
+        }
+    }
+
+    private List<VisitHistory> find(TopKBoard board, int minRating, int limit,
+                                    Supplier<List<VisitHistory>> loader,
+                                    Supplier<List<VisitHistory>> coldPath) {
+        if (limit <= board.capacity()) {
+            board.loadIfNeeded(loader);
+            List<VisitHistory> top = board.top(minRating, limit);
+            if (top != null) {
+                memoryHits.increment();
+                return top;
+            }
+        }
+        databaseHits.increment();
+        return coldPath.get();
+    }
+
+    private static Counter createRequestCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("booking.reviews.top.requests")
+                .description("Запросы топа отзывов")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
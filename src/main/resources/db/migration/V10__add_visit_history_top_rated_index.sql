@@ -0,0 +1,24 @@
+-- V10__add_visit_history_top_rated_index.sql
+-- Десятая миграция: индекс для холодного пути топа отзывов
+-- Автор: Booking Team
+-- Дата: 2024
+
+-- =====================================================
+-- 1. ИНДЕКС ПОД ORDER BY rating DESC, review_at DESC, booking_id
+-- =====================================================
+-- findTopRated обслуживается из памяти (TopRatedReviews), в БД идут загрузка топа
+-- и запросы за его пределами. idx_visit_history_rating покрывает только rating,
+-- и каждый такой запрос сортировал все отзывы. Этот индекс отдает строки сразу
+-- в порядке ORDER BY (NULLS FIRST совпадает с DESC по умолчанию), LIMIT читает
+-- первые N записей. Частичный - по условию review IS NOT NULL из запроса.
+-- booking_id в ключе разрешает равные rating и review_at: без него порядок
+-- не определен, и TopRatedReviews мог загрузить не те строки, что вернул бы
+-- следующий запрос в БД. Он же дает index-only scan по идентификаторам.
+CREATE INDEX idx_visit_history_top_rated
+    ON visit_history(rating DESC, review_at DESC, booking_id)
+    WHERE rating IS NOT NULL AND review IS NOT NULL;
+
+-- =====================================================
+-- ROLLBACK ПЛАН
+-- =====================================================
+-- DROP INDEX IF EXISTS idx_visit_history_top_rated;
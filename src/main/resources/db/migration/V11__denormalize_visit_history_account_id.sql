@@ -0,0 +1,48 @@
+-- V11__denormalize_visit_history_account_id.sql
+-- Одиннадцатая миграция: account_id мастера в visit_history для портфолио
+-- Автор: Booking Team
+-- Дата: 2024
+
+-- =====================================================
+-- 1. КОЛОНКА account_id
+-- =====================================================
+-- findForPortfolio соединял visit_history с bookings только ради фильтра
+-- по мастеру, а затем сортировал всю его историю. Мастер бронирования
+-- не меняется, поэтому копия account_id не расходится с bookings;
+-- при записи ее проставляет VisitHistoryRepository.save из bookings.
+ALTER TABLE visit_history
+    ADD COLUMN account_id UUID;
+
+UPDATE visit_history vh
+SET account_id = b.account_id
+FROM bookings b
+WHERE b.id = vh.booking_id;
+
+ALTER TABLE visit_history
+    ALTER COLUMN account_id SET NOT NULL;
+
+COMMENT ON COLUMN visit_history.account_id IS 'ID мастера, копия bookings.account_id';
+
+-- =====================================================
+-- 2. ЧАСТИЧНЫЙ ИНДЕКС ДЛЯ ПОРТФОЛИО
+-- =====================================================
+-- Условие совпадает с запросом (rating >= 4 пишется литералом, не параметром,
+-- иначе generic plan не сможет использовать частичный индекс).
+-- id - уникальный tie-breaker для keyset-пагинации по (created_at, id):
+-- каждая страница - спуск по индексу и LIMIT строк, без OFFSET и сортировки.
+CREATE INDEX idx_visit_history_portfolio
+    ON visit_history(account_id, created_at DESC, id DESC)
+    WHERE rating >= 4 AND photos IS NOT NULL;
+
+-- Поиск топа отзывов мастера без JOIN с bookings; booking_id - tie-breaker,
+-- как в idx_visit_history_top_rated
+CREATE INDEX idx_visit_history_account_rating
+    ON visit_history(account_id, rating DESC, review_at DESC, booking_id)
+    WHERE rating IS NOT NULL AND review IS NOT NULL;
+
+-- =====================================================
+-- ROLLBACK ПЛАН
+-- =====================================================
+-- DROP INDEX IF EXISTS idx_visit_history_account_rating;
+-- DROP INDEX IF EXISTS idx_visit_history_portfolio;
+-- ALTER TABLE visit_history DROP COLUMN IF EXISTS account_id;
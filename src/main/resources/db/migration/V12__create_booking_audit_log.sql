@@ -0,0 +1,36 @@
+-- V12__create_booking_audit_log.sql
+-- Двенадцатая миграция: таблица аудита для AuditLogWriter
+-- Автор: Booking Team
+-- Дата: 2024
+
+-- =====================================================
+-- 1. ТАБЛИЦА АУДИТА ИЗМЕНЕНИЙ
+-- =====================================================
+-- Определение повторяет V2__add_booking_optimizations.sql: до переименования
+-- файл шел без префикса V, Flyway его не применял, и COPY в booking_audit_log падал с 42P01.
+-- IF NOT EXISTS - для окружений, где V2 уже создал таблицу или скрипт применяли вручную.
+CREATE TABLE IF NOT EXISTS booking_audit_log (
+                                   id BIGSERIAL PRIMARY KEY,
+                                   booking_id UUID NOT NULL,
+                                   action VARCHAR(50) NOT NULL, -- 'CREATE', 'UPDATE', 'CANCEL', 'CONFIRM', etc
+                                   old_values JSONB,
+                                   new_values JSONB,
+                                   changed_by UUID,
+                                   changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                   ip_address INET,
+                                   user_agent TEXT,
+                                   correlation_id UUID
+);
+
+-- Индексы для аудита
+CREATE INDEX IF NOT EXISTS idx_audit_booking_id ON booking_audit_log(booking_id);
+CREATE INDEX IF NOT EXISTS idx_audit_changed_at ON booking_audit_log(changed_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_action ON booking_audit_log(action);
+CREATE INDEX IF NOT EXISTS idx_audit_changed_by ON booking_audit_log(changed_by) WHERE changed_by IS NOT NULL;
+
+COMMENT ON TABLE booking_audit_log IS 'Аудит всех изменений бронирований для compliance и debugging';
+
+-- =====================================================
+-- ROLLBACK ПЛАН
+-- =====================================================
+-- DROP TABLE IF EXISTS booking_audit_log;
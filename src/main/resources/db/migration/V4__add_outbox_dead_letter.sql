@@ -0,0 +1,83 @@
+-- V4__add_outbox_dead_letter.sql
+-- Четвертая миграция: dead-letter таблица для исчерпавших попытки событий outbox
+-- Автор: Booking Team
+-- Дата: 2024
+
+-- =====================================================
+-- 1. ТАБЛИЦА OUTBOX_DEAD_LETTER
+-- =====================================================
+-- События с retry_count >= booking.outbox.max-retry-attempts переносятся сюда атомарно
+-- (OutboxRepository.recordFailure), чтобы в outbox_events оставалась только "живая" работа
+CREATE TABLE outbox_dead_letter (
+                                    id UUID PRIMARY KEY,
+
+    -- Идентификация события (копия из outbox_events)
+                                    aggregate_id UUID NOT NULL,
+                                    aggregate_type VARCHAR(50) NOT NULL,
+                                    event_type VARCHAR(100) NOT NULL,
+                                    payload JSONB NOT NULL,
+
+    -- Метаданные
+                                    correlation_id UUID,
+                                    causation_id UUID,
+                                    user_id UUID,
+
+    -- История обработки
+                                    created_at TIMESTAMP NOT NULL,
+                                    retry_count INT NOT NULL,
+                                    last_error TEXT,
+                                    last_retry_at TIMESTAMP,
+
+    -- Время переноса в dead-letter
+                                    dead_lettered_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE outbox_dead_letter IS 'События outbox, исчерпавшие попытки публикации. Возвращаются в outbox через admin API';
+
+-- Индексы для фильтров replay (тип события, временной диапазон)
+CREATE INDEX idx_dead_letter_event_type ON outbox_dead_letter(event_type, created_at);
+CREATE INDEX idx_dead_letter_created_at ON outbox_dead_letter(created_at);
+
+-- =====================================================
+-- 2. ПЕРЕНОС УЖЕ ИСЧЕРПАННЫХ СОБЫТИЙ
+-- =====================================================
+-- Разовый перенос с фиксированным порогом: 5 - значение booking.outbox.max-retry-attempts
+-- по умолчанию на момент миграции; настройку миграция не читает. Если порог в окружении
+-- другой, оставшиеся события снова берет relay, и после следующей неудачи recordFailure
+-- переносит их сюда уже по настроенному порогу.
+WITH moved AS (
+    DELETE FROM outbox_events
+    WHERE published_at IS NULL
+      AND retry_count >= 5
+    RETURNING id, aggregate_id, aggregate_type, event_type, payload,
+              correlation_id, causation_id, user_id,
+              created_at, retry_count, last_error, last_retry_at
+)
+INSERT INTO outbox_dead_letter (
+    id, aggregate_id, aggregate_type, event_type, payload,
+    correlation_id, causation_id, user_id,
+    created_at, retry_count, last_error, last_retry_at
+)
+SELECT id, aggregate_id, aggregate_type, event_type, payload,
+       correlation_id, causation_id, user_id,
+       created_at, retry_count, last_error, last_retry_at
+FROM moved;
+
+-- =====================================================
+-- 3. ИНДЕКС ДЛЯ ПОВТОРНЫХ ПОПЫТОК
+-- =====================================================
+-- Исчерпанные события больше не живут в outbox_events, поэтому
+-- частичный индекс покрывает только события в процессе retry
+DROP INDEX IF EXISTS idx_outbox_retry;
+CREATE INDEX idx_outbox_retry ON outbox_events(last_retry_at NULLS FIRST)
+    WHERE published_at IS NULL AND retry_count > 0;
+
+-- =====================================================
+-- ROLLBACK ПЛАН
+-- =====================================================
+-- INSERT INTO outbox_events (id, aggregate_id, aggregate_type, event_type, payload,
+--     correlation_id, causation_id, user_id, created_at, retry_count, last_error, last_retry_at)
+-- SELECT id, aggregate_id, aggregate_type, event_type, payload,
+--     correlation_id, causation_id, user_id, created_at, retry_count, last_error, last_retry_at
+-- FROM outbox_dead_letter;
+-- DROP TABLE IF EXISTS outbox_dead_letter;
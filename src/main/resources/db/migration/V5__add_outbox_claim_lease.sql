@@ -0,0 +1,23 @@
+-- V5__add_outbox_claim_lease.sql
+-- Пятая миграция: аренда (lease) событий outbox вместо долгих row-lock
+-- Автор: Booking Team
+-- Дата: 2024
+
+-- =====================================================
+-- 1. КОЛОНКИ АРЕНДЫ
+-- =====================================================
+-- Relay захватывает пачку событий коротким UPDATE ... FOR UPDATE SKIP LOCKED
+-- и проставляет claimed_until. Row-lock держится только на время UPDATE,
+-- а публикация идет уже без транзакции. Если инстанс упал,
+-- события снова становятся доступны после истечения аренды.
+ALTER TABLE outbox_events
+    ADD COLUMN claimed_by VARCHAR(255),
+    ADD COLUMN claimed_until TIMESTAMP;
+
+COMMENT ON COLUMN outbox_events.claimed_until IS 'До какого момента событие захвачено relay-инстансом (NULL = свободно)';
+
+-- =====================================================
+-- ROLLBACK ПЛАН
+-- =====================================================
+-- ALTER TABLE outbox_events DROP COLUMN IF EXISTS claimed_until;
+-- ALTER TABLE outbox_events DROP COLUMN IF EXISTS claimed_by;
@@ -0,0 +1,24 @@
+-- V6__add_outbox_publication.sql
+-- Шестая миграция: публикация для CDC-режима outbox (logical decoding)
+-- Автор: Booking Team
+-- Дата: 2024
+-- ВНИМАНИЕ: CDC-режим требует wal_level=logical и роли с атрибутом REPLICATION.
+-- Сам replication slot создается приложением при старте (booking.outbox.cdc.slot-name).
+
+-- =====================================================
+-- 1. ПУБЛИКАЦИЯ OUTBOX_EVENTS
+-- =====================================================
+-- В CDC-режиме нужны только INSERT: публикация не обновляет published_at,
+-- а прогресс хранится в confirmed_flush_lsn replication slot'а
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_publication WHERE pubname = 'outbox_publication') THEN
+        CREATE PUBLICATION outbox_publication FOR TABLE outbox_events WITH (publish = 'insert');
+    END IF;
+END $$;
+
+-- =====================================================
+-- ROLLBACK ПЛАН
+-- =====================================================
+-- SELECT pg_drop_replication_slot('booking_outbox_slot');
+-- DROP PUBLICATION IF EXISTS outbox_publication;
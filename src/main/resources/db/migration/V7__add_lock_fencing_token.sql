@@ -0,0 +1,23 @@
+-- V7__add_lock_fencing_token.sql
+-- Седьмая миграция: fencing token для распределенных блокировок
+-- Автор: Booking Team
+-- Дата: 2024
+
+-- =====================================================
+-- 1. FENCING TOKEN
+-- =====================================================
+-- Монотонно растущий номер захвата блокировки. Выдается при каждом захвате
+-- (в том числе при перехвате истекшей), и запись под блокировкой проверяет,
+-- что ее токен все еще текущий.
+CREATE SEQUENCE IF NOT EXISTS distributed_lock_fencing_seq;
+
+ALTER TABLE distributed_locks
+    ADD COLUMN fencing_token BIGINT NOT NULL DEFAULT nextval('distributed_lock_fencing_seq');
+
+COMMENT ON COLUMN distributed_locks.fencing_token IS 'Монотонный токен захвата для защиты записей от владельца с истекшей блокировкой';
+
+-- =====================================================
+-- ROLLBACK ПЛАН
+-- =====================================================
+-- ALTER TABLE distributed_locks DROP COLUMN IF EXISTS fencing_token;
+-- DROP SEQUENCE IF EXISTS distributed_lock_fencing_seq;
@@ -0,0 +1,50 @@
+-- V8__add_booking_overlap_exclusion.sql
+-- Восьмая миграция: защита от пересечения записей мастера на уровне БД
+-- Автор: Booking Team
+-- Дата: 2024
+
+-- =====================================================
+-- 1. ПРОВЕРКА СУЩЕСТВУЮЩИХ ДАННЫХ
+-- =====================================================
+-- Ограничение не создастся, если активные записи мастера уже пересекаются.
+-- Падаем с понятным сообщением, чтобы такие записи разобрали вручную.
+DO $$
+DECLARE
+    conflicts INT;
+BEGIN
+    SELECT count(*) INTO conflicts
+    FROM bookings a
+    JOIN bookings b
+      ON a.account_id = b.account_id
+     AND a.id < b.id
+     AND tsrange(a.scheduled_at, a.scheduled_at + a.duration_minutes * INTERVAL '1 minute')
+      && tsrange(b.scheduled_at, b.scheduled_at + b.duration_minutes * INTERVAL '1 minute')
+    WHERE a.status IN ('created', 'confirmed')
+      AND b.status IN ('created', 'confirmed');
+
+    IF conflicts > 0 THEN
+        RAISE EXCEPTION 'Found % overlapping active bookings, resolve them before V8', conflicts;
+    END IF;
+END $$;
+
+-- =====================================================
+-- 2. EXCLUSION CONSTRAINT
+-- =====================================================
+-- Активные записи одного мастера не могут пересекаться по времени,
+-- даже если у них разные slot_id. Интервал полуоткрытый [начало, конец),
+-- поэтому записи встык разрешены. btree_gist включен в V1.
+ALTER TABLE bookings
+    ADD CONSTRAINT ex_bookings_account_time_overlap
+    EXCLUDE USING gist (
+        account_id WITH =,
+        tsrange(scheduled_at, scheduled_at + duration_minutes * INTERVAL '1 minute') WITH &&
+    )
+    WHERE (status IN ('created', 'confirmed'));
+
+COMMENT ON CONSTRAINT ex_bookings_account_time_overlap ON bookings
+    IS 'Активные записи мастера не пересекаются по времени (позволяет создавать записи без распределенной блокировки)';
+
+-- =====================================================
+-- ROLLBACK ПЛАН
+-- =====================================================
+-- ALTER TABLE bookings DROP CONSTRAINT IF EXISTS ex_bookings_account_time_overlap;
@@ -0,0 +1,22 @@
+-- V9__add_outbox_replay_index.sql
+-- Девятая миграция: индекс для догона in-memory индексов после рестарта
+-- Автор: Booking Team
+-- Дата: 2024
+
+-- =====================================================
+-- 1. ИНДЕКС ПО created_at В OUTBOX
+-- =====================================================
+-- После загрузки снимка узел дочитывает только записи, по которым с его
+-- high-water mark было доменное событие (BookingRepository.streamIntervalsChangedSince).
+-- Позиция берется из outbox, а не из bookings.updated_at: триггер
+-- update_bookings_updated_at переписывает updated_at при каждом UPDATE, и индекс
+-- по нему лишал бы HOT-обновления (BookingUpdateBenchmarkTests) все записи bookings.
+-- created_at в outbox_events не меняется после вставки: индекс не добавляет
+-- не-HOT обновлений (claimed_until, retry_count) в polling-режиме.
+-- Для outbox_dead_letter индекс по created_at уже есть (V4).
+CREATE INDEX idx_outbox_aggregate_created_at ON outbox_events(aggregate_type, created_at);
+
+-- =====================================================
+-- ROLLBACK ПЛАН
+-- =====================================================
+-- DROP INDEX IF EXISTS idx_outbox_aggregate_created_at;
@@ -6,15 +6,22 @@ import org.springframework.context.annotation.Bean;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.images.builder.Transferable;
 import org.testcontainers.utility.DockerImageName;
 
 @TestConfiguration(proxyBeanMethods = false)
-class TestcontainersConfiguration {
+public class TestcontainersConfiguration {
 
     @Bean
     @ServiceConnection
     PostgreSQLContainer<?> postgresContainer() {
-        return new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+        // wal_level=logical и replication-подключения с хоста нужны для CDC-режима outbox
+        // (booking.outbox.mode=cdc): pg_hba.conf образа пускает replication только с localhost
+        return new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"))
+                .withCommand("postgres", "-c", "wal_level=logical")
+                .withCopyToContainer(Transferable.of(
+                        "echo 'host replication all all scram-sha-256' >> \"$PGDATA/pg_hba.conf\"\n", 0755),
+                        "/docker-entrypoint-initdb.d/replication-hba.sh");
     }
 
     @Bean
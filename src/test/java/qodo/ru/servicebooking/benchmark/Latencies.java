@@ -0,0 +1,47 @@
+package qodo.ru.servicebooking.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержки операций замера (@Tag("benchmark")): запись из многих потоков, перцентили в отчете.
+ */
+public final class Latencies {
+
+    private long[] samples = new long[1024];
+    private int count;
+
+    public synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * Перцентиль в микросекундах, p - от 0 до 100.
+     */
+    public synchronized double percentileMicros(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(count - 1, Math.ceil(p / 100 * count) - 1);
+        return sorted[Math.max(0, index)] / 1_000.0;
+    }
+
+    /**
+     * Строка отчета: число операций, пропускная способность за elapsedNanos, p50/p99/max.
+     */
+    public String summary(String name, long elapsedNanos) {
+        int n = count();
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        return String.format("%-40s ops=%8d  ops/s=%10.1f  p50=%9.1fus  p99=%9.1fus  max=%9.1fus",
+                name, n, n / seconds, percentileMicros(50), percentileMicros(99), percentileMicros(100));
+    }
+}
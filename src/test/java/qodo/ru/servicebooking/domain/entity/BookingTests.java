@@ -0,0 +1,126 @@
+package qodo.ru.servicebooking.domain.entity;
+
+import org.junit.jupiter.api.Test;
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+import qodo.ru.servicebooking.domain.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static qodo.ru.servicebooking.domain.entity.Booking.DirtyField.CANCELLED_AT;
+import static qodo.ru.servicebooking.domain.entity.Booking.DirtyField.CONFIRMED_AT;
+import static qodo.ru.servicebooking.domain.entity.Booking.DirtyField.INTERNAL_NOTES;
+import static qodo.ru.servicebooking.domain.entity.Booking.DirtyField.METADATA;
+import static qodo.ru.servicebooking.domain.entity.Booking.DirtyField.PAYMENT_STATUS;
+import static qodo.ru.servicebooking.domain.entity.Booking.DirtyField.STATUS;
+
+class BookingTests {
+
+    @Test
+    void builtBookingHasNoDirtyFields() {
+        Booking booking = newBooking();
+
+        assertThat(booking.hasDirtyFields()).isFalse();
+        assertThat(booking.getDirtyFields()).isEmpty();
+        assertThat(booking.toBuilder().build().hasDirtyFields()).isFalse();
+    }
+
+    @Test
+    void confirmMarksStatusAndConfirmedAt() {
+        Booking booking = newBooking();
+
+        booking.confirm();
+
+        assertThat(booking.getDirtyFields()).containsExactlyInAnyOrder(STATUS, CONFIRMED_AT);
+        assertThat(booking.getVersion()).isZero();
+    }
+
+    @Test
+    void cancelMarksInternalNotesOnlyWithReason() {
+        Booking withoutReason = newBooking();
+        withoutReason.cancel(null);
+
+        Booking withReason = newBooking();
+        withReason.cancel("клиент заболел");
+
+        assertThat(withoutReason.getDirtyFields()).containsExactlyInAnyOrder(STATUS, CANCELLED_AT);
+        assertThat(withReason.getDirtyFields()).containsExactlyInAnyOrder(STATUS, CANCELLED_AT, INTERNAL_NOTES);
+        assertThat(withReason.getInternalNotes()).isEqualTo("Cancelled: клиент заболел");
+    }
+
+    @Test
+    void addMetadataMarksMetadataAndCopiesImmutableMap() {
+        Booking booking = newBooking().toBuilder().metadata(Map.of("utm", "test")).build();
+
+        booking.addMetadata("promo", "SUMMER");
+
+        assertThat(booking.getDirtyFields()).containsExactly(METADATA);
+        assertThat(booking.getMetadata()).containsEntry("utm", "test").containsEntry("promo", "SUMMER");
+    }
+
+    @Test
+    void metadataIsReadOnlyOutsideTrackedMethods() {
+        Booking booking = newBooking();
+
+        assertThatThrownBy(() -> booking.getMetadata().put("utm", "direct"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(booking.hasDirtyFields()).isFalse();
+    }
+
+    @Test
+    void clearDirtyFieldsResetsMask() {
+        Booking booking = newBooking();
+        booking.confirm();
+        booking.updatePaymentStatus(PaymentStatus.PAID);
+        assertThat(booking.getDirtyFields()).contains(PAYMENT_STATUS);
+
+        booking.clearDirtyFields();
+
+        assertThat(booking.hasDirtyFields()).isFalse();
+        assertThat(booking.isDirty(STATUS)).isFalse();
+        assertThat(booking.getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+    }
+
+    @Test
+    void firstChangeKeepsPersistedState() {
+        Booking booking = newBooking();
+        assertThat(booking.getPersistedState()).isNull();
+
+        booking.confirm();
+        booking.updatePaymentStatus(PaymentStatus.PAID);
+
+        Booking before = booking.getPersistedState();
+        assertThat(before.getStatus()).isEqualTo(BookingStatus.CREATED);
+        assertThat(before.getConfirmedAt()).isNull();
+        assertThat(before.getPaymentStatus()).isEqualTo(PaymentStatus.UNPAID);
+
+        booking.clearDirtyFields();
+        assertThat(booking.getPersistedState()).isNull();
+    }
+
+    @Test
+    void rejectedTransitionLeavesMaskUntouched() {
+        Booking booking = newBooking();
+
+        assertThatThrownBy(booking::complete).isInstanceOf(IllegalStateException.class);
+
+        assertThat(booking.hasDirtyFields()).isFalse();
+    }
+
+    private static Booking newBooking() {
+        return Booking.builder()
+                .id(UUID.randomUUID())
+                .accountId(UUID.randomUUID())
+                .slotId(UUID.randomUUID())
+                .clientUserId(UUID.randomUUID())
+                .serviceId(UUID.randomUUID())
+                .price(new BigDecimal("1500.00"))
+                .durationMinutes(60)
+                .scheduledAt(LocalDateTime.of(2024, 6, 3, 10, 0))
+                .build();
+    }
+}
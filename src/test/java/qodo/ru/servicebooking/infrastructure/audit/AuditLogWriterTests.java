@@ -0,0 +1,156 @@
+package qodo.ru.servicebooking.infrastructure.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.domain.valueobjects.BookingAuditLog;
+import qodo.ru.servicebooking.domain.valueobjects.BookingAuditLog.AuditAction;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * COPY-запись аудита на реальном Postgres. Writer'ы создаются в тесте со своими
+ * настройками; writer контекста выключен, чтобы не писать в ту же таблицу.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+        "booking.outbox.enabled=false",
+        "booking.audit.enabled=false"
+})
+class AuditLogWriterTests {
+
+    @Autowired
+    private JdbcConnectionDetails connectionDetails;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<AuditLogWriter> writers = new ArrayList<>();
+
+    @AfterEach
+    void stopWriters() {
+        writers.forEach(AuditLogWriter::stop);
+    }
+
+    @Test
+    void copyEscapesTabsNewlinesAndBackslashes() {
+        AuditLogWriter writer = start(audit -> audit.setDurability("sync"));
+        UUID bookingId = UUID.randomUUID();
+        String notes = "строка 1\tтаб\nстрока 2\\конец\r";
+
+        writer.append(entry(bookingId)
+                .newValues(Map.of("notes", notes))
+                .oldValuesJson("{\"notes\": \"c:\\\\path\\t\"}")
+                .userAgent("agent\twith\ttabs\nand \\N inside")
+                .build());
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT new_values->>'notes' AS notes, old_values->>'notes' AS old_notes, user_agent "
+                        + "FROM booking_audit_log WHERE booking_id = ?", bookingId);
+        assertThat(row.get("notes")).isEqualTo(notes);
+        assertThat(row.get("old_notes")).isEqualTo("c:\\path\t");
+        assertThat(row.get("user_agent")).isEqualTo("agent\twith\ttabs\nand \\N inside");
+    }
+
+    @Test
+    void syncAppendReturnsAfterCommit() {
+        AuditLogWriter writer = start(audit -> audit.setDurability("sync"));
+        UUID bookingId = UUID.randomUUID();
+
+        writer.append(entry(bookingId).build());
+
+        // Без ожидания: sync append() возвращается только после коммита COPY
+        assertThat(countRows(bookingId)).isEqualTo(1);
+    }
+
+    @Test
+    void badRowsAreRejectedOneByOneAndRestOfBatchIsWritten() {
+        // Пачка закрывается по размеру: все четыре записи гарантированно в одном COPY
+        AuditLogWriter writer = start(audit -> {
+            audit.setBatchSize(4);
+            audit.setFlushIntervalMs(5_000);
+        });
+        UUID first = UUID.randomUUID();
+        UUID last = UUID.randomUUID();
+
+        writer.append(entry(first).build());
+        writer.append(entry(UUID.randomUUID()).ipAddress("not-an-ip").build()); // 22P02
+        writer.append(entry(null).build());                                      // 23502, booking_id NOT NULL
+        writer.append(entry(last).build());
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            assertThat(meterRegistry.get("booking.audit.rejected").counter().count()).isEqualTo(2);
+            assertThat(meterRegistry.get("booking.audit.written").counter().count()).isEqualTo(2);
+        });
+        assertThat(countRows(first)).isEqualTo(1);
+        assertThat(countRows(last)).isEqualTo(1);
+    }
+
+    @Test
+    void syncAppendOfRejectedRowThrows() {
+        AuditLogWriter writer = start(audit -> audit.setDurability("sync"));
+
+        assertThatThrownBy(() -> writer.append(entry(UUID.randomUUID()).ipAddress("not-an-ip").build()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Failed to write audit record");
+    }
+
+    @Test
+    void stopDrainsQueue() {
+        // Пять пачек: в момент остановки большая часть записей еще в очереди
+        AuditLogWriter writer = start(audit -> audit.setBatchSize(100));
+        UUID bookingId = UUID.randomUUID();
+        for (int i = 0; i < 500; i++) {
+            writer.append(entry(bookingId).build());
+        }
+
+        writer.stop();
+
+        assertThat(countRows(bookingId)).isEqualTo(500);
+        assertThatThrownBy(() -> writer.append(entry(bookingId).build()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private AuditLogWriter start(Consumer<BookingProperties.Audit> settings) {
+        BookingProperties properties = new BookingProperties();
+        settings.accept(properties.getAudit());
+        AuditLogWriter writer = new AuditLogWriter(connectionDetails, objectMapper, properties, meterRegistry);
+        writer.start();
+        writers.add(writer);
+        return writer;
+    }
+
+    private int countRows(UUID bookingId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM booking_audit_log WHERE booking_id = ?", Integer.class, bookingId);
+        return count != null ? count : 0;
+    }
+
+    private static BookingAuditLog.BookingAuditLogBuilder entry(UUID bookingId) {
+        return BookingAuditLog.builder()
+                .bookingId(bookingId)
+                .action(AuditAction.UPDATE)
+                .newValues(Map.of("status", "confirmed"));
+    }
+}
@@ -0,0 +1,91 @@
+package qodo.ru.servicebooking.infrastructure.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import qodo.ru.servicebooking.domain.entity.Booking;
+import qodo.ru.servicebooking.domain.enums.BookingSource;
+import qodo.ru.servicebooking.domain.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingDiffTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final BookingDiff bookingDiff = new BookingDiff(objectMapper);
+
+    @Test
+    void writesOnlyChangedFields() throws Exception {
+        Booking before = newBooking();
+        Booking after = BookingDiff.snapshot(before);
+        after.confirm();
+
+        BookingDiff.Changes changes = bookingDiff.diff(before, after);
+
+        JsonNode oldValues = objectMapper.readTree(changes.oldValues());
+        JsonNode newValues = objectMapper.readTree(changes.newValues());
+        assertThat(changes.changedFields()).isEqualTo(2);
+        assertThat(newValues.has("confirmedAt")).isTrue();
+        assertThat(oldValues.get("confirmedAt").isNull()).isTrue();
+        assertThat(newValues.has("notes")).isFalse();
+    }
+
+    @Test
+    void enumsAreWrittenAsDatabaseValues() throws Exception {
+        Booking before = newBooking();
+        Booking after = BookingDiff.snapshot(before);
+        after.confirm();
+        after.updatePaymentStatus(PaymentStatus.PAID);
+        after.setSource(BookingSource.ADMIN);
+
+        BookingDiff.Changes changes = bookingDiff.diff(before, after);
+
+        JsonNode oldValues = objectMapper.readTree(changes.oldValues());
+        JsonNode newValues = objectMapper.readTree(changes.newValues());
+        assertThat(oldValues.get("status").asText()).isEqualTo("created");
+        assertThat(newValues.get("status").asText()).isEqualTo("confirmed");
+        assertThat(oldValues.get("paymentStatus").asText()).isEqualTo("unpaid");
+        assertThat(newValues.get("paymentStatus").asText()).isEqualTo("paid");
+        assertThat(oldValues.get("source").asText()).isEqualTo("telegram");
+        assertThat(newValues.get("source").asText()).isEqualTo("admin");
+    }
+
+    @Test
+    void equalPricesWithDifferentScaleAreNotChanges() {
+        Booking before = newBooking();
+        Booking after = BookingDiff.snapshot(before);
+        after.setPrice(new BigDecimal("1500.0"));
+
+        assertThat(bookingDiff.diff(before, after).isEmpty()).isTrue();
+    }
+
+    @Test
+    void creationHasNoOldSide() throws Exception {
+        BookingDiff.Changes changes = bookingDiff.diff(null, newBooking());
+
+        assertThat(changes.oldValues()).isNull();
+        assertThat(objectMapper.readTree(changes.newValues()).get("status").asText()).isEqualTo("created");
+    }
+
+    private static Booking newBooking() {
+        return Booking.builder()
+                .id(UUID.randomUUID())
+                .accountId(UUID.randomUUID())
+                .slotId(UUID.randomUUID())
+                .clientUserId(UUID.randomUUID())
+                .serviceId(UUID.randomUUID())
+                .price(new BigDecimal("1500.00"))
+                .durationMinutes(60)
+                .scheduledAt(LocalDateTime.of(2024, 6, 3, 10, 0))
+                .notes("первый визит")
+                .metadata(Map.of("utm", "test"))
+                .build();
+    }
+}
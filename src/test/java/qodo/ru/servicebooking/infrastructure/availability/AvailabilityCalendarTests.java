@@ -0,0 +1,262 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvailabilityCalendarTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 3);
+    private static final int HORIZON_DAYS = 3;
+
+    @Test
+    void paddingBitsAreNeverReportedAsFree() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+
+        List<LocalDateTime> windows = calendar.findFreeWindows(
+                TODAY, at(TODAY, 0, 0), at(TODAY.plusDays(2), 0, 0), 5, 10_000);
+
+        // 288 пятиминуток в сутках; паддинг (биты 288..319) дал бы повторы 00:00 следующих суток
+        assertThat(windows).hasSize(2 * AvailabilityCalendar.SLOTS_PER_DAY).doesNotHaveDuplicates();
+        assertThat(windows.get(AvailabilityCalendar.SLOTS_PER_DAY - 1)).isEqualTo(at(TODAY, 23, 55));
+        assertThat(windows.get(AvailabilityCalendar.SLOTS_PER_DAY)).isEqualTo(at(TODAY.plusDays(1), 0, 0));
+    }
+
+    @Test
+    void windowsDoNotCrossMidnight() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+        LocalDateTime from = at(TODAY, 23, 0);
+        LocalDateTime to = at(TODAY.plusDays(1), 1, 0);
+
+        assertThat(calendar.findFreeWindows(TODAY, from, to, 60, 10))
+                .containsExactly(at(TODAY, 23, 0), at(TODAY.plusDays(1), 0, 0));
+        assertThat(calendar.findFreeWindows(TODAY, from, to, 120, 10)).isEmpty();
+    }
+
+    @Test
+    void bookingAcrossMidnightIsMarkedInBothDays() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+        calendar.mark(TODAY, at(TODAY, 23, 0), at(TODAY.plusDays(1), 1, 0), true);
+
+        assertThat(calendar.findFreeWindows(TODAY, at(TODAY, 22, 0), at(TODAY.plusDays(1), 2, 0), 60, 10))
+                .containsExactly(at(TODAY, 22, 0), at(TODAY.plusDays(1), 1, 0));
+    }
+
+    @Test
+    void unalignedBookingOccupiesEveryTouchedSlotAndReleasesOnlyCoveredOnes() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+        LocalDateTime from = at(TODAY, 10, 0);
+        LocalDateTime to = at(TODAY, 11, 0);
+
+        calendar.mark(TODAY, at(TODAY, 10, 2), at(TODAY, 10, 58), true);
+        assertThat(calendar.findFreeWindows(TODAY, from, to, 5, 100)).isEmpty();
+
+        // Крайние пятиминутки 10:00 и 10:55 могли делить время с соседней записью - остаются занятыми
+        calendar.mark(TODAY, at(TODAY, 10, 2), at(TODAY, 10, 58), false);
+        assertThat(calendar.findFreeWindows(TODAY, from, to, 5, 100))
+                .containsExactlyElementsOf(every5Minutes(at(TODAY, 10, 5), at(TODAY, 10, 55)));
+    }
+
+    @Test
+    void releaseKeepsSlotSharedWithNeighbour() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+        calendar.mark(TODAY, at(TODAY, 10, 0), at(TODAY, 10, 32), true);
+        calendar.mark(TODAY, at(TODAY, 10, 32), at(TODAY, 11, 0), true);
+
+        calendar.mark(TODAY, at(TODAY, 10, 0), at(TODAY, 10, 32), false);
+
+        assertThat(calendar.findFreeWindows(TODAY, at(TODAY, 10, 0), at(TODAY, 11, 0), 5, 100))
+                .containsExactlyElementsOf(every5Minutes(at(TODAY, 10, 0), at(TODAY, 10, 30)));
+    }
+
+    @Test
+    void releaseClearsEdgeSlotsThatNobodyElseOccupies() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+        calendar.mark(TODAY, at(TODAY, 10, 2), at(TODAY, 10, 58), true);
+        List<LocalDateTime> checked = new ArrayList<>();
+
+        calendar.release(TODAY, at(TODAY, 10, 2), at(TODAY, 10, 58), (from, to) -> {
+            checked.add(from);
+            return from.equals(at(TODAY, 10, 55));
+        });
+
+        assertThat(checked).containsExactly(at(TODAY, 10, 0), at(TODAY, 10, 55));
+        assertThat(calendar.findFreeWindows(TODAY, at(TODAY, 10, 0), at(TODAY, 11, 0), 5, 100))
+                .containsExactlyElementsOf(every5Minutes(at(TODAY, 10, 0), at(TODAY, 10, 55)));
+    }
+
+    @Test
+    void releaseInsideOneSlotChecksItOnce() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+        calendar.mark(TODAY, at(TODAY, 10, 1), at(TODAY, 10, 3), true);
+        List<LocalDateTime> checked = new ArrayList<>();
+
+        calendar.release(TODAY, at(TODAY, 10, 1), at(TODAY, 10, 3), (from, to) -> {
+            checked.add(from);
+            return false;
+        });
+
+        assertThat(checked).containsExactly(at(TODAY, 10, 0));
+        assertThat(calendar.findFreeWindows(TODAY, at(TODAY, 10, 0), at(TODAY, 10, 5), 5, 1))
+                .containsExactly(at(TODAY, 10, 0));
+    }
+
+    @Test
+    void searchBoundsAreRoundedInward() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+
+        assertThat(calendar.findFreeWindows(TODAY, at(TODAY, 10, 3), at(TODAY, 10, 58), 5, 100))
+                .containsExactlyElementsOf(every5Minutes(at(TODAY, 10, 5), at(TODAY, 10, 55)));
+    }
+
+    @Test
+    void windowsGoBackToBackWithinFreeRun() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+        calendar.mark(TODAY, at(TODAY, 10, 0), at(TODAY, 10, 30), true);
+
+        assertThat(calendar.findFreeWindows(TODAY, at(TODAY, 9, 0), at(TODAY, 11, 30), 20, 10))
+                .containsExactly(
+                        at(TODAY, 9, 0), at(TODAY, 9, 20), at(TODAY, 9, 40),
+                        at(TODAY, 10, 30), at(TODAY, 10, 50), at(TODAY, 11, 10));
+        assertThat(calendar.findFreeWindows(TODAY, at(TODAY, 9, 0), at(TODAY, 11, 30), 20, 2))
+                .containsExactly(at(TODAY, 9, 0), at(TODAY, 9, 20));
+    }
+
+    @Test
+    void wordBoundaryInsideDayIsTransparent() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+        // Бит 64 - 05:20: свободный отрезок 05:00-05:40 лежит в двух словах
+        calendar.mark(TODAY, at(TODAY, 0, 0), at(TODAY, 5, 0), true);
+        calendar.mark(TODAY, at(TODAY, 5, 40), at(TODAY, 23, 0), true);
+
+        assertThat(calendar.findFreeWindows(TODAY, at(TODAY, 0, 0), at(TODAY, 23, 0), 40, 10))
+                .containsExactly(at(TODAY, 5, 0));
+        assertThat(calendar.findFreeWindows(TODAY, at(TODAY, 0, 0), at(TODAY, 23, 0), 45, 10)).isEmpty();
+    }
+
+    @Test
+    void rollDropsPastDaysAndAppendsFreeOnes() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, 2);
+        calendar.mark(TODAY, at(TODAY, 0, 0), at(TODAY.plusDays(2), 0, 0), true);
+
+        LocalDate tomorrow = TODAY.plusDays(1);
+        // Поиск с новым today сдвигает горизонт: вчерашние сутки ушли, завтрашние сохранили занятость
+        assertThat(calendar.findFreeWindows(tomorrow, at(TODAY, 0, 0), at(TODAY, 23, 0), 60, 10)).isEmpty();
+        assertThat(calendar.findFreeWindows(tomorrow, at(tomorrow, 0, 0), at(tomorrow.plusDays(1), 0, 0), 60, 10))
+                .isEmpty();
+
+        // Добавленные в конец сутки свободны целиком, паддинг на месте
+        LocalDate appended = tomorrow.plusDays(1);
+        assertThat(calendar.findFreeWindows(tomorrow, at(appended, 0, 0), at(appended.plusDays(1), 0, 0), 5, 10_000))
+                .hasSize(AvailabilityCalendar.SLOTS_PER_DAY);
+    }
+
+    @Test
+    void rollPastWholeHorizonClearsEverything() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+        calendar.mark(TODAY, at(TODAY, 0, 0), at(TODAY.plusDays(HORIZON_DAYS), 0, 0), true);
+
+        LocalDate later = TODAY.plusDays(10);
+        calendar.mark(later, at(later, 10, 0), at(later, 11, 0), true);
+
+        List<LocalDateTime> windows = calendar.findFreeWindows(
+                later, at(later, 0, 0), at(later.plusDays(HORIZON_DAYS), 0, 0), 60, 100);
+        assertThat(windows).hasSize(HORIZON_DAYS * 24 - 1).doesNotContain(at(later, 10, 0));
+    }
+
+    @Test
+    void marksOutsideHorizonAreIgnored() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+        LocalDate beyond = TODAY.plusDays(HORIZON_DAYS);
+
+        calendar.mark(TODAY, at(TODAY.minusDays(1), 10, 0), at(TODAY.minusDays(1), 11, 0), true);
+        calendar.mark(TODAY, at(beyond, 10, 0), at(beyond, 11, 0), true);
+
+        assertThat(calendar.findFreeWindows(TODAY, at(TODAY, 0, 0), at(beyond.plusDays(1), 0, 0), 60, 1_000))
+                .hasSize(HORIZON_DAYS * 24);
+    }
+
+    @Test
+    void matchesBruteForceOnRandomAlignedBookings() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            AvailabilityCalendar calendar = new AvailabilityCalendar(TODAY, HORIZON_DAYS);
+            boolean[] busy = new boolean[HORIZON_DAYS * AvailabilityCalendar.SLOTS_PER_DAY];
+
+            // Записи одного мастера не пересекаются (ex_bookings_account_time_overlap)
+            int slot = random.nextInt(24);
+            while (slot < busy.length) {
+                int length = 1 + random.nextInt(36);
+                int end = Math.min(busy.length, slot + length);
+                boolean active = random.nextInt(4) != 0;
+                calendar.mark(TODAY, slotTime(slot), slotTime(end), true);
+                if (active) {
+                    Arrays.fill(busy, slot, end, true);
+                } else {
+                    calendar.mark(TODAY, slotTime(slot), slotTime(end), false);
+                }
+                slot = end + random.nextInt(24);
+            }
+
+            int from = random.nextInt(busy.length);
+            int to = from + random.nextInt(busy.length - from + 1);
+            int durationMinutes = AvailabilityCalendar.SLOT_MINUTES * (1 + random.nextInt(48));
+            int limit = 1 + random.nextInt(50);
+
+            assertThat(calendar.findFreeWindows(TODAY, slotTime(from), slotTime(to), durationMinutes, limit))
+                    .as("round %d", round)
+                    .isEqualTo(bruteForce(busy, from, to, durationMinutes / AvailabilityCalendar.SLOT_MINUTES, limit));
+        }
+    }
+
+    /**
+     * Окна встык внутри свободных отрезков, отрезок не переходит через полночь.
+     */
+    private static List<LocalDateTime> bruteForce(boolean[] busy, int from, int to, int length, int limit) {
+        List<LocalDateTime> windows = new ArrayList<>();
+        int slot = from;
+        while (slot < to && windows.size() < limit) {
+            if (busy[slot]) {
+                slot++;
+                continue;
+            }
+            int dayEnd = (slot / AvailabilityCalendar.SLOTS_PER_DAY + 1) * AvailabilityCalendar.SLOTS_PER_DAY;
+            int runEnd = slot;
+            while (runEnd < Math.min(to, dayEnd) && !busy[runEnd]) {
+                runEnd++;
+            }
+            for (int start = slot; start + length <= runEnd && windows.size() < limit; start += length) {
+                windows.add(slotTime(start));
+            }
+            slot = runEnd;
+        }
+        return windows;
+    }
+
+    private static LocalDateTime slotTime(int slot) {
+        return TODAY.atStartOfDay().plusMinutes((long) slot * AvailabilityCalendar.SLOT_MINUTES);
+    }
+
+    private static LocalDateTime at(LocalDate day, int hour, int minute) {
+        return day.atTime(LocalTime.of(hour, minute));
+    }
+
+    /**
+     * Начала пятиминутных окон в [from, to).
+     */
+    private static List<LocalDateTime> every5Minutes(LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (LocalDateTime start = from; start.isBefore(to); start = start.plusMinutes(5)) {
+            starts.add(start);
+        }
+        return starts;
+    }
+}
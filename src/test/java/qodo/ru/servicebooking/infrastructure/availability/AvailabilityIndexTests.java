@@ -0,0 +1,119 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+import qodo.ru.servicebooking.domain.valueobjects.TimeSlot;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.BookingInterval;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.IntervalsChanged;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvailabilityIndexTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID accountId = UUID.randomUUID();
+    private final LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+    private BookingOverlapIndex overlapIndex;
+    private AvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        BookingProperties properties = new BookingProperties();
+        properties.getAvailability().setHorizonDays(7);
+        overlapIndex = new BookingOverlapIndex(meterRegistry);
+        index = new AvailabilityIndex(properties, overlapIndex, meterRegistry);
+    }
+
+    @Test
+    void unknownMasterIsFreeAndNotIndexed() {
+        assertThat(index.findFreeWindows(accountId, tomorrow.atTime(10, 0), tomorrow.atTime(12, 0), 60, 10))
+                .containsExactly(slot(tomorrow.atTime(10, 0), 60), slot(tomorrow.atTime(11, 0), 60));
+        assertThat(indexedMasters()).isZero();
+    }
+
+    @Test
+    void activationAndReleaseUpdateFreeWindows() {
+        BookingInterval interval = interval(tomorrow.atTime(10, 0), 60);
+
+        index.onIntervalsChanged(IntervalsChanged.activated(List.of(interval)));
+        assertThat(index.findFreeWindows(accountId, tomorrow.atTime(9, 0), tomorrow.atTime(12, 0), 60, 10))
+                .containsExactly(slot(tomorrow.atTime(9, 0), 60), slot(tomorrow.atTime(11, 0), 60));
+
+        index.onIntervalsChanged(IntervalsChanged.released(List.of(interval)));
+        assertThat(index.findFreeWindows(accountId, tomorrow.atTime(9, 0), tomorrow.atTime(12, 0), 60, 10))
+                .containsExactly(
+                        slot(tomorrow.atTime(9, 0), 60),
+                        slot(tomorrow.atTime(10, 0), 60),
+                        slot(tomorrow.atTime(11, 0), 60));
+        assertThat(indexedMasters()).isEqualTo(1);
+    }
+
+    @Test
+    void releaseFreesUnalignedEdgesNotSharedWithActiveBooking() {
+        BookingInterval cancelled = interval(tomorrow.atTime(10, 2), 56);
+        BookingInterval neighbour = interval(tomorrow.atTime(10, 58), 32);
+        apply(IntervalsChanged.activated(List.of(cancelled, neighbour)));
+
+        apply(IntervalsChanged.released(List.of(cancelled)));
+
+        // 10:00 больше никем не занята; 10:55 делит с соседней записью, которая начинается в 10:58
+        assertThat(index.findFreeWindows(accountId, tomorrow.atTime(10, 0), tomorrow.atTime(11, 0), 5, 100))
+                .hasSize(11)
+                .startsWith(slot(tomorrow.atTime(10, 0), 5))
+                .endsWith(slot(tomorrow.atTime(10, 50), 5));
+
+        apply(IntervalsChanged.released(List.of(neighbour)));
+        assertThat(index.findFreeWindows(accountId, tomorrow.atTime(10, 0), tomorrow.atTime(12, 0), 120, 10))
+                .containsExactly(slot(tomorrow.atTime(10, 0), 120));
+    }
+
+    @Test
+    void pastIntervalsAndReleasesOfUnknownMastersAreIgnored() {
+        LocalDateTime yesterday = LocalDate.now().minusDays(1).atTime(10, 0);
+
+        index.onIntervalsChanged(IntervalsChanged.activated(List.of(interval(yesterday, 60))));
+        index.onIntervalsChanged(IntervalsChanged.released(List.of(interval(tomorrow.atTime(10, 0), 60))));
+
+        assertThat(indexedMasters()).isZero();
+    }
+
+    @Test
+    void invalidRequestsReturnNothing() {
+        LocalDateTime from = tomorrow.atTime(10, 0);
+        LocalDateTime to = tomorrow.atTime(12, 0);
+
+        assertThat(index.findFreeWindows(accountId, from, to, 60, 0)).isEmpty();
+        assertThat(index.findFreeWindows(accountId, from, to, 0, 10)).isEmpty();
+        assertThat(index.findFreeWindows(accountId, to, from, 60, 10)).isEmpty();
+    }
+
+    /**
+     * Порядок как у слушателей: индекс пересечений раньше индекса свободного времени.
+     */
+    private void apply(IntervalsChanged event) {
+        overlapIndex.onIntervalsChanged(event);
+        index.onIntervalsChanged(event);
+    }
+
+    private double indexedMasters() {
+        return meterRegistry.get("booking.availability.masters").gauge().value();
+    }
+
+    private BookingInterval interval(LocalDateTime scheduledAt, int durationMinutes) {
+        return new BookingInterval(UUID.randomUUID(), accountId, UUID.randomUUID(),
+                scheduledAt, durationMinutes, BookingStatus.CONFIRMED, 1);
+    }
+
+    private static TimeSlot slot(LocalDateTime start, int durationMinutes) {
+        return TimeSlot.of(start, durationMinutes);
+    }
+}
@@ -0,0 +1,147 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.BookingInterval;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexSnapshotFileTests {
+
+    private static final int HEADER_SIZE = 48;
+    private static final LocalDateTime HIGH_WATER_MARK = LocalDateTime.of(2024, 5, 20, 9, 30, 15);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripKeepsIntervalsAndHighWaterMark() throws IOException {
+        Path path = dir.resolve("index/snapshot.bin");
+        List<BookingInterval> intervals = intervals(1_000);
+
+        IndexSnapshotFile.write(path, HIGH_WATER_MARK, intervals);
+
+        List<BookingInterval> read = new ArrayList<>();
+        assertThat(IndexSnapshotFile.read(path, read::add)).contains(HIGH_WATER_MARK);
+        assertThat(read).isEqualTo(intervals);
+        assertThat(Files.exists(path.resolveSibling("snapshot.bin.tmp"))).isFalse();
+    }
+
+    @Test
+    void emptySnapshotIsValid() throws IOException {
+        Path path = dir.resolve("snapshot.bin");
+
+        IndexSnapshotFile.write(path, HIGH_WATER_MARK, List.of());
+
+        List<BookingInterval> read = new ArrayList<>();
+        assertThat(IndexSnapshotFile.read(path, read::add)).contains(HIGH_WATER_MARK);
+        assertThat(read).isEmpty();
+    }
+
+    @Test
+    void rewriteReplacesPreviousSnapshot() throws IOException {
+        Path path = dir.resolve("snapshot.bin");
+        IndexSnapshotFile.write(path, HIGH_WATER_MARK, intervals(10));
+        List<BookingInterval> second = intervals(3);
+
+        IndexSnapshotFile.write(path, HIGH_WATER_MARK.plusMinutes(5), second);
+
+        List<BookingInterval> read = new ArrayList<>();
+        assertThat(IndexSnapshotFile.read(path, read::add)).contains(HIGH_WATER_MARK.plusMinutes(5));
+        assertThat(read).isEqualTo(second);
+    }
+
+    @Test
+    void corruptedRecordIsRejected() throws IOException {
+        Path path = dir.resolve("snapshot.bin");
+        IndexSnapshotFile.write(path, HIGH_WATER_MARK, intervals(100));
+
+        flipByte(path, HEADER_SIZE + 72 * 50 + 20);
+
+        assertRejected(path);
+    }
+
+    @Test
+    void corruptedHighWaterMarkIsRejected() throws IOException {
+        Path path = dir.resolve("snapshot.bin");
+        IndexSnapshotFile.write(path, HIGH_WATER_MARK, intervals(100));
+
+        flipByte(path, 24);
+
+        assertRejected(path);
+    }
+
+    @Test
+    void corruptedChecksumIsRejected() throws IOException {
+        Path path = dir.resolve("snapshot.bin");
+        IndexSnapshotFile.write(path, HIGH_WATER_MARK, intervals(100));
+
+        flipByte(path, 40);
+
+        assertRejected(path);
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path path = dir.resolve("snapshot.bin");
+        IndexSnapshotFile.write(path, HIGH_WATER_MARK, intervals(100));
+
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        assertRejected(path);
+    }
+
+    @Test
+    void missingOrTinyFileIsRejected() throws IOException {
+        assertRejected(dir.resolve("missing.bin"));
+
+        Path tiny = dir.resolve("tiny.bin");
+        Files.write(tiny, new byte[10]);
+        assertRejected(tiny);
+    }
+
+    private static void assertRejected(Path path) throws IOException {
+        List<BookingInterval> read = new ArrayList<>();
+        Optional<LocalDateTime> highWaterMark = IndexSnapshotFile.read(path, read::add);
+        assertThat(highWaterMark).isEmpty();
+        assertThat(read).isEmpty();
+    }
+
+    private static void flipByte(Path path, long offset) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(offset);
+            int value = file.read();
+            file.seek(offset);
+            file.write(value ^ 0xFF);
+        }
+    }
+
+    private static List<BookingInterval> intervals(int count) {
+        BookingStatus[] statuses = {BookingStatus.CREATED, BookingStatus.CONFIRMED};
+        List<BookingInterval> intervals = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            intervals.add(new BookingInterval(
+                    UUID.randomUUID(),
+                    UUID.randomUUID(),
+                    UUID.randomUUID(),
+                    HIGH_WATER_MARK.plusMinutes(5L * i),
+                    30 + i % 90,
+                    statuses[i % statuses.length],
+                    i % 7));
+        }
+        return intervals;
+    }
+}
@@ -0,0 +1,131 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import org.junit.jupiter.api.Test;
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository.BookingInterval;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntervalTreeTests {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 6, 3, 0, 0);
+    private static final UUID ACCOUNT_ID = UUID.randomUUID();
+
+    @Test
+    void overlapIsHalfOpen() {
+        IntervalTree tree = new IntervalTree();
+        BookingInterval interval = interval(UUID.randomUUID(), BASE.plusHours(10), 60);
+        tree.insert(interval);
+
+        assertThat(overlapping(tree, BASE.plusHours(9), BASE.plusHours(10))).isEmpty();
+        assertThat(overlapping(tree, BASE.plusHours(11), BASE.plusHours(12))).isEmpty();
+        assertThat(overlapping(tree, BASE.plusHours(10).plusMinutes(59), BASE.plusHours(12))).containsExactly(interval);
+        assertThat(overlapping(tree, BASE.plusHours(9), BASE.plusHours(10).plusMinutes(1))).containsExactly(interval);
+    }
+
+    @Test
+    void equalStartsAreOrderedByBookingId() {
+        IntervalTree tree = new IntervalTree();
+        List<BookingInterval> intervals = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            BookingInterval interval = interval(UUID.randomUUID(), BASE.plusHours(10), 30 + i);
+            intervals.add(interval);
+            tree.insert(interval);
+        }
+        intervals.sort(Comparator.comparing(BookingInterval::bookingId));
+
+        assertThat(overlapping(tree, BASE, BASE.plusDays(1))).containsExactlyElementsOf(intervals);
+    }
+
+    @Test
+    void reinsertReplacesInterval() {
+        IntervalTree tree = new IntervalTree();
+        UUID bookingId = UUID.randomUUID();
+        tree.insert(interval(bookingId, BASE.plusHours(10), 60));
+
+        BookingInterval moved = interval(bookingId, BASE.plusHours(15), 30);
+        tree.insert(moved);
+        tree.insert(moved);
+
+        assertThat(tree.size()).isEqualTo(1);
+        assertThat(overlapping(tree, BASE.plusHours(10), BASE.plusHours(11))).isEmpty();
+        assertThat(overlapping(tree, BASE, BASE.plusDays(1))).containsExactly(moved);
+    }
+
+    @Test
+    void removeReportsWhenTreeBecomesEmpty() {
+        IntervalTree tree = new IntervalTree();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        tree.insert(interval(first, BASE.plusHours(10), 60));
+        tree.insert(interval(second, BASE.plusHours(12), 60));
+
+        assertThat(tree.remove(UUID.randomUUID())).isFalse();
+        assertThat(tree.remove(first)).isFalse();
+        assertThat(tree.remove(second)).isTrue();
+        assertThat(tree.remove(second)).isTrue();
+        assertThat(tree.size()).isZero();
+    }
+
+    @Test
+    void matchesBruteForceUnderRandomInsertsAndRemoves() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        Map<UUID, BookingInterval> model = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 5 || ids.isEmpty()) {
+                // Пересекающиеся интервалы допустимы: дерево хранит и отмененные до освобождения записи
+                UUID bookingId = action == 0 && !ids.isEmpty() ? ids.get(random.nextInt(ids.size())) : UUID.randomUUID();
+                BookingInterval interval = interval(bookingId,
+                        BASE.plusMinutes(random.nextInt(7 * 24 * 60)), 1 + random.nextInt(240));
+                if (model.put(bookingId, interval) == null) {
+                    ids.add(bookingId);
+                }
+                tree.insert(interval);
+            } else if (action < 7) {
+                UUID bookingId = ids.remove(random.nextInt(ids.size()));
+                model.remove(bookingId);
+                assertThat(tree.remove(bookingId)).isEqualTo(model.isEmpty());
+            } else {
+                LocalDateTime from = BASE.plusMinutes(random.nextInt(7 * 24 * 60));
+                LocalDateTime to = from.plusMinutes(random.nextInt(12 * 60));
+                assertThat(overlapping(tree, from, to)).as("step %d", step).isEqualTo(bruteForce(model, from, to));
+            }
+        }
+        assertThat(tree.size()).isEqualTo(model.size());
+
+        List<BookingInterval> all = new ArrayList<>();
+        tree.forEach(all::add);
+        assertThat(all).containsExactlyInAnyOrderElementsOf(model.values());
+    }
+
+    private static List<BookingInterval> bruteForce(Map<UUID, BookingInterval> model, LocalDateTime from, LocalDateTime to) {
+        return model.values().stream()
+                .filter(interval -> interval.scheduledAt().isBefore(to) && interval.end().isAfter(from))
+                .sorted(Comparator.comparing(BookingInterval::scheduledAt).thenComparing(BookingInterval::bookingId))
+                .toList();
+    }
+
+    private static List<BookingInterval> overlapping(IntervalTree tree, LocalDateTime from, LocalDateTime to) {
+        List<BookingInterval> result = new ArrayList<>();
+        tree.collectOverlapping(from, to, result);
+        return result;
+    }
+
+    private static BookingInterval interval(UUID bookingId, LocalDateTime scheduledAt, int durationMinutes) {
+        return new BookingInterval(bookingId, ACCOUNT_ID, UUID.randomUUID(), scheduledAt, durationMinutes,
+                BookingStatus.CONFIRMED, 1);
+    }
+}
@@ -0,0 +1,263 @@
+package qodo.ru.servicebooking.infrastructure.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapUuidTableTests {
+
+    private static final int WRITERS = 8;
+    private static final int READERS = 4;
+    private static final int KEYS_PER_WRITER = 2_000;
+    private static final int OPS_PER_WRITER = 200_000;
+
+    @Test
+    void putGetRemoveRoundTrip() {
+        OffHeapUuidTable table = new OffHeapUuidTable(16, 2);
+        UUID key = UUID.randomUUID();
+        long[] values = new long[2];
+
+        assertThat(get(table, key, values)).isFalse();
+
+        put(table, key, 7, 8);
+        assertThat(get(table, key, values)).isTrue();
+        assertThat(values).containsExactly(7, 8);
+
+        put(table, key, 9, 10);
+        assertThat(get(table, key, values)).isTrue();
+        assertThat(values).containsExactly(9, 10);
+        assertThat(table.size()).isEqualTo(1);
+
+        assertThat(remove(table, key, new long[]{7})).isFalse();
+        assertThat(remove(table, key, new long[]{9})).isTrue();
+        assertThat(get(table, key, values)).isFalse();
+        assertThat(remove(table, key, null)).isFalse();
+        assertThat(table.size()).isZero();
+    }
+
+    /**
+     * Писатели работают каждый со своими ключами (порядок операций над ключом известен),
+     * читатели параллельно проверяют все ключи: значения не рваные и версии не идут назад.
+     * Маленькая начальная емкость - десятки перестроений за прогон.
+     */
+    @Test
+    void concurrentOperationsMatchConcurrentHashMapModel() throws Exception {
+        OffHeapUuidTable table = new OffHeapUuidTable(16, 2);
+        Map<UUID, Long> model = new ConcurrentHashMap<>();
+        UUID[][] keys = new UUID[WRITERS][KEYS_PER_WRITER];
+        List<UUID> allKeys = new ArrayList<>();
+        for (UUID[] writerKeys : keys) {
+            for (int i = 0; i < writerKeys.length; i++) {
+                writerKeys[i] = UUID.randomUUID();
+                allKeys.add(writerKeys[i]);
+            }
+        }
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger violations = new AtomicInteger();
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS)) {
+            for (int w = 0; w < WRITERS; w++) {
+                UUID[] writerKeys = keys[w];
+                long seed = w;
+                writers.add(executor.submit(() -> write(table, model, writerKeys, seed, violations)));
+            }
+            for (int r = 0; r < READERS; r++) {
+                readers.add(executor.submit(() -> read(table, allKeys, writing, violations)));
+            }
+            join(writers);
+            writing.set(false);
+            join(readers);
+        }
+
+        assertThat(violations).hasValue(0);
+        assertThat(table.size()).isEqualTo(model.size());
+        long[] values = new long[2];
+        for (UUID key : allKeys) {
+            Long version = model.get(key);
+            assertThat(get(table, key, values)).as("key %s", key).isEqualTo(version != null);
+            if (version != null) {
+                assertThat(values).containsExactly(checksum(key, version), version);
+            }
+        }
+    }
+
+    /**
+     * Один писатель растит таблицу с 16 ячеек, читатели все время ищут уже опубликованные ключи:
+     * во время перестроения ни один не должен пропасть.
+     */
+    @Test
+    void rebuildWhileReadingKeepsPublishedKeysVisible() throws Exception {
+        OffHeapUuidTable table = new OffHeapUuidTable(16, 1);
+        long initialBytes = table.offHeapBytes();
+        int keyCount = 200_000;
+        UUID[] keys = new UUID[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = UUID.randomUUID();
+        }
+
+        AtomicInteger published = new AtomicInteger();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        List<Future<?>> readers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(READERS + 1)) {
+            for (int r = 0; r < READERS; r++) {
+                readers.add(executor.submit(() -> {
+                    long[] values = new long[1];
+                    while (writing.get()) {
+                        int count = published.get();
+                        if (count == 0) {
+                            continue;
+                        }
+                        int i = ThreadLocalRandom.current().nextInt(count);
+                        if (!get(table, keys[i], values) || values[0] != i) {
+                            misses.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < keyCount; i++) {
+                    put(table, keys[i], i);
+                    published.set(i + 1);
+                }
+            });
+            writer.get();
+            writing.set(false);
+            join(readers);
+        }
+
+        assertThat(misses).hasValue(0);
+        assertThat(table.size()).isEqualTo(keyCount);
+        assertThat(table.offHeapBytes()).isGreaterThan(initialBytes);
+    }
+
+    /**
+     * Перестроение из-за удаленных ячеек при малом числе живых ключей не растит таблицу.
+     */
+    @Test
+    void tombstoneChurnRebuildsInPlace() {
+        OffHeapUuidTable table = new OffHeapUuidTable(16, 1);
+        long initialBytes = table.offHeapBytes();
+        Map<UUID, Long> live = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            UUID key = UUID.randomUUID();
+            put(table, key, i);
+            live.put(key, (long) i);
+            if (live.size() > 4) {
+                UUID evicted = live.keySet().iterator().next();
+                assertThat(remove(table, evicted, random.nextBoolean() ? null : new long[]{live.get(evicted)})).isTrue();
+                live.remove(evicted);
+            }
+        }
+
+        assertThat(table.offHeapBytes()).isEqualTo(initialBytes);
+        assertThat(table.size()).isEqualTo(live.size());
+        long[] values = new long[1];
+        live.forEach((key, value) -> {
+            assertThat(get(table, key, values)).isTrue();
+            assertThat(values[0]).isEqualTo(value);
+        });
+    }
+
+    private static void write(OffHeapUuidTable table, Map<UUID, Long> model, UUID[] keys, long seed,
+                              AtomicInteger violations) {
+        Random random = new Random(seed);
+        long[] versions = new long[keys.length];
+        long[] values = new long[2];
+        for (int op = 0; op < OPS_PER_WRITER; op++) {
+            int i = random.nextInt(keys.length);
+            UUID key = keys[i];
+            Long current = model.get(key);
+            int action = random.nextInt(20);
+            if (action < 12) {
+                long version = ++versions[i];
+                put(table, key, checksum(key, version), version);
+                model.put(key, version);
+            } else if (action < 15) {
+                boolean removed = remove(table, key, null);
+                if (removed != (current != null)) {
+                    violations.incrementAndGet();
+                }
+                model.remove(key);
+            } else if (action < 17) {
+                // Условное удаление со старой версией не должно срабатывать
+                long[] expected = {checksum(key, versions[i] + 1), versions[i] + 1};
+                if (remove(table, key, expected)) {
+                    violations.incrementAndGet();
+                }
+            } else if (action < 18 && current != null) {
+                if (!remove(table, key, new long[]{checksum(key, current), current})) {
+                    violations.incrementAndGet();
+                }
+                model.remove(key);
+            } else {
+                boolean found = get(table, key, values);
+                if (found != (current != null) || (found && values[1] != current)) {
+                    violations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static void read(OffHeapUuidTable table, List<UUID> keys, AtomicBoolean writing, AtomicInteger violations) {
+        Map<UUID, Long> lastSeen = new HashMap<>();
+        long[] values = new long[2];
+        while (writing.get()) {
+            UUID key = keys.get(ThreadLocalRandom.current().nextInt(keys.size()));
+            if (!get(table, key, values)) {
+                continue;
+            }
+            if (values[0] != checksum(key, values[1])) {
+                violations.incrementAndGet();
+            }
+            Long previous = lastSeen.put(key, values[1]);
+            if (previous != null && previous > values[1]) {
+                violations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Первое слово значения выводится из ключа и версии: рваное чтение его не пройдет.
+     */
+    private static long checksum(UUID key, long version) {
+        return key.getMostSignificantBits() ^ key.getLeastSignificantBits() ^ (version * 0x9E3779B97F4A7C15L);
+    }
+
+    private static boolean get(OffHeapUuidTable table, UUID key, long[] values) {
+        return table.get(key.getMostSignificantBits(), key.getLeastSignificantBits(), values);
+    }
+
+    private static void put(OffHeapUuidTable table, UUID key, long... values) {
+        table.put(key.getMostSignificantBits(), key.getLeastSignificantBits(), values);
+    }
+
+    private static boolean remove(OffHeapUuidTable table, UUID key, long[] expected) {
+        return table.remove(key.getMostSignificantBits(), key.getLeastSignificantBits(), expected);
+    }
+
+    private static void join(List<Future<?>> futures) throws InterruptedException, ExecutionException {
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
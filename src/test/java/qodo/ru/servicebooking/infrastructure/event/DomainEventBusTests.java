@@ -0,0 +1,95 @@
+package qodo.ru.servicebooking.infrastructure.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.domain.entity.Booking;
+import qodo.ru.servicebooking.domain.entity.OutboxEvent;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class DomainEventBusTests {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @SpyBean
+    private OutboxRepository outboxRepository;
+
+    @Test
+    void eventsOfOneTransactionAreWrittenWithOneInsert() {
+        UUID accountId = UUID.randomUUID();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        List<Booking> bookings = IntStream.range(0, 3)
+                .mapToObj(i -> newBooking(accountId, start.plusHours(i)))
+                .toList();
+        clearInvocations(outboxRepository);
+
+        transactionTemplate.executeWithoutResult(status -> bookings.forEach(bookingRepository::save));
+
+        verify(outboxRepository, times(1)).saveAll(anyList());
+        verify(outboxRepository, never()).save(any());
+
+        for (Booking booking : bookings) {
+            List<OutboxEvent> events = outboxRepository.findByAggregate(booking.getId(), "booking");
+            assertThat(events).singleElement().satisfies(event -> {
+                assertThat(event.getEventType()).isEqualTo("booking.created");
+                assertThat(event.getPayload())
+                        .containsEntry("bookingId", booking.getId().toString())
+                        .containsEntry("metadata", Map.of("utm", "test"));
+            });
+        }
+    }
+
+    @Test
+    void rolledBackTransactionWritesNoEvents() {
+        Booking booking = newBooking(UUID.randomUUID(), LocalDateTime.now().plusDays(2).withNano(0));
+        clearInvocations(outboxRepository);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            bookingRepository.save(booking);
+            status.setRollbackOnly();
+        });
+
+        verify(outboxRepository, never()).saveAll(anyList());
+        assertThat(outboxRepository.findByAggregate(booking.getId(), "booking")).isEmpty();
+    }
+
+    private static Booking newBooking(UUID accountId, LocalDateTime scheduledAt) {
+        return Booking.builder()
+                .accountId(accountId)
+                .slotId(UUID.randomUUID())
+                .clientUserId(UUID.randomUUID())
+                .serviceId(UUID.randomUUID())
+                .price(new BigDecimal("1500.00"))
+                .durationMinutes(60)
+                .scheduledAt(scheduledAt)
+                .idempotencyKey(UUID.randomUUID().toString())
+                .metadata(Map.of("utm", "test"))
+                .build();
+    }
+}
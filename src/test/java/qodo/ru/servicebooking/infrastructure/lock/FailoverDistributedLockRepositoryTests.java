@@ -0,0 +1,88 @@
+package qodo.ru.servicebooking.infrastructure.lock;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.impl.DistributedLockRepositoryImpl;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.impl.RedissonDistributedLockRepositoryImpl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Захват в Redis сверяется с резервной таблицей, пока в ней остаются блокировки.
+ */
+class FailoverDistributedLockRepositoryTests {
+
+    private static final String LOCK_KEY = "booking:slot:a";
+    private static final Duration NO_WAIT = Duration.ZERO;
+
+    private final RedissonDistributedLockRepositoryImpl redisLocks = mock(RedissonDistributedLockRepositoryImpl.class);
+    private final DistributedLockRepositoryImpl tableLocks = mock(DistributedLockRepositoryImpl.class);
+    private FailoverDistributedLockRepository locks;
+
+    @BeforeEach
+    void setUp() {
+        locks = new FailoverDistributedLockRepository(redisLocks, tableLocks, new BookingProperties(),
+                CircuitBreakerRegistry.ofDefaults(), new SimpleMeterRegistry());
+        when(redisLocks.tryAcquireFenced(LOCK_KEY, "owner", 5, NO_WAIT))
+                .thenReturn(Optional.of(FencingToken.of(LOCK_KEY, 7)));
+    }
+
+    @Test
+    void redisLockIsReturnedWhenTableIsEmpty() {
+        when(tableLocks.hasActiveLocks()).thenReturn(false);
+
+        assertThat(locks.tryAcquireFenced(LOCK_KEY, "owner", 5, NO_WAIT)).contains(FencingToken.of(LOCK_KEY, 7));
+
+        verify(tableLocks, never()).findActiveLock(anyString());
+    }
+
+    @Test
+    void keyStillHeldInTableIsBusy() {
+        when(tableLocks.hasActiveLocks()).thenReturn(true);
+        when(tableLocks.findActiveLock(LOCK_KEY)).thenReturn(Optional.of(DistributedLock.builder()
+                .lockKey(LOCK_KEY)
+                .lockedBy("other-node")
+                .expiresAt(LocalDateTime.now().plusSeconds(5))
+                .fencingToken(1_000L)
+                .build()));
+
+        assertThat(locks.tryAcquireFenced(LOCK_KEY, "owner", 5, NO_WAIT)).isEmpty();
+
+        verify(redisLocks).release(LOCK_KEY, "owner");
+    }
+
+    @Test
+    void multiLockIsReleasedWhenAnyKeyIsHeldInTable() {
+        String other = "booking:slot:b";
+        when(redisLocks.tryAcquireAll(List.of(LOCK_KEY, other), "owner", 5, NO_WAIT))
+                .thenReturn(List.of(FencingToken.of(LOCK_KEY, 7), FencingToken.of(other, 8)));
+        when(tableLocks.hasActiveLocks()).thenReturn(true);
+        when(tableLocks.findActiveLock(LOCK_KEY)).thenReturn(Optional.empty());
+        when(tableLocks.findActiveLock(other)).thenReturn(Optional.of(DistributedLock.builder()
+                .lockKey(other)
+                .lockedBy("other-node")
+                .expiresAt(LocalDateTime.now().plusSeconds(5))
+                .fencingToken(1_000L)
+                .build()));
+
+        assertThat(locks.tryAcquireAll(List.of(LOCK_KEY, other), "owner", 5, NO_WAIT)).isEmpty();
+
+        verify(redisLocks).release(LOCK_KEY, "owner");
+        verify(redisLocks).release(other, "owner");
+    }
+}
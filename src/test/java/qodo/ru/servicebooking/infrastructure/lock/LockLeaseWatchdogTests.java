@@ -0,0 +1,114 @@
+package qodo.ru.servicebooking.infrastructure.lock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository.ExtendResult;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository.HeldLock;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Продление и потеря аренды без планировщика: renewAll() вызывается напрямую.
+ */
+class LockLeaseWatchdogTests {
+
+    private final DistributedLockRepository lockRepository = mock(DistributedLockRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LockLeaseWatchdog watchdog;
+
+    @BeforeEach
+    void setUp() {
+        BookingProperties properties = new BookingProperties();
+        properties.getLock().setTtlSeconds(1);
+        watchdog = new LockLeaseWatchdog(lockRepository, properties, meterRegistry);
+    }
+
+    @Test
+    void renewedLeaseStaysWatched() {
+        AtomicInteger lost = new AtomicInteger();
+        LockLeaseWatchdog.Lease lease = watchdog.watch(FencingToken.of("booking:slot:a", 1), "owner", lost::incrementAndGet);
+        when(lockRepository.extendAll(anyCollection(), anyInt()))
+                .thenReturn(new ExtendResult(List.of(lease.getLock()), List.of()));
+
+        watchdog.renewAll();
+        watchdog.renewAll();
+
+        assertThat(lease.isLost()).isFalse();
+        assertThat(lost).hasValue(0);
+        assertThat(meterRegistry.get("booking.lock.lease.renewed").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("booking.lock.lease.active").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void leaseReportedLostByBackendRunsCallbackOnce() {
+        AtomicInteger lost = new AtomicInteger();
+        LockLeaseWatchdog.Lease kept = watchdog.watch(FencingToken.of("booking:slot:a", 1), "owner", () -> {});
+        LockLeaseWatchdog.Lease taken = watchdog.watch(FencingToken.of("booking:slot:b", 2), "owner", lost::incrementAndGet);
+        when(lockRepository.extendAll(anyCollection(), anyInt()))
+                .thenReturn(new ExtendResult(List.of(kept.getLock()), List.of(taken.getLock())));
+
+        watchdog.renewAll();
+        watchdog.renewAll();
+
+        assertThat(taken.isLost()).isTrue();
+        assertThat(kept.isLost()).isFalse();
+        assertThat(lost).hasValue(1);
+        assertThat(meterRegistry.get("booking.lock.lease.lost").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void leaseNotRenewedWithinTtlIsLost() throws InterruptedException {
+        AtomicInteger lost = new AtomicInteger();
+        LockLeaseWatchdog.Lease lease = watchdog.watch(FencingToken.of("booking:slot:a", 1), "owner", lost::incrementAndGet);
+        // Хранилище недоступно: результат продления неизвестен
+        when(lockRepository.extendAll(anyCollection(), anyInt())).thenThrow(new IllegalStateException("timeout"));
+
+        watchdog.renewAll();
+        assertThat(lease.isLost()).isFalse();
+
+        Thread.sleep(1_100);
+        watchdog.renewAll();
+
+        assertThat(lease.isLost()).isTrue();
+        assertThat(lost).hasValue(1);
+    }
+
+    @Test
+    void failingCallbackDoesNotStopOtherLosses() {
+        AtomicInteger lost = new AtomicInteger();
+        HeldLock first = watchdog.watch(FencingToken.of("booking:slot:a", 1), "owner", () -> {
+            throw new IllegalStateException("callback failed");
+        }).getLock();
+        HeldLock second = watchdog.watch(FencingToken.of("booking:slot:b", 2), "owner", lost::incrementAndGet).getLock();
+        when(lockRepository.extendAll(anyCollection(), anyInt()))
+                .thenReturn(new ExtendResult(List.of(), List.of(first, second)));
+
+        watchdog.renewAll();
+
+        assertThat(lost).hasValue(1);
+        assertThat(meterRegistry.get("booking.lock.lease.lost").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void closedLeaseIsNotRenewed() {
+        LockLeaseWatchdog.Lease lease = watchdog.watch(FencingToken.of("booking:slot:a", 1), "owner", () -> {});
+
+        lease.close();
+        watchdog.renewAll();
+
+        verify(lockRepository, never()).extendAll(anyCollection(), anyInt());
+    }
+}
@@ -0,0 +1,148 @@
+package qodo.ru.servicebooking.infrastructure.lock;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.benchmark.Latencies;
+import qodo.ru.servicebooking.domain.exception.LockAcquisitionException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Пакеты из нескольких слотов под конкуренцией: {@link SlotLockManager#lockAll}
+ * (канонический порядок, один пакетный вызов) против захвата слотов по одному
+ * в порядке запроса. Пакеты пересекаются по слотам, поэтому последовательный
+ * захват ловит взаимные ожидания и отваливается по wait-timeout.
+ *
+ * Запуск: ./gradlew benchmarkTest --tests '*MultiSlotLockBenchmarkTests'
+ */
+@Tag("benchmark")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+        "booking.lock.wait-timeout-seconds=1",
+        "logging.level.qodo.ru.servicebooking=WARN"
+})
+class MultiSlotLockBenchmarkTests {
+
+    private static final int THREADS = 64;
+    private static final int SLOTS = 32;
+    private static final int PACKAGE_SIZE = 3;
+    private static final Duration DURATION = Duration.ofSeconds(15);
+
+    @Autowired
+    private SlotLockManager slotLocks;
+
+    @Test
+    void batchedCanonicalAcquisitionBeatsSequential() throws Exception {
+        UUID accountId = UUID.randomUUID();
+        List<UUID> slots = new ArrayList<>();
+        for (int i = 0; i < SLOTS; i++) {
+            slots.add(UUID.randomUUID());
+        }
+
+        Result batched = run("lockAll (canonical, batched)", slots, (pkg, owner) -> {
+            try (SlotLockManager.Handle handle = slotLocks.lockAll(pkg, Set.of(accountId), owner, () -> {})) {
+                holdBriefly();
+            }
+        });
+        Result sequential = run("lock per slot (request order)", slots, (pkg, owner) -> {
+            List<SlotLockManager.Handle> held = new ArrayList<>();
+            try {
+                for (UUID slotId : pkg) {
+                    held.add(slotLocks.lock(slotId, accountId, owner));
+                }
+                holdBriefly();
+            } finally {
+                Collections.reverse(held);
+                held.forEach(SlotLockManager.Handle::close);
+            }
+        });
+
+        // Последовательный захват теряет время на взаимных ожиданиях до wait-timeout
+        assertThat(batched.reserved()).isGreaterThan(sequential.reserved());
+        assertThat(batched.timeouts()).isLessThan(sequential.timeouts());
+    }
+
+    private Result run(String name, List<UUID> slots, PackageLock lock) throws Exception {
+        Latencies reserved = new Latencies();
+        LongAdder timeouts = new LongAdder();
+        List<Future<?>> workers = new ArrayList<>();
+
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + DURATION.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < THREADS; t++) {
+                String ownerId = name + "-" + t;
+                workers.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        List<UUID> pkg = randomPackage(slots);
+                        long attemptStartedAt = System.nanoTime();
+                        try {
+                            lock.reserve(pkg, ownerId);
+                            reserved.record(System.nanoTime() - attemptStartedAt);
+                        } catch (LockAcquisitionException e) {
+                            timeouts.increment();
+                        }
+                    }
+                }));
+            }
+        }
+        join(workers);
+        long elapsed = System.nanoTime() - startedAt;
+
+        System.out.println(reserved.summary(name, elapsed));
+        System.out.printf("%-40s timeouts=%d%n", name, timeouts.sum());
+        return new Result(reserved.count(), timeouts.sum());
+    }
+
+    /**
+     * Смежные слоты в случайном направлении: соседние пакеты пересекаются
+     * и запрашивают общие слоты в противоположном порядке.
+     */
+    private static List<UUID> randomPackage(List<UUID> slots) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(slots.size() - PACKAGE_SIZE + 1);
+        List<UUID> pkg = new ArrayList<>(slots.subList(first, first + PACKAGE_SIZE));
+        if (random.nextBoolean()) {
+            Collections.reverse(pkg);
+        }
+        return pkg;
+    }
+
+    private static void holdBriefly() {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void join(List<Future<?>> workers) throws InterruptedException, ExecutionException {
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PackageLock {
+        void reserve(List<UUID> slotIds, String ownerId);
+    }
+
+    private record Result(int reserved, long timeouts) {}
+}
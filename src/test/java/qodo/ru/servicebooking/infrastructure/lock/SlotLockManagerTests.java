@@ -0,0 +1,67 @@
+package qodo.ru.servicebooking.infrastructure.lock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlotLockManagerTests {
+
+    private final DistributedLockRepository lockRepository = mock(DistributedLockRepository.class);
+    private SlotLockManager slotLocks;
+
+    @BeforeEach
+    void setUp() {
+        BookingProperties properties = new BookingProperties();
+        properties.getLock().setWaitTimeoutSeconds(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        slotLocks = new SlotLockManager(lockRepository,
+                new LockLeaseWatchdog(lockRepository, properties, meterRegistry),
+                new LockTelemetry(properties, meterRegistry),
+                properties);
+    }
+
+    @Test
+    void closeReleasesEveryKeyWhenOneReleaseFails() throws Exception {
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        String firstKey = DistributedLock.createSlotLockKey(first);
+        String secondKey = DistributedLock.createSlotLockKey(second);
+        when(lockRepository.tryAcquireAll(anyCollection(), anyString(), anyInt(), any(Duration.class)))
+                .thenReturn(List.of(FencingToken.of(firstKey, 1), FencingToken.of(secondKey, 1)));
+        when(lockRepository.release(firstKey, "owner")).thenThrow(new IllegalStateException("connection reset"));
+
+        SlotLockManager.Handle handle = slotLocks.lockAll(List.of(first, second), Set.of(UUID.randomUUID()),
+                "owner", () -> {});
+
+        assertThatThrownBy(handle::close).hasMessage("connection reset");
+        verify(lockRepository).release(secondKey, "owner");
+
+        // Локальные полосы отпущены: другой поток берет те же слоты
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() ->
+                slotLocks.lockAll(List.of(first, second), Set.of(UUID.randomUUID()), "other", () -> {}).close());
+        other.get(5, TimeUnit.SECONDS);
+        verify(lockRepository).release(eq(secondKey), eq("other"));
+    }
+}
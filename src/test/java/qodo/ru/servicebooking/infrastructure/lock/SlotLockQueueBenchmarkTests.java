@@ -0,0 +1,159 @@
+package qodo.ru.servicebooking.infrastructure.lock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.benchmark.Latencies;
+import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.domain.exception.LockAcquisitionException;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * N конкурентов одного узла за один слот: прямой {@link DistributedLockRepository#tryAcquireFenced}
+ * против {@link SlotLockManager#lock}, где к распределенной блокировке идет только голова
+ * локальной очереди. На режим - обращения к распределенной блокировке на захват
+ * (booking.lock.distributed.attempts для SlotLockManager, те же два вызова без очереди
+ * для прямого пути) и p99 ожидания захвата.
+ *
+ * Запуск: ./gradlew benchmarkTest --tests '*SlotLockQueueBenchmarkTests'
+ */
+@Tag("benchmark")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "logging.level.qodo.ru.servicebooking=WARN")
+class SlotLockQueueBenchmarkTests {
+
+    private static final int CONTENDERS = 64;
+    private static final Duration DURATION = Duration.ofSeconds(10);
+    private static final Duration HOLD = Duration.ofMillis(1);
+
+    @Autowired
+    private DistributedLockRepository lockRepository;
+
+    @Autowired
+    private SlotLockManager slotLocks;
+
+    @Autowired
+    private BookingProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void localQueueCutsDistributedAttempts() {
+        Result direct = run("direct tryAcquireFenced", this::acquireDirectly);
+
+        double attemptsBefore = distributedAttempts();
+        Result queued = run("SlotLockManager.lock", (slotId, ownerId, attempts) -> {
+            try (SlotLockManager.Handle handle = slotLocks.lock(slotId, UUID.randomUUID(), ownerId)) {
+                holdBriefly();
+            }
+        });
+        long queuedAttempts = Math.round(distributedAttempts() - attemptsBefore);
+
+        report(direct, direct.attempts());
+        report(queued, queuedAttempts);
+
+        assertThat(queuedAttempts / (double) queued.acquired())
+                .isLessThan(direct.attempts() / (double) direct.acquired());
+    }
+
+    /**
+     * То же, что делает SlotLockManager на распределенной ступени, но без локальной очереди:
+     * попытка без ожидания, затем ожидание в остатке бюджета.
+     */
+    private void acquireDirectly(UUID slotId, String ownerId, LongAdder attempts) {
+        String lockKey = DistributedLock.createSlotLockKey(slotId);
+        int ttl = properties.getLock().getTtlSeconds();
+        attempts.increment();
+        Optional<FencingToken> token = lockRepository.tryAcquireFenced(lockKey, ownerId, ttl, Duration.ZERO);
+        if (token.isEmpty()) {
+            attempts.increment();
+            token = lockRepository.tryAcquireFenced(lockKey, ownerId, ttl,
+                    Duration.ofSeconds(properties.getLock().getWaitTimeoutSeconds()));
+        }
+        if (token.isEmpty()) {
+            long waitedMs = TimeUnit.SECONDS.toMillis(properties.getLock().getWaitTimeoutSeconds());
+            throw new LockAcquisitionException(lockKey, waitedMs);
+        }
+        try {
+            holdBriefly();
+        } finally {
+            lockRepository.release(lockKey, ownerId);
+        }
+    }
+
+    private Result run(String name, Contender contender) {
+        UUID slotId = UUID.randomUUID();
+        Latencies waits = new Latencies();
+        LongAdder attempts = new LongAdder();
+        LongAdder timeouts = new LongAdder();
+
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + DURATION.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONTENDERS; i++) {
+                String ownerId = name + "-" + i;
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long attemptStartedAt = System.nanoTime();
+                        try {
+                            contender.acquireAndRelease(slotId, ownerId, attempts);
+                            // Ожидание захвата: из цикла вычитается удержание
+                            waits.record(System.nanoTime() - attemptStartedAt - HOLD.toNanos());
+                        } catch (LockAcquisitionException e) {
+                            timeouts.increment();
+                        }
+                    }
+                });
+            }
+        }
+        return new Result(name, waits, attempts.sum(), timeouts.sum(), System.nanoTime() - startedAt);
+    }
+
+    private static void holdBriefly() {
+        try {
+            Thread.sleep(HOLD);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double distributedAttempts() {
+        return meterRegistry.get("booking.lock.distributed.attempts").counter().count();
+    }
+
+    private static void report(Result result, long attempts) {
+        System.out.println(result.waits().summary(result.name() + " (wait)", result.elapsedNanos()));
+        System.out.printf("%-40s distributed attempts=%d (%.2f per acquisition)  p99 wait=%.1fus  timeouts=%d%n",
+                result.name(), attempts, attempts / (double) Math.max(1, result.acquired()),
+                result.waits().percentileMicros(99), result.timeouts());
+    }
+
+    @FunctionalInterface
+    private interface Contender {
+        void acquireAndRelease(UUID slotId, String ownerId, LongAdder attempts);
+    }
+
+    private record Result(String name, Latencies waits, long attempts, long timeouts, long elapsedNanos) {
+
+        int acquired() {
+            return waits.count();
+        }
+    }
+}
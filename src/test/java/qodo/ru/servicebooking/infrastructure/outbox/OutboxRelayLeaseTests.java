@@ -0,0 +1,62 @@
+package qodo.ru.servicebooking.infrastructure.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import qodo.ru.servicebooking.domain.entity.OutboxEvent;
+import qodo.ru.servicebooking.infrastructure.config.BookingProperties;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Publisher не отправляет события, аренда которых истечет до confirm'а.
+ */
+class OutboxRelayLeaseTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        BookingProperties properties = new BookingProperties();
+        properties.getOutbox().setConfirmTimeoutMs(5_000);
+        relay = new OutboxRelay(mock(OutboxRepository.class), mock(RabbitOutboxPublisher.class),
+                properties, meterRegistry);
+    }
+
+    @Test
+    void eventsWithExpiringLeaseAreDropped() {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxEvent live = claimedUntil(now.plusSeconds(30));
+        OutboxEvent expiresBeforeConfirm = claimedUntil(now.plusSeconds(2));
+        OutboxEvent expired = claimedUntil(now.minusSeconds(1));
+        OutboxEvent unclaimed = claimedUntil(null);
+
+        assertThat(relay.withLiveLease(List.of(live, expiresBeforeConfirm, expired, unclaimed)))
+                .containsExactly(live);
+        assertThat(meterRegistry.get("booking.outbox.lease.expired").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void backlogIsLimitedByQueueCapacityUntilThroughputIsKnown() {
+        assertThat(relay.backlogWithinLease()).isEqualTo(new BookingProperties().getOutbox().getQueueCapacity());
+    }
+
+    private static OutboxEvent claimedUntil(LocalDateTime claimedUntil) {
+        return OutboxEvent.builder()
+                .id(UUID.randomUUID())
+                .aggregateId(UUID.randomUUID())
+                .aggregateType("booking")
+                .eventType("booking.created")
+                .payload(Map.of())
+                .claimedUntil(claimedUntil)
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package qodo.ru.servicebooking.infrastructure.outbox;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.domain.entity.OutboxEvent;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class OutboxRelayTests {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private AmqpAdmin amqpAdmin;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void savedPayloadReachesBrokerUnchanged() throws Exception {
+        OutboxEvent event = OutboxEvent.builder()
+                .aggregateId(UUID.randomUUID())
+                .aggregateType("booking")
+                .eventType("test.payload_roundtrip")
+                .payload(Map.of(
+                        "bookingId", UUID.randomUUID().toString(),
+                        "price", 1500,
+                        "tags", List.of("a", "b"),
+                        "client", Map.of("name", "Анна", "phone", "+79991234567")))
+                .build();
+
+        TopicExchange exchange = new TopicExchange(event.getExchangeName());
+        Queue queue = new AnonymousQueue();
+        amqpAdmin.declareExchange(exchange);
+        amqpAdmin.declareQueue(queue);
+        amqpAdmin.declareBinding(BindingBuilder.bind(queue).to(exchange).with(event.getRoutingKey()));
+
+        outboxRepository.save(event);
+
+        Message message = await().atMost(Duration.ofSeconds(30))
+                .until(() -> rabbitTemplate.receive(queue.getName()), received -> received != null);
+
+        assertThat(message.getMessageProperties().getMessageId()).isEqualTo(event.getId().toString());
+        assertThat(objectMapper.readValue(message.getBody(), PAYLOAD_TYPE)).isEqualTo(event.getPayload());
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(outboxRepository.findByAggregate(event.getAggregateId(), "booking"))
+                        .singleElement()
+                        .satisfies(saved -> assertThat(saved.isPublished()).isTrue()));
+    }
+}
@@ -0,0 +1,108 @@
+package qodo.ru.servicebooking.infrastructure.outbox.cdc;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.domain.entity.OutboxEvent;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.OutboxRepository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+        "booking.outbox.mode=cdc",
+        "booking.outbox.cdc.status-interval-seconds=1"
+})
+class OutboxCdcPublisherTests {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+    private static final String EXCHANGE = "bookings.exchange.v1";
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private AmqpAdmin amqpAdmin;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Queue queue;
+
+    @BeforeEach
+    void setUp() {
+        TopicExchange exchange = new TopicExchange(EXCHANGE);
+        queue = new AnonymousQueue();
+        amqpAdmin.declareExchange(exchange);
+        amqpAdmin.declareQueue(queue);
+        amqpAdmin.declareBinding(BindingBuilder.bind(queue).to(exchange).with("test_cdc"));
+
+        // Вставки до создания slot в него не попадают
+        await().atMost(Duration.ofSeconds(30)).until(() -> Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_replication_slots WHERE slot_name = 'booking_outbox_slot' AND active)",
+                Boolean.class)));
+    }
+
+    @Test
+    void insertedEventIsPublishedFromSlot() throws Exception {
+        OutboxEvent event = outboxRepository.save(newEvent());
+
+        Message message = receive();
+
+        assertThat(message.getMessageProperties().getMessageId()).isEqualTo(event.getId().toString());
+        assertThat(objectMapper.readValue(message.getBody(), PAYLOAD_TYPE)).isEqualTo(event.getPayload());
+    }
+
+    @Test
+    void undecodableRowIsParkedAndStreamMovesOn() throws Exception {
+        UUID badId = UUID.randomUUID();
+        jdbcTemplate.update("""
+                INSERT INTO outbox_events (id, aggregate_id, aggregate_type, event_type, payload)
+                VALUES (?, ?, 'booking', 'test.cdc', '[1, 2]'::jsonb)""", badId, UUID.randomUUID());
+        OutboxEvent good = outboxRepository.save(newEvent());
+
+        Message message = receive();
+
+        assertThat(message.getMessageProperties().getMessageId()).isEqualTo(good.getId().toString());
+        await().atMost(Duration.ofSeconds(10)).until(() -> jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM outbox_dead_letter WHERE id = ?", Integer.class, badId) == 1);
+    }
+
+    private Message receive() {
+        return await().atMost(Duration.ofSeconds(30))
+                .until(() -> rabbitTemplate.receive(queue.getName()), received -> received != null);
+    }
+
+    private static OutboxEvent newEvent() {
+        return OutboxEvent.builder()
+                .aggregateId(UUID.randomUUID())
+                .aggregateType("booking")
+                .eventType("test.cdc")
+                .payload(Map.of("bookingId", UUID.randomUUID().toString(), "price", 1500))
+                .build();
+    }
+}
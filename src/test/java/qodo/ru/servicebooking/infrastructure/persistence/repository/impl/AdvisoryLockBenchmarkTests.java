@@ -0,0 +1,112 @@
+package qodo.ru.servicebooking.infrastructure.persistence.repository.impl;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.benchmark.Latencies;
+import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Advisory-блокировки против таблицы distributed_locks: задержка acquire/release
+ * и объем записи в БД в байтах WAL (вставка и удаление строки против нуля строк).
+ *
+ * Запуск: ./gradlew benchmarkTest --tests '*AdvisoryLockBenchmarkTests'
+ */
+@Tag("benchmark")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+        "booking.outbox.enabled=false",
+        "logging.level.qodo.ru.servicebooking=WARN"
+})
+class AdvisoryLockBenchmarkTests {
+
+    private static final int THREADS = 8;
+    private static final int LOCKS_PER_THREAD = 2_000;
+
+    @Autowired
+    private DistributedLockRepositoryImpl tableLocks;
+
+    @Autowired
+    private AdvisoryDistributedLockRepositoryImpl advisoryLocks;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void advisoryLocksAreCheaperThanTableLocks() throws Exception {
+        // Прогрев пула и планов
+        run(tableLocks, new Latencies(), new Latencies());
+        run(advisoryLocks, new Latencies(), new Latencies());
+
+        long tableWal = measure("table", tableLocks);
+        long advisoryWal = measure("advisory", advisoryLocks);
+
+        assertThat(advisoryWal).isLessThan(tableWal);
+    }
+
+    /**
+     * @return байт WAL за замер
+     */
+    private long measure(String name, DistributedLockRepository locks) throws Exception {
+        Latencies acquire = new Latencies();
+        Latencies release = new Latencies();
+        String walBefore = jdbcTemplate.queryForObject("SELECT pg_current_wal_insert_lsn()::text", String.class);
+
+        long startedAt = System.nanoTime();
+        run(locks, acquire, release);
+        long elapsed = System.nanoTime() - startedAt;
+
+        Long walBytes = jdbcTemplate.queryForObject(
+                "SELECT pg_wal_lsn_diff(pg_current_wal_insert_lsn(), ?::pg_lsn)::bigint", Long.class, walBefore);
+
+        System.out.println(acquire.summary(name + " acquire", elapsed));
+        System.out.println(release.summary(name + " release", elapsed));
+        System.out.printf("%-40s WAL=%d bytes (%.1f per lock)%n",
+                name + " write volume", walBytes, walBytes / (double) (THREADS * LOCKS_PER_THREAD));
+        return walBytes;
+    }
+
+    private static void run(DistributedLockRepository locks, Latencies acquire, Latencies release)
+            throws InterruptedException, ExecutionException {
+        List<Future<?>> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                String ownerId = "owner-" + t;
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < LOCKS_PER_THREAD; i++) {
+                        String lockKey = DistributedLock.createSlotLockKey(UUID.randomUUID());
+
+                        long startedAt = System.nanoTime();
+                        boolean acquired = locks.tryAcquireFenced(lockKey, ownerId, 5).isPresent();
+                        long acquiredAt = System.nanoTime();
+                        if (!acquired) {
+                            throw new IllegalStateException("Free lock was not acquired: " + lockKey);
+                        }
+                        acquire.record(acquiredAt - startedAt);
+
+                        locks.release(lockKey, ownerId);
+                        release.record(System.nanoTime() - acquiredAt);
+                    }
+                }));
+            }
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package qodo.ru.servicebooking.infrastructure.persistence.repository.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.domain.entity.Booking;
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * UPDATE только измененных колонок: колонку, которую никто не трогал в объекте,
+ * выборочный update не перезаписывает; без отметок пишутся все изменяемые колонки.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "booking.outbox.enabled=false")
+class BookingRepositoryImplTests {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void saveAndUpdateClearDirtyMask() {
+        Booking booking = newBooking();
+        booking.addMetadata("promo", "SUMMER");
+
+        bookingRepository.save(booking);
+        assertThat(booking.hasDirtyFields()).isFalse();
+
+        booking.confirm();
+        bookingRepository.update(booking);
+
+        assertThat(booking.hasDirtyFields()).isFalse();
+        assertThat(booking.getVersion()).isEqualTo(1);
+        assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void dirtyUpdateLeavesUntouchedColumns() {
+        UUID id = bookingRepository.save(newBooking()).getId();
+        Booking loaded = bookingRepository.findById(id).orElseThrow();
+        // Колонка меняется в обход объекта; version не трогаем, оптимистичная проверка проходит
+        jdbcTemplate.update("UPDATE bookings SET notes = 'external' WHERE id = ?", id);
+
+        loaded.cancel("клиент заболел");
+        bookingRepository.update(loaded);
+
+        Booking stored = bookingRepository.findById(id).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(BookingStatus.CANCELLED);
+        assertThat(stored.getCancelledAt()).isNotNull();
+        assertThat(stored.getInternalNotes()).isEqualTo("Cancelled: клиент заболел");
+        assertThat(stored.getNotes()).isEqualTo("external");
+    }
+
+    @Test
+    void emptyMaskFallsBackToFullUpdate() {
+        UUID id = bookingRepository.save(newBooking()).getId();
+        Booking loaded = bookingRepository.findById(id).orElseThrow();
+        jdbcTemplate.update("UPDATE bookings SET notes = 'external' WHERE id = ?", id);
+
+        // Объект собран builder'ом: отметок нет, пишутся все изменяемые колонки
+        Booking rebuilt = loaded.toBuilder().metadata(Map.of("source", "import")).build();
+        assertThat(rebuilt.hasDirtyFields()).isFalse();
+        bookingRepository.update(rebuilt);
+
+        Booking stored = bookingRepository.findById(id).orElseThrow();
+        assertThat(stored.getNotes()).isEqualTo("первый визит");
+        assertThat(stored.getMetadata()).containsExactly(Map.entry("source", "import"));
+    }
+
+    @Test
+    void addMetadataIsWrittenByDirtyUpdate() {
+        UUID id = bookingRepository.save(newBooking()).getId();
+        Booking loaded = bookingRepository.findById(id).orElseThrow();
+
+        loaded.addMetadata("promo", "SUMMER");
+        bookingRepository.update(loaded);
+
+        assertThat(bookingRepository.findById(id).orElseThrow().getMetadata())
+                .containsEntry("utm", "test")
+                .containsEntry("promo", "SUMMER");
+    }
+
+    @Test
+    void streamsBookingsChangedSinceFromOutbox() throws InterruptedException {
+        UUID untouched = bookingRepository.save(newBooking()).getId();
+        UUID deleted = bookingRepository.save(newBooking()).getId();
+        UUID confirmed = bookingRepository.save(newBooking()).getId();
+        Thread.sleep(20);
+        LocalDateTime since = LocalDateTime.now();
+
+        // Пути одним statement'ом тоже регистрируют события смены статуса
+        bookingRepository.deleteById(deleted);
+        bookingRepository.updateStatusBatch(List.of(confirmed), BookingStatus.CONFIRMED);
+        UUID created = bookingRepository.save(newBooking()).getId();
+
+        Map<UUID, BookingStatus> changed = new HashMap<>();
+        bookingRepository.streamIntervalsChangedSince(since, i -> changed.put(i.bookingId(), i.status()));
+
+        assertThat(changed)
+                .containsEntry(deleted, BookingStatus.CANCELLED)
+                .containsEntry(confirmed, BookingStatus.CONFIRMED)
+                .containsEntry(created, BookingStatus.CREATED)
+                .doesNotContainKey(untouched);
+    }
+
+    @Test
+    void committedChangesAreWrittenToAuditLog() {
+        Booking booking = bookingRepository.save(newBooking());
+        booking.confirm();
+        bookingRepository.update(booking);
+
+        // Аудит асинхронный: записи уходят в очередь после коммита
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(jdbcTemplate.queryForList(
+                "SELECT action FROM booking_audit_log WHERE booking_id = ? ORDER BY id",
+                String.class, booking.getId()))
+                .containsExactly("CREATE", "CONFIRM"));
+
+        Map<String, Object> confirm = jdbcTemplate.queryForMap(
+                "SELECT old_values->>'status' AS old_status, new_values->>'status' AS new_status, "
+                        + "new_values->'notes' IS NOT NULL AS notes_written "
+                        + "FROM booking_audit_log WHERE booking_id = ? AND action = 'CONFIRM'", booking.getId());
+        assertThat(confirm.get("old_status")).isEqualTo("created");
+        assertThat(confirm.get("new_status")).isEqualTo("confirmed");
+        assertThat(confirm.get("notes_written")).isEqualTo(false);
+    }
+
+    private static Booking newBooking() {
+        return Booking.builder()
+                .accountId(UUID.randomUUID())
+                .slotId(UUID.randomUUID())
+                .clientUserId(UUID.randomUUID())
+                .serviceId(UUID.randomUUID())
+                .price(new BigDecimal("1500.00"))
+                .durationMinutes(60)
+                .scheduledAt(LocalDateTime.now().plusDays(2).withNano(0))
+                .idempotencyKey(UUID.randomUUID().toString())
+                .notes("первый визит")
+                .metadata(Map.of("utm", "test"))
+                .build();
+    }
+}
@@ -0,0 +1,167 @@
+package qodo.ru.servicebooking.infrastructure.persistence.repository.impl;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.benchmark.Latencies;
+import qodo.ru.servicebooking.domain.entity.Booking;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * UPDATE всех изменяемых колонок против UPDATE только отмеченных (Booking.DirtyField)
+ * для confirm, cancel и правки заметок. На каждый сценарий - доля HOT-обновлений
+ * (pg_stat_user_tables.n_tup_hot_upd / n_tup_upd) и байты WAL на UPDATE
+ * (дельта pg_current_wal_insert_lsn()).
+ *
+ * metadata около 7 КБ и уходит в TOAST: полный UPDATE пишет ее заново
+ * при каждом изменении, выборочный - только когда она помечена.
+ *
+ * В WAL входит и все, что пишет транзакция update(): для confirm и cancel это еще
+ * строка outbox_events, одинаковая для обоих режимов.
+ *
+ * Запуск: ./gradlew benchmarkTest --tests '*BookingUpdateBenchmarkTests'
+ */
+@Tag("benchmark")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+        "booking.outbox.enabled=false",
+        "booking.audit.enabled=false",
+        "logging.level.qodo.ru.servicebooking=WARN"
+})
+class BookingUpdateBenchmarkTests {
+
+    private static final int UPDATES = 2_000;
+    private static final int METADATA_ENTRIES = 200;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void dirtyColumnUpdateAgainstFullUpdate() {
+        // Прогрев пула и планов
+        measure("warmup", b -> b.setNotes("warmup"), false, 200);
+
+        compare("confirm", Booking::confirm);
+        compare("cancel", b -> b.cancel("клиент заболел"));
+        compare("notes", b -> b.setNotes("перенести на вечер"));
+    }
+
+    private void compare(String change, Consumer<Booking> mutation) {
+        Cost full = measure(change + " full", mutation, true, UPDATES);
+        Cost dirty = measure(change + " dirty", mutation, false, UPDATES);
+
+        assertThat(dirty.walBytesPerUpdate()).isLessThan(full.walBytesPerUpdate());
+    }
+
+    /**
+     * @param full пометить все поля перед update(): записываются все изменяемые колонки, как до отметок
+     */
+    private Cost measure(String name, Consumer<Booking> mutation, boolean full, int updates) {
+        List<Booking> bookings = new ArrayList<>(updates);
+        for (int i = 0; i < updates; i++) {
+            UUID id = bookingRepository.save(newBooking()).getId();
+            bookings.add(bookingRepository.findById(id).orElseThrow());
+        }
+        for (Booking booking : bookings) {
+            mutation.accept(booking);
+            if (full) {
+                markAllDirty(booking);
+            }
+        }
+
+        long[] statsBefore = updateStats(0);
+        String walBefore = jdbcTemplate.queryForObject("SELECT pg_current_wal_insert_lsn()::text", String.class);
+        Latencies latencies = new Latencies();
+
+        long startedAt = System.nanoTime();
+        for (Booking booking : bookings) {
+            long updateStartedAt = System.nanoTime();
+            bookingRepository.update(booking);
+            latencies.record(System.nanoTime() - updateStartedAt);
+        }
+        long elapsed = System.nanoTime() - startedAt;
+
+        Long walBytes = jdbcTemplate.queryForObject(
+                "SELECT pg_wal_lsn_diff(pg_current_wal_insert_lsn(), ?::pg_lsn)::bigint", Long.class, walBefore);
+        long[] statsAfter = updateStats(statsBefore[0] + updates);
+        long tupUpdated = statsAfter[0] - statsBefore[0];
+        long hotUpdated = statsAfter[1] - statsBefore[1];
+
+        Cost cost = new Cost(walBytes / (double) updates, hotUpdated / (double) Math.max(1, tupUpdated));
+        System.out.println(latencies.summary(name, elapsed));
+        System.out.printf("%-40s WAL=%.1f bytes/update  HOT=%.1f%% (%d of %d)%n",
+                name + " write volume", cost.walBytesPerUpdate(), cost.hotRatio() * 100, hotUpdated, tupUpdated);
+        return cost;
+    }
+
+    /**
+     * n_tup_upd и n_tup_hot_upd таблицы bookings. Бэкенды сбрасывают статистику
+     * асинхронно, поэтому ждем, пока счетчик обновлений дойдет до ожидаемого.
+     */
+    private long[] updateStats(long expectedUpdates) {
+        long[][] stats = new long[1][];
+        await().atMost(Duration.ofSeconds(30)).pollInterval(Duration.ofMillis(200)).until(() -> {
+            stats[0] = jdbcTemplate.queryForObject(
+                    "SELECT n_tup_upd, n_tup_hot_upd FROM pg_stat_user_tables WHERE relname = 'bookings'",
+                    (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+            return stats[0][0] >= expectedUpdates;
+        });
+        return stats[0];
+    }
+
+    /**
+     * Те же колонки, что пишет update() без отметок, но отметка STATUS сохраняется,
+     * и событие смены статуса уходит в outbox так же, как в выборочном режиме.
+     */
+    private static void markAllDirty(Booking booking) {
+        booking.setStatus(booking.getStatus());
+        booking.setPaymentStatus(booking.getPaymentStatus());
+        booking.setNotes(booking.getNotes());
+        booking.setInternalNotes(booking.getInternalNotes());
+        booking.setMetadata(new HashMap<>(booking.getMetadata()));
+        booking.setConfirmedAt(booking.getConfirmedAt());
+        booking.setCancelledAt(booking.getCancelledAt());
+        booking.setCompletedAt(booking.getCompletedAt());
+    }
+
+    private static Booking newBooking() {
+        Map<String, Object> metadata = new HashMap<>();
+        for (int i = 0; i < METADATA_ENTRIES; i++) {
+            metadata.put("visit_" + i, UUID.randomUUID().toString());
+        }
+        return Booking.builder()
+                .accountId(UUID.randomUUID())
+                .slotId(UUID.randomUUID())
+                .clientUserId(UUID.randomUUID())
+                .serviceId(UUID.randomUUID())
+                .price(new BigDecimal("1500.00"))
+                .durationMinutes(60)
+                .scheduledAt(LocalDateTime.now().plusDays(2).withNano(0))
+                .idempotencyKey(UUID.randomUUID().toString())
+                .notes("первый визит")
+                .metadata(metadata)
+                .build();
+    }
+
+    private record Cost(double walBytesPerUpdate, double hotRatio) {}
+}
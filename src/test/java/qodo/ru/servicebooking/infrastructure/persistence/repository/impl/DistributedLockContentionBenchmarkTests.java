@@ -0,0 +1,87 @@
+package qodo.ru.servicebooking.infrastructure.persistence.repository.impl;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.benchmark.Latencies;
+import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сотни виртуальных потоков бьются за один ключ booking:slot:* в таблице distributed_locks.
+ * Замер: захваты в секунду и задержка успешного захвата; проверка: в каждый момент
+ * блокировку держит один владелец, токены выдаются строго по возрастанию.
+ *
+ * Запуск: ./gradlew benchmarkTest --tests '*DistributedLockContentionBenchmarkTests'
+ */
+@Tag("benchmark")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "logging.level.qodo.ru.servicebooking=WARN")
+class DistributedLockContentionBenchmarkTests {
+
+    private static final int THREADS = 500;
+    private static final Duration DURATION = Duration.ofSeconds(20);
+
+    @Autowired
+    private DistributedLockRepositoryImpl tableLocks;
+
+    @Test
+    void virtualThreadsFightOverOneSlotKey() {
+        String lockKey = DistributedLock.createSlotLockKey(UUID.randomUUID());
+        AtomicInteger holders = new AtomicInteger();
+        AtomicLong lastToken = new AtomicLong();
+        AtomicInteger violations = new AtomicInteger();
+        LongAdder failedAttempts = new LongAdder();
+        Latencies acquired = new Latencies();
+
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + DURATION.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < THREADS; i++) {
+                String ownerId = "owner-" + i;
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long attemptStartedAt = System.nanoTime();
+                        Optional<FencingToken> token = tableLocks.tryAcquireFenced(lockKey, ownerId, 5);
+                        if (token.isEmpty()) {
+                            failedAttempts.increment();
+                            continue;
+                        }
+                        acquired.record(System.nanoTime() - attemptStartedAt);
+
+                        if (holders.incrementAndGet() != 1) {
+                            violations.incrementAndGet();
+                        }
+                        if (lastToken.getAndSet(token.get().getValue()) >= token.get().getValue()) {
+                            violations.incrementAndGet();
+                        }
+                        holders.decrementAndGet();
+                        tableLocks.release(lockKey, ownerId);
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - startedAt;
+
+        System.out.println(acquired.summary("table lock, " + THREADS + " virtual threads", elapsed));
+        System.out.printf("failed attempts: %d (%.1f per acquisition)%n",
+                failedAttempts.sum(), failedAttempts.sum() / (double) Math.max(1, acquired.count()));
+
+        assertThat(violations).hasValue(0);
+        assertThat(acquired.count()).isPositive();
+    }
+}
@@ -0,0 +1,123 @@
+package qodo.ru.servicebooking.infrastructure.persistence.repository.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.domain.entity.DistributedLock;
+import qodo.ru.servicebooking.domain.valueobjects.FencingToken;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository.ExtendResult;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.DistributedLockRepository.HeldLock;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Табличная реализация блокировок на реальном Postgres: upsert с перехватом
+ * истекшей блокировки, пакетный захват "все или ничего" и пакетное продление.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "booking.outbox.enabled=false")
+class DistributedLockRepositoryImplTests {
+
+    @Autowired
+    private DistributedLockRepositoryImpl tableLocks;
+
+    @Test
+    void acquiresFreeKeyAndRejectsActiveHolder() {
+        String lockKey = newKey();
+
+        Optional<FencingToken> token = tableLocks.tryAcquireFenced(lockKey, "owner-a", 30);
+
+        assertThat(token).isPresent();
+        assertThat(tableLocks.isHeld(token.get())).isTrue();
+        assertThat(tableLocks.findActiveLock(lockKey)).map(DistributedLock::getLockedBy).contains("owner-a");
+        assertThat(tableLocks.tryAcquireFenced(lockKey, "owner-b", 30)).isEmpty();
+
+        assertThat(tableLocks.release(lockKey, "owner-a")).isTrue();
+        assertThat(tableLocks.tryAcquireFenced(lockKey, "owner-b", 30)).isPresent();
+    }
+
+    @Test
+    void stealsExpiredLockWithNewerToken() throws InterruptedException {
+        String lockKey = newKey();
+        FencingToken stale = tableLocks.tryAcquireFenced(lockKey, "owner-a", 0).orElseThrow();
+        Thread.sleep(20);
+
+        FencingToken current = tableLocks.tryAcquireFenced(lockKey, "owner-b", 30).orElseThrow();
+
+        assertThat(current.isNewerThan(stale)).isTrue();
+        assertThat(tableLocks.isHeld(stale)).isFalse();
+        assertThat(tableLocks.isHeld(current)).isTrue();
+        assertThat(tableLocks.findActiveLock(lockKey)).map(DistributedLock::getLockedBy).contains("owner-b");
+    }
+
+    @Test
+    void acquiresAllKeysInSortedOrder() {
+        String first = newKey();
+        String second = newKey();
+
+        List<FencingToken> tokens = tableLocks.tryAcquireAll(List.of(second, first, second), "owner-a", 30);
+
+        assertThat(tokens).extracting(FencingToken::getLockKey)
+                .containsExactlyInAnyOrder(first, second)
+                .isSorted();
+        assertThat(tokens).allSatisfy(t -> assertThat(tableLocks.isHeld(t)).isTrue());
+    }
+
+    @Test
+    void acquiresNothingWhenOneKeyIsHeld() {
+        String free = newKey();
+        String held = newKey();
+        tableLocks.tryAcquireFenced(held, "owner-a", 30).orElseThrow();
+
+        assertThat(tableLocks.tryAcquireAll(List.of(free, held), "owner-b", 30)).isEmpty();
+
+        // Захваченный в том же statement свободный ключ отпущен
+        assertThat(tableLocks.findActiveLock(free)).isEmpty();
+        assertThat(tableLocks.tryAcquireFenced(free, "owner-c", 30)).isPresent();
+    }
+
+    @Test
+    void acquireAllStealsExpiredKeys() throws InterruptedException {
+        String expired = newKey();
+        String free = newKey();
+        FencingToken stale = tableLocks.tryAcquireFenced(expired, "owner-a", 0).orElseThrow();
+        Thread.sleep(20);
+
+        List<FencingToken> tokens = tableLocks.tryAcquireAll(List.of(expired, free), "owner-b", 30);
+
+        assertThat(tokens).hasSize(2);
+        assertThat(tokens).filteredOn(t -> t.getLockKey().equals(expired))
+                .singleElement()
+                .satisfies(t -> assertThat(t.isNewerThan(stale)).isTrue());
+        assertThat(tableLocks.isHeld(stale)).isFalse();
+    }
+
+    @Test
+    void extendAllMatchesKeyAndToken() throws InterruptedException {
+        String lockKey = newKey();
+        String other = newKey();
+        FencingToken stale = tableLocks.tryAcquireFenced(lockKey, "owner-a", 0).orElseThrow();
+        Thread.sleep(20);
+        FencingToken current = tableLocks.tryAcquireFenced(lockKey, "owner-b", 30).orElseThrow();
+        FencingToken otherToken = tableLocks.tryAcquireFenced(other, "owner-a", 30).orElseThrow();
+
+        HeldLock staleLock = new HeldLock(stale, "owner-a");
+        HeldLock currentLock = new HeldLock(current, "owner-b");
+        HeldLock otherLock = new HeldLock(otherToken, "owner-a");
+        ExtendResult result = tableLocks.extendAll(List.of(staleLock, currentLock, otherLock), 30);
+
+        // Тот же ключ продлен по новому токену - старый захват все равно потерян
+        assertThat(result.renewed()).containsExactlyInAnyOrder(currentLock, otherLock);
+        assertThat(result.lost()).containsExactly(staleLock);
+    }
+
+    private static String newKey() {
+        return DistributedLock.createSlotLockKey(UUID.randomUUID());
+    }
+}
@@ -0,0 +1,150 @@
+package qodo.ru.servicebooking.infrastructure.persistence.repository.impl;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.domain.entity.Booking;
+import qodo.ru.servicebooking.domain.enums.BookingStatus;
+import qodo.ru.servicebooking.infrastructure.persistence.repository.BookingRepository;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+
+/**
+ * Горячие запросы репозиториев: jOOQ DSL на каждый вызов (построение дерева + рендер SQL)
+ * против {@link QueryTemplate} самих репозиториев (BookingRepositoryImpl.FIND_BY_ID и др.),
+ * без копий шаблонов в тесте. На запрос меряются CPU потока
+ * (ThreadMXBean) и аллокации (com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes)
+ * на стороне приложения; время Postgres в CPU потока не входит.
+ *
+ * Запуск: ./gradlew benchmarkTest --tests '*QueryTemplateBenchmarkTests'
+ */
+@Tag("benchmark")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+        "booking.outbox.enabled=false",
+        "logging.level.qodo.ru.servicebooking=WARN"
+})
+class QueryTemplateBenchmarkTests {
+
+    private static final int WARMUP = 5_000;
+    private static final int QUERIES = 20_000;
+
+    private static final Table<Record> BOOKINGS = table("bookings");
+    private static final Table<Record> OUTBOX_EVENTS = table("outbox_events");
+    private static final Field<UUID> ID = field("id", UUID.class);
+    private static final Field<UUID> SLOT_ID = field("slot_id", UUID.class);
+    private static final Field<String> STATUS = field("status", String.class);
+    private static final Field<String> IDEMPOTENCY_KEY = field("idempotency_key", String.class);
+    private static final Field<LocalDateTime> PUBLISHED_AT = field("published_at", LocalDateTime.class);
+    private static final Field<String> LAST_ERROR = field("last_error", String.class);
+
+    // Тот же select-список, что у BookingRepositoryImpl.BOOKING_FIELDS: DSL на вызов
+    // строит тот же запрос, что отрендерен в шаблоне репозитория
+    private static final List<Field<Object>> BOOKING_FIELDS = Stream.of(
+            "id", "account_id", "slot_id", "client_user_id", "service_id", "price", "currency",
+            "duration_minutes", "status", "payment_status", "source", "idempotency_key", "client_name",
+            "client_phone", "service_name", "notes", "internal_notes", "scheduled_at", "created_at",
+            "updated_at", "confirmed_at", "cancelled_at", "completed_at", "version", "metadata"
+    ).map(name -> field(name)).toList();
+
+    @Autowired
+    private DSLContext dsl;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Test
+    void templatesAgainstDslPerCall() {
+        Booking booking = bookingRepository.save(newBooking());
+        UUID id = booking.getId();
+        String idempotencyKey = booking.getIdempotencyKey();
+        UUID slotId = booking.getSlotId();
+        UUID eventId = UUID.randomUUID();
+
+        assertThat(BookingRepositoryImpl.FIND_BY_ID.fetchOne(dsl, id).get(ID)).isEqualTo(id);
+        assertThat(dsl.select(BOOKING_FIELDS).from(BOOKINGS).where(ID.eq(id)).fetchOne().get(ID)).isEqualTo(id);
+
+        compare("findById",
+                () -> dsl.select(BOOKING_FIELDS).from(BOOKINGS).where(ID.eq(id)).fetchOne(),
+                () -> BookingRepositoryImpl.FIND_BY_ID.fetchOne(dsl, id));
+        compare("findByIdempotencyKey",
+                () -> dsl.select(BOOKING_FIELDS).from(BOOKINGS).where(IDEMPOTENCY_KEY.eq(idempotencyKey)).fetchOne(),
+                () -> BookingRepositoryImpl.FIND_BY_IDEMPOTENCY_KEY.fetchOne(dsl, idempotencyKey));
+        compare("existsActiveBookingForSlot",
+                () -> dsl.selectCount()
+                        .from(BOOKINGS)
+                        .where(SLOT_ID.eq(slotId))
+                        .and(STATUS.in(BookingStatus.CREATED.getValue(), BookingStatus.CONFIRMED.getValue()))
+                        .fetchOne(0, Integer.class),
+                () -> BookingRepositoryImpl.EXISTS_ACTIVE_FOR_SLOT.fetchOne(dsl, slotId));
+        compare("markAsPublished",
+                () -> dsl.update(OUTBOX_EVENTS)
+                        .set(PUBLISHED_AT, LocalDateTime.now())
+                        .set(LAST_ERROR, (String) null)
+                        .where(ID.eq(eventId))
+                        .and(PUBLISHED_AT.isNull())
+                        .execute(),
+                () -> OutboxRepositoryImpl.MARK_AS_PUBLISHED.execute(dsl, LocalDateTime.now(), eventId));
+    }
+
+    private static void compare(String statement, Supplier<?> perCallDsl, Supplier<?> template) {
+        Cost dslCost = measure(perCallDsl);
+        Cost templateCost = measure(template);
+        System.out.printf("%-28s DSL per call: cpu=%7.1fus alloc=%7d B   template: cpu=%7.1fus alloc=%7d B%n",
+                statement, dslCost.cpuMicros(), dslCost.allocatedBytes(),
+                templateCost.cpuMicros(), templateCost.allocatedBytes());
+    }
+
+    /**
+     * CPU и аллокации текущего потока на один запрос после прогрева.
+     */
+    private static Cost measure(Supplier<?> query) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.get();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < QUERIES; i++) {
+            query.get();
+        }
+        long cpu = threads.getCurrentThreadCpuTime() - cpuBefore;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return new Cost(cpu / 1_000.0 / QUERIES, allocated / QUERIES);
+    }
+
+    private static Booking newBooking() {
+        return Booking.builder()
+                .accountId(UUID.randomUUID())
+                .slotId(UUID.randomUUID())
+                .clientUserId(UUID.randomUUID())
+                .serviceId(UUID.randomUUID())
+                .price(new BigDecimal("1500.00"))
+                .durationMinutes(60)
+                .scheduledAt(LocalDateTime.now().plusDays(2).withNano(0))
+                .idempotencyKey(UUID.randomUUID().toString())
+                .metadata(Map.of("utm", "test"))
+                .build();
+    }
+
+    private record Cost(double cpuMicros, long allocatedBytes) {}
+}
@@ -0,0 +1,143 @@
+package qodo.ru.servicebooking.infrastructure.reservation;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import qodo.ru.servicebooking.TestcontainersConfiguration;
+import qodo.ru.servicebooking.benchmark.Latencies;
+import qodo.ru.servicebooking.domain.entity.Booking;
+import qodo.ru.servicebooking.domain.exception.LockAcquisitionException;
+import qodo.ru.servicebooking.domain.exception.SlotAlreadyBookedException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Пропускная способность создания бронирований: без распределенной блокировки
+ * (двойную запись отсекают ux_bookings_slot_active и ex_bookings_account_time_overlap)
+ * против пути под блокировкой слота.
+ *
+ * Два профиля: разные слоты (чистая стоимость пути) и гонка за один слот
+ * (ровно одна запись на слот, остальные - SlotAlreadyBookedException или таймаут блокировки).
+ *
+ * Запуск: ./gradlew benchmarkTest --tests '*ReservationThroughputBenchmarkTests'
+ */
+@Tag("benchmark")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "logging.level.qodo.ru.servicebooking=WARN")
+class ReservationThroughputBenchmarkTests {
+
+    private static final int THREADS = 32;
+    private static final Duration DURATION = Duration.ofSeconds(15);
+    private static final int RACERS_PER_SLOT = 8;
+    private static final int RACED_SLOTS = 200;
+
+    @Autowired
+    private SlotReservationService reservations;
+
+    @Test
+    void createThroughputWithAndWithoutLock() throws Exception {
+        uncontended("lock-free create, distinct slots", (booking, owner) -> reservations.reserve(booking));
+        uncontended("locked create, distinct slots", reservations::reserveLocked);
+
+        raced("lock-free create, " + RACERS_PER_SLOT + " racers per slot", (booking, owner) -> reservations.reserve(booking));
+        raced("locked create, " + RACERS_PER_SLOT + " racers per slot", reservations::reserveLocked);
+    }
+
+    private void uncontended(String name, BiFunction<Booking, String, Booking> create) throws Exception {
+        Latencies created = new Latencies();
+        List<Future<?>> workers = new ArrayList<>();
+
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + DURATION.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < THREADS; t++) {
+                String ownerId = name + "-" + t;
+                workers.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        Booking booking = newBooking(UUID.randomUUID(), UUID.randomUUID(), randomStart());
+                        long attemptStartedAt = System.nanoTime();
+                        create.apply(booking, ownerId);
+                        created.record(System.nanoTime() - attemptStartedAt);
+                    }
+                }));
+            }
+        }
+        join(workers);
+        System.out.println(created.summary(name, System.nanoTime() - startedAt));
+        assertThat(created.count()).isPositive();
+    }
+
+    private void raced(String name, BiFunction<Booking, String, Booking> create) throws Exception {
+        Latencies attempts = new Latencies();
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+
+        long startedAt = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int s = 0; s < RACED_SLOTS; s++) {
+                UUID accountId = UUID.randomUUID();
+                UUID slotId = UUID.randomUUID();
+                LocalDateTime scheduledAt = randomStart();
+                for (int r = 0; r < RACERS_PER_SLOT; r++) {
+                    String ownerId = name + "-" + s + "-" + r;
+                    workers.add(executor.submit(() -> {
+                        long attemptStartedAt = System.nanoTime();
+                        try {
+                            create.apply(newBooking(accountId, slotId, scheduledAt), ownerId);
+                            winners.incrementAndGet();
+                        } catch (SlotAlreadyBookedException | LockAcquisitionException e) {
+                            rejected.incrementAndGet();
+                        }
+                        attempts.record(System.nanoTime() - attemptStartedAt);
+                    }));
+                }
+            }
+        }
+        join(workers);
+        System.out.println(attempts.summary(name, System.nanoTime() - startedAt));
+        System.out.printf("%-40s winners=%d rejected=%d%n", name, winners.get(), rejected.get());
+
+        assertThat(winners).hasValue(RACED_SLOTS);
+    }
+
+    private static LocalDateTime randomStart() {
+        return LocalDateTime.now().plusDays(1 + ThreadLocalRandom.current().nextInt(60))
+                .withHour(10).withMinute(0).withSecond(0).withNano(0);
+    }
+
+    private static Booking newBooking(UUID accountId, UUID slotId, LocalDateTime scheduledAt) {
+        return Booking.builder()
+                .accountId(accountId)
+                .slotId(slotId)
+                .clientUserId(UUID.randomUUID())
+                .serviceId(UUID.randomUUID())
+                .price(new BigDecimal("1500.00"))
+                .durationMinutes(60)
+                .scheduledAt(scheduledAt)
+                .idempotencyKey(UUID.randomUUID().toString())
+                .build();
+    }
+
+    private static void join(List<Future<?>> workers) throws InterruptedException, ExecutionException {
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+    }
+}
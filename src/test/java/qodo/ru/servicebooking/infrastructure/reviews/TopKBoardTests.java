@@ -0,0 +1,146 @@
+package qodo.ru.servicebooking.infrastructure.reviews;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import qodo.ru.servicebooking.domain.entity.VisitHistory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKBoardTests {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    /**
+     * Порядок ORDER BY rating DESC, review_at DESC, booking_id в PostgreSQL.
+     * uuid сравнивается побайтово без знака - как строки в нижнем регистре.
+     */
+    private static final Comparator<VisitHistory> DATABASE_ORDER = Comparator
+            .comparing(VisitHistory::getRating, Comparator.reverseOrder())
+            .thenComparing(VisitHistory::getReviewAt, Comparator.nullsFirst(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(visit -> visit.getBookingId().toString());
+
+    @RepeatedTest(20)
+    void memoryAnswersMatchBruteForce() {
+        Random random = new Random();
+        int capacity = 1 + random.nextInt(8);
+        TopKBoard board = new TopKBoard(capacity);
+        Map<UUID, VisitHistory> database = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+
+        for (int step = 0; step < 2_000; step++) {
+            VisitHistory visit = ids.isEmpty() || random.nextInt(3) == 0
+                    ? newVisit(random, ids)
+                    : changed(random, database.get(ids.get(random.nextInt(ids.size()))));
+            database.put(visit.getBookingId(), visit);
+            board.apply(visit.toBuilder().build());
+
+            int minRating = 1 + random.nextInt(5);
+            int limit = 1 + random.nextInt(capacity);
+            board.loadIfNeeded(() -> bruteForce(database, 1, capacity));
+            List<VisitHistory> fromMemory = board.top(minRating, limit);
+            if (fromMemory != null) {
+                assertThat(fromMemory)
+                        .as("step %d, capacity %d, minRating %d, limit %d", step, capacity, minRating, limit)
+                        .isEqualTo(bruteForce(database, minRating, limit));
+            }
+        }
+    }
+
+    @Test
+    void tiesAreOrderedByBookingIdAsUnsignedBytes() {
+        UUID low = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID high = UUID.fromString("80000000-0000-0000-0000-000000000000");
+        TopKBoard board = new TopKBoard(1);
+
+        board.loadIfNeeded(() -> List.of(visit(low, 5, BASE), visit(high, 5, BASE)));
+
+        // uuid 8000... в PostgreSQL больше 0000..., хотя UUID.compareTo считает его отрицательным
+        assertThat(TopKBoard.compareUuid(low, high)).isNegative();
+        assertThat(board.top(1, 1)).extracting(VisitHistory::getBookingId).containsExactly(low);
+    }
+
+    @Test
+    void unloadedBoardDefersToDatabase() {
+        TopKBoard board = new TopKBoard(4);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(board.top(1, 1)).isNull();
+
+        board.loadIfNeeded(() -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+        board.loadIfNeeded(List::of);
+
+        assertThat(loads).hasValue(1);
+        assertThat(board.top(1, 4)).isEmpty();
+    }
+
+    @Test
+    void staleBoardIsReloaded() throws InterruptedException {
+        TopKBoard board = new TopKBoard(4, Duration.ofMillis(1));
+        UUID fromOtherNode = UUID.randomUUID();
+
+        board.loadIfNeeded(List::of);
+        Thread.sleep(5);
+        board.loadIfNeeded(() -> List.of(visit(fromOtherNode, 5, BASE)));
+
+        assertThat(board.top(1, 4)).extracting(VisitHistory::getBookingId).containsExactly(fromOtherNode);
+    }
+
+    private static List<VisitHistory> bruteForce(Map<UUID, VisitHistory> database, int minRating, int limit) {
+        return database.values().stream()
+                .filter(visit -> visit.getRating() != null && visit.getReview() != null)
+                .filter(visit -> visit.getRating() >= minRating)
+                .sorted(DATABASE_ORDER)
+                .limit(limit)
+                .map(visit -> visit.toBuilder().build())
+                .toList();
+    }
+
+    private static VisitHistory newVisit(Random random, List<UUID> ids) {
+        UUID bookingId = UUID.randomUUID();
+        ids.add(bookingId);
+        return withReview(random, visit(bookingId, 1 + random.nextInt(5), null));
+    }
+
+    private static VisitHistory changed(Random random, VisitHistory current) {
+        return switch (random.nextInt(4)) {
+            case 0 -> current.toBuilder().review(null).build();
+            case 1 -> current.toBuilder().rating(1 + random.nextInt(5)).build();
+            default -> withReview(random, current);
+        };
+    }
+
+    /**
+     * Мало различных дат и оценок - много полных совпадений, на которых решает booking_id.
+     */
+    private static VisitHistory withReview(Random random, VisitHistory visit) {
+        LocalDateTime reviewAt = random.nextInt(10) == 0 ? null : BASE.plusMinutes(random.nextInt(3));
+        return visit.toBuilder()
+                .rating(1 + random.nextInt(5))
+                .review("review")
+                .reviewAt(reviewAt)
+                .build();
+    }
+
+    private static VisitHistory visit(UUID bookingId, int rating, LocalDateTime reviewAt) {
+        return VisitHistory.builder()
+                .bookingId(bookingId)
+                .rating(rating)
+                .review(reviewAt != null ? "review" : null)
+                .reviewAt(reviewAt)
+                .build();
+    }
+}